@@ -0,0 +1,131 @@
+import gradebook.Course;
+import gradebook.CourseCatalog;
+import gradebook.Student;
+import gradebook.StudentStore;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.collections.ObservableList;
+import javafx.geometry.Pos;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Switches the student table between the whole roster and the final grades
+ * of one course.
+ *
+ * Each course gets its own list view, filter chips and search index the
+ * first time it is shown, and keeps them, so switching back and forth only
+ * swaps the table's items and the two slots holding the chips and the
+ * search box; nothing is reloaded or rescanned. Views that are not shown
+ * keep following their store but leave the table alone.
+ */
+final class CourseSwitcher {
+
+    private record View(StudentStore store, ObservableList<Student> items, GradeFilterChips chips,
+                        StudentSearch search) {}
+
+    // A combo box entry: a course, or the roster when course is null
+    private record Choice(Course course) {
+        @Override
+        public String toString() {
+            return course == null ? "All students" : course.toString();
+        }
+    }
+
+    private final CourseCatalog catalog;
+    private final TableView<Student> table;
+    private final Consumer<StudentSearch> styleSearch;
+    private final Map<Course, View> views = new HashMap<>();
+    private final View rosterView;
+    private final ComboBox<Choice> box = new ComboBox<>();
+    private final StackPane chipsSlot = new StackPane();
+    private final HBox searchSlot = new HBox(15);
+    private final ReadOnlyBooleanWrapper viewingCourse = new ReadOnlyBooleanWrapper();
+    private Runnable onSwitch = () -> {};
+    private View current;
+
+    CourseSwitcher(CourseCatalog catalog, TableView<Student> table, ObservableList<Student> rosterItems,
+                   Consumer<StudentSearch> styleSearch) {
+        this.catalog = catalog;
+        this.table = table;
+        this.styleSearch = styleSearch;
+        rosterView = createView(catalog.getRoster(), rosterItems);
+        current = rosterView;
+        chipsSlot.setAlignment(Pos.CENTER_LEFT);
+        searchSlot.setAlignment(Pos.CENTER_LEFT);
+        show(rosterView);
+        box.setPrefWidth(260);
+        refreshCourses();
+        box.valueProperty().addListener((obs, oldChoice, newChoice) -> {
+            if (newChoice != null) select(newChoice.course());
+        });
+    }
+
+    ComboBox<?> getBox() { return box; }
+
+    /** Holds the active view's filter chips. */
+    StackPane getChipsSlot() { return chipsSlot; }
+
+    /** Holds the active view's search box and status. */
+    HBox getSearchSlot() { return searchSlot; }
+
+    /** True while a course rather than the roster is shown; roster edits are disabled then. */
+    ReadOnlyBooleanProperty viewingCourseProperty() { return viewingCourse.getReadOnlyProperty(); }
+
+    /** The store the table shows. */
+    StudentStore currentStore() { return current.store(); }
+
+    /** The course shown, or null for the roster. */
+    Course currentCourse() { return box.getValue() == null ? null : box.getValue().course(); }
+
+    /** Called after every switch, e.g. to refresh the summary. */
+    void setOnSwitch(Runnable onSwitch) { this.onSwitch = onSwitch; }
+
+    /** Re-reads the catalog's courses, e.g. after it has been loaded. */
+    void refreshCourses() {
+        Choice selected = box.getValue();
+        ObservableList<Choice> items = box.getItems();
+        items.setAll(new Choice(null));
+        for (Course course : catalog.getCourses()) {
+            items.add(new Choice(course));
+        }
+        box.setValue(selected != null && items.contains(selected) ? selected : items.get(0));
+        box.setVisible(items.size() > 1);
+        box.setManaged(items.size() > 1);
+    }
+
+    private void select(Course course) {
+        View next = course == null ? rosterView
+                : views.computeIfAbsent(course, c -> createView(c.getFinals(), new StudentListView(c.getFinals())));
+        if (next == current) return;
+        // The hidden view goes back to its full list so it never touches the table
+        current.chips().reset();
+        current.search().clear();
+        current = next;
+        table.getSelectionModel().clearSelection();
+        table.setItems(next.items());
+        show(next);
+        viewingCourse.set(course != null);
+        onSwitch.run();
+    }
+
+    private View createView(StudentStore store, ObservableList<Student> items) {
+        GradeFilterChips chips = new GradeFilterChips(store, table, items);
+        StudentSearch search = new StudentSearch(store, table, chips::currentItems);
+        chips.setOnSelect(search::clear);
+        search.setOnSearch(chips::reset);
+        styleSearch.accept(search);
+        return new View(store, items, chips, search);
+    }
+
+    private void show(View view) {
+        chipsSlot.getChildren().setAll(view.chips());
+        searchSlot.getChildren().setAll(view.search().getField(), view.search().getStatus());
+    }
+}
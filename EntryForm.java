@@ -0,0 +1,149 @@
+import gradebook.GradeInput;
+import gradebook.Metrics;
+import javafx.animation.FadeTransition;
+import javafx.animation.PauseTransition;
+import javafx.animation.SequentialTransition;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.css.PseudoClass;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+
+/**
+ * Keyboard flow of the add-student form, built for entering marks in one
+ * continuous stream: Enter in the name field moves to the grade field, and
+ * Enter in the grade field adds the student and goes back to the name field.
+ *
+ * The grade is checked on every keystroke with {@link GradeInput}, which
+ * never throws, and every outcome (a bad grade, a missing name, a student
+ * added) is shown in an inline feedback label that fades out by itself.
+ * Nothing here opens a dialog, so the next entry can always be typed.
+ *
+ * In rapid-entry mode the fields are cleared the moment a student is added
+ * instead of by the caller's animation, so typing can go straight on.
+ */
+final class EntryForm {
+
+    /** Adds a student with an already validated grade. */
+    interface Submitter {
+        /** False if the student could not be added; the submitter explains why via {@link #showProblem}. */
+        boolean submit(String name, double grade);
+    }
+
+    private static final Metrics.Counter COMMITS = Metrics.shared().counter("entry.commits");
+    private static final Metrics.Counter REJECTED = Metrics.shared().counter("entry.rejected");
+
+    private static final PseudoClass PROBLEM = PseudoClass.getPseudoClass("problem");
+
+    private final TextField nameField;
+    private final TextField gradeField;
+    private final Label feedback = new Label();
+    private final Submitter submitter;
+    private final BooleanProperty rapid = new SimpleBooleanProperty();
+    // Shows a message for a while, then fades it out; restarted rather than recreated per entry
+    private final SequentialTransition fadeOut;
+    private boolean showingProblem;
+    private long added;
+
+    EntryForm(TextField nameField, TextField gradeField, Submitter submitter) {
+        this.nameField = nameField;
+        this.gradeField = gradeField;
+        this.submitter = submitter;
+        feedback.setWrapText(true);
+        feedback.getStyleClass().add("entry-feedback");
+        FadeTransition fade = new FadeTransition(Duration.millis(400), feedback);
+        fade.setToValue(0);
+        fadeOut = new SequentialTransition(new PauseTransition(Duration.seconds(2.5)), fade);
+
+        nameField.setOnAction(e -> advance());
+        gradeField.setOnAction(e -> commit());
+        gradeField.textProperty().addListener((obs, oldText, newText) -> {
+            String message = GradeInput.check(newText).getMessage();
+            if (message != null) {
+                showProblem(message, false);
+            } else if (showingProblem) {
+                hideFeedback();
+            }
+        });
+    }
+
+    /** Inline feedback under the form. */
+    Label getFeedback() { return feedback; }
+
+    BooleanProperty rapidProperty() { return rapid; }
+
+    boolean isRapid() { return rapid.get(); }
+
+    /** Shows a problem for a few seconds. */
+    void showProblem(String message) {
+        showProblem(message, true);
+    }
+
+    /** Enter in the name field: on to the grade, unless the name is missing. */
+    void advance() {
+        if (nameField.getText().isBlank()) {
+            showProblem("Enter a name", true);
+            return;
+        }
+        gradeField.requestFocus();
+        gradeField.selectAll();
+    }
+
+    /** Enter in the grade field: adds the student if the name and grade are valid. */
+    void commit() {
+        String name = nameField.getText().strip();
+        String gradeText = gradeField.getText();
+        if (name.isEmpty()) {
+            REJECTED.increment();
+            showProblem("Enter a name", true);
+            nameField.requestFocus();
+            return;
+        }
+        GradeInput.Status status = GradeInput.check(gradeText);
+        if (status != GradeInput.Status.VALID) {
+            REJECTED.increment();
+            showProblem(status == GradeInput.Status.EMPTY ? "Enter a grade" : status.getMessage(), true);
+            gradeField.requestFocus();
+            return;
+        }
+        double grade = GradeInput.parse(gradeText);
+        if (!submitter.submit(name, grade)) {
+            REJECTED.increment();
+            return;
+        }
+        COMMITS.increment();
+        added++;
+        show(String.format("✓ Added %s · %.1f   (%,d this session)", name, grade, added), false);
+        fadeOut.playFromStart();
+        if (isRapid()) {
+            nameField.clear();
+            gradeField.clear();
+        }
+        nameField.requestFocus();
+    }
+
+    // Problems found while typing stay until fixed, those found on Enter fade out
+    private void showProblem(String message, boolean fade) {
+        show("⚠ " + message, true);
+        if (fade) {
+            fadeOut.playFromStart();
+        } else {
+            fadeOut.stop();
+        }
+    }
+
+    private void show(String message, boolean problem) {
+        feedback.setText(message);
+        if (problem != showingProblem) {
+            feedback.pseudoClassStateChanged(PROBLEM, problem);
+            showingProblem = problem;
+        }
+        feedback.setOpacity(1);
+    }
+
+    private void hideFeedback() {
+        fadeOut.stop();
+        feedback.setText(null);
+    }
+}
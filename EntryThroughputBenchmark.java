@@ -0,0 +1,134 @@
+import gradebook.Student;
+import gradebook.StudentBatch;
+import gradebook.StudentStore;
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.event.Event;
+import javafx.scene.Scene;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+import java.util.Arrays;
+
+/**
+ * Types students into the rapid-entry form as fast as the UI takes them
+ * and reports sustained entries per second.
+ *
+ * Usage: java ... EntryThroughputBenchmark [entries] [existing rows] [entries per frame]
+ *
+ * Every entry is scripted as real key events: one KEY_TYPED per character
+ * of the name, Enter, the grade's characters and Enter, fired at the
+ * focused field. A number of entries is typed on each pulse, so the
+ * frame times show what a burst of typing costs the table and the form.
+ */
+public class EntryThroughputBenchmark extends Application {
+
+    private static final int WARMUP_ENTRIES = 2_000;
+
+    @Override
+    public void start(Stage stage) {
+        var args = getParameters().getRaw();
+        int entries = args.size() > 0 ? Integer.parseInt(args.get(0)) : 20_000;
+        int existing = args.size() > 1 ? Integer.parseInt(args.get(1)) : 100_000;
+        int perFrame = args.size() > 2 ? Integer.parseInt(args.get(2)) : 10;
+
+        StudentStore store = new StudentStore();
+        StudentBatch batch = new StudentBatch(Math.max(1, existing));
+        for (int i = 0; i < existing; i++) {
+            batch.add("Student " + i, (i * 37 % 1001) / 10.0);
+        }
+        store.addAll(batch);
+
+        TableView<Student> table = new TableView<>(new StudentListView(store));
+        table.getStyleClass().add(StudentTableCells.TABLE_STYLE_CLASS);
+        TableColumn<Student, String> nameColumn = new TableColumn<>("Name");
+        TableColumn<Student, Double> gradeColumn = new TableColumn<>("Grade");
+        TableColumn<Student, String> letterGradeColumn = new TableColumn<>("Letter");
+        StudentTableCells.configure(nameColumn, gradeColumn, letterGradeColumn);
+        table.getColumns().add(nameColumn);
+        table.getColumns().add(gradeColumn);
+        table.getColumns().add(letterGradeColumn);
+
+        TextField nameField = new TextField();
+        TextField gradeField = new TextField();
+        EntryForm form = new EntryForm(nameField, gradeField, (name, grade) -> {
+            store.add(name, grade);
+            table.scrollTo(table.getItems().size() - 1);
+            return true;
+        });
+        form.rapidProperty().set(true);
+
+        Scene scene = new Scene(new VBox(8, nameField, gradeField, form.getFeedback(), table), 600, 900);
+        scene.getStylesheets().add(getClass().getResource(StudentTableCells.STYLESHEET).toExternalForm());
+        stage.setScene(scene);
+        stage.show();
+        nameField.requestFocus();
+
+        int total = WARMUP_ENTRIES + entries;
+        long[] frameNanos = new long[total / perFrame + 2];
+        new AnimationTimer() {
+            private int typed;
+            private int frames;
+            private long last;
+            private long measuredStart;
+            private long busyNanos;
+
+            @Override
+            public void handle(long now) {
+                if (typed > WARMUP_ENTRIES && frames < frameNanos.length) {
+                    frameNanos[frames++] = now - last;
+                }
+                last = now;
+                if (typed >= total) {
+                    stop();
+                    report(entries, existing, perFrame, System.nanoTime() - measuredStart, busyNanos,
+                            Arrays.copyOf(frameNanos, frames), store.size() == existing + total);
+                    Platform.exit();
+                    return;
+                }
+                if (typed == WARMUP_ENTRIES) measuredStart = System.nanoTime();
+                long start = System.nanoTime();
+                for (int i = 0; i < perFrame && typed < total; i++, typed++) {
+                    type(scene, "Typed " + typed);
+                    type(scene, Double.toString((typed * 7 % 1001) / 10.0));
+                }
+                if (typed > WARMUP_ENTRIES) busyNanos += System.nanoTime() - start;
+            }
+        }.start();
+    }
+
+    // Keys go to whichever field the form has focused, as they would from a keyboard
+    private static void type(Scene scene, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            String character = String.valueOf(text.charAt(i));
+            Event.fireEvent(scene.getFocusOwner(), new KeyEvent(KeyEvent.KEY_TYPED, character, "",
+                    KeyCode.UNDEFINED, false, false, false, false));
+        }
+        Event.fireEvent(scene.getFocusOwner(), new KeyEvent(KeyEvent.KEY_PRESSED, "", "",
+                KeyCode.ENTER, false, false, false, false));
+    }
+
+    private static void report(int entries, int existing, int perFrame, long elapsedNanos, long busyNanos,
+                               long[] frameNanos, boolean complete) {
+        long[] sorted = frameNanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%,d entries into %,d rows, %d per frame%s%n", entries, existing, perFrame,
+                complete ? "" : " (SOME ENTRIES WERE LOST)");
+        System.out.printf("  %,.0f entries/s sustained, %.1f us of UI work per entry%n",
+                entries / (elapsedNanos / 1e9), busyNanos / 1e3 / entries);
+        if (sorted.length > 0) {
+            System.out.printf("  frames p50 %.2f ms  p99 %.2f ms  max %.2f ms%n",
+                    percentile(sorted, 50), percentile(sorted, 99), sorted[sorted.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1e6;
+    }
+}
@@ -0,0 +1,246 @@
+import gradebook.GradeIndex;
+import gradebook.GradingScale;
+import gradebook.LetterGrade;
+import gradebook.Student;
+import gradebook.StudentStore;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.TableView;
+import javafx.scene.control.Toggle;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ToggleGroup;
+import javafx.scene.layout.HBox;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Filter chips for the student table: letter bands of the store's grading
+ * scale and top/bottom N. A band chip covers every letter of the band, so
+ * on a plus/minus scale "B" shows B+, B and B-; bands the scale does not
+ * use are hidden.
+ *
+ * A chip shows a rank range of a {@link GradeIndex} through a lazy list
+ * that looks up only the rows the table draws, so selecting "B" on a
+ * million-row roster costs two O(log n) range counts rather than a sort or
+ * a scan. While a chip is active, every roster change swaps in a fresh
+ * range view, keeping the table consistent with the index.
+ */
+final class GradeFilterChips extends HBox implements StudentStore.Listener {
+
+    static final String CHIP_STYLE_CLASS = "filter-chip";
+    static final int TOP_N = 50;
+
+    private enum Filter {
+        ALL("All", -1),
+        A("A", 0),
+        B("B", 1),
+        C("C", 2),
+        D("D", 3),
+        F("F", 4),
+        TOP("Top " + TOP_N, -1),
+        BOTTOM("Bottom " + TOP_N, -1);
+
+        final String label;
+        // LetterGrade band, or -1 for chips that are not a band
+        final int band;
+
+        Filter(String label, int band) {
+            this.label = label;
+            this.band = band;
+        }
+    }
+
+    private final StudentStore store;
+    private final GradeIndex index;
+    private final TableView<Student> table;
+    private final ObservableList<Student> allStudents;
+    private final ToggleGroup group = new ToggleGroup();
+    private final ToggleButton allChip;
+    private final Map<Filter, ToggleButton> chips = new EnumMap<>(Filter.class);
+    // Lowest grade of each band on the current scale, NaN if unused
+    private final double[] bandBounds = new double[LetterGrade.BANDS];
+    private Runnable onSelect = () -> {};
+    private Filter filter = Filter.ALL;
+    private boolean resetting;
+
+    GradeFilterChips(StudentStore store, TableView<Student> table, ObservableList<Student> allStudents) {
+        super(8);
+        this.store = store;
+        this.table = table;
+        this.allStudents = allStudents;
+        this.index = new GradeIndex(store);
+
+        ToggleButton first = null;
+        for (Filter value : Filter.values()) {
+            ToggleButton chip = new ToggleButton(value.label);
+            chip.getStyleClass().add(CHIP_STYLE_CLASS);
+            chip.setUserData(value);
+            chip.setToggleGroup(group);
+            getChildren().add(chip);
+            chips.put(value, chip);
+            if (first == null) first = chip;
+        }
+        allChip = first;
+        applyScale();
+        group.selectToggle(allChip);
+        group.selectedToggleProperty().addListener((obs, oldToggle, newToggle) -> select(oldToggle, newToggle));
+        store.addListener(this);
+    }
+
+    /** Called when the user picks a chip, e.g. to clear a name search. */
+    void setOnSelect(Runnable onSelect) { this.onSelect = onSelect; }
+
+    /** The table's items for the active chip. */
+    ObservableList<Student> currentItems() {
+        return filter == Filter.ALL ? allStudents : view(filter);
+    }
+
+    /** Goes back to "All" without touching the table or calling onSelect. */
+    void reset() {
+        resetting = true;
+        try {
+            group.selectToggle(allChip);
+            filter = Filter.ALL;
+        } finally {
+            resetting = false;
+        }
+    }
+
+    @Override
+    public void rowsAdded(int fromRow, int toRow) {
+        refresh();
+    }
+
+    @Override
+    public void rowsRemoved(int[] rows, int count) {
+        refresh();
+    }
+
+    @Override
+    public void rowsInserted(int[] rows, int count) {
+        refresh();
+    }
+
+    @Override
+    public void gradeChanged(int row, double oldGrade, double newGrade) {
+        refresh();
+    }
+
+    @Override
+    public void gradesChanged(int[] rows, int count, double[] oldGrades, double[] newGrades) {
+        refresh();
+    }
+
+    @Override
+    public void nameChanged(int row) {
+        refresh();
+    }
+
+    @Override
+    public void scaleChanged() {
+        applyScale();
+        if (filter.band >= 0 && Double.isNaN(bandBounds[filter.band])) {
+            // The active band is gone; fall back to the whole roster
+            reset();
+            table.setItems(allStudents);
+        } else {
+            refresh();
+        }
+    }
+
+    // Bands and chip labels from the store's scale, e.g. "A · 93+" and "F · <65"
+    private void applyScale() {
+        GradingScale scale = store.getScale();
+        Arrays.fill(bandBounds, Double.NaN);
+        for (LetterGrade letter : scale.getLetters()) {
+            // Letters run highest first, so the band's lowest letter comes last
+            bandBounds[letter.getBand()] = scale.getMinimum(letter);
+        }
+        for (Filter value : Filter.values()) {
+            if (value.band < 0) continue;
+            ToggleButton chip = chips.get(value);
+            boolean used = !Double.isNaN(bandBounds[value.band]);
+            chip.setVisible(used);
+            chip.setManaged(used);
+            if (!used) continue;
+            double bound = bandBounds[value.band];
+            chip.setText(bound > 0
+                    ? value.label + " · " + formatCutoff(bound) + "+"
+                    : value.label + " · <" + formatCutoff(upperBound(value.band)));
+        }
+    }
+
+    private static String formatCutoff(double grade) {
+        double rounded = Math.round(grade * 10) / 10.0;
+        return rounded == Math.rint(rounded) ? Long.toString((long) rounded) : Double.toString(rounded);
+    }
+
+    // Lowest grade of the next higher band in use, or +infinity for the top band
+    private double upperBound(int band) {
+        for (int higher = band - 1; higher >= 0; higher--) {
+            if (!Double.isNaN(bandBounds[higher])) return bandBounds[higher];
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private void select(Toggle oldToggle, Toggle newToggle) {
+        if (newToggle == null) {
+            // Clicking the active chip would leave none selected
+            group.selectToggle(oldToggle);
+            return;
+        }
+        if (resetting) return;
+        filter = (Filter) newToggle.getUserData();
+        onSelect.run();
+        table.setItems(currentItems());
+    }
+
+    private void refresh() {
+        if (filter != Filter.ALL) {
+            table.setItems(view(filter));
+        }
+    }
+
+    private RangeView view(Filter filter) {
+        int size = index.size();
+        return switch (filter) {
+            case A, B, C, D, F -> {
+                double upper = upperBound(filter.band);
+                yield new RangeView(index.countBelow(bandBounds[filter.band]),
+                        upper == Double.POSITIVE_INFINITY ? size : index.countBelow(upper), true);
+            }
+            case TOP -> new RangeView(Math.max(0, size - TOP_N), size, true);
+            case BOTTOM -> new RangeView(0, Math.min(TOP_N, size), false);
+            case ALL -> throw new IllegalArgumentException("All has no range");
+        };
+    }
+
+    /** Read-only list over grade ranks [from, to), highest or lowest grade first. */
+    private final class RangeView extends ObservableListBase<Student> {
+        private final int from;
+        private final int to;
+        private final boolean descending;
+
+        RangeView(int from, int to, boolean descending) {
+            this.from = from;
+            this.to = to;
+            this.descending = descending;
+        }
+
+        @Override
+        public Student get(int i) {
+            if (i < 0 || i >= size()) {
+                throw new IndexOutOfBoundsException(i);
+            }
+            int id = index.idAt(descending ? to - 1 - i : from + i);
+            return store.get(store.rowOf(id));
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import gradebook.GradeDistribution;
+import gradebook.GradeHistogram;
+import gradebook.GradingScale;
+import gradebook.LetterGrade;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Grade-distribution bar chart drawn on a canvas. The 0.1-step buckets of
+ * a {@link GradeHistogram} are grouped into 2-point bins, each coloured by
+ * the letter band of its lowest grade on the current {@link GradingScale}.
+ * On the standard scale the bin edges fall on the letter boundaries, so
+ * every bar has a single letter.
+ *
+ * {@link #prepare} does the O(buckets) binning off the FX thread; {@link #show}
+ * only draws, so a redraw costs the same for ten students or ten million.
+ */
+final class GradeHistogramChart extends Canvas {
+
+    /** Binned counts, each bin's letter band, and quartile markers, ready to draw. */
+    record Data(long[] bins, byte[] bands, double lowerQuartile, double median, double upperQuartile) {}
+
+    private static final int BINS = 50; // 2.0 grade points each
+    private static final int BIN_WIDTH = (GradeHistogram.BUCKETS - 1) / BINS;
+
+    static final Data EMPTY = new Data(new long[BINS], bands(GradingScale.STANDARD), 0, 0, 0);
+
+    // Same colours as the letter cells in the stylesheet, A to F
+    private static final Color[] LETTER_COLORS = {
+        Color.web("#4CAF50"), Color.web("#8BC34A"), Color.web("#FFC107"),
+        Color.web("#FF9800"), Color.web("#F44336")
+    };
+
+    private static final double AXIS_HEIGHT = 18;
+
+    GradeHistogramChart(double width, double height) {
+        super(width, height);
+        show(EMPTY);
+    }
+
+    static Data prepare(GradeDistribution distribution, GradingScale scale) {
+        GradeHistogram histogram = distribution.getHistogram();
+        long[] bins = new long[BINS];
+        for (int bucket = 0; bucket < GradeHistogram.BUCKETS; bucket++) {
+            // 100.0 shares the top bin with 98.0-99.9
+            bins[Math.min(BINS - 1, bucket / BIN_WIDTH)] += histogram.getCount(bucket);
+        }
+        return new Data(bins, bands(scale), distribution.getPercentile(25), distribution.getMedian(),
+                distribution.getPercentile(75));
+    }
+
+    void show(Data data) {
+        GraphicsContext g = getGraphicsContext2D();
+        double width = getWidth();
+        double plotHeight = getHeight() - AXIS_HEIGHT;
+        g.clearRect(0, 0, width, getHeight());
+
+        long[] bins = data.bins();
+        long max = 0;
+        for (long count : bins) max = Math.max(max, count);
+
+        double barWidth = width / bins.length;
+        for (int i = 0; i < bins.length; i++) {
+            if (bins[i] == 0) continue;
+            double height = plotHeight * bins[i] / max;
+            g.setFill(LETTER_COLORS[data.bands()[i]]);
+            g.fillRect(i * barWidth + 0.5, plotHeight - height, Math.max(1, barWidth - 1), height);
+        }
+
+        g.setStroke(Color.rgb(255, 255, 255, 0.6));
+        g.setLineWidth(1);
+        g.strokeLine(0, plotHeight + 0.5, width, plotHeight + 0.5);
+        g.setFill(Color.WHITE);
+        g.setFont(Font.font(11));
+        g.setTextBaseline(VPos.TOP);
+        for (int grade = 0; grade <= 100; grade += 20) {
+            double x = grade / 100.0 * width;
+            g.setTextAlign(grade == 0 ? TextAlignment.LEFT : grade == 100 ? TextAlignment.RIGHT : TextAlignment.CENTER);
+            g.fillText(Integer.toString(grade), x, plotHeight + 3);
+        }
+
+        if (max > 0) {
+            g.setStroke(Color.WHITE);
+            g.setLineWidth(2);
+            marker(g, data.median(), plotHeight);
+            g.setLineWidth(1);
+            g.setLineDashes(4, 3);
+            marker(g, data.lowerQuartile(), plotHeight);
+            marker(g, data.upperQuartile(), plotHeight);
+            g.setLineDashes(null);
+        }
+    }
+
+    private void marker(GraphicsContext g, double grade, double plotHeight) {
+        double x = Math.round(grade / 100.0 * getWidth()) + 0.5;
+        g.strokeLine(x, 0, x, plotHeight);
+    }
+
+    // Index into LETTER_COLORS for every bin
+    private static byte[] bands(GradingScale scale) {
+        byte[] bands = new byte[BINS];
+        for (int bin = 0; bin < BINS; bin++) {
+            bands[bin] = (byte) LetterGrade.of(scale.codeOfStep(bin * BIN_WIDTH)).getBand();
+        }
+        return bands;
+    }
+}
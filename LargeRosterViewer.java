@@ -0,0 +1,119 @@
+import gradebook.GradeDistribution;
+import gradebook.MappedRoster;
+import gradebook.RosterImporter;
+import gradebook.Student;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.BorderPane;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Browses a roster too large for the heap. The roster lives in a
+ * {@link MappedRoster} directory; any CSV files given are imported into it
+ * first. The table pages rows in from the mapped files as it scrolls, and
+ * the summary is streamed over the mapped grades.
+ *
+ * Usage: java ... LargeRosterViewer roster-dir [roster.csv ...]
+ */
+public class LargeRosterViewer extends Application {
+
+    private MappedRoster roster;
+    private Thread importer;
+
+    @Override
+    public void start(Stage stage) throws IOException {
+        if (getParameters().getRaw().isEmpty()) {
+            System.err.println("Usage: LargeRosterViewer roster-dir [roster.csv ...]");
+            Platform.exit();
+            return;
+        }
+        Path directory = Path.of(getParameters().getRaw().get(0));
+        roster = MappedRoster.open(directory);
+
+        TableView<Student> table = new TableView<>();
+        table.getStyleClass().add(StudentTableCells.TABLE_STYLE_CLASS);
+        TableColumn<Student, String> nameColumn = new TableColumn<>("Name");
+        TableColumn<Student, Double> gradeColumn = new TableColumn<>("Grade");
+        TableColumn<Student, String> letterGradeColumn = new TableColumn<>("Letter");
+        StudentTableCells.configure(nameColumn, gradeColumn, letterGradeColumn);
+        table.getColumns().add(nameColumn);
+        table.getColumns().add(gradeColumn);
+        table.getColumns().add(letterGradeColumn);
+
+        Label summary = new Label();
+        summary.getStyleClass().add("hint-label");
+        summary.setPadding(new Insets(8));
+        BorderPane root = new BorderPane(table);
+        root.setBottom(summary);
+
+        Scene scene = new Scene(root, 600, 800);
+        scene.getStylesheets().add(getClass().getResource(StudentTableCells.STYLESHEET).toExternalForm());
+        stage.setTitle("Roster: " + directory);
+        stage.setScene(scene);
+        stage.show();
+
+        var imports = getParameters().getRaw().subList(1, getParameters().getRaw().size());
+        if (imports.isEmpty()) {
+            table.setItems(new MappedRosterListView(roster));
+            summary.setText(describe(roster.snapshotDistribution()));
+            return;
+        }
+        summary.setText("Importing...");
+        // The table is only given the roster once the import is done: the roster is single-threaded
+        importer = new Thread(() -> {
+            String status;
+            try {
+                RosterImporter reader = new RosterImporter();
+                for (String file : imports) {
+                    reader.read(Path.of(file), batch -> {
+                        if (Thread.interrupted()) throw new InterruptedException();
+                        roster.addAll(batch);
+                    }, null);
+                }
+                roster.flush();
+                status = describe(roster.snapshotDistribution());
+            } catch (InterruptedException e) {
+                // Closing the window
+                return;
+            } catch (IOException | RuntimeException e) {
+                status = "Import failed: " + e.getMessage();
+            }
+            String text = status;
+            Platform.runLater(() -> {
+                table.setItems(new MappedRosterListView(roster));
+                summary.setText(text);
+            });
+        }, "roster-import");
+        importer.setDaemon(true);
+        importer.start();
+    }
+
+    private String describe(GradeDistribution distribution) {
+        return String.format("%,d students, %,d MB mapped   %s",
+                roster.size(), roster.mappedBytes() >> 20, distribution);
+    }
+
+    @Override
+    public void stop() throws IOException, InterruptedException {
+        if (importer != null) {
+            // Stops at the next batch, so the roster is not closed under it
+            importer.interrupt();
+            importer.join();
+        }
+        if (roster != null) {
+            roster.close();
+        }
+    }
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
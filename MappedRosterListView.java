@@ -0,0 +1,33 @@
+import gradebook.MappedRoster;
+import gradebook.Student;
+import javafx.collections.ObservableListBase;
+
+/**
+ * Read-only ObservableList over a {@link MappedRoster}, used as the items of
+ * a student table for rosters too large for the heap. The table only asks
+ * for the rows it shows, so only those are read from the mapped files
+ * (paging them in as the user scrolls) and materialized, as detached
+ * {@link Student} values that are dropped again when the rows scroll away.
+ * The list is a view of the roster's rows when it was created; the roster
+ * must not be appended to while a table shows it.
+ */
+public class MappedRosterListView extends ObservableListBase<Student> {
+
+    private final MappedRoster roster;
+    private final int size;
+
+    public MappedRosterListView(MappedRoster roster) {
+        this.roster = roster;
+        this.size = roster.size();
+    }
+
+    @Override
+    public Student get(int index) {
+        return new Student(roster.getName(index), roster.getGrade(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,140 @@
+import gradebook.LatencyHistogram;
+import gradebook.Metrics;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.layout.StackPane;
+import javafx.scene.text.Font;
+import javafx.util.Duration;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * On-screen metrics panel: pulses per second, CSS/layout time per pulse,
+ * latency percentiles of every {@link Metrics} timer over the last second,
+ * counters, allocation rate and heap in use.
+ *
+ * The pulse listeners are installed once and only time the CSS and layout
+ * pass of each pulse, into the {@code fx.pulse.layout} timer; since they
+ * do not request pulses, an idle window stays idle and reads 0 FPS. The
+ * panel itself refreshes once a second and only while it is shown.
+ */
+final class MetricsOverlay extends Label {
+
+    private final Metrics metrics;
+    private final Metrics.Timer pulseTimer;
+    private final Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> update()));
+    // Bucket counts of every timer at the previous refresh, to report just the last second
+    private final Map<String, long[]> previousBuckets = new HashMap<>();
+    private final Map<String, Long> previousCounts = new HashMap<>();
+    private long previousAllocated;
+    private long previousNanos;
+    private long pulseStart;
+
+    MetricsOverlay(Metrics metrics) {
+        this.metrics = metrics;
+        this.pulseTimer = metrics.timer("fx.pulse.layout");
+        setFont(Font.font("Monospaced", 12));
+        getStyleClass().add("metrics-overlay");
+        setPadding(new Insets(8));
+        setMouseTransparent(true);
+        setVisible(false);
+        StackPane.setAlignment(this, Pos.TOP_RIGHT);
+        StackPane.setMargin(this, new Insets(10));
+        refresh.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    /** Starts timing the scene's pulses. */
+    void install(Scene scene) {
+        scene.addPreLayoutPulseListener(() -> pulseStart = pulseTimer.start());
+        scene.addPostLayoutPulseListener(() -> pulseTimer.stop(pulseStart));
+    }
+
+    void toggle() {
+        setVisible(!isVisible());
+        if (isVisible()) {
+            // The first refresh then covers a full second
+            previousBuckets.clear();
+            previousCounts.clear();
+            for (Metrics.Timer timer : metrics.getTimers().values()) {
+                previousBuckets.put(timer.getName(), timer.getHistogram().copyBuckets());
+            }
+            for (Metrics.Counter counter : metrics.getCounters().values()) {
+                previousCounts.put(counter.getName(), counter.get());
+            }
+            previousAllocated = Metrics.allocatedBytes();
+            previousNanos = System.nanoTime();
+            setText("Collecting metrics...");
+            refresh.play();
+        } else {
+            refresh.stop();
+        }
+    }
+
+    private void update() {
+        long now = System.nanoTime();
+        double seconds = (now - previousNanos) / 1e9;
+        previousNanos = now;
+        StringBuilder text = new StringBuilder();
+
+        long[] pulses = delta(pulseTimer);
+        text.append(String.format("FPS %5.1f   layout p50 %s p99 %s%n", count(pulses) / seconds,
+                micros(LatencyHistogram.percentileNanos(pulses, 50)),
+                micros(LatencyHistogram.percentileNanos(pulses, 99))));
+
+        text.append(String.format("%-20s %6s %9s %9s%n", "last second", "count", "p50", "p99"));
+        for (Metrics.Timer timer : metrics.getTimers().values()) {
+            if (timer == pulseTimer) continue;
+            long[] recent = delta(timer);
+            long count = count(recent);
+            if (count == 0 && timer.getHistogram().getCount() == 0) continue;
+            text.append(String.format("%-20s %6d %9s %9s%n", timer.getName(), count,
+                    micros(LatencyHistogram.percentileNanos(recent, 50)),
+                    micros(LatencyHistogram.percentileNanos(recent, 99))));
+        }
+        for (Metrics.Counter counter : metrics.getCounters().values()) {
+            long value = counter.get();
+            Long previous = previousCounts.put(counter.getName(), value);
+            text.append(String.format("%-20s %,9d/s (total %,d)%n", counter.getName(),
+                    value - (previous == null ? 0 : previous), value));
+        }
+
+        long allocated = Metrics.allocatedBytes();
+        if (allocated >= 0) {
+            text.append(String.format("alloc %,8.1f MB/s", (allocated - previousAllocated) / 1e6 / seconds));
+            previousAllocated = allocated;
+        } else {
+            text.append("alloc n/a");
+        }
+        text.append(String.format("   heap %,.0f MB",
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1e6));
+        setText(text.toString());
+    }
+
+    // Bucket counts recorded since the previous refresh
+    private long[] delta(Metrics.Timer timer) {
+        long[] current = timer.getHistogram().copyBuckets();
+        long[] previous = previousBuckets.put(timer.getName(), current);
+        if (previous == null) return current;
+        long[] recent = new long[current.length];
+        for (int i = 0; i < current.length; i++) {
+            recent[i] = current[i] - previous[i];
+        }
+        return recent;
+    }
+
+    private static long count(long[] buckets) {
+        long count = 0;
+        for (long c : buckets) count += c;
+        return count;
+    }
+
+    private static String micros(double nanos) {
+        return nanos >= 1e6 ? String.format("%.1f ms", nanos / 1e6) : String.format("%.0f us", nanos / 1e3);
+    }
+}
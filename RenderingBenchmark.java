@@ -0,0 +1,132 @@
+import gradebook.Metrics;
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.event.Event;
+import javafx.event.EventType;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.stage.Stage;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the full tracker window under a scripted load and reports frame
+ * times, to compare the rendering quality levels.
+ *
+ * Usage: java -Dprism.order=sw [-Dgradetracker.quality=full|cached|flat|off] ... RenderingBenchmark
+ *
+ * Without {@code gradetracker.quality} the adaptive profile is used and
+ * the number of quality changes is reported too. Each frame scrolls the
+ * table; every few frames the pointer moves onto the next button (a hover
+ * restyle and scale animation) and a student is typed in, which refreshes
+ * and pulses the summary. The roster is kept in a temporary data directory
+ * unless {@code gradetracker.data} is set.
+ */
+public class RenderingBenchmark extends Application {
+
+    private static final int WARMUP_FRAMES = 120;
+    private static final int MEASURED_FRAMES = 1200;
+    private static final int HOVER_EVERY = 10;
+    private static final int ENTRY_EVERY = 20;
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("gradetracker.data") == null) {
+            System.setProperty("gradetracker.data", Files.createTempDirectory("rendering-benchmark").toString());
+        }
+        launch(args);
+    }
+
+    @Override
+    public void start(Stage stage) throws Exception {
+        StudentGradeTracker tracker = new StudentGradeTracker();
+        tracker.start(stage);
+        Scene scene = stage.getScene();
+        TableView<?> table = (TableView<?>) scene.lookup(".table-view");
+        List<Button> buttons = new ArrayList<>();
+        for (Node node : scene.getRoot().lookupAll(".button")) {
+            if (node instanceof Button button) buttons.add(button);
+        }
+        List<TextField> fields = new ArrayList<>();
+        for (Node node : scene.getRoot().lookupAll(".text-field")) {
+            if (node instanceof TextField field) fields.add(field);
+        }
+        TextField nameField = fields.get(0);
+        TextField gradeField = fields.get(1);
+
+        String quality = System.getProperty("gradetracker.quality", "auto");
+        String pipeline = System.getProperty("prism.order", "default");
+        long[] frameNanos = new long[MEASURED_FRAMES];
+        new AnimationTimer() {
+            private int frame;
+            private long last;
+            private Button hovered;
+
+            @Override
+            public void handle(long now) {
+                if (frame > WARMUP_FRAMES) {
+                    frameNanos[frame - WARMUP_FRAMES - 1] = now - last;
+                }
+                last = now;
+                if (++frame > WARMUP_FRAMES + MEASURED_FRAMES) {
+                    stop();
+                    report(quality, pipeline, frameNanos);
+                    try {
+                        tracker.stop();
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                    Platform.exit();
+                    return;
+                }
+                int rows = table.getItems().size();
+                if (rows > 0) table.scrollTo(frame * 3 % rows);
+                if (frame % HOVER_EVERY == 0) {
+                    if (hovered != null) Event.fireEvent(hovered, mouse(MouseEvent.MOUSE_EXITED));
+                    hovered = buttons.get(frame / HOVER_EVERY % buttons.size());
+                    Event.fireEvent(hovered, mouse(MouseEvent.MOUSE_ENTERED));
+                }
+                if (frame % ENTRY_EVERY == 0) {
+                    nameField.setText("Benchmark " + frame);
+                    gradeField.setText(Integer.toString(frame % 101));
+                    Event.fireEvent(gradeField, new KeyEvent(KeyEvent.KEY_PRESSED, "", "", KeyCode.ENTER,
+                            false, false, false, false));
+                }
+            }
+        }.start();
+    }
+
+    private static MouseEvent mouse(EventType<MouseEvent> type) {
+        return new MouseEvent(type, 0, 0, 0, 0, MouseButton.NONE, 0, false, false, false, false,
+                false, false, false, false, false, false, null);
+    }
+
+    private static void report(String quality, String pipeline, long[] frameNanos) {
+        long[] sorted = frameNanos.clone();
+        Arrays.sort(sorted);
+        double meanMillis = Arrays.stream(sorted).average().orElse(0) / 1e6;
+        System.out.printf("quality %s, prism.order %s, %d frames%n", quality, pipeline, sorted.length);
+        System.out.printf("  mean %.2f ms (%.1f fps)  p50 %.2f ms  p95 %.2f ms  p99 %.2f ms  max %.2f ms%n",
+                meanMillis, 1000 / meanMillis, percentile(sorted, 50), percentile(sorted, 95),
+                percentile(sorted, 99), sorted[sorted.length - 1] / 1e6);
+        if (quality.equals("auto")) {
+            System.out.printf("  %d downgrades, %d restores%n",
+                    Metrics.shared().counter("render.downgrades").get(),
+                    Metrics.shared().counter("render.restores").get());
+        }
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1e6;
+    }
+}
@@ -0,0 +1,208 @@
+import gradebook.Metrics;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.scene.CacheHint;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.effect.BlurType;
+import javafx.scene.effect.DropShadow;
+import javafx.scene.effect.Effect;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lowers the rendering quality of a scene while its frames run over
+ * budget and restores it once the scene has been idle for a moment.
+ *
+ * Frame time is the interval between consecutive pulses while pulses come
+ * back to back; a longer gap means nothing was happening and is not counted.
+ * When the median of a window of frames is over budget, the profile steps
+ * down one {@link Quality} level, and it goes straight back to
+ * {@link Quality#FULL} after {@value #IDLE_MILLIS} ms without a pulse.
+ *
+ * The panels' shadows come from the stylesheet, and CSS overrides
+ * {@code setEffect} whenever it restyles a node (e.g. a button on hover),
+ * so each node's own effect is remembered and the substitute is put back
+ * whenever CSS reapplies the original. Start the JVM with
+ * {@code -Dgradetracker.quality=full|cached|flat|off} to pin a level
+ * instead, e.g. to compare them.
+ */
+final class RenderingProfile {
+
+    enum Quality {
+        /** Effects as styled. */
+        FULL,
+        /** Effects kept, nodes carrying them rendered once into a cached bitmap. */
+        CACHED,
+        /** Cached, with drop shadows drawn as a single box blur pass. */
+        FLAT,
+        /** No effects, and decorative animations are skipped. */
+        OFF;
+
+        boolean animates() { return this != OFF; }
+    }
+
+    static final double FRAME_BUDGET_MILLIS = 1000 / 60.0 * 1.5;
+    static final long IDLE_MILLIS = 1_500;
+
+    private static final int WINDOW = 30;
+    // A longer gap between pulses is idle time, not a slow frame
+    private static final long GAP_NANOS = 250_000_000L;
+
+    private static final Metrics.Counter DOWNGRADES = Metrics.shared().counter("render.downgrades");
+    private static final Metrics.Counter RESTORES = Metrics.shared().counter("render.restores");
+
+    private final Scene scene;
+    private final Quality pinned;
+    private final long budgetNanos;
+    private final ReadOnlyObjectWrapper<Quality> quality = new ReadOnlyObjectWrapper<>(Quality.FULL);
+    // Every node seen with an effect of its own, and that effect
+    private final Map<Node, Effect> originals = new IdentityHashMap<>();
+    private final long[] frames = new long[WINDOW];
+    private int frameCount;
+    private long lastPulse;
+    private volatile long lastPulseMillis = System.currentTimeMillis();
+    private boolean applying;
+    private ScheduledExecutorService idleCheck;
+
+    RenderingProfile(Scene scene) {
+        this(scene, pinnedQuality(), FRAME_BUDGET_MILLIS);
+    }
+
+    /** A profile fixed at {@code pinned}, or adaptive when it is null. */
+    RenderingProfile(Scene scene, Quality pinned, double budgetMillis) {
+        this.scene = scene;
+        this.pinned = pinned;
+        this.budgetNanos = (long) (budgetMillis * 1e6);
+    }
+
+    private static Quality pinnedQuality() {
+        String value = System.getProperty("gradetracker.quality", "auto");
+        return value.equalsIgnoreCase("auto") ? null : Quality.valueOf(value.toUpperCase(Locale.ROOT));
+    }
+
+    /** Starts watching the scene's pulses; call once the scene has its content. */
+    void install() {
+        if (pinned != null) {
+            setQuality(pinned);
+            return;
+        }
+        scene.addPreLayoutPulseListener(this::onPulse);
+        idleCheck = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rendering-idle-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        idleCheck.scheduleWithFixedDelay(() -> {
+            if (System.currentTimeMillis() - lastPulseMillis > IDLE_MILLIS) {
+                Platform.runLater(this::restoreIfIdle);
+            }
+        }, IDLE_MILLIS, IDLE_MILLIS / 3, TimeUnit.MILLISECONDS);
+    }
+
+    void shutdown() {
+        if (idleCheck != null) {
+            idleCheck.shutdownNow();
+        }
+    }
+
+    ReadOnlyObjectProperty<Quality> qualityProperty() { return quality.getReadOnlyProperty(); }
+
+    Quality getQuality() { return quality.get(); }
+
+    private void onPulse() {
+        long now = System.nanoTime();
+        lastPulseMillis = System.currentTimeMillis();
+        long interval = now - lastPulse;
+        lastPulse = now;
+        if (interval > GAP_NANOS) {
+            frameCount = 0;
+            return;
+        }
+        frames[frameCount++] = interval;
+        if (frameCount < WINDOW) return;
+        frameCount = 0;
+        Arrays.sort(frames);
+        if (frames[WINDOW / 2] > budgetNanos && getQuality() != Quality.OFF) {
+            DOWNGRADES.increment();
+            setQuality(Quality.values()[getQuality().ordinal() + 1]);
+        }
+    }
+
+    private void restoreIfIdle() {
+        if (getQuality() != Quality.FULL && System.currentTimeMillis() - lastPulseMillis > IDLE_MILLIS) {
+            RESTORES.increment();
+            setQuality(Quality.FULL);
+        }
+    }
+
+    void setQuality(Quality newQuality) {
+        if (newQuality != Quality.FULL) {
+            collect(scene.getRoot());
+        }
+        quality.set(newQuality);
+        applying = true;
+        try {
+            originals.forEach(this::apply);
+        } finally {
+            applying = false;
+        }
+    }
+
+    // Remembers the effect of every node that has one; nodes added since the last walk are picked up here
+    private void collect(Node node) {
+        Effect effect = node.getEffect();
+        if (effect != null && !originals.containsKey(node)) {
+            originals.put(node, effect);
+            node.effectProperty().addListener((obs, oldEffect, newEffect) -> {
+                if (!applying && newEffect != null) {
+                    // CSS has reapplied the styled effect
+                    originals.put(node, newEffect);
+                    applying = true;
+                    try {
+                        apply(node, newEffect);
+                    } finally {
+                        applying = false;
+                    }
+                }
+            });
+        }
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                collect(child);
+            }
+        }
+    }
+
+    private void apply(Node node, Effect original) {
+        Quality q = getQuality();
+        node.setEffect(switch (q) {
+            case FULL, CACHED -> original;
+            case FLAT -> flatten(original);
+            case OFF -> null;
+        });
+        // A panel holding a table or list changes on every scroll, so a bitmap of it would never be reused
+        boolean cache = (q == Quality.CACHED || q == Quality.FLAT) && node.lookup(".virtual-flow") == null;
+        node.setCache(cache);
+        node.setCacheHint(cache ? CacheHint.SPEED : CacheHint.DEFAULT);
+    }
+
+    // The same shadow in one box blur pass instead of a gaussian kernel; other effects are dropped
+    private static Effect flatten(Effect effect) {
+        if (effect instanceof DropShadow shadow) {
+            DropShadow flat = new DropShadow(BlurType.ONE_PASS_BOX, shadow.getColor(),
+                    Math.min(shadow.getRadius(), 6), shadow.getSpread(), shadow.getOffsetX(), shadow.getOffsetY());
+            flat.setInput(shadow.getInput() == null ? null : flatten(shadow.getInput()));
+            return flat;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,101 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Launches the tracker a number of times and reports how long each launch
+ * takes to the first frame and to being interactive.
+ *
+ * Usage: java StartupBenchmark [runs] -- command...
+ *
+ * e.g. {@code java StartupBenchmark 10 -- build/image/bin/student-grade-tracker}
+ * or the plain {@code java --module-path ... StudentGradeTracker} command,
+ * to compare the two. The app is started with
+ * {@code -Dgradetracker.startup=exit} (through {@code JDK_JAVA_OPTIONS},
+ * which every JDK launcher picks up) and an empty data directory, so it
+ * quits as soon as it is interactive. Each milestone is timed from outside,
+ * from spawning the process to reading its line, and the app's own figure
+ * from JVM start is reported next to it. The first run is a warmup: it
+ * fills the OS file cache and writes the class data sharing archive when
+ * the launcher does that on first use.
+ */
+public class StartupBenchmark {
+
+    private static final String[] MILESTONES = {"first frame", "interactive"};
+
+    public static void main(String[] args) throws Exception {
+        int separator = Arrays.asList(args).indexOf("--");
+        if (separator < 0 || separator == args.length - 1) {
+            System.err.println("usage: java StartupBenchmark [runs] -- command...");
+            System.exit(2);
+        }
+        int runs = separator > 0 ? Integer.parseInt(args[0]) : 10;
+        List<String> command = List.of(Arrays.copyOfRange(args, separator + 1, args.length));
+
+        run(command);
+        long[][] outside = new long[MILESTONES.length][runs];
+        long[][] inside = new long[MILESTONES.length][runs];
+        for (int i = 0; i < runs; i++) {
+            long[][] run = run(command);
+            for (int m = 0; m < MILESTONES.length; m++) {
+                outside[m][i] = run[0][m];
+                inside[m][i] = run[1][m];
+            }
+        }
+
+        System.out.printf("%d launches of %s%n", runs, String.join(" ", command));
+        for (int m = 0; m < MILESTONES.length; m++) {
+            Arrays.sort(outside[m]);
+            Arrays.sort(inside[m]);
+            System.out.printf("  %-12s median %5d ms  min %5d ms  max %5d ms   (in-app median %d ms)%n",
+                    MILESTONES[m], outside[m][runs / 2], outside[m][0], outside[m][runs - 1], inside[m][runs / 2]);
+        }
+    }
+
+    // Milliseconds to each milestone measured from here, then as printed by the app
+    private static long[][] run(List<String> command) throws IOException, InterruptedException {
+        Path data = Files.createTempDirectory("startup-benchmark");
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+        String options = System.getenv().getOrDefault("JDK_JAVA_OPTIONS", "");
+        builder.environment().put("JDK_JAVA_OPTIONS",
+                options + " -Dgradetracker.startup=exit -Dgradetracker.data=" + data);
+
+        long[][] result = new long[2][MILESTONES.length];
+        Arrays.fill(result[0], -1);
+        long start = System.nanoTime();
+        Process process = builder.start();
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                long elapsed = (System.nanoTime() - start) / 1_000_000;
+                output.add(line);
+                for (int m = 0; m < MILESTONES.length; m++) {
+                    String prefix = "startup: " + MILESTONES[m] + " ";
+                    if (line.startsWith(prefix)) {
+                        result[0][m] = elapsed;
+                        result[1][m] = Long.parseLong(line.substring(prefix.length(), line.length() - 3));
+                    }
+                }
+            }
+        }
+        int exit = process.waitFor();
+        try (Stream<Path> files = Files.walk(data)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+        if (exit != 0 || result[0][MILESTONES.length - 1] < 0) {
+            output.forEach(System.err::println);
+            throw new IllegalStateException("launch did not become interactive (exit status " + exit + ")");
+        }
+        return result;
+    }
+}
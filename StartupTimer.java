@@ -0,0 +1,65 @@
+import gradebook.Metrics;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+
+import java.time.Instant;
+
+/**
+ * Times a launch from JVM start to the first frame and to the point where
+ * the roster is shown and the form accepts input, into the
+ * {@code startup.firstFrame} and {@code startup.interactive} timers.
+ *
+ * With {@code -Dgradetracker.startup=report} both are also printed, and
+ * with {@code -Dgradetracker.startup=exit} the app quits once it is
+ * interactive, for the startup benchmark and for the class-data-sharing
+ * training run of packaging/build-image.sh. The JVM start time comes from
+ * the OS and is coarse (10 ms on Linux); the benchmark times the printed
+ * lines from outside as well.
+ */
+final class StartupTimer {
+
+    private static final String MODE = System.getProperty("gradetracker.startup", "");
+
+    private final long jvmStartMillis = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElse(System.currentTimeMillis());
+
+    /**
+     * Runs {@code action} once, after the scene's next pulse has been laid
+     * out and handed to the renderer.
+     */
+    static void afterNextPulse(Scene scene, Runnable action) {
+        boolean[] fired = new boolean[1];
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            if (fired[0]) return;
+            fired[0] = true;
+            // Not removed in place: the scene is iterating its listeners
+            Platform.runLater(() -> {
+                scene.removePostLayoutPulseListener(listener[0]);
+                action.run();
+            });
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+
+    void firstFrame() {
+        report("first frame", "startup.firstFrame");
+    }
+
+    void interactive() {
+        report("interactive", "startup.interactive");
+        if (MODE.equals("exit")) {
+            Platform.exit();
+        }
+    }
+
+    private void report(String milestone, String timer) {
+        long millis = System.currentTimeMillis() - jvmStartMillis;
+        Metrics.shared().timer(timer).record(millis * 1_000_000);
+        if (MODE.equals("report") || MODE.equals("exit")) {
+            System.out.printf("startup: %s %d ms%n", milestone, millis);
+            System.out.flush();
+        }
+    }
+}
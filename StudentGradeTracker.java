@@ -1,14 +1,39 @@
+import gradebook.ConcurrentGradebook;
+import gradebook.Course;
+import gradebook.CourseCatalog;
+import gradebook.GradeAdjustment;
+import gradebook.GradeDistribution;
+import gradebook.GradebookMirror;
+import gradebook.GradebookServer;
+import gradebook.GradingScale;
+import gradebook.LetterGrade;
+import gradebook.Metrics;
+import gradebook.RosterImporter;
+import gradebook.RosterExporter;
+import gradebook.RosterPersistence;
+import gradebook.RosterSync;
+import gradebook.Student;
+import gradebook.StudentStore;
+import gradebook.Term;
+import gradebook.UndoHistory;
 import javafx.animation.*;
 import javafx.application.Application;
-import javafx.collections.FXCollections;
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.concurrent.Task;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.effect.GaussianBlur;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.LinearGradient;
@@ -16,19 +41,76 @@ import javafx.scene.paint.Stop;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.Duration;
+import javax.management.JMException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.Semaphore;
 
 public class StudentGradeTracker extends Application {
     
-    private ArrayList<Student> students = new ArrayList<>();
-    private ObservableList<Student> studentData = FXCollections.observableArrayList();
+    // Import batches waiting for the FX thread; bounds memory when parsing outruns the table
+    private static final int MAX_PENDING_IMPORT_BATCHES = 4;
+    
+    // Timed paths, shown by the metrics overlay (F3) and the gradebook:type=Metrics MBean
+    private static final Metrics.Timer ADD_TIMER = Metrics.shared().timer("roster.add");
+    private static final Metrics.Timer DELETE_TIMER = Metrics.shared().timer("roster.delete");
+    private static final Metrics.Timer ADJUST_TIMER = Metrics.shared().timer("roster.adjust");
+    private static final Metrics.Timer IMPORT_BATCH_TIMER = Metrics.shared().timer("import.batch");
+    private static final Metrics.Timer IMPORT_TIMER = Metrics.shared().timer("import.total");
+    private static final Metrics.Timer EXPORT_TIMER = Metrics.shared().timer("export.total");
+    private static final Metrics.Counter ANIMATIONS = Metrics.shared().counter("fx.animations");
+    
+    // Serves the roster over HTTP on localhost when set, e.g. -Dgradetracker.port=8080
+    private static final String SERVER_PORT = System.getProperty("gradetracker.port");
+    
+    // Initial grading scale by name, e.g. -Dgradetracker.scale=Plus/minus
+    private static final String SCALE_NAME = System.getProperty("gradetracker.scale");
+    
+    // Where the roster is saved between runs; override with -Dgradetracker.data=<dir>
+    private static final Path DATA_DIRECTORY = Path.of(System.getProperty("gradetracker.data",
+            Path.of(System.getProperty("user.home"), ".student-grade-tracker").toString()));
+    
+    private final StudentStore store = new StudentStore();
+    private final ObservableList<Student> studentData = new StudentListView(store);
+    private final UndoHistory history = new UndoHistory(store);
+    // Every course's final grades, following the roster; shown through the course switcher
+    private final CourseCatalog catalog = new CourseCatalog(store);
+    private CourseSwitcher courseSwitcher;
+    private RosterPersistence persistence;
+    // Only while serving HTTP: the server's gradebook, which the store follows on the FX thread
+    private GradebookMirror mirror;
+    private GradebookServer server;
+    // An export reads the store on its own thread, so every edit is disabled until it finishes
+    private final BooleanProperty exporting = new SimpleBooleanProperty();
+    private final BooleanProperty importing = new SimpleBooleanProperty();
+    private final BooleanProperty canUndo = new SimpleBooleanProperty();
+    private final BooleanProperty canRedo = new SimpleBooleanProperty();
+    // Roster edits are disabled while the table shows a course's final grades
+    private final BooleanProperty viewingCourse = new SimpleBooleanProperty();
     
     private TextField nameField, gradeField;
+    private EntryForm entryForm;
     private TableView<Student> studentTable;
     private Label avgLabel, highestLabel, lowestLabel, totalStudentsLabel;
-    private VBox summaryBox;
+    private Label spreadLabel, percentilesLabel, lettersLabel, termLabel;
+    private VBox summaryBox, inputSection;
+    // Sized slots for the panels built after the first frame
+    private final StackPane summarySlot = new StackPane();
+    private final StackPane distributionSlot = new StackPane();
+    private final StackPane tableSlot = new StackPane();
+    private final StartupTimer startupTimer = new StartupTimer();
+    private GradeHistogramChart distributionChart;
+    private SummaryScheduler<SummaryInput, SummaryText> summaryScheduler;
+    private RenderingProfile renderingProfile;
     
     public static void main(String[] args) {
         launch(args);
@@ -38,69 +120,190 @@ public class StudentGradeTracker extends Application {
     public void start(Stage primaryStage) {
         primaryStage.setTitle("✨ Student Grade Tracker");
         
-        // Create main layout with gradient background
         StackPane root = new StackPane();
-        root.setStyle("""
-            -fx-background: linear-gradient(135deg, 
-                #667eea 0%, 
-                #764ba2 100%);
-        """);
         
-        // Create glass morphism container
+        // Create glass morphism container; only the input panel is built before the first frame
         VBox mainContainer = createMainContainer();
         root.getChildren().add(mainContainer);
         
-        Scene scene = new Scene(root, 1000, 700);
+        MetricsOverlay metricsOverlay = new MetricsOverlay(Metrics.shared());
+        root.getChildren().add(metricsOverlay);
+        
+        Scene scene = new Scene(root, 1200, 760);
+        metricsOverlay.install(scene);
+        // Every style lives in the stylesheet (precompiled to .bss in distributions), none inline
+        scene.getStylesheets().add(getClass().getResource(StudentTableCells.STYLESHEET).toExternalForm());
         scene.setFill(Color.TRANSPARENT);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN), this::undo);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN), this::redo);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN,
+                KeyCombination.SHIFT_DOWN), this::redo);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.F3), metricsOverlay::toggle);
+        
+        // Drops to cached, flattened or no effects while frames run over budget, e.g. on software rendering
+        renderingProfile = new RenderingProfile(scene);
         
         primaryStage.setScene(scene);
         primaryStage.show();
         
-        // Add entrance animation
-        addEntranceAnimation(mainContainer);
+        // The rest of the window and the roster follow right after the first frame
+        StartupTimer.afterNextPulse(scene, () -> {
+            startupTimer.firstFrame();
+            buildDeferredSections();
+            // Restore the saved roster, or start with sample data on first run
+            loadRoster();
+            inputSection.setDisable(false);
+            renderingProfile.qualityProperty().addListener((obs, oldQuality, quality) ->
+                summaryScheduler.setPulsing(quality.animates()));
+            renderingProfile.install();
+            StartupTimer.afterNextPulse(scene, () -> {
+                startupTimer.interactive();
+                registerMBeanInBackground();
+            });
+        });
+    }
+    
+    // Off the FX thread: loading the JMX server costs a few hundred milliseconds
+    private static void registerMBeanInBackground() {
+        Thread thread = new Thread(() -> {
+            try {
+                Metrics.shared().registerMBean();
+            } catch (JMException e) {
+                // JMX is optional; the overlay still works
+            }
+        }, "metrics-mbean");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    @Override
+    public void stop() throws IOException {
+        if (summaryScheduler != null) {
+            summaryScheduler.shutdown();
+        }
+        renderingProfile.shutdown();
+        if (server != null) {
+            server.close();
+        }
+        if (mirror != null) {
+            mirror.close();
+        }
+        if (persistence != null) {
+            persistence.close();
+            // Saved by roster row, which the checkpoint just made the next run's ids
+            Path courses = DATA_DIRECTORY.resolve(CourseCatalog.FILE);
+            if (!catalog.isEmpty() || Files.exists(courses)) {
+                catalog.write(courses, persistence.getGeneration());
+            }
+        }
+    }
+    
+    private void loadRoster() {
+        try {
+            persistence = RosterPersistence.open(DATA_DIRECTORY, store);
+            persistence.setOnJournalFailure(e -> Platform.runLater(() -> showStyledAlert("Warning",
+                    "Changes are no longer being saved: " + e.getMessage(), Alert.AlertType.WARNING)));
+        } catch (IOException | RuntimeException e) {
+            store.clear();
+            showStyledAlert("Warning", "Could not load the saved roster, changes will not be saved: "
+                    + e.getMessage(), Alert.AlertType.WARNING);
+        }
+        // Loading (and the sample data) is not something to undo
+        boolean firstRun = persistence == null || persistence.getGeneration() == 0;
+        Path courses = DATA_DIRECTORY.resolve(CourseCatalog.FILE);
+        if (persistence != null && Files.exists(courses)) {
+            try {
+                catalog.read(courses, persistence.getGeneration());
+            } catch (IOException e) {
+                showStyledAlert("Warning", "Could not load the saved courses: " + e.getMessage(),
+                        Alert.AlertType.WARNING);
+            }
+        }
+        if (store.isEmpty() && firstRun) {
+            addSampleData();
+        } else {
+            updateSummaryWithAnimation();
+        }
+        courseSwitcher.refreshCourses();
+        history.clear();
         
-        // Initialize with sample data
-        addSampleData();
+        if (SERVER_PORT != null) {
+            startServer();
+        }
+    }
+
+    // The gradebook keeps its own copy of every student, so it only exists while the server does
+    private void startServer() {
+        ConcurrentGradebook gradebook = new ConcurrentGradebook();
+        try {
+            int port = Integer.parseInt(SERVER_PORT);
+            mirror = new GradebookMirror(store, gradebook, Platform::runLater);
+            // Without it every response waits for a delayed ACK (see GradebookServer)
+            if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+                System.setProperty("sun.net.httpserver.nodelay", "true");
+            }
+            server = GradebookServer.start(gradebook, port);
+            server.setScale(store.getScale());
+        } catch (IOException | NumberFormatException e) {
+            if (mirror != null) {
+                mirror.close();
+                mirror = null;
+            }
+            showStyledAlert("Warning", "Could not start the HTTP server on port " + SERVER_PORT + ": "
+                    + e.getMessage(), Alert.AlertType.WARNING);
+            return;
+        }
+        mirror.setOnApplied(this::updateSummaryWithAnimation);
+        // Remote changes wait in the feed while an export reads the store, and
+        // while an import is open so they are not undone with its batches
+        exporting.or(importing).addListener((obs, wasBusy, isBusy) -> mirror.setPaused(isBusy));
     }
     
     private VBox createMainContainer() {
         VBox container = new VBox(20);
         container.setPadding(new Insets(30));
         container.setAlignment(Pos.CENTER);
-        container.setMaxWidth(900);
-        container.setStyle("""
-            -fx-background: linear-gradient(135deg, 
-                rgba(255, 255, 255, 0.15) 0%, 
-                rgba(255, 255, 255, 0.08) 100%);
-            -fx-background-radius: 20;
-            -fx-border-radius: 20;
-            -fx-border-color: rgba(255, 255, 255, 0.3);
-            -fx-border-width: 1;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.3), 20, 0, 0, 10);
-        """);
+        container.setMaxWidth(1120);
+        container.getStyleClass().add("main-container");
         
         // Title with improved readability
         Label titleLabel = new Label("🎓 Student Grade Tracker");
-        titleLabel.setStyle("""
-            -fx-font-size: 36px;
-            -fx-font-weight: bold;
-            -fx-text-fill: #ffffff;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.8), 8, 0, 0, 3);
-        """);
+        titleLabel.getStyleClass().add("app-title");
         
         // Create sections
         HBox topSection = new HBox(30);
         topSection.setAlignment(Pos.CENTER);
         
-        VBox inputSection = createInputSection();
+        inputSection = createInputSection();
+        // Typing waits for the roster; see start
+        inputSection.setDisable(true);
+        summarySlot.setPrefWidth(350);
+        distributionSlot.setPrefWidth(300);
+        
+        topSection.getChildren().addAll(inputSection, summarySlot, distributionSlot);
+        
+        container.getChildren().addAll(titleLabel, topSection, tableSlot);
+        return container;
+    }
+    
+    // The summary, chart and table: built after the first frame and faded in
+    private void buildDeferredSections() {
         summaryBox = createSummarySection();
+        summaryScheduler = new SummaryScheduler<>(
+                this::snapshotSummary,
+                StudentGradeTracker::formatSummary,
+                this::showSummary, summaryBox);
+        summarySlot.getChildren().add(summaryBox);
         
-        topSection.getChildren().addAll(inputSection, summaryBox);
+        VBox distributionSection = createDistributionSection();
+        distributionSlot.getChildren().add(distributionSection);
         
         VBox tableSection = createTableSection();
+        tableSlot.getChildren().add(tableSection);
         
-        container.getChildren().addAll(titleLabel, topSection, tableSection);
-        return container;
+        reveal(summaryBox);
+        reveal(distributionSection);
+        reveal(tableSection);
     }
     
     private VBox createInputSection() {
@@ -108,124 +311,76 @@ public class StudentGradeTracker extends Application {
         inputBox.setPadding(new Insets(25));
         inputBox.setAlignment(Pos.TOP_LEFT);
         inputBox.setPrefWidth(350);
-        inputBox.setStyle("""
-            -fx-background: linear-gradient(145deg, 
-                rgba(255, 255, 255, 0.2) 0%, 
-                rgba(255, 255, 255, 0.1) 100%);
-            -fx-background-radius: 15;
-            -fx-border-radius: 15;
-            -fx-border-color: rgba(255, 255, 255, 0.4);
-            -fx-border-width: 1;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.2), 10, 0, 0, 5);
-        """);
+        inputBox.getStyleClass().addAll("glass-panel", "input-panel");
         
         Label titleLabel = new Label("➕ Add New Student");
-        titleLabel.setStyle("""
-            -fx-font-size: 20px;
-            -fx-font-weight: bold;
-            -fx-text-fill: #ffffff;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.8), 5, 0, 0, 2);
-        """);
+        titleLabel.getStyleClass().add("section-title");
         
         // Name input with improved readability
         Label nameLabel = new Label("Student Name");
-        nameLabel.setStyle("""
-            -fx-text-fill: #ffffff;
-            -fx-font-weight: bold;
-            -fx-font-size: 15px;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.6), 3, 0, 0, 1);
-        """);
+        nameLabel.getStyleClass().add("field-label");
         
         nameField = new TextField();
         nameField.setPromptText("Enter student name...");
         styleTextField(nameField);
         
         Label gradeLabel = new Label("Grade (0-100)");
-        gradeLabel.setStyle("""
-            -fx-text-fill: #ffffff;
-            -fx-font-weight: bold;
-            -fx-font-size: 15px;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.6), 3, 0, 0, 1);
-        """);
+        gradeLabel.getStyleClass().add("field-label");
         
         gradeField = new TextField();
         gradeField.setPromptText("Enter grade...");
         styleTextField(gradeField);
         
+        entryForm = new EntryForm(nameField, gradeField, this::addStudent);
+        CheckBox rapidEntryBox = new CheckBox("⚡ Rapid entry");
+        rapidEntryBox.setTooltip(new Tooltip("Enter moves from name to grade and adds the student; "
+                + "fields clear at once, without animations"));
+        rapidEntryBox.getStyleClass().add("option-check");
+        entryForm.rapidProperty().bind(rapidEntryBox.selectedProperty());
+        
         // Modern buttons
         HBox buttonBox = new HBox(15);
         buttonBox.setAlignment(Pos.CENTER);
         
-        Button addButton = createStyledButton("Add Student", "#4CAF50", "#45a049");
-        addButton.setOnAction(e -> addStudentWithAnimation());
+        Button addButton = createStyledButton("Add Student", "button-green");
+        addButton.setOnAction(e -> entryForm.commit());
+        addButton.disableProperty().bind(exporting.or(importing).or(viewingCourse));
         
-        Button clearButton = createStyledButton("Clear", "#f44336", "#da372c");
+        Button clearButton = createStyledButton("Clear", "button-red");
         clearButton.setOnAction(e -> clearFieldsWithAnimation());
         
         buttonBox.getChildren().addAll(addButton, clearButton);
         
-        inputBox.getChildren().addAll(titleLabel, nameLabel, nameField, gradeLabel, gradeField, buttonBox);
+        inputBox.getChildren().addAll(titleLabel, nameLabel, nameField, gradeLabel, gradeField, buttonBox,
+                rapidEntryBox, entryForm.getFeedback());
         return inputBox;
     }
     
     private void styleTextField(TextField field) {
-        field.setStyle("""
-            -fx-background-color: rgba(255, 255, 255, 0.25);
-            -fx-border-color: rgba(255, 255, 255, 0.5);
-            -fx-border-radius: 8;
-            -fx-background-radius: 8;
-            -fx-text-fill: #ffffff;
-            -fx-prompt-text-fill: rgba(255, 255, 255, 0.8);
-            -fx-font-size: 15px;
-            -fx-font-weight: bold;
-            -fx-padding: 12;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.3), 3, 0, 0, 1);
-        """);
-        
-        // Add focus effects
-        field.focusedProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal) {
-                field.setStyle(field.getStyle() + """
-                    -fx-border-color: #64B5F6;
-                    -fx-border-width: 2;
-                    -fx-effect: dropshadow(gaussian, #64B5F6, 8, 0, 0, 0);
-                """);
-            } else {
-                styleTextField(field);
-            }
-        });
+        // Focus effects come from the stylesheet's :focused rule
+        field.getStyleClass().add("glass-field");
     }
     
-    private Button createStyledButton(String text, String baseColor, String hoverColor) {
+    // colorClass is one of the stylesheet's button-<colour> classes, which also give the hover colour
+    private Button createStyledButton(String text, String colorClass) {
         Button button = new Button(text);
         button.setPrefWidth(120);
         button.setPrefHeight(45);
-        button.setStyle(String.format("""
-            -fx-background-color: %s;
-            -fx-text-fill: #ffffff;
-            -fx-font-weight: bold;
-            -fx-font-size: 15px;
-            -fx-background-radius: 20;
-            -fx-border-radius: 20;
-            -fx-cursor: hand;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.4), 8, 0, 0, 3);
-        """, baseColor));
+        button.getStyleClass().addAll("glass-button", colorClass);
         
         // Hover effects
         button.setOnMouseEntered(e -> {
-            button.setStyle(button.getStyle().replace(baseColor, hoverColor));
             ScaleTransition st = new ScaleTransition(Duration.millis(100), button);
             st.setToX(1.05);
             st.setToY(1.05);
-            st.play();
+            play(st);
         });
         
         button.setOnMouseExited(e -> {
-            button.setStyle(button.getStyle().replace(hoverColor, baseColor));
             ScaleTransition st = new ScaleTransition(Duration.millis(100), button);
             st.setToX(1.0);
             st.setToY(1.0);
-            st.play();
+            play(st);
         });
         
         return button;
@@ -235,50 +390,89 @@ public class StudentGradeTracker extends Application {
         VBox summaryBox = new VBox(15);
         summaryBox.setPadding(new Insets(25));
         summaryBox.setPrefWidth(350);
-        summaryBox.setStyle("""
-            -fx-background: linear-gradient(145deg, 
-                rgba(76, 175, 80, 0.3) 0%, 
-                rgba(139, 195, 74, 0.2) 100%);
-            -fx-background-radius: 15;
-            -fx-border-radius: 15;
-            -fx-border-color: rgba(76, 175, 80, 0.6);
-            -fx-border-width: 1;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.2), 10, 0, 0, 5);
-        """);
+        summaryBox.getStyleClass().addAll("glass-panel", "summary-panel");
         
         Label summaryTitle = new Label("📊 Statistics");
-        summaryTitle.setStyle("""
-            -fx-font-size: 20px;
-            -fx-font-weight: bold;
-            -fx-text-fill: #ffffff;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.8), 5, 0, 0, 2);
-        """);
+        summaryTitle.getStyleClass().add("section-title");
         
         totalStudentsLabel = createStatLabel("👥 Total Students: 0");
         avgLabel = createStatLabel("📈 Average: 0.0");
         highestLabel = createStatLabel("🏆 Highest: 0.0");
         lowestLabel = createStatLabel("📉 Lowest: 0.0");
+        spreadLabel = createStatLabel("🎯 Median: 0.0   Std Dev: 0.0");
+        percentilesLabel = createStatLabel("📊 P10 0.0 · P25 0.0 · P75 0.0 · P90 0.0");
+        lettersLabel = createStatLabel(emptyLetters(store.getScale()));
+        termLabel = createStatLabel("🗓 Whole roster");
+        ComboBox<GradingScale> scaleBox = createScaleBox();
         
-        Button refreshButton = createStyledButton("Refresh", "#2196F3", "#1976D2");
+        Button refreshButton = createStyledButton("Refresh", "button-blue");
         refreshButton.setPrefWidth(150);
         refreshButton.setOnAction(e -> updateSummaryWithAnimation());
         
         summaryBox.getChildren().addAll(summaryTitle, totalStudentsLabel, avgLabel, 
-                                       highestLabel, lowestLabel, refreshButton);
+                                       highestLabel, lowestLabel, spreadLabel,
+                                       percentilesLabel, scaleBox, lettersLabel, termLabel, refreshButton);
         return summaryBox;
     }
     
+    // The built-in scales plus any in <data>/scales.txt; picking one reletters every student
+    private ComboBox<GradingScale> createScaleBox() {
+        List<GradingScale> scales = new ArrayList<>(List.of(GradingScale.STANDARD, GradingScale.PLUS_MINUS));
+        Path scalesFile = DATA_DIRECTORY.resolve("scales.txt");
+        if (Files.exists(scalesFile)) {
+            try {
+                scales.addAll(GradingScale.load(scalesFile));
+            } catch (IOException e) {
+                showStyledAlert("Warning", "Could not read grading scales: " + e.getMessage(),
+                        Alert.AlertType.WARNING);
+            }
+        }
+        ComboBox<GradingScale> scaleBox = new ComboBox<>();
+        scaleBox.getItems().setAll(scales);
+        scaleBox.setPrefWidth(200);
+        scaleBox.setTooltip(new Tooltip("Grading scale"));
+        GradingScale initial = GradingScale.STANDARD;
+        for (GradingScale scale : scales) {
+            if (scale.getName().equalsIgnoreCase(SCALE_NAME)) initial = scale;
+        }
+        store.setScale(initial);
+        catalog.setScale(initial);
+        scaleBox.setValue(initial);
+        scaleBox.valueProperty().addListener((obs, oldScale, newScale) -> {
+            if (newScale == null) return;
+            store.setScale(newScale);
+            catalog.setScale(newScale);
+            if (server != null) {
+                server.setScale(newScale);
+            }
+            studentTable.refresh();
+            updateSummaryWithAnimation();
+        });
+        scaleBox.disableProperty().bind(exporting);
+        return scaleBox;
+    }
+    
+    private VBox createDistributionSection() {
+        VBox distributionBox = new VBox(15);
+        distributionBox.setPadding(new Insets(25));
+        distributionBox.setPrefWidth(300);
+        distributionBox.getStyleClass().addAll("glass-panel", "distribution-panel");
+        
+        Label distributionTitle = new Label("📈 Distribution");
+        distributionTitle.getStyleClass().add("section-title");
+        
+        distributionChart = new GradeHistogramChart(250, 220);
+        
+        Label legend = new Label("Solid line: median · dashed: P25 / P75");
+        legend.getStyleClass().add("chart-legend");
+        
+        distributionBox.getChildren().addAll(distributionTitle, distributionChart, legend);
+        return distributionBox;
+    }
+    
     private Label createStatLabel(String text) {
         Label label = new Label(text);
-        label.setStyle("""
-            -fx-text-fill: #ffffff;
-            -fx-font-size: 16px;
-            -fx-font-weight: bold;
-            -fx-padding: 10;
-            -fx-background-color: rgba(255, 255, 255, 0.2);
-            -fx-background-radius: 8;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.4), 5, 0, 0, 2);
-        """);
+        label.getStyleClass().add("stat-label");
         return label;
     }
     
@@ -287,202 +481,304 @@ public class StudentGradeTracker extends Application {
         tableBox.setPadding(new Insets(20, 0, 0, 0));
         
         Label tableTitle = new Label("📋 Student Records");
-        tableTitle.setStyle("""
-            -fx-font-size: 22px;
-            -fx-font-weight: bold;
-            -fx-text-fill: #ffffff;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.8), 5, 0, 0, 2);
-        """);
+        tableTitle.getStyleClass().addAll("section-title", "table-title");
         
         studentTable = new TableView<>();
+        // Table styling lives in the stylesheet; an inline style here would be inherited by every cell
+        studentTable.getStyleClass().add(StudentTableCells.TABLE_STYLE_CLASS);
         studentTable.setItems(studentData);
         studentTable.setPrefHeight(300);
-        
-        // Style the table with better readability
-        studentTable.setStyle("""
-            -fx-background-color: rgba(255, 255, 255, 0.2);
-            -fx-background-radius: 10;
-            -fx-border-radius: 10;
-            -fx-border-color: rgba(255, 255, 255, 0.4);
-            -fx-border-width: 1;
-            -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.2), 10, 0, 0, 5);
-            -fx-font-size: 14px;
-            -fx-font-weight: bold;
-        """);
+        studentTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
         
         // Create styled columns with better text contrast
         TableColumn<Student, String> nameColumn = new TableColumn<>("👤 Name");
-        nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
         nameColumn.setPrefWidth(250);
-        styleColumn(nameColumn);
         
         TableColumn<Student, Double> gradeColumn = new TableColumn<>("📝 Grade");
-        gradeColumn.setCellValueFactory(new PropertyValueFactory<>("grade"));
         gradeColumn.setPrefWidth(150);
-        styleColumn(gradeColumn);
         
         TableColumn<Student, String> letterGradeColumn = new TableColumn<>("🎯 Letter");
-        letterGradeColumn.setCellValueFactory(new PropertyValueFactory<>("letterGrade"));
         letterGradeColumn.setPrefWidth(150);
-        styleColumn(letterGradeColumn);
-        
-        // Custom cell factory for better text readability in table cells
-        nameColumn.setCellFactory(column -> {
-            return new TableCell<Student, String>() {
-                @Override
-                protected void updateItem(String item, boolean empty) {
-                    super.updateItem(item, empty);
-                    if (empty || item == null) {
-                        setText(null);
-                        setStyle("");
-                    } else {
-                        setText(item);
-                        setStyle("""
-                            -fx-text-fill: #ffffff;
-                            -fx-font-weight: bold;
-                            -fx-font-size: 14px;
-                            -fx-background-color: transparent;
-                        """);
-                    }
-                }
-            };
-        });
         
-        gradeColumn.setCellFactory(column -> {
-            return new TableCell<Student, Double>() {
-                @Override
-                protected void updateItem(Double item, boolean empty) {
-                    super.updateItem(item, empty);
-                    if (empty || item == null) {
-                        setText(null);
-                        setStyle("");
-                    } else {
-                        setText(String.format("%.1f", item));
-                        setStyle("""
-                            -fx-text-fill: #ffffff;
-                            -fx-font-weight: bold;
-                            -fx-font-size: 14px;
-                            -fx-background-color: transparent;
-                            -fx-alignment: CENTER;
-                        """);
-                    }
-                }
-            };
-        });
+        // Cells are styled by the stylesheet and pseudo-classes, not per-update inline CSS
+        StudentTableCells.configure(nameColumn, gradeColumn, letterGradeColumn);
         
-        letterGradeColumn.setCellFactory(column -> {
-            return new TableCell<Student, String>() {
-                @Override
-                protected void updateItem(String item, boolean empty) {
-                    super.updateItem(item, empty);
-                    if (empty || item == null) {
-                        setText(null);
-                        setStyle("");
-                    } else {
-                        setText(item);
-                        String color = getGradeColor(item);
-                        setStyle(String.format("""
-                            -fx-text-fill: %s;
-                            -fx-font-weight: bold;
-                            -fx-font-size: 16px;
-                            -fx-background-color: transparent;
-                            -fx-alignment: CENTER;
-                        """, color));
-                    }
-                }
-            };
+        studentTable.getColumns().addAll(nameColumn, gradeColumn, letterGradeColumn);
+        
+        // Chips and search index the roster (and each course once shown) as it loads,
+        // so filtering never rescans or sorts the table
+        courseSwitcher = new CourseSwitcher(catalog, studentTable, studentData, search -> {
+            TextField searchField = search.getField();
+            searchField.setPrefWidth(300);
+            styleTextField(searchField);
+            search.getStatus().getStyleClass().add("hint-label");
         });
+        courseSwitcher.setOnSwitch(this::updateSummaryWithAnimation);
+        viewingCourse.bind(courseSwitcher.viewingCourseProperty());
         
-        studentTable.getColumns().addAll(nameColumn, gradeColumn, letterGradeColumn);
+        HBox searchContainer = new HBox(15);
+        searchContainer.setAlignment(Pos.CENTER_LEFT);
+        searchContainer.getChildren().addAll(courseSwitcher.getBox(), courseSwitcher.getSearchSlot());
+        
+        Label selectionLabel = new Label("Select rows (Shift/Ctrl+click, Ctrl+A) to edit them together:");
+        selectionLabel.getStyleClass().add("hint-label");
+        studentTable.getSelectionModel().getSelectedIndices().addListener(
+                (ListChangeListener<Integer>) change -> {
+                    int selected = studentTable.getSelectionModel().getSelectedIndices().size();
+                    selectionLabel.setText(selected == 0
+                            ? "Select rows (Shift/Ctrl+click, Ctrl+A) to edit them together:"
+                            : String.format("%,d selected:", selected));
+                });
+        
+        TextField amountField = new TextField();
+        amountField.setPromptText("Points or %");
+        amountField.setPrefWidth(140);
+        styleTextField(amountField);
+        
+        Button curveButton = createStyledButton("Curve +N", "button-teal");
+        curveButton.setPrefWidth(140);
+        curveButton.setOnAction(e -> adjustSelected(GradeAdjustment.CURVE, amountField.getText()));
+        curveButton.disableProperty().bind(exporting.or(importing).or(viewingCourse));
         
-        Button deleteButton = createStyledButton("Delete Selected", "#FF5722", "#E64A19");
+        Button scaleButton = createStyledButton("Scale %", "button-teal");
+        scaleButton.setPrefWidth(140);
+        scaleButton.setOnAction(e -> adjustSelected(GradeAdjustment.SCALE, amountField.getText()));
+        scaleButton.disableProperty().bind(exporting.or(importing).or(viewingCourse));
+        
+        HBox bulkEditContainer = new HBox(15);
+        bulkEditContainer.setAlignment(Pos.CENTER_LEFT);
+        bulkEditContainer.getChildren().addAll(selectionLabel, amountField, curveButton, scaleButton);
+        
+        Button deleteButton = createStyledButton("Delete Selected", "button-deep-orange");
         deleteButton.setPrefWidth(200);
         deleteButton.setOnAction(e -> deleteSelectedWithAnimation());
+        deleteButton.disableProperty().bind(exporting.or(importing).or(viewingCourse));
+        
+        Button importButton = createStyledButton("Import File", "button-purple");
+        importButton.setPrefWidth(200);
+        importButton.setOnAction(e -> importFromFile(importButton));
+        importButton.disableProperty().bind(importing.or(exporting).or(viewingCourse));
+        
+        Button exportButton = createStyledButton("Export File", "button-indigo");
+        exportButton.setPrefWidth(200);
+        exportButton.setOnAction(e -> exportToFile(exportButton));
+        exportButton.disableProperty().bind(importing.or(exporting));
         
-        HBox buttonContainer = new HBox();
+        Button undoButton = createStyledButton("Undo", "button-blue-grey");
+        undoButton.setPrefWidth(120);
+        undoButton.setOnAction(e -> undo());
+        
+        Button redoButton = createStyledButton("Redo", "button-blue-grey");
+        redoButton.setPrefWidth(120);
+        redoButton.setOnAction(e -> redo());
+        
+        history.setOnChange(() -> {
+            canUndo.set(history.canUndo());
+            canRedo.set(history.canRedo());
+        });
+        // An import keeps its undo group open until it finishes, so undoing mid-import would split it
+        undoButton.disableProperty().bind(exporting.or(importing).or(canUndo.not()));
+        redoButton.disableProperty().bind(exporting.or(importing).or(canRedo.not()));
+        
+        HBox buttonContainer = new HBox(15);
         buttonContainer.setAlignment(Pos.CENTER);
-        buttonContainer.getChildren().add(deleteButton);
+        buttonContainer.getChildren().addAll(deleteButton, importButton, exportButton, undoButton, redoButton);
         
-        tableBox.getChildren().addAll(tableTitle, studentTable, buttonContainer);
+        tableBox.getChildren().addAll(tableTitle, searchContainer, courseSwitcher.getChipsSlot(), studentTable,
+                bulkEditContainer,
+                buttonContainer);
         return tableBox;
     }
     
-    private String getGradeColor(String letterGrade) {
-        return switch (letterGrade) {
-            case "A" -> "#4CAF50"; // Green
-            case "B" -> "#8BC34A"; // Light Green
-            case "C" -> "#FFC107"; // Yellow
-            case "D" -> "#FF9800"; // Orange
-            case "F" -> "#F44336"; // Red
-            default -> "#ffffff";
-        };
-    }
-    
-    private void styleColumn(TableColumn<Student, ?> column) {
-        column.setStyle("""
-            -fx-text-fill: #ffffff;
-            -fx-font-weight: bold;
-            -fx-font-size: 16px;
-            -fx-alignment: CENTER;
-            -fx-background-color: rgba(255, 255, 255, 0.1);
-        """);
-    }
-    
-    private void addStudentWithAnimation() {
-        try {
-            String name = nameField.getText().trim();
-            String gradeText = gradeField.getText().trim();
-            
-            if (name.isEmpty() || gradeText.isEmpty()) {
-                showStyledAlert("Error", "Please fill in all fields!", Alert.AlertType.ERROR);
-                return;
-            }
-            
-            double grade = Double.parseDouble(gradeText);
-            
-            if (grade < 0 || grade > 100) {
-                showStyledAlert("Error", "Grade must be between 0 and 100!", Alert.AlertType.ERROR);
-                return;
-            }
-            
-            Student student = new Student(name, grade);
-            students.add(student);
-            studentData.add(student);
-            
+    // Called by the entry form with a validated grade; problems are shown inline rather than in a dialog
+    private boolean addStudent(String name, double grade) {
+        if (exporting.get()) {
+            entryForm.showProblem("Wait for the export to finish");
+            return false;
+        }
+        if (importing.get()) {
+            entryForm.showProblem("Wait for the import to finish");
+            return false;
+        }
+        if (viewingCourse.get()) {
+            entryForm.showProblem("Switch to All students to add a student");
+            return false;
+        }
+        
+        long start = ADD_TIMER.start();
+        store.add(name, grade);
+        ADD_TIMER.stop(start);
+        
+        updateSummaryWithAnimation();
+        
+        if (entryForm.isRapid()) {
+            // The form has cleared itself; just keep the new row in view
+            studentTable.scrollTo(studentTable.getItems().size() - 1);
+        } else {
             clearFieldsWithAnimation();
-            updateSummaryWithAnimation();
-            
-            showStyledAlert("Success", "Student added successfully! ✨", Alert.AlertType.INFORMATION);
-            
             // Add row animation
             animateTableRow();
-            
-        } catch (NumberFormatException e) {
-            showStyledAlert("Error", "Please enter a valid number for grade!", Alert.AlertType.ERROR);
         }
+        return true;
     }
     
     private void deleteSelectedWithAnimation() {
-        Student selected = studentTable.getSelectionModel().getSelectedItem();
-        if (selected != null) {
+        int[] ids = selectedIds();
+        if (ids.length > 0) {
             // Fade out animation
             FadeTransition fade = new FadeTransition(Duration.millis(300), studentTable);
             fade.setToValue(0.3);
             fade.setOnFinished(e -> {
-                students.remove(selected);
-                studentData.remove(selected);
+                // Ids rather than rows, in case an import batch landed during the fade
+                int[] rows = rowsOf(ids);
+                studentTable.getSelectionModel().clearSelection();
+                long start = DELETE_TIMER.start();
+                store.removeRows(rows, rows.length);
+                DELETE_TIMER.stop(start);
                 updateSummaryWithAnimation();
                 
                 FadeTransition fadeIn = new FadeTransition(Duration.millis(300), studentTable);
                 fadeIn.setToValue(1.0);
-                fadeIn.play();
+                play(fadeIn);
             });
-            fade.play();
+            play(fade);
         } else {
             showStyledAlert("Warning", "Please select a student to delete!", Alert.AlertType.WARNING);
         }
     }
     
+    private void adjustSelected(GradeAdjustment adjustment, String amountText) {
+        int[] rows = rowsOf(selectedIds());
+        if (rows.length == 0) {
+            showStyledAlert("Warning", "Please select the students to adjust!", Alert.AlertType.WARNING);
+            return;
+        }
+        double amount;
+        try {
+            amount = Double.parseDouble(amountText.trim());
+        } catch (NumberFormatException e) {
+            showStyledAlert("Error", "Please enter a valid number of points or percent!", Alert.AlertType.ERROR);
+            return;
+        }
+        if (adjustment == GradeAdjustment.CURVE ? amount < -100 || amount > 100 : amount < 0 || amount > 1000) {
+            showStyledAlert("Error", adjustment == GradeAdjustment.CURVE
+                    ? "A curve must be between -100 and 100 points!"
+                    : "A scale must be between 0% and 1000%!", Alert.AlertType.ERROR);
+            return;
+        }
+        // One batched edit: a single table change, journal record and undo step
+        long start = ADJUST_TIMER.start();
+        adjustment.applyTo(store, rows, rows.length, amount);
+        ADJUST_TIMER.stop(start);
+        updateSummaryWithAnimation();
+    }
+    
+    // Ids of the selected students, whichever view (full roster, search, chip) the table shows
+    private int[] selectedIds() {
+        ObservableList<Integer> indices = studentTable.getSelectionModel().getSelectedIndices();
+        ObservableList<Student> items = studentTable.getItems();
+        int[] ids = new int[indices.size()];
+        int count = 0;
+        for (Integer index : indices) {
+            if (index >= 0 && index < items.size()) {
+                ids[count++] = items.get(index).getId();
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+    
+    // Current rows of the given students, ascending, skipping any that are gone
+    private int[] rowsOf(int[] ids) {
+        int[] rows = new int[ids.length];
+        int count = 0;
+        for (int id : ids) {
+            int row = store.rowOf(id);
+            if (row >= 0) {
+                rows[count++] = row;
+            }
+        }
+        rows = Arrays.copyOf(rows, count);
+        Arrays.sort(rows);
+        return rows;
+    }
+    
+    private void importFromFile(Button importButton) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Grades");
+        chooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Gradebook files (*.csv, *.tsv, *.txt)", "*.csv", "*.tsv", "*.txt"),
+            new FileChooser.ExtensionFilter("All files", "*.*")
+        );
+        File file = chooser.showOpenDialog(studentTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        
+        // Parse off the FX thread; each batch reaches the table in one step. Students
+        // already in the roster under the file's student numbers are updated in place.
+        Semaphore pendingBatches = new Semaphore(MAX_PENDING_IMPORT_BATCHES);
+        RosterSync sync = new RosterSync(store);
+        Task<RosterImporter.Result> task = new Task<>() {
+            @Override
+            protected RosterImporter.Result call() throws Exception {
+                return new RosterImporter().read(file.toPath(), batch -> {
+                    pendingBatches.acquire();
+                    Platform.runLater(() -> {
+                        try {
+                            long start = IMPORT_BATCH_TIMER.start();
+                            sync.accept(batch);
+                            IMPORT_BATCH_TIMER.stop(start);
+                            updateSummaryWithAnimation();
+                        } finally {
+                            pendingBatches.release();
+                        }
+                    });
+                }, this::updateProgress);
+            }
+        };
+        
+        // Every batch of the import is undone as one step; edits that would land
+        // in between (the buttons above, the mirror) wait until it is done
+        history.beginGroup();
+        long importStart = IMPORT_TIMER.start();
+        String buttonText = importButton.getText();
+        importing.set(true);
+        importButton.textProperty().bind(task.progressProperty().multiply(100).asString("Importing %.0f%%"));
+        task.setOnSucceeded(e -> {
+            importButton.textProperty().unbind();
+            importButton.setText(buttonText);
+            // Close the group first: clearing the flag applies the remote edits that waited
+            history.endGroup();
+            importing.set(false);
+            IMPORT_TIMER.stop(importStart);
+            RosterImporter.Result result = task.getValue();
+            RosterSync.Result synced = sync.finish(false);
+            String imported = synced.getUpdated() + synced.getUnchanged() == 0
+                    ? String.format("Imported %,d students", synced.getAdded())
+                    : String.format("Added %,d and updated %,d students (%,d unchanged)",
+                            synced.getAdded(), synced.getUpdated(), synced.getUnchanged());
+            long skipped = result.getRejected() + synced.getDuplicates();
+            if (skipped == 0) {
+                showStyledAlert("Success", imported + "! ✨", Alert.AlertType.INFORMATION);
+            } else {
+                showStyledAlert("Warning", String.format("%s, skipped %,d rows (%,d repeated student numbers):%n%s",
+                        imported, skipped, synced.getDuplicates(), String.join("\n", result.getErrors())),
+                        Alert.AlertType.WARNING);
+            }
+        });
+        task.setOnFailed(e -> {
+            importButton.textProperty().unbind();
+            importButton.setText(buttonText);
+            history.endGroup();
+            importing.set(false);
+            showStyledAlert("Error", "Import failed: " + task.getException().getMessage(), Alert.AlertType.ERROR);
+        });
+        
+        Thread importThread = new Thread(task, "roster-import");
+        importThread.setDaemon(true);
+        importThread.start();
+    }
+    
     private void clearFieldsWithAnimation() {
         // Animate field clearing
         Timeline timeline = new Timeline();
@@ -495,7 +791,7 @@ public class StudentGradeTracker extends Application {
             nameField.clear();
             gradeField.clear();
         });
-        timeline.play();
+        play(timeline);
         
         // Same for grade field
         Timeline timeline2 = new Timeline();
@@ -504,43 +800,157 @@ public class StudentGradeTracker extends Application {
             new KeyFrame(Duration.millis(150), new KeyValue(gradeField.opacityProperty(), 0.0)),
             new KeyFrame(Duration.millis(300), new KeyValue(gradeField.opacityProperty(), 1.0))
         );
-        timeline2.play();
+        play(timeline2);
     }
     
-    private void updateSummaryWithAnimation() {
-        // Pulse animation for summary box
-        ScaleTransition pulse = new ScaleTransition(Duration.millis(200), summaryBox);
-        pulse.setToX(1.05);
-        pulse.setToY(1.05);
-        pulse.setAutoReverse(true);
-        pulse.setCycleCount(2);
-        pulse.play();
-        
-        if (students.isEmpty()) {
-            totalStudentsLabel.setText("👥 Total Students: 0");
-            avgLabel.setText("📈 Average: 0.0");
-            highestLabel.setText("🏆 Highest: 0.0");
-            lowestLabel.setText("📉 Lowest: 0.0");
+    private void exportToFile(Button exportButton) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Grades");
+        chooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("CSV (*.csv)", "*.csv"),
+            new FileChooser.ExtensionFilter("JSON Lines (*.jsonl)", "*.jsonl"),
+            new FileChooser.ExtensionFilter("Columnar binary (*.sgtc)", "*.sgtc")
+        );
+        File file = chooser.showSaveDialog(studentTable.getScene().getWindow());
+        if (file == null) {
             return;
         }
-        
-        double sum = 0;
-        double highest = students.get(0).getGrade();
-        double lowest = students.get(0).getGrade();
-        
-        for (Student student : students) {
-            double grade = student.getGrade();
-            sum += grade;
-            if (grade > highest) highest = grade;
-            if (grade < lowest) lowest = grade;
+        Path path = file.toPath();
+        RosterExporter.Format chosen = RosterExporter.Format.forPath(path);
+        if (chosen == null) {
+            // No known extension: use the selected filter's format (filters are in Format order)
+            int filter = chooser.getExtensionFilters().indexOf(chooser.getSelectedExtensionFilter());
+            chosen = RosterExporter.Format.values()[Math.max(0, filter)];
+            path = path.resolveSibling(path.getFileName() + "." + chosen.getExtension());
         }
+        Path target = path;
+        RosterExporter.Format format = chosen;
+        
+        // Encodes straight from the shown store (roster or course) off the FX thread;
+        // edits stay disabled until it is done
+        StudentStore source = courseSwitcher.currentStore();
+        Task<RosterExporter.Result> task = new Task<>() {
+            @Override
+            protected RosterExporter.Result call() throws Exception {
+                return new RosterExporter().export(source, target, format, this::updateProgress);
+            }
+        };
         
-        double average = sum / students.size();
+        String buttonText = exportButton.getText();
+        exporting.set(true);
+        long exportStart = EXPORT_TIMER.start();
+        exportButton.textProperty().bind(task.progressProperty().multiply(100).asString("Exporting %.0f%%"));
+        task.setOnSucceeded(e -> {
+            exportButton.textProperty().unbind();
+            exportButton.setText(buttonText);
+            exporting.set(false);
+            EXPORT_TIMER.stop(exportStart);
+            RosterExporter.Result result = task.getValue();
+            showStyledAlert("Success", String.format("Exported %,d students to %s ✨%nSummary: %s",
+                    result.getRows(), target.getFileName(), RosterExporter.summaryPath(target).getFileName()),
+                    Alert.AlertType.INFORMATION);
+        });
+        task.setOnFailed(e -> {
+            exportButton.textProperty().unbind();
+            exportButton.setText(buttonText);
+            exporting.set(false);
+            showStyledAlert("Error", "Export failed: " + task.getException().getMessage(), Alert.AlertType.ERROR);
+        });
         
-        totalStudentsLabel.setText("👥 Total Students: " + students.size());
-        avgLabel.setText(String.format("📈 Average: %.2f", average));
-        highestLabel.setText(String.format("🏆 Highest: %.2f", highest));
-        lowestLabel.setText(String.format("📉 Lowest: %.2f", lowest));
+        Thread exportThread = new Thread(task, "roster-export");
+        exportThread.setDaemon(true);
+        exportThread.start();
+    }
+    
+    private void undo() {
+        if (exporting.get() || importing.get()) return;
+        if (history.undo()) {
+            updateSummaryWithAnimation();
+        }
+    }
+    
+    private void redo() {
+        if (exporting.get() || importing.get()) return;
+        if (history.redo()) {
+            updateSummaryWithAnimation();
+        }
+    }
+    
+    private void updateSummaryWithAnimation() {
+        // Coalesced: however many edits arrive, the labels refresh at most once per frame
+        summaryScheduler.requestUpdate();
+    }
+    
+    // The shown store's distribution, plus its term's for a course (term is null for the roster)
+    private record SummaryInput(GradeDistribution distribution, long[] letterCounts, GradingScale scale, Term term,
+                                GradeDistribution termDistribution) {}
+    
+    private record SummaryText(String total, String average, String highest, String lowest,
+                               String spread, String percentiles, String letters, String term,
+                               GradeHistogramChart.Data chart) {}
+    
+    // O(buckets) on the FX thread: the course and term aggregates are kept up to date incrementally
+    private SummaryInput snapshotSummary() {
+        Course course = courseSwitcher == null ? null : courseSwitcher.currentCourse();
+        if (course == null) {
+            return new SummaryInput(store.snapshotDistribution(), store.getLetterCounts(), store.getScale(), null, null);
+        }
+        return new SummaryInput(course.snapshotDistribution(), course.getFinals().getLetterCounts(), store.getScale(),
+                course.getTerm(), course.getTerm().snapshotDistribution());
+    }
+    
+    // Runs on the summary thread against a snapshot of the store's histogram
+    private static SummaryText formatSummary(SummaryInput input) {
+        GradeDistribution summary = input.distribution();
+        GradingScale scale = input.scale();
+        String term = input.term() == null ? "🗓 Whole roster"
+                : String.format("🗓 %s: %,d final grades · avg %.2f · median %.2f", input.term().getName(),
+                        input.termDistribution().getCount(), input.termDistribution().getAverage(),
+                        input.termDistribution().getMedian());
+        if (summary.getCount() == 0) {
+            return new SummaryText("👥 Total Students: 0", "📈 Average: 0.0",
+                    "🏆 Highest: 0.0", "📉 Lowest: 0.0", "🎯 Median: 0.0   Std Dev: 0.0",
+                    "📊 P10 0.0 · P25 0.0 · P75 0.0 · P90 0.0", emptyLetters(scale), term,
+                    GradeHistogramChart.EMPTY);
+        }
+        long[] letterCounts = input.letterCounts();
+        StringJoiner letters = new StringJoiner(" · ", "🔤 ", "");
+        for (LetterGrade letter : scale.getLetters()) {
+            letters.add(letter.getLabel() + " " + letterCounts[letter.ordinal()]);
+        }
+        return new SummaryText(
+            "👥 Total Students: " + summary.getCount(),
+            String.format("📈 Average: %.2f", summary.getAverage()),
+            String.format("🏆 Highest: %.2f", summary.getHighest()),
+            String.format("📉 Lowest: %.2f", summary.getLowest()),
+            String.format("🎯 Median: %.2f   Std Dev: %.2f", summary.getMedian(), summary.getStandardDeviation()),
+            String.format("📊 P10 %.1f · P25 %.1f · P75 %.1f · P90 %.1f",
+                    summary.getPercentile(10), summary.getPercentile(25),
+                    summary.getPercentile(75), summary.getPercentile(90)),
+            letters.toString(),
+            term,
+            GradeHistogramChart.prepare(summary, scale)
+        );
+    }
+    
+    private static String emptyLetters(GradingScale scale) {
+        StringJoiner letters = new StringJoiner(" · ", "🔤 ", "");
+        for (LetterGrade letter : scale.getLetters()) {
+            letters.add(letter.getLabel() + " 0");
+        }
+        return letters.toString();
+    }
+    
+    private void showSummary(SummaryText text) {
+        totalStudentsLabel.setText(text.total());
+        avgLabel.setText(text.average());
+        highestLabel.setText(text.highest());
+        lowestLabel.setText(text.lowest());
+        spreadLabel.setText(text.spread());
+        percentilesLabel.setText(text.percentiles());
+        lettersLabel.setText(text.letters());
+        termLabel.setText(text.term());
+        distributionChart.show(text.chart());
     }
     
     private void animateTableRow() {
@@ -550,31 +960,65 @@ public class StudentGradeTracker extends Application {
         }
     }
     
-    private void addEntranceAnimation(VBox container) {
-        container.setOpacity(0);
-        container.setTranslateY(50);
-        
-        FadeTransition fade = new FadeTransition(Duration.millis(800), container);
+    // A short fade for a panel that appears after the first frame; nothing waits for it
+    private void reveal(Node section) {
+        section.setOpacity(0);
+        FadeTransition fade = new FadeTransition(Duration.millis(250), section);
         fade.setToValue(1.0);
-        
-        TranslateTransition slide = new TranslateTransition(Duration.millis(800), container);
-        slide.setToY(0);
-        
-        ParallelTransition entrance = new ParallelTransition(fade, slide);
-        entrance.play();
+        play(fade);
     }
     
     private void addSampleData() {
-        students.add(new Student("Alice Johnson", 92.5));
-        students.add(new Student("Bob Smith", 87.0));
-        students.add(new Student("Carol Brown", 94.5));
-        students.add(new Student("David Wilson", 78.5));
-        students.add(new Student("Emma Davis", 89.0));
+        store.add("Alice Johnson", 92.5);
+        store.add("Bob Smith", 87.0);
+        store.add("Carol Brown", 94.5);
+        store.add("David Wilson", 78.5);
+        store.add("Emma Davis", 89.0);
+        addSampleCourses();
         
-        studentData.addAll(students);
         updateSummaryWithAnimation();
     }
     
+    private void play(Animation animation) {
+        // Hover and click bumps are only decoration: with effects off, jump straight to where they end
+        if (animation instanceof ScaleTransition scale && !renderingProfile.getQuality().animates()) {
+            scale.getNode().setScaleX(scale.getToX());
+            scale.getNode().setScaleY(scale.getToY());
+            return;
+        }
+        ANIMATIONS.increment();
+        animation.play();
+    }
+    
+    private void addSampleCourses() {
+        Term term = catalog.addTerm("Fall");
+        Course math = catalog.addCourse("MATH 101", term);
+        math.addAssessment("Homework", 20);
+        math.addAssessment("Midterm", 30);
+        math.addAssessment("Final exam", 50);
+        Course physics = catalog.addCourse("PHYS 110", term);
+        physics.addAssessment("Labs", 40);
+        physics.addAssessment("Exam", 60);
+        int[] ids = new int[store.size()];
+        for (int row = 0; row < ids.length; row++) {
+            ids[row] = store.getId(row);
+        }
+        math.enrollAll(ids, ids.length);
+        physics.enrollAll(ids, ids.length - 1);
+        double[][] mathScores = {{95, 88, 91}, {82, 90, 85.5}, {98, 93, 96}, {70, 76, 81}, {88, 92, 87}};
+        double[][] physicsScores = {{90, 84}, {78, 88.5}, {97, 91}, {85, 72}};
+        for (int i = 0; i < ids.length; i++) {
+            for (int a = 0; a < mathScores[i].length; a++) {
+                math.setScore(ids[i], a, mathScores[i][a]);
+            }
+            if (i < physicsScores.length) {
+                for (int a = 0; a < physicsScores[i].length; a++) {
+                    physics.setScore(ids[i], a, physicsScores[i][a]);
+                }
+            }
+        }
+    }
+    
     private void showStyledAlert(String title, String message, Alert.AlertType type) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
@@ -599,40 +1043,4 @@ public class StudentGradeTracker extends Application {
         
         alert.showAndWait();
     }
-    
-    public static class Student {
-        private String name;
-        private double grade;
-        private String letterGrade;
-        
-        public Student(String name, double grade) {
-            this.name = name;
-            this.grade = grade;
-            this.letterGrade = calculateLetterGrade(grade);
-        }
-        
-        private String calculateLetterGrade(double grade) {
-            if (grade >= 90) return "A";
-            else if (grade >= 80) return "B";
-            else if (grade >= 70) return "C";
-            else if (grade >= 60) return "D";
-            else return "F";
-        }
-        
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-        
-        public double getGrade() { return grade; }
-        public void setGrade(double grade) { 
-            this.grade = grade; 
-            this.letterGrade = calculateLetterGrade(grade);
-        }
-        
-        public String getLetterGrade() { return letterGrade; }
-        
-        @Override
-        public String toString() {
-            return String.format("%s: %.2f (%s)", name, grade, letterGrade);
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+import gradebook.Student;
+import gradebook.StudentStore;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only ObservableList over a {@link StudentStore}, used as the items of
+ * the student table. It holds no copy of the data: rows are materialized as
+ * {@link Student} handles on demand, and store mutations are forwarded as
+ * list change events. Must only be mutated from the FX thread.
+ */
+public class StudentListView extends ObservableListBase<Student> implements StudentStore.Listener {
+
+    private final StudentStore store;
+    private List<Student> pendingRemoval = List.of();
+
+    public StudentListView(StudentStore store) {
+        this.store = store;
+        store.addListener(this);
+    }
+
+    @Override
+    public Student get(int index) {
+        return store.get(index);
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public void rowsAdded(int fromRow, int toRow) {
+        beginChange();
+        nextAdd(fromRow, toRow);
+        endChange();
+    }
+
+    @Override
+    public void rowsRemoving(int[] rows, int count) {
+        // Removed rows are reported as detached copies since their handles stop resolving
+        pendingRemoval = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            pendingRemoval.add(new Student(store.getName(rows[i]), store.getGrade(rows[i])));
+        }
+    }
+
+    @Override
+    public void rowsRemoved(int[] rows, int count) {
+        beginChange();
+        int i = 0;
+        while (i < count) {
+            int start = i;
+            while (i + 1 < count && rows[i + 1] == rows[i] + 1) {
+                i++;
+            }
+            i++;
+            // Earlier runs have already shifted this run left by 'start' rows
+            nextRemove(rows[start] - start, pendingRemoval.subList(start, i));
+        }
+        endChange();
+        pendingRemoval = List.of();
+    }
+
+    @Override
+    public void rowsInserted(int[] rows, int count) {
+        beginChange();
+        int i = 0;
+        while (i < count) {
+            int start = i;
+            while (i + 1 < count && rows[i + 1] == rows[i] + 1) {
+                i++;
+            }
+            i++;
+            // Post-insert positions, so runs can be reported as they are
+            nextAdd(rows[start], rows[i - 1] + 1);
+        }
+        endChange();
+    }
+
+    @Override
+    public void gradeChanged(int row, double oldGrade, double newGrade) {
+        fireUpdate(row);
+    }
+
+    @Override
+    public void gradesChanged(int[] rows, int count, double[] oldGrades, double[] newGrades) {
+        beginChange();
+        for (int i = 0; i < count; i++) {
+            nextUpdate(rows[i]);
+        }
+        endChange();
+    }
+
+    @Override
+    public void nameChanged(int row) {
+        fireUpdate(row);
+    }
+
+    private void fireUpdate(int row) {
+        beginChange();
+        nextUpdate(row);
+        endChange();
+    }
+}
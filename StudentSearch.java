@@ -0,0 +1,136 @@
+import gradebook.NameIndex;
+import gradebook.Student;
+import gradebook.StudentStore;
+import javafx.animation.PauseTransition;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+
+import java.util.function.Supplier;
+
+/**
+ * Search box for the student table, backed by a {@link NameIndex}.
+ *
+ * Keystrokes restart a short debounce, so a query runs once typing pauses
+ * rather than on every key. A query reads at most {@link #MAX_RESULTS}
+ * matches from the index, which takes well under a millisecond even for a
+ * million names, and swaps the table over to them; clearing the box brings
+ * back the unfiltered items. While a query is active, roster changes re-run it.
+ */
+final class StudentSearch implements StudentStore.Listener {
+
+    static final int MAX_RESULTS = 1_000;
+
+    private static final Duration DEBOUNCE = Duration.millis(150);
+
+    private final StudentStore store;
+    private final TableView<Student> table;
+    private final Supplier<ObservableList<Student>> unfiltered;
+    private final ObservableList<Student> results = FXCollections.observableArrayList();
+    private final NameIndex index;
+    private final int[] ids = new int[MAX_RESULTS];
+    private final TextField field = new TextField();
+    private final Label status = new Label();
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE);
+
+    private Runnable onSearch = () -> {};
+    private String query = "";
+
+    StudentSearch(StudentStore store, TableView<Student> table, Supplier<ObservableList<Student>> unfiltered) {
+        this.store = store;
+        this.table = table;
+        this.unfiltered = unfiltered;
+        this.index = new NameIndex(store);
+        field.setPromptText("Search by name...");
+        field.textProperty().addListener((obs, oldText, newText) -> debounce.playFromStart());
+        debounce.setOnFinished(e -> run());
+        store.addListener(this);
+    }
+
+    TextField getField() { return field; }
+
+    Label getStatus() { return status; }
+
+    /** Called before a non-empty query replaces the table's items. */
+    void setOnSearch(Runnable onSearch) { this.onSearch = onSearch; }
+
+    /** Empties the box; the table is left to whoever replaces its items. */
+    void clear() {
+        query = "";
+        results.clear();
+        status.setText("");
+        field.clear();
+        // Clearing the text would otherwise schedule a run
+        debounce.stop();
+    }
+
+    @Override
+    public void rowsAdded(int fromRow, int toRow) {
+        rerunIfActive();
+    }
+
+    @Override
+    public void rowsRemoved(int[] rows, int count) {
+        // Drop removed students right away; the table may repaint before the next query
+        if (!query.isEmpty()) {
+            results.removeIf(student -> store.rowOf(student.getId()) < 0);
+            showCount(results.size());
+        }
+    }
+
+    @Override
+    public void rowsInserted(int[] rows, int count) {
+        rerunIfActive();
+    }
+
+    @Override
+    public void gradeChanged(int row, double oldGrade, double newGrade) {
+        rerunIfActive();
+    }
+
+    @Override
+    public void gradesChanged(int[] rows, int count, double[] oldGrades, double[] newGrades) {
+        rerunIfActive();
+    }
+
+    @Override
+    public void nameChanged(int row) {
+        rerunIfActive();
+    }
+
+    private void rerunIfActive() {
+        if (!query.isEmpty()) {
+            debounce.playFromStart();
+        }
+    }
+
+    private void run() {
+        query = field.getText().strip();
+        if (query.isEmpty()) {
+            results.clear();
+            status.setText("");
+            table.setItems(unfiltered.get());
+            return;
+        }
+        onSearch.run();
+        int found = index.search(query, ids);
+        Student[] matches = new Student[found];
+        for (int i = 0; i < found; i++) {
+            matches[i] = store.get(store.rowOf(ids[i]));
+        }
+        results.setAll(matches);
+        showCount(found);
+        if (table.getItems() != results) {
+            table.setItems(results);
+        }
+    }
+
+    private void showCount(int found) {
+        status.setText(found == MAX_RESULTS
+                ? String.format("Showing the first %,d matches", MAX_RESULTS)
+                : String.format("%,d match%s", found, found == 1 ? "" : "es"));
+    }
+}
@@ -0,0 +1,113 @@
+import gradebook.LetterGrade;
+import gradebook.Metrics;
+import gradebook.Student;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.css.PseudoClass;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+
+/**
+ * Cell and value factories for the student table.
+ *
+ * Styling lives in {@link #STYLESHEET}; a cell only sets its text and, for
+ * letter grades, flips a pseudo-class, so {@code updateItem} allocates no
+ * CSS strings while scrolling. Grades on the 0.1 grid shown by the table
+ * use pre-formatted strings instead of {@code String.format}. Every
+ * {@code updateItem} bumps the {@code table.updateItem} counter.
+ */
+final class StudentTableCells {
+
+    static final String STYLESHEET = "student-grade-tracker.css";
+    static final String TABLE_STYLE_CLASS = "student-table";
+
+    private static final PseudoClass[] LETTER_PSEUDO_CLASSES = {
+        PseudoClass.getPseudoClass("grade-a"),
+        PseudoClass.getPseudoClass("grade-b"),
+        PseudoClass.getPseudoClass("grade-c"),
+        PseudoClass.getPseudoClass("grade-d"),
+        PseudoClass.getPseudoClass("grade-f")
+    };
+
+    private static final Metrics.Counter UPDATES = Metrics.shared().counter("table.updateItem");
+
+    // "0.0" .. "100.0", indexed by grade * 10
+    private static final String[] GRADE_TEXT = new String[1001];
+
+    static {
+        for (int i = 0; i < GRADE_TEXT.length; i++) {
+            GRADE_TEXT[i] = String.format("%.1f", i / 10.0);
+        }
+    }
+
+    private StudentTableCells() {
+    }
+
+    static String formatGrade(double grade) {
+        double scaled = grade * 10;
+        if (scaled >= 0 && scaled <= 1000 && scaled == Math.rint(scaled)) {
+            return GRADE_TEXT[(int) scaled];
+        }
+        return String.format("%.1f", grade);
+    }
+
+    static void configure(TableColumn<Student, String> nameColumn,
+                          TableColumn<Student, Double> gradeColumn,
+                          TableColumn<Student, String> letterGradeColumn) {
+        // Plain lambdas instead of PropertyValueFactory avoid a reflective call per cell
+        nameColumn.setCellValueFactory(data -> new ReadOnlyStringWrapper(data.getValue().getName()));
+        gradeColumn.setCellValueFactory(data -> new ReadOnlyObjectWrapper<>(data.getValue().getGrade()));
+        letterGradeColumn.setCellValueFactory(data -> new ReadOnlyStringWrapper(data.getValue().getLetterGrade()));
+
+        nameColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                UPDATES.increment();
+                setText(empty ? null : item);
+            }
+        });
+        gradeColumn.setCellFactory(column -> new GradeCell());
+        letterGradeColumn.setCellFactory(column -> new LetterGradeCell());
+    }
+
+    private static class GradeCell extends TableCell<Student, Double> {
+        GradeCell() {
+            getStyleClass().add("grade-cell");
+        }
+
+        @Override
+        protected void updateItem(Double item, boolean empty) {
+            super.updateItem(item, empty);
+            UPDATES.increment();
+            setText(empty || item == null ? null : formatGrade(item));
+        }
+    }
+
+    private static class LetterGradeCell extends TableCell<Student, String> {
+        private int activeLetter = -1;
+
+        LetterGradeCell() {
+            getStyleClass().add("letter-cell");
+        }
+
+        @Override
+        protected void updateItem(String item, boolean empty) {
+            super.updateItem(item, empty);
+            UPDATES.increment();
+            setText(empty ? null : item);
+            int letter = empty || item == null ? -1 : letterIndex(item);
+            if (letter != activeLetter) {
+                if (activeLetter >= 0) pseudoClassStateChanged(LETTER_PSEUDO_CLASSES[activeLetter], false);
+                if (letter >= 0) pseudoClassStateChanged(LETTER_PSEUDO_CLASSES[letter], true);
+                activeLetter = letter;
+            }
+        }
+
+        // Band of the letter, so A+, A and A- share a colour
+        private static int letterIndex(String letterGrade) {
+            LetterGrade letter = LetterGrade.forLabel(letterGrade);
+            return letter == null ? -1 : letter.getBand();
+        }
+    }
+}
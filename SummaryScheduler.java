@@ -0,0 +1,127 @@
+import gradebook.Metrics;
+import javafx.animation.Animation;
+import javafx.animation.AnimationTimer;
+import javafx.animation.ScaleTransition;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.util.Duration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces summary refreshes so that any number of edits between two
+ * frames costs one computation and one label update.
+ *
+ * {@link #requestUpdate()} only marks the summary dirty. On the next frame
+ * an AnimationTimer takes a snapshot on the FX thread, the snapshot is
+ * turned into a result on a background thread, and the result is published
+ * on a later frame. At most one computation is in flight and at most one
+ * pulse animation runs at a time. The three steps are timed as
+ * {@code summary.snapshot}, {@code summary.compute} and {@code summary.publish}.
+ */
+final class SummaryScheduler<S, R> {
+
+    private static final Metrics.Timer SNAPSHOT_TIMER = Metrics.shared().timer("summary.snapshot");
+    private static final Metrics.Timer COMPUTE_TIMER = Metrics.shared().timer("summary.compute");
+    private static final Metrics.Timer PUBLISH_TIMER = Metrics.shared().timer("summary.publish");
+    private static final Metrics.Counter ANIMATIONS = Metrics.shared().counter("fx.animations");
+
+    private final Supplier<S> snapshot;
+    private final Function<S, R> compute;
+    private final Consumer<R> publish;
+    private final ScaleTransition pulse;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "summary-compute");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private boolean pulsing = true;
+    private boolean dirty;
+    private boolean computing;
+    private boolean running;
+    private R pending;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            onFrame();
+        }
+    };
+
+    SummaryScheduler(Supplier<S> snapshot, Function<S, R> compute, Consumer<R> publish, Node pulseTarget) {
+        this.snapshot = snapshot;
+        this.compute = compute;
+        this.publish = publish;
+        this.pulse = new ScaleTransition(Duration.millis(200), pulseTarget);
+        pulse.setToX(1.05);
+        pulse.setToY(1.05);
+        pulse.setAutoReverse(true);
+        pulse.setCycleCount(2);
+    }
+
+    /** Marks the summary stale; must be called on the FX thread. */
+    void requestUpdate() {
+        dirty = true;
+        if (!running) {
+            running = true;
+            timer.start();
+        }
+    }
+
+    /** Whether a published summary pulses; off while effects are off. */
+    void setPulsing(boolean pulsing) {
+        this.pulsing = pulsing;
+    }
+
+    void shutdown() {
+        timer.stop();
+        executor.shutdownNow();
+    }
+
+    private void onFrame() {
+        R result = pending;
+        if (result != null) {
+            pending = null;
+            long start = PUBLISH_TIMER.start();
+            publish.accept(result);
+            PUBLISH_TIMER.stop(start);
+            if (pulsing && pulse.getStatus() != Animation.Status.RUNNING) {
+                ANIMATIONS.increment();
+                pulse.playFromStart();
+            }
+        }
+
+        if (dirty && !computing) {
+            dirty = false;
+            computing = true;
+            long start = SNAPSHOT_TIMER.start();
+            S input = snapshot.get();
+            SNAPSHOT_TIMER.stop(start);
+            executor.execute(() -> {
+                R output = null;
+                long computeStart = COMPUTE_TIMER.start();
+                try {
+                    output = compute.apply(input);
+                } finally {
+                    COMPUTE_TIMER.stop(computeStart);
+                    R computed = output;
+                    Platform.runLater(() -> {
+                        pending = computed;
+                        computing = false;
+                    });
+                }
+            });
+        }
+
+        // Idle: nothing dirty, nothing in flight, nothing to publish
+        if (!dirty && !computing && pending == null) {
+            timer.stop();
+            running = false;
+        }
+    }
+}
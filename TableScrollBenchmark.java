@@ -0,0 +1,158 @@
+import gradebook.Student;
+import gradebook.StudentBatch;
+import gradebook.StudentStore;
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.Stage;
+
+import java.util.Arrays;
+
+/**
+ * Scrolls a student table through a large roster and reports frame times.
+ *
+ * Usage: java ... TableScrollBenchmark [rows] [--legacy]
+ *
+ * With --legacy the table uses the original cell factories (inline CSS
+ * text and String.format on every updateItem) for comparison.
+ */
+public class TableScrollBenchmark extends Application {
+
+    private static final int WARMUP_FRAMES = 120;
+    private static final int MEASURED_FRAMES = 1200;
+    private static final int ROWS_PER_FRAME = 37;
+
+    @Override
+    public void start(Stage stage) {
+        int rows = 1_000_000;
+        boolean legacy = false;
+        for (String arg : getParameters().getRaw()) {
+            if (arg.equals("--legacy")) legacy = true;
+            else rows = Integer.parseInt(arg);
+        }
+
+        StudentStore store = new StudentStore();
+        StudentBatch batch = new StudentBatch(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.add("Student " + i, (i * 37 % 1001) / 10.0);
+        }
+        store.addAll(batch);
+
+        TableView<Student> table = new TableView<>(new StudentListView(store));
+        table.getStyleClass().add(StudentTableCells.TABLE_STYLE_CLASS);
+        TableColumn<Student, String> nameColumn = new TableColumn<>("Name");
+        TableColumn<Student, Double> gradeColumn = new TableColumn<>("Grade");
+        TableColumn<Student, String> letterGradeColumn = new TableColumn<>("Letter");
+        if (legacy) {
+            configureLegacy(nameColumn, gradeColumn, letterGradeColumn);
+        } else {
+            StudentTableCells.configure(nameColumn, gradeColumn, letterGradeColumn);
+        }
+        table.getColumns().add(nameColumn);
+        table.getColumns().add(gradeColumn);
+        table.getColumns().add(letterGradeColumn);
+
+        Scene scene = new Scene(table, 600, 900);
+        scene.getStylesheets().add(getClass().getResource(StudentTableCells.STYLESHEET).toExternalForm());
+        stage.setScene(scene);
+        stage.show();
+
+        String mode = legacy ? "legacy inline-CSS cells" : "stylesheet cells";
+        int rowCount = rows;
+        long[] frameNanos = new long[MEASURED_FRAMES];
+        new AnimationTimer() {
+            private int frame;
+            private long last;
+
+            @Override
+            public void handle(long now) {
+                if (frame > WARMUP_FRAMES) {
+                    frameNanos[frame - WARMUP_FRAMES - 1] = now - last;
+                }
+                last = now;
+                if (++frame > WARMUP_FRAMES + MEASURED_FRAMES) {
+                    stop();
+                    report(mode, rowCount, frameNanos);
+                    Platform.exit();
+                    return;
+                }
+                table.scrollTo((int) ((long) frame * ROWS_PER_FRAME % rowCount));
+            }
+        }.start();
+    }
+
+    private static void report(String mode, int rows, long[] frameNanos) {
+        long[] sorted = frameNanos.clone();
+        Arrays.sort(sorted);
+        double meanMillis = Arrays.stream(sorted).average().orElse(0) / 1e6;
+        System.out.printf("%s, %,d rows, %d frames%n", mode, rows, sorted.length);
+        System.out.printf("  mean %.2f ms (%.1f fps)  p50 %.2f ms  p95 %.2f ms  p99 %.2f ms  max %.2f ms%n",
+                meanMillis, 1000 / meanMillis, percentile(sorted, 50), percentile(sorted, 95),
+                percentile(sorted, 99), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)] / 1e6;
+    }
+
+    /** The cell factories as they were before StudentTableCells. */
+    private static void configureLegacy(TableColumn<Student, String> nameColumn,
+                                        TableColumn<Student, Double> gradeColumn,
+                                        TableColumn<Student, String> letterGradeColumn) {
+        nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
+        gradeColumn.setCellValueFactory(new PropertyValueFactory<>("grade"));
+        letterGradeColumn.setCellValueFactory(new PropertyValueFactory<>("letterGrade"));
+        nameColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty ? null : item);
+                setStyle(empty ? "" : """
+                    -fx-text-fill: #ffffff;
+                    -fx-font-weight: bold;
+                    -fx-font-size: 14px;
+                    -fx-background-color: transparent;
+                """);
+            }
+        });
+        gradeColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : String.format("%.1f", item));
+                setStyle(empty ? "" : """
+                    -fx-text-fill: #ffffff;
+                    -fx-font-weight: bold;
+                    -fx-font-size: 14px;
+                    -fx-background-color: transparent;
+                    -fx-alignment: CENTER;
+                """);
+            }
+        });
+        letterGradeColumn.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty ? null : item);
+                setStyle(empty || item == null ? "" : String.format("""
+                    -fx-text-fill: %s;
+                    -fx-font-weight: bold;
+                    -fx-font-size: 16px;
+                    -fx-background-color: transparent;
+                    -fx-alignment: CENTER;
+                """, switch (item) {
+                    case "A" -> "#4CAF50";
+                    case "B" -> "#8BC34A";
+                    case "C" -> "#FFC107";
+                    case "D" -> "#FF9800";
+                    default -> "#F44336";
+                }));
+            }
+        });
+    }
+}
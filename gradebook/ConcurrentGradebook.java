@@ -0,0 +1,452 @@
+package gradebook;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe gradebook for several concurrent writers, e.g. graders
+ * entering marks through an integration while the UI is open.
+ *
+ * Students are spread over {@link #STRIPES} stripes by id, each with its own
+ * lock, so writers to different students rarely wait for each other. A
+ * stripe keeps its students in a segment of arrays indexed by
+ * {@code id / STRIPES}. {@link #snapshot()} briefly takes every stripe lock
+ * in order, which gives a consistent cut, and keeps the current segments
+ * instead of copying them: it marks them shared, and the next write to a
+ * shared segment copies it first (copy-on-write per segment). A snapshot
+ * therefore costs O(stripes), and the copying happens only in stripes that
+ * are written before the next snapshot.
+ *
+ * Every change is also published to each {@link Subscription}, in the
+ * order it was applied to that student, so a single-threaded view such as
+ * the UI's {@link StudentStore} can follow along (see {@link GradebookMirror}).
+ * Writes may name a subscription as their origin; that subscription does
+ * not see its own changes echoed back.
+ */
+public class ConcurrentGradebook {
+
+    public static final int STRIPES = 64;
+
+    private static final int STRIPE_SHIFT = 6;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    public enum ChangeKind { ADDED, REMOVED, GRADE_CHANGED, RENAMED }
+
+    /** One applied change; {@code name} and {@code grade} are the student's values afterwards. */
+    public record Change(ChangeKind kind, int id, String name, double grade) {}
+
+    /** Receives the changes made after it subscribed, in per-student order. */
+    public final class Subscription implements AutoCloseable {
+        private final ConcurrentLinkedQueue<Change> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean signalled = new AtomicBoolean();
+        private final Runnable onAvailable;
+
+        private Subscription(Runnable onAvailable) {
+            this.onAvailable = onAvailable;
+        }
+
+        /**
+         * Moves every pending change into {@code target} and returns how many
+         * there were. Changes published while draining either land in this
+         * call or signal {@code onAvailable} again.
+         */
+        public int drain(List<Change> target) {
+            signalled.set(false);
+            int drained = 0;
+            for (Change change; (change = queue.poll()) != null; drained++) {
+                target.add(change);
+            }
+            return drained;
+        }
+
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+
+        void offer(Change change) {
+            queue.offer(change);
+            if (signalled.compareAndSet(false, true)) {
+                onAvailable.run();
+            }
+        }
+    }
+
+    /** Immutable view of every student at one instant. */
+    public static final class Snapshot {
+        private final Segment[] segments;
+        private final int size;
+        private final int idLimit;
+
+        private Snapshot(Segment[] segments, int size, int idLimit) {
+            this.segments = segments;
+            this.size = size;
+            this.idLimit = idLimit;
+        }
+
+        public int size() { return size; }
+
+        /** Every id in the snapshot is below this. */
+        public int getIdLimit() { return idLimit; }
+
+        /** The student's grade, or NaN if there is no such student in this snapshot. */
+        public double getGrade(int id) {
+            Segment segment = segmentOf(id);
+            int slot = id >>> STRIPE_SHIFT;
+            return slot < segment.names.length && segment.names[slot] != null ? segment.grades[slot] : Double.NaN;
+        }
+
+        /** The student's name, or null if there is no such student in this snapshot. */
+        public String getName(int id) {
+            Segment segment = segmentOf(id);
+            int slot = id >>> STRIPE_SHIFT;
+            return slot < segment.names.length ? segment.names[slot] : null;
+        }
+
+        /** Visits every student in id order. */
+        public void forEach(StudentVisitor visitor) {
+            for (int id = 0; id < idLimit; id++) {
+                Segment segment = segmentOf(id);
+                int slot = id >>> STRIPE_SHIFT;
+                if (slot < segment.names.length && segment.names[slot] != null) {
+                    visitor.visit(id, segment.names[slot], segment.grades[slot]);
+                }
+            }
+        }
+
+        /** Summary of every grade in the snapshot. */
+        public GradeDistribution distribution() {
+            GradeDistribution distribution = new GradeDistribution();
+            for (Segment segment : segments) {
+                for (int slot = 0; slot < segment.names.length; slot++) {
+                    if (segment.names[slot] != null) {
+                        distribution.add(segment.grades[slot]);
+                    }
+                }
+            }
+            return distribution;
+        }
+
+        /** Number of students per letter of the scale, indexed by {@link LetterGrade} ordinal. */
+        public long[] letterCounts(GradingScale scale) {
+            long[] letterCounts = new long[LetterGrade.values().length];
+            for (Segment segment : segments) {
+                for (int slot = 0; slot < segment.names.length; slot++) {
+                    if (segment.names[slot] != null) {
+                        letterCounts[scale.codeOf(segment.grades[slot])]++;
+                    }
+                }
+            }
+            return letterCounts;
+        }
+
+        private Segment segmentOf(int id) {
+            if (id < 0) {
+                throw new IllegalArgumentException("Negative id " + id);
+            }
+            return segments[id & (STRIPES - 1)];
+        }
+    }
+
+    public interface StudentVisitor {
+        void visit(int id, String name, double grade);
+    }
+
+    /** A stripe's students by slot; a null name marks an empty slot. */
+    private static final class Segment {
+        final String[] names;
+        final double[] grades;
+        boolean shared;
+
+        Segment(int capacity) {
+            names = new String[capacity];
+            grades = new double[capacity];
+        }
+
+        Segment(Segment source, int capacity) {
+            names = Arrays.copyOf(source.names, capacity);
+            grades = Arrays.copyOf(source.grades, capacity);
+        }
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        Segment segment = new Segment(INITIAL_SEGMENT_CAPACITY);
+        int size;
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicInteger size = new AtomicInteger();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public ConcurrentGradebook() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Subscribes to every later change. {@code onAvailable} runs on the
+     * writing thread whenever changes become pending after a drain, so it
+     * should only schedule the drain, e.g. {@code Platform::runLater}.
+     */
+    public Subscription subscribe(Runnable onAvailable) {
+        Subscription subscription = new Subscription(Objects.requireNonNull(onAvailable));
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public int size() { return size.get(); }
+
+    public int add(String name, double grade) {
+        return add(name, grade, null);
+    }
+
+    /** Adds a student and returns its id; {@code origin} is not told about it. */
+    public int add(String name, double grade, Subscription origin) {
+        Objects.requireNonNull(name, "name");
+        StudentStore.checkGrade(grade);
+        int id = nextId.getAndIncrement();
+        Stripe stripe = stripes[id & (STRIPES - 1)];
+        stripe.lock.lock();
+        try {
+            Segment segment = writable(stripe, id >>> STRIPE_SHIFT);
+            segment.names[id >>> STRIPE_SHIFT] = name;
+            segment.grades[id >>> STRIPE_SHIFT] = grade;
+            stripe.size++;
+            size.incrementAndGet();
+            publish(new Change(ChangeKind.ADDED, id, name, grade), origin);
+        } finally {
+            stripe.lock.unlock();
+        }
+        return id;
+    }
+
+    public int addAll(StudentBatch batch) {
+        return addAll(batch, null);
+    }
+
+    /**
+     * Adds every student in the batch under consecutive ids and returns the
+     * first. The batch is applied under every stripe lock, like a snapshot,
+     * so it becomes visible at once and its changes are published in id
+     * order; other writers wait for the whole batch, so keep batches to a
+     * few thousand students.
+     */
+    public int addAll(StudentBatch batch, Subscription origin) {
+        int count = batch.size();
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            StudentStore.checkGrade(batch.grade(i));
+            names[i] = batch.name(i);
+        }
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+        try {
+            int first = nextId.getAndAdd(count);
+            for (int i = 0; i < count; i++) {
+                int id = first + i;
+                Stripe stripe = stripes[id & (STRIPES - 1)];
+                Segment segment = writable(stripe, id >>> STRIPE_SHIFT);
+                segment.names[id >>> STRIPE_SHIFT] = names[i];
+                segment.grades[id >>> STRIPE_SHIFT] = batch.grade(i);
+                stripe.size++;
+                publish(new Change(ChangeKind.ADDED, id, names[i], batch.grade(i)), origin);
+            }
+            size.addAndGet(count);
+            return first;
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                stripes[i].lock.unlock();
+            }
+        }
+    }
+
+    public boolean remove(int id) {
+        return remove(id, null);
+    }
+
+    /** Removes the student; false if there is no such student (any more). */
+    public boolean remove(int id, Subscription origin) {
+        Stripe stripe = stripeOf(id);
+        stripe.lock.lock();
+        try {
+            if (!contains(stripe, id)) return false;
+            Segment segment = writable(stripe, id >>> STRIPE_SHIFT);
+            String name = segment.names[id >>> STRIPE_SHIFT];
+            double grade = segment.grades[id >>> STRIPE_SHIFT];
+            segment.names[id >>> STRIPE_SHIFT] = null;
+            stripe.size--;
+            size.decrementAndGet();
+            publish(new Change(ChangeKind.REMOVED, id, name, grade), origin);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public boolean setGrade(int id, double grade) {
+        return setGrade(id, grade, null);
+    }
+
+    /** Sets the student's grade; false if there is no such student (any more). */
+    public boolean setGrade(int id, double grade, Subscription origin) {
+        StudentStore.checkGrade(grade);
+        Stripe stripe = stripeOf(id);
+        stripe.lock.lock();
+        try {
+            if (!contains(stripe, id)) return false;
+            Segment segment = writable(stripe, id >>> STRIPE_SHIFT);
+            if (Double.compare(segment.grades[id >>> STRIPE_SHIFT], grade) == 0) return true;
+            segment.grades[id >>> STRIPE_SHIFT] = grade;
+            publish(new Change(ChangeKind.GRADE_CHANGED, id, segment.names[id >>> STRIPE_SHIFT], grade), origin);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public boolean setName(int id, String name) {
+        return setName(id, name, null);
+    }
+
+    /** Renames the student; false if there is no such student (any more). */
+    public boolean setName(int id, String name, Subscription origin) {
+        Objects.requireNonNull(name, "name");
+        Stripe stripe = stripeOf(id);
+        stripe.lock.lock();
+        try {
+            if (!contains(stripe, id)) return false;
+            Segment segment = writable(stripe, id >>> STRIPE_SHIFT);
+            if (segment.names[id >>> STRIPE_SHIFT].equals(name)) return true;
+            segment.names[id >>> STRIPE_SHIFT] = name;
+            publish(new Change(ChangeKind.RENAMED, id, name, segment.grades[id >>> STRIPE_SHIFT]), origin);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public boolean update(int id, String name, double grade) {
+        return update(id, name, grade, null);
+    }
+
+    /**
+     * Renames the student and/or sets their grade in one step, so that no
+     * other write comes in between; a null name or NaN grade stays as it
+     * is. False, with nothing changed, if there is no such student (any more).
+     */
+    public boolean update(int id, String name, double grade, Subscription origin) {
+        boolean hasGrade = !Double.isNaN(grade);
+        if (hasGrade) {
+            StudentStore.checkGrade(grade);
+        }
+        Stripe stripe = stripeOf(id);
+        stripe.lock.lock();
+        try {
+            if (!contains(stripe, id)) return false;
+            Segment segment = writable(stripe, id >>> STRIPE_SHIFT);
+            int slot = id >>> STRIPE_SHIFT;
+            boolean regraded = hasGrade && Double.compare(segment.grades[slot], grade) != 0;
+            boolean renamed = name != null && !segment.names[slot].equals(name);
+            if (regraded) segment.grades[slot] = grade;
+            if (renamed) segment.names[slot] = name;
+            // Both changes carry the values after the whole update
+            if (regraded) publish(new Change(ChangeKind.GRADE_CHANGED, id, segment.names[slot], grade), origin);
+            if (renamed) publish(new Change(ChangeKind.RENAMED, id, name, segment.grades[slot]), origin);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /** The student's current grade, or NaN if there is no such student. */
+    public double getGrade(int id) {
+        Stripe stripe = stripeOf(id);
+        stripe.lock.lock();
+        try {
+            return contains(stripe, id) ? stripe.segment.grades[id >>> STRIPE_SHIFT] : Double.NaN;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /** The student's current name, or null if there is no such student. */
+    public String getName(int id) {
+        Stripe stripe = stripeOf(id);
+        stripe.lock.lock();
+        try {
+            return contains(stripe, id) ? stripe.segment.names[id >>> STRIPE_SHIFT] : null;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /** Consistent view of every student; writers are held up only while the stripe locks are taken. */
+    public Snapshot snapshot() {
+        Segment[] segments = new Segment[STRIPES];
+        int total = 0;
+        int idLimit;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+        try {
+            // Read under every lock, so no add that the segments miss can be below this
+            idLimit = nextId.get();
+            for (int i = 0; i < STRIPES; i++) {
+                Segment segment = stripes[i].segment;
+                segment.shared = true;
+                segments[i] = segment;
+                total += stripes[i].size;
+            }
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                stripes[i].lock.unlock();
+            }
+        }
+        return new Snapshot(segments, total, idLimit);
+    }
+
+    private Stripe stripeOf(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id " + id);
+        }
+        return stripes[id & (STRIPES - 1)];
+    }
+
+    private static boolean contains(Stripe stripe, int id) {
+        int slot = id >>> STRIPE_SHIFT;
+        return slot < stripe.segment.names.length && stripe.segment.names[slot] != null;
+    }
+
+    // Segment that may be written at slot: copied first if a snapshot holds it or it is too small
+    private static Segment writable(Stripe stripe, int slot) {
+        Segment segment = stripe.segment;
+        if (segment.shared || slot >= segment.names.length) {
+            int capacity = segment.names.length;
+            while (capacity <= slot) {
+                capacity *= 2;
+            }
+            segment = new Segment(segment, capacity);
+            stripe.segment = segment;
+        }
+        return segment;
+    }
+
+    // Called under the student's stripe lock, which keeps each student's changes in order
+    private void publish(Change change, Subscription origin) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription != origin) {
+                subscription.offer(change);
+            }
+        }
+    }
+}
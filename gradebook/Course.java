@@ -0,0 +1,376 @@
+package gradebook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * One course in one {@link Term}: its weighted assessments and every
+ * enrolled student's score on each.
+ *
+ * Scores are kept in tenths of a point, one short[] column per assessment
+ * indexed by the student's id in {@link #getFinals()}, so 30 assessments
+ * for 100K students take 6 MB. Weights are whole numbers (percentages,
+ * say) and each student's weighted sum is kept as an exact long next to
+ * the scores, so a score change updates the final grade in O(1) with no
+ * drift however many edits it sees. An ungraded assessment counts as 0:
+ * the final grade is the one the student would get if the course ended
+ * now.
+ *
+ * The final grades, rounded to hundredths, live in a {@link StudentStore}
+ * with a row per enrolled student. That store keeps the course's running
+ * statistics and histogram, fires the usual listener events and is what
+ * the table shows for the course. Students are identified by their id in
+ * the roster the course was created for; a student removed from the
+ * roster leaves the course, and comes back with every score when the
+ * removal is undone.
+ */
+public class Course {
+
+    /** Stored for an assessment without a score. */
+    public static final short UNGRADED = -1;
+
+    public static final int MAX_WEIGHT = 1000;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final StudentStore roster;
+    private final String code;
+    private final Term term;
+    private final StudentStore finals;
+
+    private final List<String> assessmentNames = new ArrayList<>();
+    private int[] weights = new int[0];
+    private long totalWeight;
+    private short[][] scores = new short[0][];
+
+    // Indexed by finals id
+    private long[] weightedSums = new long[INITIAL_CAPACITY];
+    private int[] studentIds = new int[INITIAL_CAPACITY];
+    // Dropped on request rather than by a roster removal, so not restored with it
+    private final BitSet withdrawn = new BitSet();
+    // Finals id by roster id, -1 if never enrolled
+    private int[] finalsIds = new int[0];
+
+    Course(StudentStore roster, String code, Term term) {
+        this.roster = roster;
+        this.code = code;
+        this.term = term;
+        this.finals = new StudentStore(roster.getNames());
+        finals.setScale(roster.getScale());
+    }
+
+    public String getCode() { return code; }
+
+    public Term getTerm() { return term; }
+
+    /** Final grades of the enrolled students, one row each; ids are the course's own. */
+    public StudentStore getFinals() { return finals; }
+
+    public GradeDistribution snapshotDistribution() { return finals.snapshotDistribution(); }
+
+    public int getEnrollment() { return finals.size(); }
+
+    public int getAssessmentCount() { return weights.length; }
+
+    public String getAssessmentName(int assessment) { return assessmentNames.get(assessment); }
+
+    public int getWeight(int assessment) { return weights[assessment]; }
+
+    public long getTotalWeight() { return totalWeight; }
+
+    /** Adds an ungraded assessment and returns its index; every final grade is reweighted. */
+    public int addAssessment(String name, int weight) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("An assessment needs a name");
+        }
+        checkWeight(weight);
+        int assessment = weights.length;
+        assessmentNames.add(name.strip());
+        weights = Arrays.copyOf(weights, assessment + 1);
+        weights[assessment] = weight;
+        scores = Arrays.copyOf(scores, assessment + 1);
+        scores[assessment] = new short[studentIds.length];
+        Arrays.fill(scores[assessment], UNGRADED);
+        totalWeight += weight;
+        refreshFinals();
+        return assessment;
+    }
+
+    /** Changes an assessment's weight; one pass over its column and every final grade. */
+    public void setWeight(int assessment, int weight) {
+        checkWeight(weight);
+        int delta = weight - weights[assessment];
+        if (delta == 0) return;
+        weights[assessment] = weight;
+        totalWeight += delta;
+        short[] column = scores[assessment];
+        for (int row = 0; row < finals.size(); row++) {
+            int id = finals.getId(row);
+            if (column[id] != UNGRADED) {
+                weightedSums[id] += (long) delta * column[id];
+            }
+        }
+        refreshFinals();
+    }
+
+    public boolean isEnrolled(int studentId) {
+        int id = finalsIdOf(studentId);
+        return id >= 0 && finals.rowOf(id) >= 0;
+    }
+
+    public void enroll(int studentId) {
+        enrollAll(new int[] {studentId}, 1);
+    }
+
+    /**
+     * Enrolls roster students, appending them to the finals with one
+     * rowsAdded event. Students already enrolled are skipped; one who was
+     * dropped before gets their earlier scores back.
+     */
+    public void enrollAll(int[] ids, int count) {
+        for (int i = 0; i < count; i++) {
+            if (roster.rowOf(ids[i]) < 0) {
+                throw new IllegalArgumentException("No student with id " + ids[i]);
+            }
+        }
+        int[] nameCodes = new int[count];
+        double[] grades = new double[count];
+        int[] returning = new int[count];
+        int added = 0;
+        int returned = 0;
+        for (int i = 0; i < count; i++) {
+            int id = finalsIdOf(ids[i]);
+            if (id < 0) {
+                // New ids are handed out in order, so the k-th added row gets nextId + k
+                id = finals.getIdLimit() + added;
+                ensureCapacity(id + 1);
+                mapStudent(ids[i], id);
+                studentIds[id] = ids[i];
+                nameCodes[added] = roster.getNameCode(roster.rowOf(ids[i]));
+                grades[added++] = 0;
+            } else if (id < finals.getIdLimit() && finals.rowOf(id) < 0) {
+                // Dropped earlier (an id at or past the limit was added by this call)
+                withdrawn.clear(id);
+                returning[returned++] = id;
+            }
+        }
+        finals.addAll(nameCodes, grades, added);
+        restore(returning, returned);
+    }
+
+    /** Takes the student out of the course; their scores are kept should they enroll again. */
+    public boolean drop(int studentId) {
+        int id = finalsIdOf(studentId);
+        if (id < 0 || finals.rowOf(id) < 0) return false;
+        withdrawn.set(id);
+        finals.remove(id);
+        return true;
+    }
+
+    /** Score on the assessment, or NaN if ungraded. */
+    public double getScore(int studentId, int assessment) {
+        short score = scores[assessment][checkEnrolled(studentId)];
+        return score == UNGRADED ? Double.NaN : score / 10.0;
+    }
+
+    /** Sets a score, rounded to 0.1; NaN clears it. */
+    public void setScore(int studentId, int assessment, double score) {
+        int id = checkEnrolled(studentId);
+        short tenths = toTenths(score);
+        applyScore(id, assessment, tenths);
+        finals.setGrade(id, finalGrade(id));
+    }
+
+    /**
+     * Sets one assessment's scores for many students and updates their final
+     * grades in a single gradesChanged event. Everything is validated up
+     * front, so either every score is set or none.
+     */
+    public void setScores(int assessment, int[] ids, double[] newScores, int count) {
+        if (assessment < 0 || assessment >= weights.length) {
+            throw new IndexOutOfBoundsException("Assessment " + assessment + " out of bounds for "
+                    + weights.length);
+        }
+        short[] tenths = new short[count];
+        int[] finalIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            finalIds[i] = checkEnrolled(ids[i]);
+            tenths[i] = toTenths(newScores[i]);
+        }
+        // Rows with their finals id packed below, sorted so the store gets ascending rows
+        long[] rowsAndIds = new long[count];
+        for (int i = 0; i < count; i++) {
+            applyScore(finalIds[i], assessment, tenths[i]);
+            rowsAndIds[i] = (long) finals.rowOf(finalIds[i]) << 32 | finalIds[i];
+        }
+        Arrays.sort(rowsAndIds);
+        int[] rows = new int[count];
+        double[] grades = new double[count];
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            int row = (int) (rowsAndIds[i] >>> 32);
+            if (distinct > 0 && rows[distinct - 1] == row) continue;
+            rows[distinct] = row;
+            grades[distinct++] = finalGrade((int) rowsAndIds[i]);
+        }
+        finals.setGrades(rows, distinct, grades);
+    }
+
+    /** Weighted final grade, rounded to hundredths. */
+    public double getFinalGrade(int studentId) {
+        return finalGrade(checkEnrolled(studentId));
+    }
+
+    /** Roster id of the student on a row of {@link #getFinals()}. */
+    public int getStudentId(int finalsRow) {
+        return studentIds[finals.getId(finalsRow)];
+    }
+
+    /** Approximate bytes held by the score columns, weighted sums and the finals, less the shared names. */
+    public long footprint() {
+        return 2L * scores.length * studentIds.length + 12L * studentIds.length + 4L * finalsIds.length
+                + finals.footprint() - roster.getNames().footprint();
+    }
+
+    @Override
+    public String toString() {
+        return code + " · " + term.getName();
+    }
+
+    // The roster is removing these students
+    void rosterRemoving(int[] ids, int count) {
+        int[] rows = new int[count];
+        int removing = 0;
+        for (int i = 0; i < count; i++) {
+            int id = finalsIdOf(ids[i]);
+            int row = id < 0 ? -1 : finals.rowOf(id);
+            if (row >= 0) rows[removing++] = row;
+        }
+        Arrays.sort(rows, 0, removing);
+        finals.removeRows(rows, removing);
+    }
+
+    // The roster put these students back under their old ids
+    void rosterRestored(int[] ids, int count) {
+        int[] returning = new int[count];
+        int returned = 0;
+        for (int i = 0; i < count; i++) {
+            int id = finalsIdOf(ids[i]);
+            if (id >= 0 && finals.rowOf(id) < 0 && !withdrawn.get(id)) {
+                returning[returned++] = id;
+            }
+        }
+        restore(returning, returned);
+    }
+
+    // Final grades get their letters on the roster's scale
+    void rosterScaleChanged() {
+        finals.setScale(roster.getScale());
+    }
+
+    void rosterRenamed(int studentId) {
+        int id = finalsIdOf(studentId);
+        if (id >= 0 && finals.rowOf(id) >= 0) {
+            finals.setName(id, roster.getName(roster.rowOf(studentId)));
+        }
+    }
+
+    // Raw tenths for the catalog file; UNGRADED if none
+    short getTenths(int finalsId, int assessment) {
+        return scores[assessment][finalsId];
+    }
+
+    // Loading from the catalog file: no events beyond the finals' own
+    void setTenths(int finalsId, int assessment, short tenths) {
+        applyScore(finalsId, assessment, tenths);
+    }
+
+    // Recomputes every final grade after a bulk load or a weight change
+    void refreshFinals() {
+        int size = finals.size();
+        int[] rows = new int[size];
+        double[] grades = new double[size];
+        for (int row = 0; row < size; row++) {
+            rows[row] = row;
+            grades[row] = finalGrade(finals.getId(row));
+        }
+        finals.setGrades(rows, size, grades);
+    }
+
+    // Appends previously enrolled students under their old finals ids
+    private void restore(int[] ids, int count) {
+        if (count == 0) return;
+        Arrays.sort(ids, 0, count);
+        int[] rows = new int[count];
+        int[] nameCodes = new int[count];
+        double[] grades = new double[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = finals.size() + i;
+            int student = studentIds[ids[i]];
+            nameCodes[i] = roster.getNameCode(roster.rowOf(student));
+            grades[i] = finalGrade(ids[i]);
+        }
+        finals.restoreRows(rows, count, Arrays.copyOf(ids, count), nameCodes, grades);
+    }
+
+    private void applyScore(int id, int assessment, short tenths) {
+        short old = scores[assessment][id];
+        if (old != UNGRADED) weightedSums[id] -= (long) weights[assessment] * old;
+        if (tenths != UNGRADED) weightedSums[id] += (long) weights[assessment] * tenths;
+        scores[assessment][id] = tenths;
+    }
+
+    private double finalGrade(int id) {
+        if (totalWeight == 0) return 0;
+        // Weighted sum is in weight-tenths; hundredths = sum * 10 / total, rounded half up
+        long hundredths = (weightedSums[id] * 20 + totalWeight) / (2 * totalWeight);
+        return hundredths / 100.0;
+    }
+
+    private static short toTenths(double score) {
+        if (Double.isNaN(score)) return UNGRADED;
+        StudentStore.checkGrade(score);
+        return (short) Math.round(score * 10);
+    }
+
+    private static void checkWeight(int weight) {
+        if (weight <= 0 || weight > MAX_WEIGHT) {
+            throw new IllegalArgumentException("Weight must be between 1 and " + MAX_WEIGHT + ": " + weight);
+        }
+    }
+
+    int finalsIdOf(int studentId) {
+        return studentId >= 0 && studentId < finalsIds.length ? finalsIds[studentId] : -1;
+    }
+
+    private int checkEnrolled(int studentId) {
+        int id = finalsIdOf(studentId);
+        if (id < 0 || finals.rowOf(id) < 0) {
+            throw new IllegalArgumentException("Student " + studentId + " is not enrolled in " + this);
+        }
+        return id;
+    }
+
+    private void mapStudent(int studentId, int finalsId) {
+        if (studentId >= finalsIds.length) {
+            int length = finalsIds.length;
+            finalsIds = Arrays.copyOf(finalsIds, Math.max(roster.getIdLimit(), studentId + 1));
+            Arrays.fill(finalsIds, length, finalsIds.length, -1);
+        }
+        finalsIds[studentId] = finalsId;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= studentIds.length) return;
+        int newCapacity = Math.max(capacity, studentIds.length + (studentIds.length >> 1));
+        int length = studentIds.length;
+        weightedSums = Arrays.copyOf(weightedSums, newCapacity);
+        studentIds = Arrays.copyOf(studentIds, newCapacity);
+        for (int a = 0; a < scores.length; a++) {
+            scores[a] = Arrays.copyOf(scores[a], newCapacity);
+            Arrays.fill(scores[a], length, newCapacity, UNGRADED);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package gradebook;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The terms and courses of one roster, so a single process (and a single
+ * copy of every name) serves all of a school's courses.
+ *
+ * The catalog follows the roster: a removed student leaves every course,
+ * an undone removal brings the enrollments and scores back, and a rename
+ * shows in every course. Everything runs on the roster's thread.
+ *
+ * The catalog file (big-endian) holds the roster generation it belongs to,
+ * the terms, then per course its code, term, assessments with weights,
+ * the roster row of every enrolled student and one column of score tenths
+ * per assessment, followed by a CRC32. Students are saved by roster row
+ * right after a checkpoint, which is the id they get when the snapshot is
+ * loaded again.
+ */
+public class CourseCatalog implements StudentStore.Listener {
+
+    public static final String FILE = "courses.dat";
+
+    private static final int MAGIC = 0x53474343; // "SGCC"
+    private static final int VERSION = 1;
+
+    private final StudentStore roster;
+    private final List<Term> terms = new ArrayList<>();
+    private final List<Course> courses = new ArrayList<>();
+    private GradingScale scale = GradingScale.STANDARD;
+
+    public CourseCatalog(StudentStore roster) {
+        this.roster = roster;
+        roster.addListener(this);
+    }
+
+    public StudentStore getRoster() { return roster; }
+
+    public List<Term> getTerms() { return Collections.unmodifiableList(terms); }
+
+    public List<Course> getCourses() { return Collections.unmodifiableList(courses); }
+
+    public boolean isEmpty() { return courses.isEmpty(); }
+
+    /** The term with this name, or null. */
+    public Term getTerm(String name) {
+        for (Term term : terms) {
+            if (term.getName().equals(name)) return term;
+        }
+        return null;
+    }
+
+    public Term addTerm(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("A term needs a name");
+        }
+        if (getTerm(name.strip()) != null) {
+            throw new IllegalArgumentException("Term " + name + " already exists");
+        }
+        Term term = new Term(name.strip());
+        terms.add(term);
+        return term;
+    }
+
+    /** The course with this code in the term, or null. */
+    public Course getCourse(String code, Term term) {
+        for (Course course : term.getCourses()) {
+            if (course.getCode().equals(code)) return course;
+        }
+        return null;
+    }
+
+    public Course addCourse(String code, Term term) {
+        if (code == null || code.isBlank()) {
+            throw new IllegalArgumentException("A course needs a code");
+        }
+        if (!terms.contains(term)) {
+            throw new IllegalArgumentException("Term " + term + " is not part of this catalog");
+        }
+        if (getCourse(code.strip(), term) != null) {
+            throw new IllegalArgumentException("Course " + code + " already exists in " + term);
+        }
+        Course course = new Course(roster, code.strip(), term);
+        course.getFinals().setScale(scale);
+        courses.add(course);
+        term.attach(course);
+        return course;
+    }
+
+    public GradingScale getScale() { return scale; }
+
+    /** Letters every course's final grades on this scale. */
+    public void setScale(GradingScale scale) {
+        this.scale = Objects.requireNonNull(scale, "scale");
+        for (Course course : courses) {
+            course.getFinals().setScale(scale);
+        }
+    }
+
+    /** Approximate bytes held by every course, not counting the roster. */
+    public long footprint() {
+        long bytes = 0;
+        for (Course course : courses) {
+            bytes += course.footprint();
+        }
+        return bytes;
+    }
+
+    @Override
+    public void rowsRemoving(int[] rows, int count) {
+        if (courses.isEmpty()) return;
+        int[] ids = idsOf(rows, count);
+        for (Course course : courses) {
+            course.rosterRemoving(ids, count);
+        }
+    }
+
+    @Override
+    public void rowsInserted(int[] rows, int count) {
+        if (courses.isEmpty()) return;
+        int[] ids = idsOf(rows, count);
+        for (Course course : courses) {
+            course.rosterRestored(ids, count);
+        }
+    }
+
+    @Override
+    public void scaleChanged() {
+        for (Course course : courses) {
+            course.rosterScaleChanged();
+        }
+    }
+
+    @Override
+    public void nameChanged(int row) {
+        int id = roster.getId(row);
+        for (Course course : courses) {
+            course.rosterRenamed(id);
+        }
+    }
+
+    /**
+     * Writes the catalog atomically (temp file + rename) for a roster just
+     * checkpointed at {@code generation}; returns the bytes written.
+     */
+    public long write(Path path, long generation) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+            out.writeInt(terms.size());
+            for (Term term : terms) {
+                out.writeUTF(term.getName());
+            }
+            out.writeInt(courses.size());
+            for (Course course : courses) {
+                out.writeUTF(course.getCode());
+                out.writeInt(terms.indexOf(course.getTerm()));
+                out.writeInt(course.getAssessmentCount());
+                for (int a = 0; a < course.getAssessmentCount(); a++) {
+                    out.writeUTF(course.getAssessmentName(a));
+                    out.writeInt(course.getWeight(a));
+                }
+                StudentStore finals = course.getFinals();
+                out.writeInt(finals.size());
+                for (int row = 0; row < finals.size(); row++) {
+                    out.writeInt(roster.rowOf(course.getStudentId(row)));
+                }
+                for (int a = 0; a < course.getAssessmentCount(); a++) {
+                    for (int row = 0; row < finals.size(); row++) {
+                        out.writeShort(course.getTenths(finals.getId(row), a));
+                    }
+                }
+            }
+            out.flush();
+            // The checksum itself must not be part of the checksummed stream
+            file.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+            file.getChannel().force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(path);
+    }
+
+    /**
+     * Loads a catalog file into this (empty) catalog. Fails if the file was
+     * written for another roster generation, whose rows would not match
+     * the roster's ids; students no longer on the roster are skipped.
+     */
+    public void read(Path path, long generation) throws IOException {
+        if (!courses.isEmpty() || !terms.isEmpty()) {
+            throw new IllegalStateException("A catalog can only be read into an empty catalog");
+        }
+        CRC32 crc = new CRC32();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a course catalog (or unsupported version): " + path);
+            }
+            long written = in.readLong();
+            if (written != generation) {
+                throw new IOException("Course catalog " + path + " belongs to roster generation " + written
+                        + ", not " + generation);
+            }
+            int termCount = in.readInt();
+            for (int t = 0; t < termCount; t++) {
+                addTerm(in.readUTF());
+            }
+            int courseCount = in.readInt();
+            for (int c = 0; c < courseCount; c++) {
+                readCourse(in);
+            }
+            int expected = (int) crc.getValue();
+            if (new DataInputStream(file).readInt() != expected) {
+                throw new IOException("Course catalog is corrupt (checksum mismatch): " + path);
+            }
+        } catch (IOException | RuntimeException e) {
+            terms.clear();
+            courses.clear();
+            throw e instanceof IOException io ? io : new IOException("Bad course catalog " + path + ": "
+                    + e.getMessage(), e);
+        }
+    }
+
+    private void readCourse(DataInputStream in) throws IOException {
+        String code = in.readUTF();
+        Course course = addCourse(code, terms.get(in.readInt()));
+        int assessments = in.readInt();
+        for (int a = 0; a < assessments; a++) {
+            course.addAssessment(in.readUTF(), in.readInt());
+        }
+        int count = in.readInt();
+        int[] students = new int[count];
+        int[] enrolled = new int[count];
+        int enrolledCount = 0;
+        for (int i = 0; i < count; i++) {
+            students[i] = in.readInt();
+            if (roster.rowOf(students[i]) >= 0) {
+                enrolled[enrolledCount++] = students[i];
+            }
+        }
+        course.enrollAll(enrolled, enrolledCount);
+        for (int a = 0; a < assessments; a++) {
+            for (int i = 0; i < count; i++) {
+                short tenths = in.readShort();
+                int id = course.finalsIdOf(students[i]);
+                if (id >= 0) {
+                    course.setTenths(id, a, tenths);
+                }
+            }
+        }
+        course.refreshFinals();
+    }
+
+    private int[] idsOf(int[] rows, int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = roster.getId(rows[i]);
+        }
+        return ids;
+    }
+}
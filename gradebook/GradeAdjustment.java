@@ -0,0 +1,40 @@
+package gradebook;
+
+/**
+ * Bulk grade edits: a curve adds a fixed number of points, a scale
+ * multiplies by a percentage. Results are clamped to 0..100 and rounded to
+ * one decimal, the precision the table shows.
+ */
+public enum GradeAdjustment {
+    CURVE {
+        @Override
+        double raw(double grade, double amount) {
+            return grade + amount;
+        }
+    },
+    SCALE {
+        @Override
+        double raw(double grade, double amount) {
+            return grade * amount / 100;
+        }
+    };
+
+    abstract double raw(double grade, double amount);
+
+    public double apply(double grade, double amount) {
+        double adjusted = Math.round(raw(grade, amount) * 10) / 10.0;
+        return Math.max(0, Math.min(100, adjusted));
+    }
+
+    /** Adjusts the given rows (distinct, ascending) with one {@link StudentStore#setGrades} call. */
+    public void applyTo(StudentStore store, int[] rows, int count, double amount) {
+        if (!Double.isFinite(amount)) {
+            throw new IllegalArgumentException("Amount must be a finite number");
+        }
+        double[] grades = new double[count];
+        for (int i = 0; i < count; i++) {
+            grades[i] = apply(store.getGrade(rows[i]), amount);
+        }
+        store.setGrades(rows, count, grades);
+    }
+}
@@ -0,0 +1,63 @@
+package gradebook;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel whole-roster analytics. The grade array is split into chunks
+ * that are summarized on the common fork/join pool, and the partial
+ * {@link GradeDistribution}s are merged pairwise, so everything is
+ * computed in a single pass over the data.
+ */
+public final class GradeAnalytics {
+
+    // Below this many grades a chunk is summarized sequentially
+    static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+
+    private GradeAnalytics() {
+    }
+
+    public static GradeDistribution analyze(StudentStore store) {
+        double[] grades = store.copyGrades();
+        return analyze(grades, 0, grades.length);
+    }
+
+    public static GradeDistribution analyze(double[] grades, int from, int to) {
+        if (to - from <= SEQUENTIAL_THRESHOLD) {
+            return summarize(grades, from, to);
+        }
+        return ForkJoinPool.commonPool().invoke(new ChunkTask(grades, from, to));
+    }
+
+    private static GradeDistribution summarize(double[] grades, int from, int to) {
+        GradeDistribution distribution = new GradeDistribution();
+        distribution.addAll(grades, from, to);
+        return distribution;
+    }
+
+    private static class ChunkTask extends RecursiveTask<GradeDistribution> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] grades;
+        private final int from;
+        private final int to;
+
+        ChunkTask(double[] grades, int from, int to) {
+            this.grades = grades;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected GradeDistribution compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return summarize(grades, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(grades, from, middle);
+            left.fork();
+            GradeDistribution right = new ChunkTask(grades, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package gradebook;
+
+/**
+ * Mergeable one-pass summary of a set of grades: count, mean/variance
+ * (Welford, merged with Chan's formula), extremes, and a
+ * {@link GradeHistogram}, which also gives the letter counts for any
+ * {@link GradingScale}.
+ *
+ * Percentiles are read from the histogram, so they are exact for grades
+ * with at most one decimal and otherwise accurate to within 0.05. Partial
+ * results for separate chunks of a roster can be combined with
+ * {@link #merge}, which is how {@link GradeAnalytics} parallelizes.
+ */
+public class GradeDistribution {
+
+    private final GradeHistogram histogram;
+    private long count;
+    private double mean;
+    private double m2;
+    private double lowest = Double.POSITIVE_INFINITY;
+    private double highest = Double.NEGATIVE_INFINITY;
+
+    public GradeDistribution() {
+        histogram = new GradeHistogram();
+    }
+
+    /**
+     * Point-in-time copy of a store's running statistics and histogram.
+     * Costs O(buckets) rather than O(students), so it is cheap enough to
+     * take on the FX thread every frame.
+     */
+    public GradeDistribution(GradeStatistics statistics, GradeHistogram histogram) {
+        this.histogram = histogram.copy();
+        count = statistics.getCount();
+        if (count > 0) {
+            mean = statistics.getAverage();
+            m2 = statistics.getVariance() * count;
+            lowest = statistics.getLowest();
+            highest = statistics.getHighest();
+        }
+    }
+
+    public void add(double grade) {
+        count++;
+        double delta = grade - mean;
+        mean += delta / count;
+        m2 += delta * (grade - mean);
+        if (grade < lowest) lowest = grade;
+        if (grade > highest) highest = grade;
+        histogram.add(grade);
+    }
+
+    /**
+     * Adds a block of grades. Cheaper than calling {@link #add} per grade:
+     * the block's mean and squared deviations are computed in tight passes
+     * (the block is still in cache for the later ones) and then merged.
+     */
+    public void addAll(double[] grades, int from, int to) {
+        if (to <= from) return;
+        GradeDistribution block = count == 0 ? this : new GradeDistribution();
+        double sum = 0;
+        double low = Double.POSITIVE_INFINITY;
+        double high = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            double grade = grades[i];
+            sum += grade;
+            if (grade < low) low = grade;
+            if (grade > high) high = grade;
+        }
+        double blockMean = sum / (to - from);
+        double squares = 0;
+        for (int i = from; i < to; i++) {
+            double delta = grades[i] - blockMean;
+            squares += delta * delta;
+        }
+        block.histogram.addAll(grades, from, to);
+        block.count = to - from;
+        block.mean = blockMean;
+        block.m2 = squares;
+        block.lowest = low;
+        block.highest = high;
+        if (block != this) {
+            merge(block);
+        }
+    }
+
+    /** Folds {@code other} into this distribution and returns this. */
+    public GradeDistribution merge(GradeDistribution other) {
+        if (other.count == 0) return this;
+        if (count == 0) {
+            mean = other.mean;
+            m2 = other.m2;
+        } else {
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        }
+        count += other.count;
+        lowest = Math.min(lowest, other.lowest);
+        highest = Math.max(highest, other.highest);
+        histogram.merge(other.histogram);
+        return this;
+    }
+
+    public long getCount() { return count; }
+
+    public double getAverage() { return count == 0 ? 0.0 : mean; }
+
+    public double getVariance() { return count < 2 ? 0.0 : m2 / count; }
+
+    public double getStandardDeviation() { return Math.sqrt(getVariance()); }
+
+    public double getHighest() { return count == 0 ? 0.0 : highest; }
+
+    public double getLowest() { return count == 0 ? 0.0 : lowest; }
+
+    public double getMedian() { return getPercentile(50); }
+
+    /**
+     * Percentile {@code p} (0-100) from the histogram, clamped to the exact
+     * extremes so that P0 and P100 are the lowest and highest grade.
+     */
+    public double getPercentile(double p) {
+        if (count == 0) return 0.0;
+        return Math.max(lowest, Math.min(highest, histogram.getPercentile(p)));
+    }
+
+    public GradeHistogram getHistogram() { return histogram.copy(); }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d avg=%.2f sd=%.2f min=%.2f median=%.2f max=%.2f",
+                count, getAverage(), getStandardDeviation(), getLowest(), getMedian(), getHighest());
+    }
+}
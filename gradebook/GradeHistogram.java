@@ -0,0 +1,106 @@
+package gradebook;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-memory distribution sketch: one counter per 0.1 step from 0.0 to
+ * 100.0, about 8 KB however many grades are added. Updates are O(1) and
+ * removals are exact, so it can follow every add, delete and grade change
+ * of a {@link StudentStore}.
+ *
+ * A grade is counted in the bucket of its value rounded to one decimal,
+ * the same rounding the table uses to display it. Percentiles are read as
+ * bucket values, so they are exact for grades with at most one decimal
+ * and never more than 0.05 away from the true percentile otherwise.
+ */
+public class GradeHistogram {
+
+    /** Buckets: one per 0.1 step from 0.0 to 100.0. */
+    public static final int BUCKETS = 1001;
+
+    private final long[] buckets = new long[BUCKETS];
+    private long count;
+
+    public static int bucketOf(double grade) {
+        return (int) Math.max(0, Math.min(BUCKETS - 1, Math.round(grade * 10)));
+    }
+
+    /** Grade at the centre of a bucket. */
+    public static double valueOf(int bucket) {
+        return bucket / 10.0;
+    }
+
+    public void add(double grade) {
+        buckets[bucketOf(grade)]++;
+        count++;
+    }
+
+    public void remove(double grade) {
+        int bucket = bucketOf(grade);
+        if (buckets[bucket] == 0) {
+            throw new IllegalArgumentException("Grade " + grade + " is not part of this histogram");
+        }
+        buckets[bucket]--;
+        count--;
+    }
+
+    public void replace(double oldGrade, double newGrade) {
+        remove(oldGrade);
+        add(newGrade);
+    }
+
+    /** Adds every bucket of {@code other} and returns this. */
+    public GradeHistogram merge(GradeHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] += other.buckets[i];
+        }
+        count += other.count;
+        return this;
+    }
+
+    public void clear() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+    }
+
+    public GradeHistogram copy() {
+        return new GradeHistogram().merge(this);
+    }
+
+    public long getCount() { return count; }
+
+    public long getCount(int bucket) { return buckets[bucket]; }
+
+    public long[] getBuckets() { return buckets.clone(); }
+
+    /**
+     * Percentile {@code p} (0-100), interpolating linearly between the two
+     * closest ranks as spreadsheets do.
+     */
+    public double getPercentile(double p) {
+        if (count == 0) return 0.0;
+        double rank = p / 100.0 * (count - 1);
+        long lower = (long) Math.floor(rank);
+        double low = valueOf(bucketAtRank(lower));
+        double high = valueOf(bucketAtRank(Math.min(count - 1, lower + 1)));
+        return low + (rank - lower) * (high - low);
+    }
+
+    // Bulk add for GradeDistribution.addAll
+    void addAll(double[] grades, int from, int to) {
+        for (int i = from; i < to; i++) {
+            buckets[bucketOf(grades[i])]++;
+        }
+        count += to - from;
+    }
+
+    // First bucket whose cumulative count exceeds rank
+    private int bucketAtRank(long rank) {
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen > rank) return i;
+        }
+        return BUCKETS - 1;
+    }
+}
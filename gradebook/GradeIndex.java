@@ -0,0 +1,447 @@
+package gradebook;
+
+import java.util.Arrays;
+
+/**
+ * Students ordered by (grade, id), kept in sync with a {@link StudentStore}
+ * through its listener callbacks. Answers "everyone between X and Y",
+ * top/bottom N and rank-of-student without sorting or scanning the roster.
+ *
+ * Entries live in sorted blocks of at most {@link #BLOCK_CAPACITY} pairs,
+ * held as parallel grade and id arrays. A Fenwick tree over the block
+ * sizes turns a rank into a block and back in O(log n), so rank, select
+ * and range counts are logarithmic; an insert or delete also moves at most
+ * one block's worth of entries. Large batches (an import, clearing the
+ * roster) rebuild the blocks with a radix sort instead.
+ *
+ * Like the store, an index must only be used from one thread.
+ */
+public class GradeIndex implements StudentStore.Listener {
+
+    static final int BLOCK_CAPACITY = 1024;
+    // Blocks are filled to 3/4 on a rebuild, leaving room for inserts
+    private static final int BUILD_FILL = BLOCK_CAPACITY * 3 / 4;
+    // Batches at least this large and this share of the index are rebuilt instead
+    private static final int MIN_REBUILD_BATCH = 4096;
+
+    private final StudentStore store;
+
+    private double[][] grades = new double[0][];
+    private int[][] ids = new int[0][];
+    private int[] sizes = new int[0];
+    private int[] tree = new int[1];
+    private int blocks;
+    private int size;
+    private boolean rebuildAfterRemoval;
+
+    /** Indexes every row of {@code store} and starts following its changes. */
+    public GradeIndex(StudentStore store) {
+        this.store = store;
+        rebuild();
+        store.addListener(this);
+    }
+
+    /** Stops following the store; the index must not be used afterwards. */
+    public void close() {
+        store.removeListener(this);
+    }
+
+    public int size() { return size; }
+
+    /** Approximate bytes held by the index. */
+    public long footprint() {
+        return 12L * BLOCK_CAPACITY * blocks + 20L * sizes.length + 4L * tree.length;
+    }
+
+    /** Number of students with a grade strictly below {@code grade}. */
+    public int countBelow(double grade) {
+        return rankOf(grade, Integer.MIN_VALUE);
+    }
+
+    /** Number of students with a grade of at most {@code grade}. */
+    public int countAtMost(double grade) {
+        return rankOf(grade, Integer.MAX_VALUE);
+    }
+
+    /** Number of students with {@code low <= grade <= high}. */
+    public int countBetween(double low, double high) {
+        return Math.max(0, countAtMost(high) - countBelow(low));
+    }
+
+    /**
+     * Position of a student in ascending (grade, id) order: 0 for the
+     * lowest grade, {@code size() - 1} for the highest.
+     */
+    public int rankOf(int id) {
+        int row = store.rowOf(id);
+        if (row < 0) {
+            throw new IllegalArgumentException("No student with id " + id);
+        }
+        return rankOf(store.getGrade(row), id);
+    }
+
+    /** Id of the student at {@code rank} in ascending (grade, id) order. */
+    public int idAt(int rank) {
+        checkRank(rank);
+        int block = blockAt(rank);
+        return ids[block][rank - prefix(block)];
+    }
+
+    public double gradeAt(int rank) {
+        checkRank(rank);
+        int block = blockAt(rank);
+        return grades[block][rank - prefix(block)];
+    }
+
+    /**
+     * Copies the ids at ranks {@code fromRank} (inclusive) to {@code toRank}
+     * (exclusive), in ascending order, into {@code target}.
+     */
+    public void copyIds(int fromRank, int toRank, int[] target, int offset) {
+        if (fromRank >= toRank) return;
+        checkRank(fromRank);
+        checkRank(toRank - 1);
+        int block = blockAt(fromRank);
+        int position = fromRank - prefix(block);
+        for (int copied = 0; copied < toRank - fromRank; ) {
+            int n = Math.min(sizes[block] - position, toRank - fromRank - copied);
+            System.arraycopy(ids[block], position, target, offset + copied, n);
+            copied += n;
+            block++;
+            position = 0;
+        }
+    }
+
+    /** Ids of the {@code n} lowest grades, lowest first. */
+    public int[] bottom(int n) {
+        int[] result = new int[Math.min(n, size)];
+        copyIds(0, result.length, result, 0);
+        return result;
+    }
+
+    /** Ids of the {@code n} highest grades, highest first. */
+    public int[] top(int n) {
+        int[] result = new int[Math.min(n, size)];
+        copyIds(size - result.length, size, result, 0);
+        for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+            int swap = result[i];
+            result[i] = result[j];
+            result[j] = swap;
+        }
+        return result;
+    }
+
+    /** Ids of every student with {@code low <= grade <= high}, ascending by grade. */
+    public int[] between(double low, double high) {
+        int from = countBelow(low);
+        int[] result = new int[Math.max(0, countAtMost(high) - from)];
+        copyIds(from, from + result.length, result, 0);
+        return result;
+    }
+
+    @Override
+    public void rowsAdded(int fromRow, int toRow) {
+        int count = toRow - fromRow;
+        if (count >= MIN_REBUILD_BATCH && count * 4 >= size) {
+            rebuild();
+            return;
+        }
+        for (int row = fromRow; row < toRow; row++) {
+            insert(store.getGrade(row), store.getId(row));
+        }
+    }
+
+    @Override
+    public void rowsInserted(int[] rows, int count) {
+        if (count >= MIN_REBUILD_BATCH && count * 4 >= size) {
+            rebuild();
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            insert(store.getGrade(rows[i]), store.getId(rows[i]));
+        }
+    }
+
+    @Override
+    public void rowsRemoving(int[] rows, int count) {
+        rebuildAfterRemoval = count >= MIN_REBUILD_BATCH && count * 4 >= size;
+        if (rebuildAfterRemoval) return;
+        for (int i = 0; i < count; i++) {
+            delete(store.getGrade(rows[i]), store.getId(rows[i]));
+        }
+    }
+
+    @Override
+    public void rowsRemoved(int[] rows, int count) {
+        if (rebuildAfterRemoval) {
+            rebuildAfterRemoval = false;
+            rebuild();
+        }
+    }
+
+    @Override
+    public void gradeChanged(int row, double oldGrade, double newGrade) {
+        int id = store.getId(row);
+        delete(oldGrade, id);
+        insert(newGrade, id);
+    }
+
+    @Override
+    public void gradesChanged(int[] rows, int count, double[] oldGrades, double[] newGrades) {
+        if (count >= MIN_REBUILD_BATCH && count * 4 >= size) {
+            rebuild();
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            gradeChanged(rows[i], oldGrades[i], newGrades[i]);
+        }
+    }
+
+    private int rankOf(double grade, int id) {
+        if (blocks == 0) return 0;
+        int block = findBlock(grade, id);
+        return prefix(block) + lowerBound(block, grade, id);
+    }
+
+    private void insert(double grade, int id) {
+        if (blocks == 0) {
+            setBlocks(new double[][] {new double[BLOCK_CAPACITY]}, new int[][] {new int[BLOCK_CAPACITY]},
+                    new int[] {0}, 1);
+        }
+        int block = findBlock(grade, id);
+        int position = lowerBound(block, grade, id);
+        int n = sizes[block];
+        System.arraycopy(grades[block], position, grades[block], position + 1, n - position);
+        System.arraycopy(ids[block], position, ids[block], position + 1, n - position);
+        grades[block][position] = grade;
+        ids[block][position] = id;
+        sizes[block] = n + 1;
+        size++;
+        if (sizes[block] == BLOCK_CAPACITY) {
+            split(block);
+        } else {
+            update(block, 1);
+        }
+    }
+
+    private void delete(double grade, int id) {
+        int block = blocks == 0 ? -1 : findBlock(grade, id);
+        int position = block < 0 ? 0 : lowerBound(block, grade, id);
+        if (block < 0 || position == sizes[block] || ids[block][position] != id) {
+            throw new IllegalStateException("Grade index out of sync for student " + id);
+        }
+        int n = sizes[block] - 1;
+        System.arraycopy(grades[block], position + 1, grades[block], position, n - position);
+        System.arraycopy(ids[block], position + 1, ids[block], position, n - position);
+        sizes[block] = n;
+        size--;
+        if (n == 0) {
+            removeBlock(block);
+        } else {
+            update(block, -1);
+        }
+    }
+
+    private void split(int block) {
+        int half = BLOCK_CAPACITY / 2;
+        double[] upperGrades = new double[BLOCK_CAPACITY];
+        int[] upperIds = new int[BLOCK_CAPACITY];
+        System.arraycopy(grades[block], half, upperGrades, 0, BLOCK_CAPACITY - half);
+        System.arraycopy(ids[block], half, upperIds, 0, BLOCK_CAPACITY - half);
+        sizes[block] = half;
+
+        ensureBlockCapacity(blocks + 1);
+        System.arraycopy(grades, block + 1, grades, block + 2, blocks - block - 1);
+        System.arraycopy(ids, block + 1, ids, block + 2, blocks - block - 1);
+        System.arraycopy(sizes, block + 1, sizes, block + 2, blocks - block - 1);
+        grades[block + 1] = upperGrades;
+        ids[block + 1] = upperIds;
+        sizes[block + 1] = BLOCK_CAPACITY - half;
+        blocks++;
+        buildTree();
+    }
+
+    private void removeBlock(int block) {
+        System.arraycopy(grades, block + 1, grades, block, blocks - block - 1);
+        System.arraycopy(ids, block + 1, ids, block, blocks - block - 1);
+        System.arraycopy(sizes, block + 1, sizes, block, blocks - block - 1);
+        blocks--;
+        grades[blocks] = null;
+        ids[blocks] = null;
+        buildTree();
+    }
+
+    private void ensureBlockCapacity(int capacity) {
+        if (capacity <= sizes.length) return;
+        int newCapacity = Math.max(capacity, sizes.length * 2);
+        grades = Arrays.copyOf(grades, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        sizes = Arrays.copyOf(sizes, newCapacity);
+    }
+
+    /** Block holding the first entry >= (grade, id), or the last block. */
+    private int findBlock(double grade, int id) {
+        int low = 0;
+        int high = blocks - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int last = sizes[middle] - 1;
+            if (compare(grades[middle][last], ids[middle][last], grade, id) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int lowerBound(int block, double grade, int id) {
+        double[] blockGrades = grades[block];
+        int[] blockIds = ids[block];
+        int low = 0;
+        int high = sizes[block];
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(blockGrades[middle], blockIds[middle], grade, id) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Numeric comparison, so -0.0 and 0.0 are the same grade
+    private static int compare(double gradeA, int idA, double gradeB, int idB) {
+        if (gradeA < gradeB) return -1;
+        if (gradeA > gradeB) return 1;
+        return Integer.compare(idA, idB);
+    }
+
+    private void buildTree() {
+        tree = new int[blocks + 1];
+        for (int i = 0; i < blocks; i++) {
+            tree[i + 1] += sizes[i];
+            int parent = (i + 1) + ((i + 1) & -(i + 1));
+            if (parent <= blocks) {
+                tree[parent] += tree[i + 1];
+            }
+        }
+    }
+
+    private void update(int block, int delta) {
+        for (int i = block + 1; i <= blocks; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /** Entries in blocks before {@code block}. */
+    private int prefix(int block) {
+        int sum = 0;
+        for (int i = block; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /** Block containing the entry at {@code rank}. */
+    private int blockAt(int rank) {
+        int position = 0;
+        int remaining = rank;
+        for (int step = Integer.highestOneBit(blocks); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= blocks && tree[next] <= remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    private void checkRank(int rank) {
+        if (rank < 0 || rank >= size) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " out of bounds for size " + size);
+        }
+    }
+
+    /** Re-creates the blocks from the store with a radix sort on (grade, id). */
+    private void rebuild() {
+        int n = store.size();
+        long[] keys = new long[n];
+        int[] rows = new int[n];
+        int limit = store.getIdLimit();
+        for (int id = 0, i = 0; id < limit; id++) {
+            int row = store.rowOf(id);
+            if (row < 0) continue;
+            // Adding 0.0 turns -0.0 into 0.0; the raw bits of non-negative doubles sort numerically
+            keys[i] = Double.doubleToRawLongBits(store.getGrade(row) + 0.0);
+            rows[i++] = row;
+        }
+        rows = radixSort(keys, rows);
+
+        int blockCount = (n + BUILD_FILL - 1) / BUILD_FILL;
+        double[][] newGrades = new double[Math.max(1, blockCount)][];
+        int[][] newIds = new int[newGrades.length][];
+        int[] newSizes = new int[newGrades.length];
+        for (int block = 0; block < blockCount; block++) {
+            int from = block * BUILD_FILL;
+            int count = Math.min(BUILD_FILL, n - from);
+            newGrades[block] = new double[BLOCK_CAPACITY];
+            newIds[block] = new int[BLOCK_CAPACITY];
+            for (int i = 0; i < count; i++) {
+                int row = rows[from + i];
+                newGrades[block][i] = store.getGrade(row);
+                newIds[block][i] = store.getId(row);
+            }
+            newSizes[block] = count;
+        }
+        setBlocks(newGrades, newIds, newSizes, blockCount);
+        size = n;
+    }
+
+    private void setBlocks(double[][] newGrades, int[][] newIds, int[] newSizes, int count) {
+        grades = newGrades;
+        ids = newIds;
+        sizes = newSizes;
+        blocks = count;
+        buildTree();
+    }
+
+    /**
+     * Stable LSD radix sort of {@code keys}, carrying {@code values}, in
+     * 16-bit digits. Rows start in id order, so stability yields (grade, id)
+     * order; digits shared by every key are skipped. Returns the array
+     * that holds the sorted values, which may be the scratch buffer.
+     */
+    private static int[] radixSort(long[] keys, int[] values) {
+        int n = keys.length;
+        long[] keyBuffer = new long[n];
+        int[] valueBuffer = new int[n];
+        int[] counts = new int[1 << 16];
+        for (int shift = 0; shift < 64; shift += 16) {
+            Arrays.fill(counts, 0);
+            for (long key : keys) {
+                counts[(int) (key >>> shift) & 0xFFFF]++;
+            }
+            if (n == 0 || counts[(int) (keys[0] >>> shift) & 0xFFFF] == n) continue;
+            for (int i = 0, sum = 0; i < counts.length; i++) {
+                int count = counts[i];
+                counts[i] = sum;
+                sum += count;
+            }
+            for (int i = 0; i < n; i++) {
+                int digit = (int) (keys[i] >>> shift) & 0xFFFF;
+                int target = counts[digit]++;
+                keyBuffer[target] = keys[i];
+                valueBuffer[target] = values[i];
+            }
+            long[] swapKeys = keys;
+            keys = keyBuffer;
+            keyBuffer = swapKeys;
+            int[] swapValues = values;
+            values = valueBuffer;
+            valueBuffer = swapValues;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,100 @@
+package gradebook;
+
+/**
+ * Checks a grade as it is typed, without throwing: the add-student form
+ * calls it on every keystroke, so it must not go through
+ * {@code Double.parseDouble} and a caught exception for each partial entry.
+ *
+ * Accepted are digits with an optional decimal point or comma and an
+ * optional trailing {@code %}, with surrounding spaces, e.g. {@code 91},
+ * {@code 91.5}, {@code 91,5}, {@code .5} or {@code 88%}. A leading minus
+ * is read too, so that a negative grade is reported as out of range
+ * rather than as not a number. Digits beyond the fifteenth significant
+ * one are ignored.
+ */
+public final class GradeInput {
+
+    public enum Status {
+        EMPTY, VALID, NOT_A_NUMBER, OUT_OF_RANGE;
+
+        /** What to tell the user, or null when there is nothing to say. */
+        public String getMessage() {
+            return switch (this) {
+                case EMPTY, VALID -> null;
+                case NOT_A_NUMBER -> "Grade must be a number";
+                case OUT_OF_RANGE -> "Grade must be between 0 and 100";
+            };
+        }
+    }
+
+    public static final double MIN_GRADE = 0;
+    public static final double MAX_GRADE = 100;
+
+    private static final int MAX_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private GradeInput() {}
+
+    public static Status check(CharSequence text) {
+        double value = parseNumber(text);
+        if (Double.isNaN(value)) {
+            return isBlank(text) ? Status.EMPTY : Status.NOT_A_NUMBER;
+        }
+        return value < MIN_GRADE || value > MAX_GRADE ? Status.OUT_OF_RANGE : Status.VALID;
+    }
+
+    /** The grade, or NaN unless {@link #check} would say {@link Status#VALID}. */
+    public static double parse(CharSequence text) {
+        double value = parseNumber(text);
+        return value >= MIN_GRADE && value <= MAX_GRADE ? value : Double.NaN;
+    }
+
+    // NaN if blank or not a number, infinity if the integer part is too long to be exact
+    static double parseNumber(CharSequence text) {
+        int from = 0;
+        int to = text.length();
+        while (from < to && Character.isWhitespace(text.charAt(from))) from++;
+        while (to > from && Character.isWhitespace(text.charAt(to - 1))) to--;
+        if (to > from && text.charAt(to - 1) == '%') to--;
+        boolean negative = from < to && text.charAt(from) == '-';
+        if (negative) from++;
+
+        long mantissa = 0;
+        int significant = 0;
+        int fractionDigits = 0;
+        boolean anyDigit = false;
+        boolean fraction = false;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (significant == MAX_DIGITS || fractionDigits == MAX_DIGITS) {
+                    if (!fraction) return Double.POSITIVE_INFINITY;
+                    continue;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) significant++;
+                if (fraction) fractionDigits++;
+            } else if ((c == '.' || c == ',') && !fraction) {
+                fraction = true;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!anyDigit) return Double.NaN;
+        // Both operands are exact doubles, so one division gives a correctly rounded result
+        double value = fractionDigits == 0 ? mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        // A negative grade is out of range rather than not a number; -0 is just 0
+        return negative && value != 0 ? -value : value;
+    }
+
+    private static boolean isBlank(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) return false;
+        }
+        return true;
+    }
+}
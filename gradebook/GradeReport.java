@@ -0,0 +1,154 @@
+package gradebook;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line grade report. Needs neither a display nor JavaFX, so it can
+ * run on batch servers.
+ *
+ * Usage: java -cp out gradebook.GradeReport [--roster <dir>] [--export <file>]
+ *        [--scales <file>] [--scale <name>] [file.csv ...]
+ *
+ * The saved roster in {@code --roster} (read-only) and every listed
+ * CSV/TSV file are loaded into one store, then the summary is printed. A
+ * student listed again under the same student number, in a later file or
+ * in the saved roster, is updated rather than counted twice.
+ * With {@code --export} the combined roster is also written to a .csv,
+ * .jsonl or .sgtc (columnar) file, chosen by its extension. Letters are
+ * counted on the standard scale unless {@code --scale} names another one,
+ * built in or from a {@code --scales} file (see {@link GradingScale}).
+ */
+public class GradeReport {
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        StudentStore store = new StudentStore();
+        long rejected = 0;
+        Path export = null;
+        List<GradingScale> scales = new ArrayList<>(List.of(GradingScale.STANDARD, GradingScale.PLUS_MINUS));
+        String scaleName = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--roster")) {
+                    if (++i == args.length) {
+                        err.println("--roster needs a directory");
+                        return 1;
+                    }
+                    loadRoster(Path.of(args[i]), store);
+                } else if (args[i].equals("--export")) {
+                    if (++i == args.length || RosterExporter.Format.forPath(Path.of(args[i])) == null) {
+                        err.println("--export needs a .csv, .jsonl or .sgtc file");
+                        return 1;
+                    }
+                    export = Path.of(args[i]);
+                } else if (args[i].equals("--scales")) {
+                    if (++i == args.length) {
+                        err.println("--scales needs a file");
+                        return 1;
+                    }
+                    scales.addAll(GradingScale.load(Path.of(args[i])));
+                } else if (args[i].equals("--scale")) {
+                    if (++i == args.length) {
+                        err.println("--scale needs a name");
+                        return 1;
+                    }
+                    scaleName = args[i];
+                } else if (args[i].startsWith("-")) {
+                    err.println("Unknown option " + args[i]);
+                    err.println("Usage: GradeReport [--roster <dir>] [--export <file>] [--scales <file>] "
+                            + "[--scale <name>] [file.csv ...]");
+                    return 1;
+                } else {
+                    RosterSync sync = new RosterSync(store);
+                    RosterImporter.Result result = new RosterImporter().read(Path.of(args[i]), sync, null);
+                    long duplicates = sync.finish(false).getDuplicates();
+                    rejected += result.getRejected() + duplicates;
+                    if (duplicates > 0) {
+                        err.println(args[i] + ": skipped " + duplicates + " rows with a repeated student number");
+                    }
+                    for (String error : result.getErrors()) {
+                        err.println(args[i] + ": " + error);
+                    }
+                }
+            }
+            if (scaleName != null) {
+                GradingScale scale = find(scales, scaleName);
+                if (scale == null) {
+                    err.println("Unknown scale " + scaleName);
+                    return 1;
+                }
+                store.setScale(scale);
+            }
+            if (export != null) {
+                RosterExporter.Result result = new RosterExporter().export(store, export,
+                        RosterExporter.Format.forPath(export), null);
+                err.println("Exported " + result + " to " + export);
+            }
+        } catch (IOException e) {
+            err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+
+        print(store, rejected, out);
+        return 0;
+    }
+
+    private static void loadRoster(Path directory, StudentStore store) throws IOException {
+        // Read-only: unlike RosterPersistence.open this never writes a checkpoint
+        Path snapshot = directory.resolve(RosterPersistence.SNAPSHOT_FILE);
+        StudentStore loaded = new StudentStore();
+        long generation = Files.exists(snapshot) ? RosterSnapshot.load(snapshot, loaded) : 0;
+        RosterJournal.replay(directory.resolve(RosterPersistence.JOURNAL_FILE), loaded, generation);
+
+        StudentBatch batch = new StudentBatch(loaded.size());
+        for (int row = 0; row < loaded.size(); row++) {
+            batch.add(loaded.getStudentNumber(row), loaded.getName(row), loaded.getGrade(row));
+        }
+        new RosterSync(store).accept(batch);
+    }
+
+    private static void print(StudentStore store, long rejected, PrintStream out) {
+        GradeDistribution distribution = GradeAnalytics.analyze(store);
+        out.printf("Students:       %,d%n", distribution.getCount());
+        if (rejected > 0) {
+            out.printf("Rejected rows:  %,d%n", rejected);
+        }
+        out.printf("Average:        %.2f%n", distribution.getAverage());
+        out.printf("Std deviation:  %.2f%n", distribution.getStandardDeviation());
+        out.printf("Highest:        %.2f%n", distribution.getHighest());
+        out.printf("Lowest:         %.2f%n", distribution.getLowest());
+        out.printf("Median:         %.2f%n", distribution.getMedian());
+        out.printf("Percentiles:    P10 %.2f  P25 %.2f  P75 %.2f  P90 %.2f%n",
+                distribution.getPercentile(10), distribution.getPercentile(25),
+                distribution.getPercentile(75), distribution.getPercentile(90));
+
+        out.println();
+        out.println("Scale:          " + store.getScale().getName() + " (" + store.getScale().describe() + ")");
+        out.println("Letter      Count    Share");
+        long[] letterCounts = store.getLetterCounts();
+        for (LetterGrade letter : store.getScale().getLetters()) {
+            long letterCount = letterCounts[letter.ordinal()];
+            double share = distribution.getCount() == 0 ? 0 : 100.0 * letterCount / distribution.getCount();
+            out.printf("%-6s %,10d   %5.1f%%%n", letter.getLabel(), letterCount, share);
+        }
+    }
+
+    private static GradingScale find(List<GradingScale> scales, String name) {
+        // Later definitions win, so a scales file can redefine a built-in name
+        for (int i = scales.size() - 1; i >= 0; i--) {
+            if (scales.get(i).getName().equalsIgnoreCase(name)) return scales.get(i);
+        }
+        return null;
+    }
+}
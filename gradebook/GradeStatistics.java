@@ -0,0 +1,103 @@
+package gradebook;
+
+import java.util.TreeMap;
+
+/**
+ * Running summary of a set of grades that is updated one value at a time,
+ * so the summary panel never has to rescan the whole roster.
+ *
+ * The sum uses Kahan compensation and the mean/variance use Welford's
+ * method (including its inverse for removals). Highest and lowest come from
+ * a sorted multiset of grades, so removing the current extreme is O(log n)
+ * instead of a full rescan.
+ */
+public class GradeStatistics {
+
+    private final TreeMap<Double, Integer> gradeCounts = new TreeMap<>();
+
+    private int count;
+    private double sum;
+    private double compensation;
+    private double mean;
+    private double m2;
+
+    public void add(double grade) {
+        gradeCounts.merge(grade, 1, Integer::sum);
+        count++;
+        addToSum(grade);
+
+        double delta = grade - mean;
+        mean += delta / count;
+        m2 += delta * (grade - mean);
+    }
+
+    public void remove(double grade) {
+        Integer existing = gradeCounts.get(grade);
+        if (existing == null) {
+            throw new IllegalArgumentException("Grade " + grade + " is not part of these statistics");
+        }
+        if (existing == 1) {
+            gradeCounts.remove(grade);
+        } else {
+            gradeCounts.put(grade, existing - 1);
+        }
+
+        count--;
+        if (count == 0) {
+            reset();
+            return;
+        }
+        addToSum(-grade);
+
+        double delta = grade - mean;
+        mean -= delta / count;
+        m2 = Math.max(0, m2 - delta * (grade - mean));
+    }
+
+    public void replace(double oldGrade, double newGrade) {
+        if (Double.compare(oldGrade, newGrade) == 0) return;
+        remove(oldGrade);
+        add(newGrade);
+    }
+
+    public void clear() {
+        gradeCounts.clear();
+        count = 0;
+        reset();
+    }
+
+    public int getCount() { return count; }
+
+    public double getSum() { return sum; }
+
+    public double getAverage() { return count == 0 ? 0.0 : mean; }
+
+    public double getVariance() { return count < 2 ? 0.0 : m2 / count; }
+
+    public double getStandardDeviation() { return Math.sqrt(getVariance()); }
+
+    // firstKey/lastKey rather than firstEntry/lastEntry, which allocate a copy of the entry
+    public double getHighest() { return gradeCounts.isEmpty() ? 0.0 : gradeCounts.lastKey(); }
+
+    public double getLowest() { return gradeCounts.isEmpty() ? 0.0 : gradeCounts.firstKey(); }
+
+    private void addToSum(double value) {
+        double y = value - compensation;
+        double t = sum + y;
+        compensation = (t - sum) - y;
+        sum = t;
+    }
+
+    private void reset() {
+        sum = 0;
+        compensation = 0;
+        mean = 0;
+        m2 = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d avg=%.2f min=%.2f max=%.2f sd=%.2f",
+                count, getAverage(), getLowest(), getHighest(), getStandardDeviation());
+    }
+}
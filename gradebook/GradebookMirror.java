@@ -0,0 +1,255 @@
+package gradebook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps a single-threaded {@link StudentStore}, such as the UI's, in step
+ * with a {@link ConcurrentGradebook} that other threads write to.
+ *
+ * The mirror subscribes to the gradebook's change feed and applies the
+ * pending changes on the store's thread (given as an executor, e.g.
+ * {@code Platform::runLater}) in runs: consecutive adds become one addAll,
+ * consecutive removals one removeRows and consecutive grade changes one
+ * setGrades, so a burst of remote edits reaches the table and the summary
+ * as a handful of events. Edits made to the store directly are forwarded
+ * to the gradebook with the mirror's subscription as their origin, so they
+ * are not echoed back.
+ *
+ * A remote grade change or rename applies the gradebook's current value
+ * rather than the one in the change, so a local edit racing a remote one
+ * still ends with both sides agreeing on whichever the gradebook applied
+ * last.
+ */
+public class GradebookMirror implements StudentStore.Listener, AutoCloseable {
+
+    private final StudentStore store;
+    private final ConcurrentGradebook gradebook;
+    private final ConcurrentGradebook.Subscription subscription;
+    private final List<ConcurrentGradebook.Change> changes = new ArrayList<>();
+    private Runnable onApplied = () -> {};
+    private int[] gradebookIdByStoreId = new int[0];
+    private int[] storeIdByGradebookId = new int[0];
+    private boolean applying;
+    private boolean paused;
+
+    /** Copies the store's students into the gradebook and starts following it. */
+    public GradebookMirror(StudentStore store, ConcurrentGradebook gradebook, Executor storeThread) {
+        this.store = store;
+        this.gradebook = gradebook;
+        this.subscription = gradebook.subscribe(() -> storeThread.execute(this::drain));
+        for (int row = 0; row < store.size(); row++) {
+            link(store.getId(row), gradebook.add(store.getName(row), store.getGrade(row), subscription));
+        }
+        store.addListener(this);
+    }
+
+    /** Called on the store's thread after remote changes were applied, e.g. to refresh the summary. */
+    public void setOnApplied(Runnable onApplied) { this.onApplied = onApplied; }
+
+    /**
+     * While paused, remote changes wait in the feed instead of reaching the
+     * store, e.g. while an export reads it from another thread.
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        if (!paused) {
+            drain();
+        }
+    }
+
+    /** The gradebook id of the store's student, or -1. */
+    public int gradebookIdOf(int storeId) {
+        return storeId < gradebookIdByStoreId.length ? gradebookIdByStoreId[storeId] : -1;
+    }
+
+    /** The store id of the gradebook's student, or -1 if it is not (yet) in the store. */
+    public int storeIdOf(int gradebookId) {
+        return gradebookId < storeIdByGradebookId.length ? storeIdByGradebookId[gradebookId] : -1;
+    }
+
+    /** Applies every pending remote change; must run on the store's thread. */
+    public void drain() {
+        if (paused) return;
+        subscription.drain(changes);
+        if (changes.isEmpty()) return;
+        applying = true;
+        try {
+            int start = 0;
+            while (start < changes.size()) {
+                ConcurrentGradebook.ChangeKind kind = changes.get(start).kind();
+                int end = start + 1;
+                while (end < changes.size() && changes.get(end).kind() == kind) {
+                    end++;
+                }
+                switch (kind) {
+                    case ADDED -> applyAdds(start, end);
+                    case REMOVED -> applyRemovals(start, end);
+                    case GRADE_CHANGED -> applyGrades(start, end);
+                    case RENAMED -> applyRenames(start, end);
+                }
+                start = end;
+            }
+        } finally {
+            applying = false;
+            changes.clear();
+        }
+        onApplied.run();
+    }
+
+    @Override
+    public void close() {
+        subscription.close();
+        store.removeListener(this);
+    }
+
+    @Override
+    public void rowsAdded(int fromRow, int toRow) {
+        if (applying) return;
+        for (int row = fromRow; row < toRow; row++) {
+            link(store.getId(row), gradebook.add(store.getName(row), store.getGrade(row), subscription));
+        }
+    }
+
+    @Override
+    public void rowsInserted(int[] rows, int count) {
+        if (applying) return;
+        // Restored students come back as new gradebook students
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            link(store.getId(row), gradebook.add(store.getName(row), store.getGrade(row), subscription));
+        }
+    }
+
+    @Override
+    public void rowsRemoving(int[] rows, int count) {
+        if (applying) return;
+        for (int i = 0; i < count; i++) {
+            int storeId = store.getId(rows[i]);
+            int gradebookId = gradebookIdOf(storeId);
+            if (gradebookId >= 0) {
+                gradebook.remove(gradebookId, subscription);
+                unlink(storeId, gradebookId);
+            }
+        }
+    }
+
+    @Override
+    public void gradeChanged(int row, double oldGrade, double newGrade) {
+        if (applying) return;
+        int gradebookId = gradebookIdOf(store.getId(row));
+        if (gradebookId >= 0) {
+            // False if a remote writer removed the student; its removal is on the way
+            gradebook.setGrade(gradebookId, newGrade, subscription);
+        }
+    }
+
+    @Override
+    public void nameChanged(int row) {
+        if (applying) return;
+        int gradebookId = gradebookIdOf(store.getId(row));
+        if (gradebookId >= 0) {
+            gradebook.setName(gradebookId, store.getName(row), subscription);
+        }
+    }
+
+    private void applyAdds(int start, int end) {
+        StudentBatch batch = new StudentBatch(end - start);
+        for (int i = start; i < end; i++) {
+            batch.add(changes.get(i).name(), changes.get(i).grade());
+        }
+        int fromRow = store.size();
+        store.addAll(batch);
+        for (int i = start; i < end; i++) {
+            link(store.getId(fromRow + i - start), changes.get(i).id());
+        }
+    }
+
+    private void applyRemovals(int start, int end) {
+        int[] rows = new int[end - start];
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            int gradebookId = changes.get(i).id();
+            int storeId = storeIdOf(gradebookId);
+            if (storeId < 0) continue;
+            unlink(storeId, gradebookId);
+            int row = store.rowOf(storeId);
+            if (row >= 0) {
+                rows[count++] = row;
+            }
+        }
+        Arrays.sort(rows, 0, count);
+        store.removeRows(rows, count);
+    }
+
+    private void applyGrades(int start, int end) {
+        int[] rows = new int[end - start];
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            int row = rowOf(changes.get(i).id());
+            if (row >= 0) {
+                rows[count++] = row;
+            }
+        }
+        // A student changed twice in the run needs one update with its current grade
+        Arrays.sort(rows, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || rows[unique - 1] != rows[i]) {
+                rows[unique++] = rows[i];
+            }
+        }
+        double[] grades = new double[unique];
+        int kept = 0;
+        for (int i = 0; i < unique; i++) {
+            double grade = gradebook.getGrade(gradebookIdOf(store.getId(rows[i])));
+            // NaN: removed since, and the removal is still in the feed
+            if (!Double.isNaN(grade)) {
+                rows[kept] = rows[i];
+                grades[kept++] = grade;
+            }
+        }
+        store.setGrades(rows, kept, grades);
+    }
+
+    private void applyRenames(int start, int end) {
+        for (int i = start; i < end; i++) {
+            int gradebookId = changes.get(i).id();
+            int row = rowOf(gradebookId);
+            String name = gradebook.getName(gradebookId);
+            if (row >= 0 && name != null) {
+                store.setName(store.getId(row), name);
+            }
+        }
+    }
+
+    private int rowOf(int gradebookId) {
+        int storeId = storeIdOf(gradebookId);
+        return storeId < 0 ? -1 : store.rowOf(storeId);
+    }
+
+    private void link(int storeId, int gradebookId) {
+        if (storeId >= gradebookIdByStoreId.length) {
+            gradebookIdByStoreId = grow(gradebookIdByStoreId, storeId);
+        }
+        if (gradebookId >= storeIdByGradebookId.length) {
+            storeIdByGradebookId = grow(storeIdByGradebookId, gradebookId);
+        }
+        gradebookIdByStoreId[storeId] = gradebookId;
+        storeIdByGradebookId[gradebookId] = storeId;
+    }
+
+    private void unlink(int storeId, int gradebookId) {
+        gradebookIdByStoreId[storeId] = -1;
+        storeIdByGradebookId[gradebookId] = -1;
+    }
+
+    private static int[] grow(int[] ids, int index) {
+        int length = ids.length;
+        int[] grown = Arrays.copyOf(ids, Math.max(index + 1, Math.max(16, length * 2)));
+        Arrays.fill(grown, length, grown.length, -1);
+        return grown;
+    }
+}
@@ -0,0 +1,525 @@
+package gradebook;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local HTTP interface to a {@link ConcurrentGradebook}, for scripts and
+ * sync jobs on the same machine. It listens on the loopback address only.
+ *
+ *   POST   /students               {"name":"Ada","grade":91.5} adds a student; 201 {"id":42}
+ *   PUT    /students/{id}          {"grade":88} and/or {"name":"..."} updates one
+ *   DELETE /students/{id}          removes one; 404 if there is none
+ *   GET    /students?after=&limit= one page of students as JSON Lines, in id order
+ *   GET    /summary                the grade summary, as written next to exports, on the
+ *                                  scale given to {@link #setScale}
+ *   POST   /ingest                 JSON Lines body of {"name":..,"grade":..} objects
+ *
+ * Pages are keyed by id rather than offset, so adds and removals between
+ * requests never shift or repeat rows: pass the X-Next-After header of one
+ * page as {@code after} for the next; it is absent on the last page. A
+ * page is read from one snapshot and streamed in chunks.
+ *
+ * Ingest reads the body as it arrives and adds it in batches of
+ * {@link #INGEST_BATCH_SIZE}, each applied atomically. Invalid lines are
+ * skipped and reported in the response, like the CSV importer does.
+ *
+ * Requests are handled on virtual threads when the runtime has them (JDK
+ * 21+), otherwise on a fixed pool of platform threads.
+ *
+ * The JDK server writes a response's headers and body separately, so with
+ * Nagle's algorithm on each response waits for a delayed ACK. Launchers
+ * should run with {@code -Dsun.net.httpserver.nodelay=true}, or set it
+ * before the first server starts, as {@link #main} does; the property is
+ * JVM-wide, so the server does not set it itself.
+ */
+public class GradebookServer implements AutoCloseable {
+
+    public static final int DEFAULT_PAGE_SIZE = 1_000;
+    public static final int MAX_PAGE_SIZE = 100_000;
+    public static final int INGEST_BATCH_SIZE = 1_000;
+
+    private static final int MAX_BODY_SIZE = 64 << 10;
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final String JSON = "application/json";
+    private static final String JSON_LINES = "application/x-ndjson";
+
+    private final ConcurrentGradebook gradebook;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile GradingScale scale = GradingScale.STANDARD;
+
+    private GradebookServer(ConcurrentGradebook gradebook, HttpServer server, ExecutorService executor) {
+        this.gradebook = gradebook;
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /** Starts serving the gradebook on localhost; port 0 picks a free port. */
+    public static GradebookServer start(ConcurrentGradebook gradebook, int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        ExecutorService executor = newExecutor();
+        GradebookServer gradebookServer = new GradebookServer(gradebook, server, executor);
+        server.createContext("/students", gradebookServer.handler("http.students", gradebookServer::students));
+        server.createContext("/summary", gradebookServer.handler("http.summary", gradebookServer::summary));
+        server.createContext("/ingest", gradebookServer.handler("http.ingest", gradebookServer::ingest));
+        server.setExecutor(executor);
+        server.start();
+        return gradebookServer;
+    }
+
+    /** Usage: java -cp out gradebook.GradebookServer [port]; serves an empty gradebook until stopped. */
+    public static void main(String[] args) throws IOException {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        GradebookServer server = start(new ConcurrentGradebook(), port);
+        System.out.println("Serving on http://localhost:" + server.getPort() + "/");
+    }
+
+    public int getPort() { return server.getAddress().getPort(); }
+
+    /** The scale /summary counts letters on. */
+    public void setScale(GradingScale scale) { this.scale = scale; }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // JDK 17-20: requests mostly wait on sockets, so use more threads than cores
+            return Executors.newFixedThreadPool(Math.max(8, 4 * Runtime.getRuntime().availableProcessors()), task -> {
+                Thread thread = new Thread(task, "gradebook-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private interface Route {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    /** Thrown by a route to answer with an error status and message. */
+    private static class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // Each route is timed in the shared Metrics, from request line to the response being closed
+    private HttpHandler handler(String timerName, Route route) {
+        Metrics.Timer timer = Metrics.shared().timer(timerName);
+        return exchange -> {
+            long start = timer.start();
+            try (exchange) {
+                try {
+                    route.handle(exchange);
+                } catch (HttpError e) {
+                    send(exchange, e.status, "{\"error\":" + jsonString(e.getMessage()) + "}\n");
+                } catch (IllegalArgumentException e) {
+                    send(exchange, 400, "{\"error\":" + jsonString(e.getMessage()) + "}\n");
+                }
+            } finally {
+                timer.stop(start);
+            }
+        };
+    }
+
+    private void students(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (path.equals("/students") || path.equals("/students/")) {
+            switch (method) {
+                case "GET" -> list(exchange);
+                case "POST" -> add(exchange);
+                default -> throw notAllowed(exchange, "GET, POST");
+            }
+            return;
+        }
+        int id = parseId(path.substring("/students/".length()));
+        switch (method) {
+            case "PUT" -> update(exchange, id);
+            case "DELETE" -> {
+                if (!gradebook.remove(id)) throw noSuchStudent(id);
+                // Not 204: the JDK server races its connection reuse against a response without a body
+                send(exchange, 200, "{\"id\":" + id + "}\n");
+            }
+            default -> throw notAllowed(exchange, "PUT, DELETE");
+        }
+    }
+
+    private void add(HttpExchange exchange) throws IOException {
+        StudentFields fields = StudentFields.parse(readBody(exchange));
+        int id = gradebook.add(fields.requireName(), fields.requireGrade());
+        send(exchange, 201, "{\"id\":" + id + "}\n");
+    }
+
+    private void update(HttpExchange exchange, int id) throws IOException {
+        StudentFields fields = StudentFields.parse(readBody(exchange));
+        if (fields.name == null && Double.isNaN(fields.grade)) {
+            throw new IllegalArgumentException("Expected \"name\" and/or \"grade\"");
+        }
+        // One update checks every field before applying any, so a rejected request changes nothing
+        String name = fields.name == null ? null : fields.requireName();
+        if (!gradebook.update(id, name, fields.grade)) throw noSuchStudent(id);
+        send(exchange, 200, "{\"id\":" + id + "}\n");
+    }
+
+    private void list(HttpExchange exchange) throws IOException {
+        int after = -1;
+        int limit = DEFAULT_PAGE_SIZE;
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                String key = equals < 0 ? parameter : parameter.substring(0, equals);
+                String value = equals < 0 ? "" : parameter.substring(equals + 1);
+                switch (key) {
+                    case "after" -> after = parseInt(key, value, -1);
+                    case "limit" -> limit = parseInt(key, value, 1);
+                    default -> throw new IllegalArgumentException("Unknown parameter " + key);
+                }
+            }
+        }
+        limit = Math.min(limit, MAX_PAGE_SIZE);
+
+        ConcurrentGradebook.Snapshot snapshot = gradebook.snapshot();
+        // Find the page's last id first, so the next cursor can go in a header before the rows
+        int idLimit = snapshot.getIdLimit();
+        int last = after;
+        int rows = 0;
+        int id = after + 1;
+        for (; id < idLimit && rows < limit; id++) {
+            if (snapshot.getName(id) != null) {
+                last = id;
+                rows++;
+            }
+        }
+        while (id < idLimit && snapshot.getName(id) == null) {
+            id++;
+        }
+        if (id < idLimit) {
+            exchange.getResponseHeaders().set("X-Next-After", Integer.toString(last));
+        }
+        exchange.getResponseHeaders().set("Content-Type", JSON_LINES);
+        exchange.sendResponseHeaders(200, 0);
+
+        StringBuilder chunk = new StringBuilder(32 << 10);
+        OutputStream out = exchange.getResponseBody();
+        for (id = after + 1; id <= last; id++) {
+            String name = snapshot.getName(id);
+            if (name == null) continue;
+            chunk.append("{\"id\":").append(id).append(",\"name\":");
+            appendJsonString(chunk, name);
+            chunk.append(",\"grade\":").append(snapshot.getGrade(id)).append("}\n");
+            if (chunk.length() >= 32 << 10) {
+                out.write(chunk.toString().getBytes(StandardCharsets.UTF_8));
+                chunk.setLength(0);
+            }
+        }
+        out.write(chunk.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void summary(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) throw notAllowed(exchange, "GET");
+        ConcurrentGradebook.Snapshot snapshot = gradebook.snapshot();
+        send(exchange, 200, RosterExporter.summaryJson(snapshot.distribution(), scale, snapshot.letterCounts(scale)));
+    }
+
+    private void ingest(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) throw notAllowed(exchange, "POST");
+        StudentBatch batch = new StudentBatch(INGEST_BATCH_SIZE);
+        List<String> errors = new ArrayList<>();
+        long accepted = 0;
+        long rejected = 0;
+        long lineNumber = 0;
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), 64 << 10);
+        for (String line; (line = reader.readLine()) != null; ) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+            try {
+                StudentFields fields = StudentFields.parse(line);
+                String name = fields.requireName();
+                double grade = fields.requireGrade();
+                StudentStore.checkGrade(grade);
+                batch.add(name, grade);
+            } catch (IllegalArgumentException e) {
+                rejected++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("line " + lineNumber + ": " + e.getMessage());
+                }
+                continue;
+            }
+            if (batch.size() == INGEST_BATCH_SIZE) {
+                gradebook.addAll(batch);
+                accepted += batch.size();
+                batch.clear();
+            }
+        }
+        gradebook.addAll(batch);
+        accepted += batch.size();
+
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"accepted\":").append(accepted).append(",\"rejected\":").append(rejected)
+                .append(",\"errors\":[");
+        for (int i = 0; i < errors.size(); i++) {
+            if (i > 0) json.append(',');
+            appendJsonString(json, errors.get(i));
+        }
+        send(exchange, 200, json.append("]}\n").toString());
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_SIZE + 1);
+            if (body.length > MAX_BODY_SIZE) {
+                throw new HttpError(413, "Body exceeds " + MAX_BODY_SIZE + " bytes; use /ingest for many students");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static HttpError notAllowed(HttpExchange exchange, String allowed) {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        return new HttpError(405, "Method " + exchange.getRequestMethod() + " not allowed");
+    }
+
+    private static HttpError noSuchStudent(int id) {
+        return new HttpError(404, "No student with id " + id);
+    }
+
+    private static int parseId(String text) {
+        try {
+            int id = Integer.parseInt(text);
+            if (id >= 0) return id;
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new HttpError(404, "No student with id " + text);
+    }
+
+    private static int parseInt(String key, String value, int minimum) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= minimum) return parsed;
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Parameter " + key + " must be an integer of at least " + minimum);
+    }
+
+    static String jsonString(String text) {
+        StringBuilder json = new StringBuilder(text.length() + 2);
+        appendJsonString(json, text);
+        return json.toString();
+    }
+
+    static void appendJsonString(StringBuilder json, String text) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * The name and grade of one flat JSON object; other members are ignored.
+     * Just enough JSON for this API, so the core keeps to the JDK.
+     */
+    static final class StudentFields {
+        String name;
+        double grade = Double.NaN;
+
+        private final String text;
+        private int position;
+
+        private StudentFields(String text) {
+            this.text = text;
+        }
+
+        static StudentFields parse(String text) {
+            StudentFields fields = new StudentFields(text);
+            fields.parseObject();
+            return fields;
+        }
+
+        String requireName() {
+            String trimmed = name == null ? "" : name.trim();
+            if (trimmed.isEmpty()) {
+                throw new IllegalArgumentException("Missing or empty \"name\"");
+            }
+            return trimmed;
+        }
+
+        double requireGrade() {
+            if (Double.isNaN(grade)) {
+                throw new IllegalArgumentException("Missing \"grade\"");
+            }
+            return grade;
+        }
+
+        private void parseObject() {
+            expect('{');
+            if (peek() == '}') {
+                position++;
+            } else {
+                do {
+                    String key = parseString();
+                    expect(':');
+                    switch (key) {
+                        case "name" -> name = parseString();
+                        case "grade" -> grade = parseNumber();
+                        default -> skipValue();
+                    }
+                } while (consume(','));
+                expect('}');
+            }
+            if (peek() != 0) {
+                throw error("Unexpected text after the object");
+            }
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') return value.toString();
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position == text.length()) break;
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> value.append(escaped);
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) throw error("Bad \\u escape");
+                        try {
+                            value.append((char) Integer.parseInt(text, position, position + 4, 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Bad \\u escape");
+                        }
+                        position += 4;
+                    }
+                    default -> throw error("Bad escape \\" + escaped);
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private double parseNumber() {
+            skipWhitespace();
+            int start = position;
+            while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            try {
+                return Double.parseDouble(text.substring(start, position));
+            } catch (NumberFormatException e) {
+                throw error("\"grade\" must be a number");
+            }
+        }
+
+        private void skipValue() {
+            char c = peek();
+            if (c == '"') {
+                parseString();
+            } else if (c == '{' || c == '[') {
+                throw error("Nested values are not supported");
+            } else {
+                while (position < text.length() && ",} \t".indexOf(text.charAt(position)) < 0) {
+                    position++;
+                }
+            }
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw error("Expected '" + c + "'");
+            }
+            position++;
+        }
+
+        private boolean consume(char c) {
+            if (peek() != c) return false;
+            position++;
+            return true;
+        }
+
+        /** The next non-blank character, or 0 at the end. */
+        private char peek() {
+            skipWhitespace();
+            return position < text.length() ? text.charAt(position) : 0;
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (position + 1));
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package gradebook;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A grading scale: the minimum grade for each of its letters, e.g.
+ * "A 90, B 80, C 70, D 60, F 0".
+ *
+ * A scale is compiled into a table with the letter of every 0.1 step from
+ * 0.0 to 100.0, so classifying a grade is one array load and one compare.
+ * A grade gets the letter of the highest cutoff it reaches, exactly as
+ * {@code grade >= cutoff}: 89.96 is still a B on the standard scale.
+ *
+ * Scales are immutable. Besides the two built-in ones they can be loaded
+ * from a text file with one {@code name = cutoffs} line per scale:
+ *
+ *   # Per-course and curved scales
+ *   Chemistry = A 93, B 85, C 75, D 65, F 0
+ *   Standard curved 5 = Standard - 5
+ *
+ * The second form lowers every cutoff of an earlier (or built-in) scale.
+ */
+public final class GradingScale {
+
+    public static final GradingScale STANDARD = parse("Standard", "A 90, B 80, C 70, D 60, F 0");
+
+    public static final GradingScale PLUS_MINUS = parse("Plus/minus",
+            "A+ 97, A 93, A- 90, B+ 87, B 83, B- 80, C+ 77, C 73, C- 70, D+ 67, D 63, D- 60, F 0");
+
+    // Grade at the start of each 0.1 step, as the double nearest to step / 10
+    private static final double[] STEP_START = new double[GradeHistogram.BUCKETS];
+
+    static {
+        for (int step = 0; step < STEP_START.length; step++) {
+            STEP_START[step] = step / 10.0;
+        }
+    }
+
+    // Below this many grades a reclassification runs on the calling thread
+    static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+
+    private final String name;
+    private final LetterGrade[] letters;
+    // Cutoffs in tenths of a point, parallel to letters
+    private final int[] minimums;
+    // Letter of the grades from each 0.1 step up to the next
+    private final byte[] table = new byte[GradeHistogram.BUCKETS];
+
+    private GradingScale(String name, LetterGrade[] letters, int[] minimums) {
+        this.name = name;
+        this.letters = letters;
+        this.minimums = minimums;
+        int letter = letters.length - 1;
+        for (int step = 0; step < table.length; step++) {
+            while (letter > 0 && step >= minimums[letter - 1]) {
+                letter--;
+            }
+            table[step] = (byte) letters[letter].ordinal();
+        }
+    }
+
+    /**
+     * A scale from its letters, highest first, and their minimum grades.
+     * Minimums must fall strictly, be multiples of 0.1, and end at 0 so
+     * that every grade gets a letter.
+     */
+    public static GradingScale of(String name, LetterGrade[] letters, double[] minimums) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("A scale needs a name");
+        }
+        if (letters.length == 0 || letters.length != minimums.length) {
+            throw new IllegalArgumentException("Scale " + name + " needs one minimum per letter");
+        }
+        int[] tenths = new int[minimums.length];
+        for (int i = 0; i < letters.length; i++) {
+            double scaled = minimums[i] * 10;
+            if (!(minimums[i] >= 0 && minimums[i] <= 100) || Math.abs(scaled - Math.rint(scaled)) > 1e-6) {
+                throw new IllegalArgumentException("Cutoff " + minimums[i] + " of " + letters[i]
+                        + " must be a multiple of 0.1 between 0 and 100");
+            }
+            tenths[i] = (int) Math.rint(scaled);
+            for (int j = 0; j < i; j++) {
+                if (letters[j] == letters[i]) {
+                    throw new IllegalArgumentException("Scale " + name + " lists " + letters[i] + " twice");
+                }
+            }
+            if (i > 0 && tenths[i] >= tenths[i - 1]) {
+                throw new IllegalArgumentException("Cutoffs of scale " + name + " must fall from the highest letter");
+            }
+        }
+        if (tenths[tenths.length - 1] != 0) {
+            throw new IllegalArgumentException("The lowest letter of scale " + name + " must start at 0");
+        }
+        return new GradingScale(name.trim(), letters.clone(), tenths);
+    }
+
+    /** A scale from cutoffs written as "A 90, B 80, C 70, D 60, F 0". */
+    public static GradingScale parse(String name, String cutoffs) {
+        String[] parts = cutoffs.split(",");
+        LetterGrade[] letters = new LetterGrade[parts.length];
+        double[] minimums = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String[] fields = parts[i].trim().split("\\s+");
+            if (fields.length != 2) {
+                throw new IllegalArgumentException("Expected \"<letter> <minimum>\" but got \"" + parts[i].trim() + "\"");
+            }
+            letters[i] = LetterGrade.forLabel(fields[0]);
+            if (letters[i] == null) {
+                throw new IllegalArgumentException("Unknown letter " + fields[0]);
+            }
+            try {
+                minimums[i] = Double.parseDouble(fields[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad cutoff " + fields[1] + " for " + fields[0]);
+            }
+        }
+        return of(name, letters, minimums);
+    }
+
+    /**
+     * Reads a scales file (see the class comment). The built-in scales are
+     * not included, but lines may curve them.
+     */
+    public static List<GradingScale> load(Path path) throws IOException {
+        List<GradingScale> scales = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            for (String line; (line = reader.readLine()) != null; ) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                int equals = line.indexOf('=');
+                if (equals < 0) {
+                    throw new IOException(path + ":" + lineNumber + ": expected \"<name> = <cutoffs>\"");
+                }
+                String name = line.substring(0, equals).strip();
+                String definition = line.substring(equals + 1).strip();
+                try {
+                    GradingScale scale = curve(name, definition, scales);
+                    scales.add(scale != null ? scale : parse(name, definition));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(path + ":" + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+        return scales;
+    }
+
+    // "<base> - <points>", or null if the definition is a list of cutoffs
+    private static GradingScale curve(String name, String definition, List<GradingScale> earlier) {
+        int minus = definition.lastIndexOf(" - ");
+        if (minus < 0) return null;
+        String baseName = definition.substring(0, minus).strip();
+        double points;
+        try {
+            points = Double.parseDouble(definition.substring(minus + 3).strip());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        for (GradingScale scale : earlier) {
+            if (scale.name.equals(baseName)) return scale.curved(name, points);
+        }
+        for (GradingScale scale : List.of(STANDARD, PLUS_MINUS)) {
+            if (scale.name.equals(baseName)) return scale.curved(name, points);
+        }
+        throw new IllegalArgumentException("Unknown scale " + baseName);
+    }
+
+    /**
+     * This scale with every cutoff above 0 lowered by {@code points}; a
+     * cutoff that would reach 0 stays 0.1 above the letter below it.
+     */
+    public GradingScale curved(String name, double points) {
+        int shift = (int) Math.rint(points * 10);
+        double[] lowered = new double[letters.length];
+        for (int i = 0; i < letters.length; i++) {
+            int tenths = minimums[i] == 0 ? 0 : Math.max(letters.length - 1 - i, minimums[i] - shift);
+            lowered[i] = tenths / 10.0;
+        }
+        return of(name, letters, lowered);
+    }
+
+    public String getName() { return name; }
+
+    /** The scale's letters, highest first. */
+    public List<LetterGrade> getLetters() { return Collections.unmodifiableList(Arrays.asList(letters)); }
+
+    public boolean contains(LetterGrade letter) { return indexOf(letter) >= 0; }
+
+    /** Minimum grade for the letter, or NaN if the scale does not use it. */
+    public double getMinimum(LetterGrade letter) {
+        int i = indexOf(letter);
+        return i < 0 ? Double.NaN : minimums[i] / 10.0;
+    }
+
+    public LetterGrade letterOf(double grade) {
+        return LetterGrade.of(codeOf(grade));
+    }
+
+    /** Ordinal of the grade's letter; what a store keeps per student. */
+    public byte codeOf(double grade) {
+        return codeOf(table, grade);
+    }
+
+    /** Ordinal of the letter of the grades from {@code step / 10} up to the next 0.1 step. */
+    public byte codeOfStep(int step) {
+        return table[step];
+    }
+
+    /**
+     * Stores the letter code of {@code grades[from, to)} in {@code codes},
+     * on the common fork/join pool for large ranges.
+     */
+    public void classify(double[] grades, byte[] codes, int from, int to) {
+        if (to - from <= SEQUENTIAL_THRESHOLD) {
+            classifyRange(grades, codes, from, to);
+        } else {
+            ForkJoinPool.commonPool().invoke(new ClassifyTask(grades, codes, from, to));
+        }
+    }
+
+    private void classifyRange(double[] grades, byte[] codes, int from, int to) {
+        byte[] table = this.table;
+        for (int i = from; i < to; i++) {
+            codes[i] = codeOf(table, grades[i]);
+        }
+    }
+
+    private static byte codeOf(byte[] table, double grade) {
+        int step = (int) Math.max(0, Math.min(table.length - 1, Math.floor(grade * 10)));
+        // grade * 10 may round up into a cutoff's step for a grade just under the cutoff
+        return step > 0 && grade < STEP_START[step] ? table[step - 1] : table[step];
+    }
+
+    private int indexOf(LetterGrade letter) {
+        for (int i = 0; i < letters.length; i++) {
+            if (letters[i] == letter) return i;
+        }
+        return -1;
+    }
+
+    /** The cutoffs in the form {@link #parse} reads. */
+    public String describe() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < letters.length; i++) {
+            if (i > 0) text.append(", ");
+            text.append(letters[i].getLabel()).append(' ');
+            text.append(minimums[i] % 10 == 0 ? Integer.toString(minimums[i] / 10) : Double.toString(minimums[i] / 10.0));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() { return name; }
+
+    private class ClassifyTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] grades;
+        private final byte[] codes;
+        private final int from;
+        private final int to;
+
+        ClassifyTask(double[] grades, byte[] codes, int from, int to) {
+            this.grades = grades;
+            this.codes = codes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                classifyRange(grades, codes, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ClassifyTask(grades, codes, from, middle), new ClassifyTask(grades, codes, middle, to));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package gradebook;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds with a fixed 8 KB of
+ * buckets: exact below 16 ns, then 16 buckets per power of two, so any
+ * recorded value is within about 3% of the bucket middle reported for it.
+ *
+ * Recording is one bucket increment plus a count and sum, all atomic, so
+ * any thread can record without a lock; percentiles are read from the
+ * buckets as they stand, which is fine for monitoring.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray totals = new AtomicLongArray(3); // count, sum, max
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) Math.max(0, nanos);
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // Middle of a bucket's range
+    static double valueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (double) (SUB_BUCKETS + bucket % SUB_BUCKETS) * width + width / 2.0;
+    }
+
+    public void record(long nanos) {
+        buckets.incrementAndGet(bucketOf(nanos));
+        totals.incrementAndGet(0);
+        totals.addAndGet(1, nanos);
+        long max;
+        while (nanos > (max = totals.get(2)) && !totals.compareAndSet(2, max, nanos)) {
+            // Another thread raised the max; retry against its value
+        }
+    }
+
+    public long getCount() { return totals.get(0); }
+
+    public long getTotalNanos() { return totals.get(1); }
+
+    public long getMaxNanos() { return totals.get(2); }
+
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getTotalNanos() / count;
+    }
+
+    /** Percentile {@code p} (0-100) in nanoseconds, 0 when nothing was recorded. */
+    public double getPercentileNanos(double p) {
+        return Math.min(percentileNanos(copyBuckets(), p), getMaxNanos());
+    }
+
+    /**
+     * The bucket counts as they stand. Subtracting an earlier copy gives
+     * the histogram of just the values recorded in between.
+     */
+    public long[] copyBuckets() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    /** Percentile {@code p} (0-100) of bucket counts from {@link #copyBuckets}, or 0 if empty. */
+    public static double percentileNanos(long[] counts, double p) {
+        long count = 0;
+        for (long c : counts) count += c;
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return valueOf(i);
+        }
+        return valueOf(counts.length - 1);
+    }
+
+    public void clear() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        for (int i = 0; i < 3; i++) {
+            totals.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package gradebook;
+
+/**
+ * Every letter a {@link GradingScale} can assign, highest first. Stores
+ * keep a letter as its ordinal in one byte per student, and the label
+ * strings are shared constants.
+ */
+public enum LetterGrade {
+    A_PLUS("A+"), A("A"), A_MINUS("A-"),
+    B_PLUS("B+"), B("B"), B_MINUS("B-"),
+    C_PLUS("C+"), C("C"), C_MINUS("C-"),
+    D_PLUS("D+"), D("D"), D_MINUS("D-"),
+    F("F");
+
+    /** Bands share a colour and a filter chip: A, B, C, D and F. */
+    public static final int BANDS = 5;
+
+    private static final LetterGrade[] VALUES = values();
+
+    private final String label;
+
+    LetterGrade(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() { return label; }
+
+    /** 0 for A+, A and A-, up to 4 for F. */
+    public int getBand() { return ordinal() == F.ordinal() ? BANDS - 1 : ordinal() / 3; }
+
+    /** The letter with this ordinal, e.g. a stored letter code. */
+    public static LetterGrade of(int code) { return VALUES[code]; }
+
+    /** The letter with this label ("B+"), or null. */
+    public static LetterGrade forLabel(String label) {
+        for (LetterGrade letter : VALUES) {
+            if (letter.label.equals(label)) return letter;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() { return label; }
+}
@@ -0,0 +1,379 @@
+package gradebook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Roster kept off the Java heap in memory-mapped files, for rosters larger
+ * than {@code -Xmx} allows. The heap holds a few region buffers and the
+ * summary; the OS pages the records in and out as they are read, so the
+ * roster costs neither heap nor garbage collection work however large it is.
+ *
+ * Every student is a fixed-width slot of {@value #SLOT_BYTES} bytes in
+ * {@value #SLOTS_FILE}: the grade, the student number and a reference
+ * (offset and length) into a separate arena of UTF-8 names,
+ * {@value #NAMES_FILE}. Slot 0 is the header: magic, version, row count
+ * and the arena length. Both files are mapped in fixed-size regions (a
+ * {@link MappedByteBuffer} is limited to 2 GB), the last of which is
+ * remapped larger as the file grows; no slot or name crosses a region.
+ *
+ * Rows can be appended and regraded, not removed. Running statistics are
+ * kept up to date as rows are appended; a grade edit marks them stale and
+ * the next summary is streamed over the mapped grades again by
+ * {@link #analyze}, in parallel and without creating a {@link Student} per
+ * row. The header, and with it the row count, is only written by
+ * {@link #flush} and {@link #close}, so after a crash the roster reopens
+ * with the rows it had at the last flush. A regrade, however, is written
+ * to its slot in place and the OS may write the page back at any time:
+ * regrades since the last flush may or may not survive a crash. Like the
+ * store, a roster must only be modified from one thread.
+ */
+public class MappedRoster implements Closeable {
+
+    public static final String SLOTS_FILE = "roster.slots";
+    public static final String NAMES_FILE = "roster.names";
+
+    static final int SLOT_BYTES = 24;
+    /** Longest name in UTF-8 bytes; the slot keeps the length in 16 bits. */
+    public static final int MAX_NAME_BYTES = 0xFFFF;
+
+    private static final int MAGIC = 0x5347544D; // "SGTM"
+    private static final int VERSION = 1;
+    private static final long SLOTS_PER_REGION = 1L << 25;
+    private static final long SLOT_REGION_BYTES = SLOTS_PER_REGION * SLOT_BYTES;
+    private static final long NAME_REGION_BYTES = 1L << 30;
+    private static final int GRADE = 0;
+    private static final int NUMBER = 8;
+    private static final int NAME = 16;
+    // Rows summarized per task of a scan
+    private static final int SCAN_BLOCK = 1 << 16;
+    private static final ThreadLocal<double[]> SCAN_GRADES = ThreadLocal.withInitial(() -> new double[SCAN_BLOCK]);
+
+    private final MappedFile slots;
+    private final MappedFile names;
+    private int size;
+    private long nameBytes;
+    private GradingScale scale = GradingScale.STANDARD;
+    // Null when a grade edit has made it stale
+    private GradeDistribution summary;
+
+    private MappedRoster(MappedFile slots, MappedFile names) {
+        this.slots = slots;
+        this.names = names;
+    }
+
+    /** Opens the roster in {@code directory}, creating an empty one if there is none. */
+    public static MappedRoster open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        MappedFile slots = new MappedFile(directory.resolve(SLOTS_FILE), SLOT_REGION_BYTES);
+        MappedFile names;
+        try {
+            names = new MappedFile(directory.resolve(NAMES_FILE), NAME_REGION_BYTES);
+        } catch (IOException e) {
+            slots.close();
+            throw e;
+        }
+        MappedRoster roster = new MappedRoster(slots, names);
+        try {
+            roster.readHeader(directory);
+        } catch (IOException | RuntimeException e) {
+            roster.close();
+            throw e;
+        }
+        return roster;
+    }
+
+    private void readHeader(Path directory) throws IOException {
+        if (slots.length() < SLOT_BYTES) {
+            slots.ensure(SLOT_BYTES);
+            writeHeader();
+            summary = new GradeDistribution();
+            return;
+        }
+        slots.ensure(SLOT_BYTES);
+        ByteBuffer header = slots.region(0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a mapped roster (or unsupported version): " + directory);
+        }
+        long count = header.getLong(8);
+        long arena = header.getLong(16);
+        if (count < 0 || count >= Integer.MAX_VALUE || slotPosition((int) count) > slots.length()
+                || arena < 0 || arena > names.length()) {
+            throw new IOException("Mapped roster is truncated: " + directory);
+        }
+        size = (int) count;
+        nameBytes = arena;
+        slots.ensure(slotPosition(size));
+        names.ensure(nameBytes);
+        summary = analyze();
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public double getGrade(int row) {
+        long position = slotPosition(checkRow(row));
+        return slots.region(position).getDouble(slots.offset(position) + GRADE);
+    }
+
+    /** Student number of the row, or {@link StudentStore#NO_STUDENT_NUMBER}. */
+    public long getStudentNumber(int row) {
+        long position = slotPosition(checkRow(row));
+        return slots.region(position).getLong(slots.offset(position) + NUMBER);
+    }
+
+    public String getName(int row) {
+        long position = slotPosition(checkRow(row));
+        long reference = slots.region(position).getLong(slots.offset(position) + NAME);
+        int length = (int) (reference & MAX_NAME_BYTES);
+        // An empty name may start where no region has been mapped yet
+        if (length == 0) return "";
+        long start = reference >>> 16;
+        byte[] bytes = new byte[length];
+        names.region(start).get(names.offset(start), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public LetterGrade getLetter(int row) {
+        return scale.letterOf(getGrade(row));
+    }
+
+    public GradingScale getScale() { return scale; }
+
+    public void setScale(GradingScale scale) {
+        this.scale = Objects.requireNonNull(scale, "scale");
+    }
+
+    public void add(String name, double grade) {
+        add(StudentStore.NO_STUDENT_NUMBER, name, grade);
+    }
+
+    public void add(long studentNumber, String name, double grade) {
+        StudentStore.checkGrade(grade);
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        checkName(encoded.length);
+        append(studentNumber, encoded, 0, encoded.length, grade);
+    }
+
+    /**
+     * Appends every row of the batch, e.g. as the sink of a
+     * {@link RosterImporter}. The batch is validated up front, so either all
+     * rows are added or none.
+     */
+    public void addAll(StudentBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            StudentStore.checkGrade(batch.grade(i));
+            checkName(batch.nameEnd(i) - batch.nameStart(i));
+        }
+        byte[] bytes = batch.nameBytes();
+        for (int i = 0; i < batch.size(); i++) {
+            int start = batch.nameStart(i);
+            append(batch.studentNumber(i), bytes, start, batch.nameEnd(i) - start, batch.grade(i));
+        }
+    }
+
+    /** Writes the grade into the row's mapped slot in place; see the class comment on crashes. */
+    public void setGrade(int row, double grade) {
+        StudentStore.checkGrade(grade);
+        long position = slotPosition(checkRow(row));
+        ByteBuffer region = slots.region(position);
+        int offset = slots.offset(position) + GRADE;
+        if (Double.compare(region.getDouble(offset), grade) == 0) return;
+        region.putDouble(offset, grade);
+        summary = null;
+    }
+
+    /** Summary of every grade; streamed over the mapped slots only if a grade edit made it stale. */
+    public GradeDistribution snapshotDistribution() {
+        if (summary == null) {
+            summary = analyze();
+        }
+        return new GradeDistribution().merge(summary);
+    }
+
+    /**
+     * Streams over every slot and summarizes the grades, in blocks on the
+     * common fork/join pool. Nothing is allocated per row.
+     */
+    public GradeDistribution analyze() {
+        int blocks = (size + SCAN_BLOCK - 1) / SCAN_BLOCK;
+        return IntStream.range(0, blocks).parallel()
+                .mapToObj(this::summarizeBlock)
+                .reduce(GradeDistribution::merge)
+                .orElseGet(GradeDistribution::new);
+    }
+
+    /** Bytes of the two files currently mapped; the OS decides how much of it is resident. */
+    public long mappedBytes() {
+        return slots.length() + names.length();
+    }
+
+    /** Bytes of slots and names in use. */
+    public long usedBytes() {
+        return slotPosition(size) + nameBytes;
+    }
+
+    /** Forces the records and then the header to disk. */
+    public void flush() {
+        names.force();
+        slots.force();
+        writeHeader();
+        slots.force();
+    }
+
+    /** Flushes and closes the files; the roster must not be used afterwards. */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (slots.length() >= SLOT_BYTES) {
+                flush();
+            }
+        } finally {
+            try {
+                slots.close();
+            } finally {
+                names.close();
+            }
+        }
+    }
+
+    private void append(long studentNumber, byte[] name, int from, int length, double grade) {
+        if (size == Integer.MAX_VALUE - 1) {
+            throw new IllegalStateException("Mapped roster is full");
+        }
+        // Empty names take no arena bytes, which is where getName finds them too
+        long start = nameBytes;
+        if (length > 0) {
+            // A name never straddles two regions
+            if (start / NAME_REGION_BYTES != (start + length - 1) / NAME_REGION_BYTES) {
+                start = (start / NAME_REGION_BYTES + 1) * NAME_REGION_BYTES;
+            }
+            names.ensure(start + length);
+            names.region(start).put(names.offset(start), name, from, length);
+            nameBytes = start + length;
+        }
+
+        long position = slotPosition(size);
+        slots.ensure(position + SLOT_BYTES);
+        ByteBuffer region = slots.region(position);
+        int offset = slots.offset(position);
+        region.putDouble(offset + GRADE, grade);
+        region.putLong(offset + NUMBER, studentNumber);
+        region.putLong(offset + NAME, start << 16 | length);
+        size++;
+        if (summary != null) {
+            summary.add(grade);
+        }
+    }
+
+    private GradeDistribution summarizeBlock(int block) {
+        int from = block * SCAN_BLOCK;
+        int to = Math.min(size, from + SCAN_BLOCK);
+        double[] grades = SCAN_GRADES.get();
+        for (int row = from; row < to; row++) {
+            long position = slotPosition(row);
+            grades[row - from] = slots.region(position).getDouble(slots.offset(position) + GRADE);
+        }
+        GradeDistribution distribution = new GradeDistribution();
+        distribution.addAll(grades, 0, to - from);
+        return distribution;
+    }
+
+    private void writeHeader() {
+        slots.region(0).putInt(0, MAGIC).putInt(4, VERSION).putLong(8, size).putLong(16, nameBytes);
+    }
+
+    // Slot 0 is the header
+    private static long slotPosition(int row) {
+        return (row + 1L) * SLOT_BYTES;
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+        return row;
+    }
+
+    private static void checkName(int length) {
+        if (length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Name is longer than " + MAX_NAME_BYTES + " bytes");
+        }
+    }
+
+    /** A file mapped in fixed-size regions, the last of which grows by remapping. */
+    private static final class MappedFile implements Closeable {
+        private static final long MIN_MAPPING = 1 << 20;
+
+        private final FileChannel channel;
+        private final long regionBytes;
+        private MappedByteBuffer[] regions = new MappedByteBuffer[1];
+        private long mapped;
+
+        MappedFile(Path path, long regionBytes) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.regionBytes = regionBytes;
+            try {
+                ensure(channel.size());
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /** Bytes mapped so far; at least the file's length when it was opened. */
+        long length() { return mapped; }
+
+        /** Maps the file up to {@code length}, growing it if needed. */
+        void ensure(long length) {
+            try {
+                while (mapped < length) {
+                    int region = (int) (mapped / regionBytes);
+                    long start = region * regionBytes;
+                    long current = mapped - start;
+                    // Doubles the last region, so a growing file is remapped O(log n) times
+                    long wanted = Math.min(regionBytes, Math.max(length - start, Math.max(MIN_MAPPING, 2 * current)));
+                    if (region == regions.length) {
+                        regions = Arrays.copyOf(regions, region * 2);
+                    }
+                    regions[region] = channel.map(FileChannel.MapMode.READ_WRITE, start, wanted);
+                    mapped = start + wanted;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not map " + length + " bytes", e);
+            }
+        }
+
+        ByteBuffer region(long position) {
+            return regions[(int) (position / regionBytes)];
+        }
+
+        int offset(long position) {
+            return (int) (position % regionBytes);
+        }
+
+        void force() {
+            for (MappedByteBuffer region : regions) {
+                if (region != null) region.force();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
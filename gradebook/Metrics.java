@@ -0,0 +1,143 @@
+package gradebook;
+
+import jdk.jfr.FlightRecorder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named timers and counters for the application's hot paths, cheap enough
+ * to leave on: a timed operation costs two {@code System.nanoTime} calls
+ * and a few atomic increments, and a counter is a {@link LongAdder}.
+ *
+ * Every timer keeps a {@link LatencyHistogram} since startup. The values
+ * are published as attributes of the {@code gradebook:type=Metrics} MBean
+ * once {@link #registerMBean} is called, and each timed operation is also
+ * a JFR {@code gradebook.Operation} event when a recording enables it.
+ * Starting the JVM with {@code -Dgradetracker.metrics=false} turns every
+ * timer and counter into a no-op.
+ */
+public final class Metrics {
+
+    public static final String OBJECT_NAME = "gradebook:type=Metrics";
+
+    private static final Metrics SHARED = new Metrics(
+            !"false".equalsIgnoreCase(System.getProperty("gradetracker.metrics")));
+
+    private final boolean enabled;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public Metrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /** The process-wide registry the application and the HTTP server record into. */
+    public static Metrics shared() { return SHARED; }
+
+    public boolean isEnabled() { return enabled; }
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, Timer::new);
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    /** Every timer so far, by name. */
+    public Map<String, Timer> getTimers() { return new TreeMap<>(timers); }
+
+    /** Every counter so far, by name. */
+    public Map<String, Counter> getCounters() { return new TreeMap<>(counters); }
+
+    /** Publishes this registry as the {@value #OBJECT_NAME} MBean; a second call is a no-op. */
+    public void registerMBean() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(new MetricsMBean(this), name);
+        }
+    }
+
+    /**
+     * Bytes allocated by every live thread so far, or -1 where the JVM
+     * does not track it. The difference between two calls is the
+     * allocation rate.
+     */
+    public static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean hotspot)
+                || !hotspot.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : hotspot.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+
+    /** Latency of one kind of operation. */
+    public final class Timer {
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Timer(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+
+        public LatencyHistogram getHistogram() { return histogram; }
+
+        /** Start of an operation, to be passed to {@link #stop}; 0 when metrics are off. */
+        public long start() {
+            return enabled ? System.nanoTime() : 0;
+        }
+
+        public void stop(long start) {
+            if (start != 0) {
+                record(System.nanoTime() - start);
+            }
+        }
+
+        public void record(long nanos) {
+            if (!enabled) return;
+            histogram.record(nanos);
+            // Loading an event class boots JFR, about half a second, so it waits for a recording to exist
+            if (FlightRecorder.isInitialized()) {
+                OperationEvent.emit(name, nanos);
+            }
+        }
+    }
+
+    /** Number of times something happened. */
+    public final class Counter {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        public String getName() { return name; }
+
+        public void increment() {
+            if (enabled) count.increment();
+        }
+
+        public void add(long amount) {
+            if (enabled) count.add(amount);
+        }
+
+        public long get() { return count.sum(); }
+    }
+}
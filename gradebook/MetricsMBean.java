@@ -0,0 +1,118 @@
+package gradebook;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JMX view of a {@link Metrics} registry. Timers and counters are created
+ * as the application runs, so the attributes are built on every request
+ * rather than declared up front: {@code <timer>.count}, {@code .meanMicros},
+ * {@code .p50Micros}, {@code .p99Micros} and {@code .maxMicros} per timer,
+ * one attribute per counter, and {@code heapUsedBytes} and
+ * {@code allocatedBytes}. The {@code reset} operation clears the timers.
+ */
+final class MetricsMBean implements DynamicMBean {
+
+    private static final String[] TIMER_FIELDS = {"count", "meanMicros", "p50Micros", "p99Micros", "maxMicros"};
+
+    private final Metrics metrics;
+
+    MetricsMBean(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        switch (attribute) {
+            case "heapUsedBytes":
+                return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            case "allocatedBytes":
+                return Metrics.allocatedBytes();
+            default:
+                break;
+        }
+        Metrics.Counter counter = metrics.getCounters().get(attribute);
+        if (counter != null) return counter.get();
+        int dot = attribute.lastIndexOf('.');
+        Metrics.Timer timer = dot < 0 ? null : metrics.getTimers().get(attribute.substring(0, dot));
+        if (timer == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        LatencyHistogram histogram = timer.getHistogram();
+        return switch (attribute.substring(dot + 1)) {
+            case "count" -> histogram.getCount();
+            case "meanMicros" -> histogram.getMeanNanos() / 1e3;
+            case "p50Micros" -> histogram.getPercentileNanos(50) / 1e3;
+            case "p99Micros" -> histogram.getPercentileNanos(99) / 1e3;
+            case "maxMicros" -> histogram.getMaxNanos() / 1e3;
+            default -> throw new AttributeNotFoundException(attribute);
+        };
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // Left out, as the DynamicMBean contract allows
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        if (!actionName.equals("reset")) {
+            throw new UnsupportedOperationException(actionName);
+        }
+        for (Metrics.Timer timer : metrics.getTimers().values()) {
+            timer.getHistogram().clear();
+        }
+        return null;
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        attributes.add(attribute("heapUsedBytes", "long", "Heap in use"));
+        attributes.add(attribute("allocatedBytes", "long", "Bytes allocated by live threads so far"));
+        for (String counter : metrics.getCounters().keySet()) {
+            attributes.add(attribute(counter, "long", "Counter"));
+        }
+        for (String timer : metrics.getTimers().keySet()) {
+            for (String field : TIMER_FIELDS) {
+                attributes.add(attribute(timer + "." + field, field.equals("count") ? "long" : "double",
+                        "Timer " + timer));
+            }
+        }
+        MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Clears every timer",
+                new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+        return new MBeanInfo(getClass().getName(), "Gradebook timers and counters",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] {reset}, null);
+    }
+
+    private static MBeanAttributeInfo attribute(String name, String type, String description) {
+        return new MBeanAttributeInfo(name, type, description, true, false, false);
+    }
+}
@@ -0,0 +1,423 @@
+package gradebook;
+
+import java.util.Arrays;
+
+/**
+ * Case-insensitive search over student names, kept in sync with a
+ * {@link StudentStore} through its listener callbacks.
+ *
+ * Every name is broken into trigrams, each with a posting list of the
+ * student ids whose name contains it. Word starts are also indexed as
+ * padded trigrams ({@code ^^j}, {@code ^jo}), which answers one- and
+ * two-character queries as word prefixes. Longer queries match anywhere in
+ * the name: the posting lists of the query's trigrams are intersected,
+ * walking the shortest one, and each candidate is checked against the
+ * current name. New students get the highest ids, so appending keeps the
+ * lists sorted.
+ *
+ * Renamed and restored (undone) students keep older ids, so rather than
+ * being inserted into long posting lists they go on a short sorted side
+ * list that every search also scans. Removals and renames leave stale ids
+ * behind, which the final check filters out. The index is rebuilt once
+ * stale ids outnumber the live ones or the side list grows too long.
+ * Like the store, an index must only be used from one thread.
+ */
+public class NameIndex implements StudentStore.Listener {
+
+    /** Queries shorter than this match word prefixes instead of substrings. */
+    public static final int MIN_SUBSTRING_LENGTH = 3;
+
+    private static final char WORD_START = '\u0001';
+    private static final int INITIAL_LIST_CAPACITY = 4;
+    // Stale entries tolerated before a rebuild is considered
+    private static final int MIN_REBUILD = 1024;
+    // Side-list length that triggers a rebuild
+    private static final int MAX_EXTRAS = 1024;
+
+    private final StudentStore store;
+
+    // Open-addressing table from packed trigram to posting list number + 1
+    private long[] keys = new long[1024];
+    private int[] slots = new int[1024];
+
+    private int[][] postings = new int[256][];
+    private int[] lengths = new int[256];
+    private int lists;
+
+    private long entries;
+    private int indexed;
+    private int stale;
+    private char[] chars = new char[64];
+
+    // Sorted ids whose current name may be missing from the posting lists
+    private int[] extras = new int[16];
+    private int extraCount;
+    private int[] scratch = new int[0];
+
+    /** Indexes every row of {@code store} and starts following its changes. */
+    public NameIndex(StudentStore store) {
+        this.store = store;
+        indexAll();
+        store.addListener(this);
+    }
+
+    /** Stops following the store; the index must not be used afterwards. */
+    public void close() {
+        store.removeListener(this);
+    }
+
+    /**
+     * Finds students whose name matches {@code query} and writes their ids,
+     * in insertion order, into {@code ids}. Stops once {@code ids} is full.
+     *
+     * @return the number of ids written
+     */
+    public int search(String query, int[] ids) {
+        String needle = normalize(query);
+        if (needle.isEmpty() || ids.length == 0) return 0;
+        boolean prefix = needle.length() < MIN_SUBSTRING_LENGTH;
+
+        byte[] ascii = asciiBytes(needle);
+        if (scratch.length < ids.length) {
+            scratch = new int[ids.length];
+        }
+        long[] trigrams = prefix ? new long[] {prefixKey(needle)} : trigrams(needle);
+        int[] order = new int[trigrams.length];
+        for (int i = 0; i < trigrams.length; i++) {
+            int list = find(trigrams[i]);
+            if (list < 0) {
+                // No indexed name has this trigram, but a side-list one may
+                return mergeExtras(0, needle, ascii, prefix, ids);
+            }
+            order[i] = list;
+        }
+        sortByLength(order);
+
+        int[] lead = postings[order[0]];
+        int leadLength = lengths[order[0]];
+        int[] cursors = new int[order.length];
+        int found = 0;
+        candidates:
+        for (int i = 0; i < leadLength && found < ids.length; i++) {
+            int id = lead[i];
+            for (int k = 1; k < order.length; k++) {
+                int list = order[k];
+                cursors[k] = seek(postings[list], cursors[k], lengths[list], id);
+                if (cursors[k] == lengths[list]) break candidates;
+                if (postings[list][cursors[k]] != id) continue candidates;
+            }
+            if (matches(id, needle, ascii, prefix)) {
+                scratch[found++] = id;
+            }
+        }
+        return mergeExtras(found, needle, ascii, prefix, ids);
+    }
+
+    /** Number of trigram posting entries, live and stale. */
+    public long getEntryCount() { return entries; }
+
+    /** Approximate bytes held by the index. */
+    public long footprint() {
+        long bytes = 8L * keys.length + 4L * slots.length + 4L * lengths.length + 8L * postings.length;
+        for (int i = 0; i < lists; i++) {
+            bytes += 16 + 4L * postings[i].length;
+        }
+        return bytes;
+    }
+
+    @Override
+    public void rowsAdded(int fromRow, int toRow) {
+        indexRows(fromRow, toRow);
+    }
+
+    @Override
+    public void rowsInserted(int[] rows, int count) {
+        if (extraCount + count > MAX_EXTRAS) {
+            rebuild();
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            addExtra(store.getId(rows[i]));
+        }
+    }
+
+    @Override
+    public void rowsRemoved(int[] rows, int count) {
+        stale += count;
+        compactIfStale();
+    }
+
+    @Override
+    public void nameChanged(int row) {
+        // The old trigrams stay behind as stale entries
+        stale++;
+        if (extraCount == MAX_EXTRAS) {
+            rebuild();
+        } else {
+            addExtra(store.getId(row));
+            compactIfStale();
+        }
+    }
+
+    // In id order, so every posting list can be built by appending
+    private void indexAll() {
+        int limit = store.getIdLimit();
+        for (int id = 0; id < limit; id++) {
+            int row = store.rowOf(id);
+            if (row >= 0) {
+                indexName(id, store.getName(row));
+            }
+        }
+    }
+
+    private void indexRows(int fromRow, int toRow) {
+        for (int row = fromRow; row < toRow; row++) {
+            indexName(store.getId(row), store.getName(row));
+        }
+    }
+
+    private void indexName(int id, String name) {
+        int length = name.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            chars[i] = Character.toLowerCase(name.charAt(i));
+        }
+        for (int i = 0; i < length; i++) {
+            if (!isWordStart(chars, i)) continue;
+            add(pack(WORD_START, WORD_START, chars[i]), id);
+            if (i + 1 < length && Character.isLetterOrDigit(chars[i + 1])) {
+                add(pack(WORD_START, chars[i], chars[i + 1]), id);
+            }
+        }
+        for (int i = 0; i + 2 < length; i++) {
+            add(pack(chars[i], chars[i + 1], chars[i + 2]), id);
+        }
+        indexed++;
+    }
+
+    private void add(long key, int id) {
+        int list = find(key);
+        if (list < 0) {
+            list = newList(key);
+        }
+        int[] posting = postings[list];
+        int length = lengths[list];
+        if (length > 0 && posting[length - 1] >= id) {
+            // Repeated trigram within one name
+            return;
+        }
+        if (length == posting.length) {
+            posting = postings[list] = Arrays.copyOf(posting, length + (length >> 1) + 1);
+        }
+        posting[length] = id;
+        lengths[list] = length + 1;
+        entries++;
+    }
+
+    private void addExtra(int id) {
+        int at = Arrays.binarySearch(extras, 0, extraCount, id);
+        if (at >= 0) return;
+        at = -at - 1;
+        if (extraCount == extras.length) {
+            extras = Arrays.copyOf(extras, extraCount * 2);
+        }
+        System.arraycopy(extras, at, extras, at + 1, extraCount - at);
+        extras[at] = id;
+        extraCount++;
+    }
+
+    /** Merges the matching side-list ids into the sorted main matches in {@code scratch}. */
+    private int mergeExtras(int found, String needle, byte[] ascii, boolean prefix, int[] ids) {
+        int written = 0;
+        int main = 0;
+        for (int e = 0; e < extraCount && written < ids.length; e++) {
+            int extra = extras[e];
+            if (!matches(extra, needle, ascii, prefix)) continue;
+            while (main < found && scratch[main] < extra && written < ids.length) {
+                ids[written++] = scratch[main++];
+            }
+            if (written == ids.length) break;
+            if (main < found && scratch[main] == extra) main++;
+            ids[written++] = extra;
+        }
+        while (main < found && written < ids.length) {
+            ids[written++] = scratch[main++];
+        }
+        return written;
+    }
+
+    private boolean matches(int id, String needle, byte[] ascii, boolean prefix) {
+        int row = store.rowOf(id);
+        if (row < 0) return false;
+        return ascii != null
+                ? store.getNames().containsAscii(store.getNameCode(row), ascii, prefix)
+                : matches(store.getName(row), needle, prefix);
+    }
+
+    private void compactIfStale() {
+        if (stale > MIN_REBUILD && stale * 2 > indexed) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(slots, 0);
+        for (int i = 0; i < lists; i++) {
+            postings[i] = null;
+            lengths[i] = 0;
+        }
+        lists = 0;
+        entries = 0;
+        indexed = 0;
+        stale = 0;
+        extraCount = 0;
+        indexAll();
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (slots[slot] != 0) {
+            if (keys[slot] == key) return slots[slot] - 1;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int newList(long key) {
+        if (lists == postings.length) {
+            postings = Arrays.copyOf(postings, lists * 2);
+            lengths = Arrays.copyOf(lengths, lists * 2);
+        }
+        int list = lists++;
+        postings[list] = new int[INITIAL_LIST_CAPACITY];
+        insertKey(key, list);
+        if (lists * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return list;
+    }
+
+    private void insertKey(long key, int list) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        slots[slot] = list + 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldSlots = slots;
+        keys = new long[capacity];
+        slots = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSlots[i] != 0) {
+                insertKey(oldKeys[i], oldSlots[i] - 1);
+            }
+        }
+    }
+
+    private void sortByLength(int[] order) {
+        for (int i = 1; i < order.length; i++) {
+            int list = order[i];
+            int j = i;
+            while (j > 0 && lengths[order[j - 1]] > lengths[list]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = list;
+        }
+    }
+
+    /** First position at or after {@code from} holding a value >= id (galloping search). */
+    private static int seek(int[] posting, int from, int length, int id) {
+        if (from >= length || posting[from] >= id) return from;
+        int step = 1;
+        int low = from;
+        int high = from + 1;
+        while (high < length && posting[high] < id) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        high = Math.min(high, length);
+        // posting[low] < id, and posting[high] >= id or high == length
+        while (low + 1 < high) {
+            int middle = (low + high) >>> 1;
+            if (posting[middle] < id) low = middle;
+            else high = middle;
+        }
+        return high;
+    }
+
+    private static boolean matches(String name, String needle, boolean prefix) {
+        int last = name.length() - needle.length();
+        for (int i = 0; i <= last; i++) {
+            if (prefix && (i > 0 && Character.isLetterOrDigit(name.charAt(i - 1))
+                    || !Character.isLetterOrDigit(name.charAt(i)))) {
+                continue;
+            }
+            if (name.regionMatches(true, i, needle, 0, needle.length())) return true;
+        }
+        return false;
+    }
+
+    // Lower-case ASCII needles are matched on the pool's UTF-8 bytes directly
+    private static byte[] asciiBytes(String needle) {
+        byte[] ascii = new byte[needle.length()];
+        for (int i = 0; i < ascii.length; i++) {
+            char c = needle.charAt(i);
+            if (c >= 0x80) return null;
+            ascii[i] = (byte) c;
+        }
+        return ascii;
+    }
+
+    private static String normalize(String query) {
+        String trimmed = query.strip();
+        char[] lower = new char[trimmed.length()];
+        for (int i = 0; i < lower.length; i++) {
+            lower[i] = Character.toLowerCase(trimmed.charAt(i));
+        }
+        return new String(lower);
+    }
+
+    private static long prefixKey(String needle) {
+        return needle.length() == 1
+                ? pack(WORD_START, WORD_START, needle.charAt(0))
+                : pack(WORD_START, needle.charAt(0), needle.charAt(1));
+    }
+
+    private static long[] trigrams(String needle) {
+        long[] trigrams = new long[needle.length() - 2];
+        int count = 0;
+        outer:
+        for (int i = 0; i + 2 < needle.length(); i++) {
+            long key = pack(needle.charAt(i), needle.charAt(i + 1), needle.charAt(i + 2));
+            for (int j = 0; j < count; j++) {
+                if (trigrams[j] == key) continue outer;
+            }
+            trigrams[count++] = key;
+        }
+        return Arrays.copyOf(trigrams, count);
+    }
+
+    private static boolean isWordStart(char[] chars, int i) {
+        return Character.isLetterOrDigit(chars[i]) && (i == 0 || !Character.isLetterOrDigit(chars[i - 1]));
+    }
+
+    private static long pack(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
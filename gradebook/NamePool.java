@@ -0,0 +1,164 @@
+package gradebook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Dictionary of student names stored as UTF-8 bytes in one shared arena.
+ *
+ * Each distinct name is stored once and referred to by an int code, so a
+ * roster row only costs four bytes for its name. Names can be interned
+ * straight from a byte range (e.g. a line of an import file) without first
+ * building a String. The pool is append-only: codes stay valid for the
+ * lifetime of the pool even after every row using them is removed.
+ */
+public class NamePool {
+
+    private byte[] bytes = new byte[1024];
+    private int[] offsets = new int[65];
+    private int[] hashes = new int[64];
+    private int count;
+    private int used;
+
+    // Open-addressing table of code + 1 (0 marks an empty slot)
+    private int[] table = new int[128];
+
+    public int intern(String name) {
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        return intern(encoded, 0, encoded.length);
+    }
+
+    public int intern(byte[] source, int from, int length) {
+        int hash = hash(source, from, length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            int code = table[slot] - 1;
+            if (hashes[code] == hash && matches(code, source, from, length)) {
+                return code;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int code = append(source, from, length, hash);
+        table[slot] = code + 1;
+        if (count * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return code;
+    }
+
+    public String get(int code) {
+        checkCode(code);
+        return new String(bytes, offsets[code], offsets[code + 1] - offsets[code], StandardCharsets.UTF_8);
+    }
+
+    /** Length in UTF-8 bytes of the name with this code. */
+    public int length(int code) {
+        checkCode(code);
+        return offsets[code + 1] - offsets[code];
+    }
+
+    /** Writes the UTF-8 bytes of the name with this code. */
+    public void writeTo(int code, OutputStream out) throws IOException {
+        out.write(bytes, offsets[code], length(code));
+    }
+
+    /** Puts the UTF-8 bytes of the name with this code into {@code target}. */
+    public void copyTo(int code, ByteBuffer target) {
+        target.put(bytes, offsets[code], length(code));
+    }
+
+    /** The arena holding every name; valid until the next intern. */
+    byte[] bytes() { return bytes; }
+
+    /** Offset in {@link #bytes()} where the name with this code starts. */
+    int start(int code) { return offsets[code]; }
+
+    /** Offset in {@link #bytes()} just past the name with this code. */
+    int end(int code) { return offsets[code + 1]; }
+
+    /**
+     * Whether the name with this code contains {@code needle}, given as
+     * lower-case ASCII bytes, ignoring ASCII case and without decoding the
+     * name. With {@code wordStart} the match must begin a word.
+     */
+    boolean containsAscii(int code, byte[] needle, boolean wordStart) {
+        int start = offsets[code];
+        int last = offsets[code + 1] - needle.length;
+        positions:
+        for (int i = start; i <= last; i++) {
+            if (wordStart && i > start && isAsciiLetterOrDigit(bytes[i - 1])) continue;
+            for (int j = 0; j < needle.length; j++) {
+                byte b = bytes[i + j];
+                if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+                if (b != needle[j]) continue positions;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public int size() { return count; }
+
+    /** Bytes held by the pool's backing arrays, for footprint reporting. */
+    public long footprint() {
+        return bytes.length + 4L * (offsets.length + hashes.length + table.length);
+    }
+
+    private int append(byte[] source, int from, int length, int hash) {
+        if (used + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, used + length));
+        }
+        if (count == hashes.length) {
+            hashes = Arrays.copyOf(hashes, count * 2);
+            offsets = Arrays.copyOf(offsets, count * 2 + 1);
+        }
+        System.arraycopy(source, from, bytes, used, length);
+        used += length;
+        hashes[count] = hash;
+        offsets[++count] = used;
+        return count - 1;
+    }
+
+    private boolean matches(int code, byte[] source, int from, int length) {
+        int start = offsets[code];
+        int end = offsets[code + 1];
+        return end - start == length && Arrays.equals(bytes, start, end, source, from, from + length);
+    }
+
+    private void rehash(int capacity) {
+        int[] newTable = new int[capacity];
+        int mask = capacity - 1;
+        for (int code = 0; code < count; code++) {
+            int slot = hashes[code] & mask;
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = code + 1;
+        }
+        table = newTable;
+    }
+
+    private void checkCode(int code) {
+        if (code < 0 || code >= count) {
+            throw new IndexOutOfBoundsException("Unknown name code " + code);
+        }
+    }
+
+    // Bytes of multi-byte UTF-8 sequences count as letters
+    private static boolean isAsciiLetterOrDigit(byte b) {
+        return b < 0 || b >= '0' && b <= '9' || b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z';
+    }
+
+    private static int hash(byte[] source, int from, int length) {
+        int h = 1;
+        for (int i = from; i < from + length; i++) {
+            h = 31 * h + source[i];
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,39 @@
+package gradebook;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one timed operation of a {@link Metrics.Timer}. Disabled
+ * unless a recording asks for it (e.g. {@code jcmd <pid> JFR.start
+ * settings=profile} with {@code gradebook.Operation#enabled=true}), in
+ * which case it carries the operation name and how long it took.
+ */
+@Name("gradebook.Operation")
+@Label("Gradebook Operation")
+@Category("Gradebook")
+@Description("A timed gradebook operation: an add, delete, import batch, summary or table render")
+@StackTrace(false)
+final class OperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    static void emit(String operation, long nanos) {
+        OperationEvent event = new OperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+}
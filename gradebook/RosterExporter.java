@@ -0,0 +1,426 @@
+package gradebook;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * Streaming export of a {@link StudentStore} to CSV, JSON Lines or a
+ * compact columnar binary file, together with a summary of the grades.
+ *
+ * Rows are encoded straight from the store's columns and the name pool's
+ * UTF-8 bytes into one direct buffer that is written to a FileChannel
+ * whenever it fills. The buffer and scratch space belong to the exporter
+ * and are reused by every export, so a row costs no allocation and the
+ * roster is never copied. The file is written next to its target and
+ * renamed into place once complete; the summary (count, average, spread,
+ * percentiles and letter counts) goes to {@link #summaryPath}.
+ *
+ * The store must not change while an export runs: call this on the thread
+ * that owns the store, or keep the store read-only meanwhile as the UI does.
+ *
+ * When the store has student numbers, CSV gets an "id" column before the
+ * name (as {@link RosterImporter} reads it back) and JSON Lines an "id"
+ * field; the columnar format holds grades and names only.
+ *
+ * Columnar layout (big-endian): magic "SGTC", version, row count (long) and
+ * rows per group; then row groups of a row count and two column chunks,
+ * each prefixed with its byte length. The grade chunk starts with an
+ * encoding byte, 1 for unsigned 16-bit tenths (used when every grade in the
+ * group is a whole tenth) or 0 for float64. The name chunk holds a varint
+ * UTF-8 length per row followed by the name bytes. The footer lists the
+ * offset of every row group, then count, sum, lowest, highest, average and
+ * standard deviation, a CRC32 of everything before the footer, the footer
+ * length and the magic again.
+ */
+public class RosterExporter {
+
+    public enum Format {
+        CSV("csv"),
+        JSON_LINES("jsonl"),
+        COLUMNAR("sgtc");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() { return extension; }
+
+        /** The format whose extension the file name has, or null. */
+        public static Format forPath(Path path) {
+            String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+            for (Format format : values()) {
+                if (name.endsWith("." + format.extension)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    public interface ProgressListener {
+        void progress(long rowsWritten, long totalRows);
+    }
+
+    public static class Result {
+        private final long rows;
+        private final long bytes;
+        private final long elapsedNanos;
+
+        Result(long rows, long bytes, long elapsedNanos) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRows() { return rows; }
+        public long getBytes() { return bytes; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        @Override
+        public String toString() {
+            return String.format("%,d rows, %,d bytes in %.1f ms", rows, bytes, elapsedNanos / 1e6);
+        }
+    }
+
+    static final int ROW_GROUP_SIZE = 65_536;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int COLUMNAR_MAGIC = 0x53475443; // "SGTC"
+    private static final int COLUMNAR_VERSION = 1;
+    private static final byte GRADES_FLOAT64 = 0;
+    private static final byte GRADES_TENTHS = 1;
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3};
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CSV_HEADER = "name,grade\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CSV_NUMBERED_HEADER = "id,name,grade\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_NAME = "{\"name\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_ID = "{\"id\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_ID_NAME = ",\"name\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] JSON_GRADE = "\",\"grade\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final CRC32 crc = new CRC32();
+    private final byte[] digits = new byte[20];
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private FileChannel channel;
+    private long written;
+
+    /** Where the summary of an export to {@code path} is written. */
+    public static Path summaryPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".summary.json");
+    }
+
+    public Result export(StudentStore store, Path path, Format format, ProgressListener progress)
+            throws IOException {
+        long start = System.nanoTime();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        int count = store.size();
+        try {
+            try (FileChannel file = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                channel = file;
+                written = 0;
+                crc.reset();
+                buffer.clear();
+                if (format == Format.COLUMNAR) {
+                    writeColumnar(store, path, progress);
+                } else {
+                    writeText(store, path, format, progress);
+                }
+                flush();
+            } finally {
+                channel = null;
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.writeString(summaryPath(path), summaryJson(store.snapshotDistribution(), store.getScale(),
+                store.getLetterCounts()), StandardCharsets.UTF_8);
+        return new Result(count, written, System.nanoTime() - start);
+    }
+
+    /**
+     * The grade summary written next to every export, as one JSON object;
+     * {@code letters} are the counts per {@link LetterGrade} ordinal.
+     */
+    static String summaryJson(GradeDistribution distribution, GradingScale scale, long[] letters) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"count\":").append(distribution.getCount())
+                .append(",\"average\":").append(distribution.getAverage())
+                .append(",\"standardDeviation\":").append(distribution.getStandardDeviation())
+                .append(",\"lowest\":").append(distribution.getLowest())
+                .append(",\"highest\":").append(distribution.getHighest())
+                .append(",\"median\":").append(distribution.getMedian())
+                .append(",\"percentiles\":{");
+        int[] percentiles = {10, 25, 75, 90};
+        for (int i = 0; i < percentiles.length; i++) {
+            if (i > 0) json.append(',');
+            json.append("\"p").append(percentiles[i]).append("\":").append(distribution.getPercentile(percentiles[i]));
+        }
+        json.append("},\"scale\":\"").append(scale.describe()).append("\",\"letters\":{");
+        for (LetterGrade letter : scale.getLetters()) {
+            if (letter.ordinal() > scale.getLetters().get(0).ordinal()) json.append(',');
+            json.append('"').append(letter.getLabel()).append("\":").append(letters[letter.ordinal()]);
+        }
+        return json.append("}}\n").toString();
+    }
+
+    private void writeText(StudentStore store, Path path, Format format, ProgressListener progress)
+            throws IOException {
+        NamePool names = store.getNames();
+        byte[] bytes = names.bytes();
+        int count = store.size();
+        boolean numbered = store.hasStudentNumbers();
+        if (format == Format.CSV) {
+            byte[] header = numbered ? CSV_NUMBERED_HEADER : CSV_HEADER;
+            ensure(header.length);
+            buffer.put(header);
+        }
+        for (int from = 0; from < count; from += ROW_GROUP_SIZE) {
+            checkCancelled(path);
+            int to = Math.min(count, from + ROW_GROUP_SIZE);
+            for (int row = from; row < to; row++) {
+                int code = store.getNameCode(row);
+                int nameStart = names.start(code);
+                int nameEnd = names.end(code);
+                // Worst case: every name byte escaped as \\u00XX, plus the id, the grade and punctuation
+                ensure(6 * (nameEnd - nameStart) + 96);
+                long number = numbered ? store.getStudentNumber(row) : StudentStore.NO_STUDENT_NUMBER;
+                if (format == Format.CSV) {
+                    if (numbered) {
+                        if (number != StudentStore.NO_STUDENT_NUMBER) putScaled(number, 0);
+                        buffer.put((byte) ',');
+                    }
+                    putCsvName(bytes, nameStart, nameEnd);
+                    buffer.put((byte) ',');
+                } else {
+                    if (number != StudentStore.NO_STUDENT_NUMBER) {
+                        buffer.put(JSON_ID);
+                        putScaled(number, 0);
+                        buffer.put(JSON_ID_NAME);
+                    } else {
+                        buffer.put(JSON_NAME);
+                    }
+                    putJsonString(bytes, nameStart, nameEnd);
+                    buffer.put(JSON_GRADE);
+                }
+                putNumber(store.getGrade(row));
+                if (format == Format.JSON_LINES) {
+                    buffer.put((byte) '}');
+                }
+                buffer.put((byte) '\n');
+            }
+            report(progress, to, count);
+        }
+    }
+
+    private void writeColumnar(StudentStore store, Path path, ProgressListener progress) throws IOException {
+        NamePool names = store.getNames();
+        byte[] bytes = names.bytes();
+        int count = store.size();
+        int groups = (count + ROW_GROUP_SIZE - 1) / ROW_GROUP_SIZE;
+        long[] offsets = new long[groups];
+
+        ensure(20);
+        buffer.putInt(COLUMNAR_MAGIC).putInt(COLUMNAR_VERSION).putLong(count).putInt(ROW_GROUP_SIZE);
+        for (int group = 0; group < groups; group++) {
+            checkCancelled(path);
+            int from = group * ROW_GROUP_SIZE;
+            int to = Math.min(count, from + ROW_GROUP_SIZE);
+            offsets[group] = written + buffer.position();
+
+            boolean tenths = true;
+            for (int row = from; row < to && tenths; row++) {
+                double grade = store.getGrade(row);
+                tenths = Math.round(grade * 10) / 10.0 == grade;
+            }
+            int gradeBytes = 1 + (to - from) * (tenths ? 2 : 8);
+            ensure(4 + 4 + gradeBytes);
+            buffer.putInt(to - from);
+            buffer.putInt(gradeBytes);
+            buffer.put(tenths ? GRADES_TENTHS : GRADES_FLOAT64);
+            for (int row = from; row < to; row++) {
+                double grade = store.getGrade(row);
+                if (tenths) {
+                    buffer.putShort((short) Math.round(grade * 10));
+                } else {
+                    buffer.putDouble(grade);
+                }
+            }
+
+            long nameBytes = 0;
+            for (int row = from; row < to; row++) {
+                int length = names.length(store.getNameCode(row));
+                nameBytes += varintSize(length) + length;
+            }
+            if (nameBytes > Integer.MAX_VALUE) {
+                throw new IOException("Names of row group " + group + " exceed 2 GB");
+            }
+            ensure(4);
+            buffer.putInt((int) nameBytes);
+            for (int row = from; row < to; row++) {
+                ensure(5);
+                putVarint(names.length(store.getNameCode(row)));
+            }
+            for (int row = from; row < to; row++) {
+                int code = store.getNameCode(row);
+                ensure(names.length(code));
+                buffer.put(bytes, names.start(code), names.length(code));
+            }
+            report(progress, to, count);
+        }
+
+        // The checksum covers everything before the footer
+        flush();
+        int checksum = (int) crc.getValue();
+        GradeStatistics statistics = store.getStatistics();
+        int footerBytes = 4 + 8 * groups + 8 + 5 * 8 + 4;
+        ensure(footerBytes + 8);
+        buffer.putInt(groups);
+        for (long offset : offsets) {
+            buffer.putLong(offset);
+        }
+        buffer.putLong(statistics.getCount())
+                .putDouble(statistics.getSum())
+                .putDouble(statistics.getLowest())
+                .putDouble(statistics.getHighest())
+                .putDouble(statistics.getAverage())
+                .putDouble(statistics.getStandardDeviation())
+                .putInt(checksum)
+                .putInt(footerBytes)
+                .putInt(COLUMNAR_MAGIC);
+    }
+
+    private void putCsvName(byte[] bytes, int from, int to) {
+        boolean quote = from < to && (isBlank(bytes[from]) || isBlank(bytes[to - 1]));
+        for (int i = from; i < to && !quote; i++) {
+            byte b = bytes[i];
+            quote = b == ',' || b == '"' || b == '\n' || b == '\r';
+        }
+        if (!quote) {
+            buffer.put(bytes, from, to - from);
+            return;
+        }
+        buffer.put((byte) '"');
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == '"') {
+                buffer.put((byte) '"');
+            }
+            buffer.put(bytes[i]);
+        }
+        buffer.put((byte) '"');
+    }
+
+    private void putJsonString(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b == '"' || b == '\\') {
+                buffer.put((byte) '\\').put(b);
+            } else if (b >= 0 && b < 0x20) {
+                // Control characters; bytes of multi-byte UTF-8 sequences are negative and pass through
+                buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                        .put(HEX[b >> 4]).put(HEX[b & 0xF]);
+            } else {
+                buffer.put(b);
+            }
+        }
+    }
+
+    /**
+     * Writes the shortest decimal with up to three places that parses back
+     * to the same double (grades are almost always whole tenths), without
+     * creating a String; anything else falls back to Double.toString.
+     */
+    private void putNumber(double value) {
+        if (value >= 0 && value < 1e15) {
+            for (int places = 0; places < POWERS_OF_TEN.length; places++) {
+                long scaled = Math.round(value * POWERS_OF_TEN[places]);
+                if (scaled / POWERS_OF_TEN[places] == value) {
+                    putScaled(scaled, places);
+                    return;
+                }
+            }
+        }
+        buffer.put(Double.toString(value).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void putScaled(long scaled, int places) {
+        int position = digits.length;
+        for (int i = 0; i < places; i++) {
+            digits[--position] = (byte) ('0' + scaled % 10);
+            scaled /= 10;
+        }
+        if (places > 0) {
+            digits[--position] = '.';
+        }
+        do {
+            digits[--position] = (byte) ('0' + scaled % 10);
+            scaled /= 10;
+        } while (scaled > 0);
+        buffer.put(digits, position, digits.length - position);
+    }
+
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+            if (buffer.capacity() < bytes) {
+                // Only a name of hundreds of kilobytes gets here
+                buffer = ByteBuffer.allocateDirect(bytes);
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void checkCancelled(Path path) throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Export to " + path + " was cancelled");
+        }
+    }
+
+    private static void report(ProgressListener progress, long rows, long total) {
+        if (progress != null) {
+            progress.progress(rows, total);
+        }
+    }
+}
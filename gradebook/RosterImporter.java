@@ -0,0 +1,381 @@
+package gradebook;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming importer for gradebook exports (CSV or TSV, one "name,grade"
+ * row per line).
+ *
+ * The file is memory-mapped in windows and parsed directly from the mapped
+ * bytes: names are copied into a {@link StudentBatch} as UTF-8 and grades
+ * are parsed without creating a String, so a row costs no per-field
+ * allocation. Rows are handed to the sink in batches so the caller can add
+ * each batch to the store (and refresh the table) in one step.
+ *
+ * The delimiter is a tab if the first line contains one, otherwise a comma.
+ * Names may be double-quoted. A first line whose grade does not parse is
+ * treated as a header. Extra columns are ignored. Rows with an empty name or
+ * a grade outside 0-100 are rejected and reported, not imported.
+ *
+ * A header whose first column is {@code id}, {@code student id} or
+ * {@code student number} (any case, spaces or underscores) puts a student
+ * number before the name on every row: "id,name,grade". The number may be
+ * left empty, otherwise it must be a whole number of at most 18 digits.
+ */
+public class RosterImporter {
+
+    public interface BatchSink {
+        void accept(StudentBatch batch) throws InterruptedException;
+    }
+
+    public interface ProgressListener {
+        void progress(long bytesRead, long totalBytes);
+    }
+
+    public static final int DEFAULT_BATCH_SIZE = 50_000;
+
+    private static final long WINDOW_SIZE = 64L << 20;
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final int MAX_NUMBER_DIGITS = 18;
+    private static final long NOT_A_NUMBER = -2;
+
+    public static class Result {
+        private final long imported;
+        private final long rejected;
+        private final List<String> errors;
+        private final long elapsedNanos;
+
+        Result(long imported, long rejected, List<String> errors, long elapsedNanos) {
+            this.imported = imported;
+            this.rejected = rejected;
+            this.errors = Collections.unmodifiableList(errors);
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getImported() { return imported; }
+        public long getRejected() { return rejected; }
+        /** The first few rejection messages, with line numbers. */
+        public List<String> getErrors() { return errors; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        @Override
+        public String toString() {
+            return String.format("%,d imported, %,d rejected in %.1f ms",
+                    imported, rejected, elapsedNanos / 1e6);
+        }
+    }
+
+    private final int batchSize;
+
+    public RosterImporter() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public RosterImporter(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    public Result read(Path path, BatchSink sink, ProgressListener progress)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Parser parser = new Parser(sink);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long position = 0;
+            while (position < fileSize) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Import of " + path + " was cancelled");
+                }
+                long length = Math.min(WINDOW_SIZE, fileSize - position);
+                boolean last = position + length == fileSize;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                int consumed = parser.parse(window, position == 0, last);
+                if (consumed == 0) {
+                    throw new IOException("Line " + (parser.lineNumber + 1) + " is longer than "
+                            + WINDOW_SIZE + " bytes");
+                }
+                position += consumed;
+                if (progress != null) {
+                    progress.progress(position, fileSize);
+                }
+            }
+        }
+        parser.flush();
+        return new Result(parser.imported, parser.rejected, parser.errors, System.nanoTime() - start);
+    }
+
+    /** Parses a grade from {@code buffer[from, to)}, returning NaN if it is not a number. */
+    static double parseGrade(MappedByteBuffer buffer, int from, int to) {
+        if (from >= to) return Double.NaN;
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                if (++digits > 15) return parseSlow(buffer, from, to);
+                mantissa = mantissa * 10 + (b - '0');
+                if (fraction) fractionDigits++;
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                return parseSlow(buffer, from, to);
+            }
+        }
+        if (digits == 0) return Double.NaN;
+        // Both operands are exact doubles, so one division gives a correctly rounded result
+        return fractionDigits == 0 ? mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+    }
+
+    /** Parses a student number from {@code buffer[from, to)}: none if empty, NOT_A_NUMBER if invalid. */
+    static long parseStudentNumber(MappedByteBuffer buffer, int from, int to) {
+        if (from == to) return StudentStore.NO_STUDENT_NUMBER;
+        if (to - from > MAX_NUMBER_DIGITS) return NOT_A_NUMBER;
+        long number = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') return NOT_A_NUMBER;
+            number = number * 10 + (b - '0');
+        }
+        return number;
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private static double parseSlow(MappedByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private class Parser {
+        private final BatchSink sink;
+        private final List<String> errors = new ArrayList<>();
+        private StudentBatch batch = new StudentBatch(batchSize);
+        private byte[] scratch = new byte[256];
+        private byte delimiter;
+        private boolean numbered;
+        private long lineNumber;
+        private long imported;
+        private long rejected;
+
+        Parser(BatchSink sink) {
+            this.sink = sink;
+        }
+
+        /** Parses the complete lines in the window and returns how many bytes were consumed. */
+        int parse(MappedByteBuffer window, boolean first, boolean last) throws InterruptedException {
+            int limit = window.limit();
+            int lineStart = 0;
+            if (first && limit >= 3 && window.get(0) == (byte) 0xEF
+                    && window.get(1) == (byte) 0xBB && window.get(2) == (byte) 0xBF) {
+                lineStart = 3;
+            }
+            if (first) {
+                delimiter = detectDelimiter(window, lineStart, limit);
+            }
+
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && window.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                if (lineEnd == limit && !last) {
+                    break;
+                }
+                lineNumber++;
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && window.get(contentEnd - 1) == '\r') {
+                    contentEnd--;
+                }
+                parseLine(window, lineStart, contentEnd);
+                lineStart = lineEnd + 1;
+            }
+            return Math.min(lineStart, limit);
+        }
+
+        void flush() throws InterruptedException {
+            if (!batch.isEmpty()) {
+                sink.accept(batch);
+                batch = new StudentBatch(batchSize);
+            }
+        }
+
+        private void parseLine(MappedByteBuffer line, int from, int to) throws InterruptedException {
+            int start = skipBlanks(line, from, to);
+            if (start == to) return;
+            if (lineNumber == 1 && isNumberHeader(line, start, to)) {
+                numbered = true;
+                return;
+            }
+
+            long studentNumber = StudentStore.NO_STUDENT_NUMBER;
+            if (numbered) {
+                int numberEnd = start;
+                while (numberEnd < to && line.get(numberEnd) != delimiter) numberEnd++;
+                if (numberEnd == to) {
+                    reject("expected id" + describe(delimiter) + "name" + describe(delimiter) + "grade");
+                    return;
+                }
+                studentNumber = parseStudentNumber(line, start, trimEnd(line, start, numberEnd));
+                if (studentNumber == NOT_A_NUMBER) {
+                    reject("student number must be a whole number of at most " + MAX_NUMBER_DIGITS + " digits");
+                    return;
+                }
+                start = skipBlanks(line, numberEnd + 1, to);
+            }
+
+            int nameStart;
+            int nameEnd;
+            int next;
+            boolean quoted = line.get(start) == '"';
+            int scratchLength = 0;
+            if (quoted) {
+                // Quoted names are unescaped into the scratch buffer ("" becomes ")
+                int i = start + 1;
+                while (i < to) {
+                    byte b = line.get(i);
+                    if (b == '"') {
+                        if (i + 1 < to && line.get(i + 1) == '"') {
+                            scratch = put(scratch, scratchLength++, b);
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    scratch = put(scratch, scratchLength++, b);
+                    i++;
+                }
+                if (i == to) {
+                    reject("unterminated quoted name");
+                    return;
+                }
+                nameStart = 0;
+                nameEnd = scratchLength;
+                next = i + 1;
+                while (next < to && line.get(next) != delimiter) next++;
+            } else {
+                next = start;
+                while (next < to && line.get(next) != delimiter) next++;
+                nameStart = start;
+                nameEnd = trimEnd(line, start, next);
+            }
+
+            if (next == to) {
+                if (!isHeader()) reject("expected name" + describe(delimiter) + "grade");
+                return;
+            }
+            int gradeStart = skipBlanks(line, next + 1, to);
+            int gradeEnd = gradeStart;
+            while (gradeEnd < to && line.get(gradeEnd) != delimiter) gradeEnd++;
+            gradeEnd = trimEnd(line, gradeStart, gradeEnd);
+
+            double grade = parseGrade(line, gradeStart, gradeEnd);
+            if (Double.isNaN(grade)) {
+                if (!isHeader()) reject("grade is not a valid number");
+                return;
+            }
+            if (nameEnd == nameStart) {
+                reject("name is empty");
+                return;
+            }
+            if (grade < 0 || grade > 100) {
+                reject("grade must be between 0 and 100");
+                return;
+            }
+
+            if (quoted) {
+                batch.add(studentNumber, scratch, nameStart, nameEnd - nameStart, grade);
+            } else {
+                batch.add(studentNumber, line, nameStart, nameEnd - nameStart, grade);
+            }
+            imported++;
+            if (batch.size() == batchSize) {
+                flush();
+            }
+        }
+
+        // "id", "student id", "Student_Number", ...
+        private boolean isNumberHeader(MappedByteBuffer line, int from, int to) {
+            int end = from;
+            while (end < to && line.get(end) != delimiter) end++;
+            end = trimEnd(line, from, end);
+            StringBuilder column = new StringBuilder(end - from);
+            for (int i = from; i < end; i++) {
+                byte b = line.get(i);
+                if (b == '"' || b == ' ' || b == '_') continue;
+                column.append(Character.toLowerCase((char) (b & 0xFF)));
+            }
+            String name = column.toString();
+            return name.equals("id") || name.equals("studentid") || name.equals("studentnumber");
+        }
+
+        private boolean isHeader() {
+            return lineNumber == 1 && imported == 0 && rejected == 0;
+        }
+
+        private void reject(String reason) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Line " + lineNumber + ": " + reason);
+            }
+        }
+
+        private int skipBlanks(MappedByteBuffer line, int from, int to) {
+            while (from < to && isBlank(line.get(from))) from++;
+            return from;
+        }
+
+        private int trimEnd(MappedByteBuffer line, int from, int to) {
+            while (to > from && isBlank(line.get(to - 1))) to--;
+            return to;
+        }
+
+        private boolean isBlank(byte b) {
+            return b == ' ' || (b == '\t' && delimiter != '\t');
+        }
+    }
+
+    private static byte detectDelimiter(MappedByteBuffer window, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            byte b = window.get(i);
+            if (b == '\n') break;
+            if (b == '\t') return '\t';
+        }
+        return ',';
+    }
+
+    private static String describe(byte delimiter) {
+        return delimiter == '\t' ? "<tab>" : ",";
+    }
+
+    private static byte[] put(byte[] buffer, int index, byte value) {
+        if (index == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        buffer[index] = value;
+        return buffer;
+    }
+}
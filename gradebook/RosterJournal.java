@@ -0,0 +1,397 @@
+package gradebook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of roster mutations since the last {@link RosterSnapshot}.
+ *
+ * The journal listens to a {@link StudentStore} and records every add,
+ * removal, re-insertion (undo), grade change, bulk grade edit and rename;
+ * adds and re-insertions of students with a student number record it too.
+ * Records refer to rows, which is enough because replaying the same
+ * operations in order reproduces the same rows.
+ * Appends only copy into a memory buffer; a background thread writes and
+ * fsyncs the buffer every {@link #COMMIT_INTERVAL_MILLIS} ms, so a burst of
+ * edits shares one fsync (group commit).
+ *
+ * Each record is {@code [length][op][payload][crc32]}. Replay stops at the
+ * first torn or corrupt record, which is then truncated away.
+ *
+ * If a write fails, the journal stops: nothing more is written (a record
+ * after a gap would replay onto the wrong rows), later changes are
+ * dropped, and the failure is reported once to {@link #setOnFailure}. The
+ * store's listeners never see an exception, so the edit itself completes.
+ */
+public class RosterJournal implements StudentStore.Listener, Closeable {
+
+    public static final long COMMIT_INTERVAL_MILLIS = 50;
+
+    private static final int MAGIC = 0x53475452; // "SGTJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8;
+
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_SET_GRADE = 3;
+    private static final byte OP_SET_NAME = 4;
+    private static final byte OP_INSERT = 5;
+    private static final byte OP_SET_GRADES = 6;
+    private static final byte OP_ADD_NUMBERED = 7;
+    private static final byte OP_INSERT_NUMBERED = 8;
+
+    private final StudentStore store;
+    private final FileChannel channel;
+    private final ScheduledExecutorService committer;
+    private final CRC32 crc = new CRC32();
+    private final Object lock = new Object();
+
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer writing = ByteBuffer.allocate(1 << 16);
+    private volatile IOException failure;
+    private volatile Consumer<IOException> onFailure = e -> {};
+    private long records;
+
+    /**
+     * Opens the journal at {@code path} for appending. An existing journal
+     * for the same generation is kept from {@code validLength} on; anything
+     * else is replaced by an empty journal for {@code generation}.
+     */
+    public RosterJournal(Path path, StudentStore store, long generation, long validLength) throws IOException {
+        this.store = store;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        if (validLength >= HEADER_BYTES) {
+            channel.truncate(validLength);
+            channel.position(validLength);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(generation).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.position(HEADER_BYTES);
+            channel.force(true);
+        }
+        this.committer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "roster-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        committer.scheduleWithFixedDelay(this::commitQuietly,
+                COMMIT_INTERVAL_MILLIS, COMMIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        store.addListener(this);
+    }
+
+    /**
+     * Replays a journal into the store. Returns the length of the valid
+     * prefix of the file, or -1 if it is missing or belongs to another
+     * snapshot generation (in which case nothing is replayed).
+     */
+    public static long replay(Path path, StudentStore store, long generation) throws IOException {
+        if (!Files.exists(path)) return -1;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) return -1;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != generation) {
+                return -1;
+            }
+
+            CRC32 crc = new CRC32();
+            StudentBatch adds = new StudentBatch(1024);
+            int position = HEADER_BYTES;
+            while (position + 4 <= size) {
+                int length = buffer.getInt(position);
+                int body = position + 4;
+                if (length <= 0 || (long) body + length + 4 > size) break;
+                crc.reset();
+                crc.update(buffer.slice(body, length));
+                if ((int) crc.getValue() != buffer.getInt(body + length)) break;
+
+                byte op = buffer.get(body);
+                if (op != OP_ADD && op != OP_ADD_NUMBERED && !adds.isEmpty()) {
+                    store.addAll(adds);
+                    adds.clear();
+                }
+                apply(buffer, op, body + 1, store, adds);
+                position = body + length + 4;
+            }
+            store.addAll(adds);
+            return position;
+        }
+    }
+
+    private static void apply(ByteBuffer buffer, byte op, int at, StudentStore store, StudentBatch adds) {
+        switch (op) {
+            case OP_ADD -> {
+                int nameLength = buffer.getInt(at);
+                adds.add(buffer, at + 4, nameLength, buffer.getDouble(at + 4 + nameLength));
+            }
+            case OP_ADD_NUMBERED -> {
+                int nameLength = buffer.getInt(at + 8);
+                adds.add(buffer.getLong(at), buffer, at + 12, nameLength, buffer.getDouble(at + 12 + nameLength));
+            }
+            case OP_REMOVE -> {
+                int count = buffer.getInt(at);
+                int[] rows = new int[count];
+                for (int i = 0; i < count; i++) {
+                    rows[i] = buffer.getInt(at + 4 + 4 * i);
+                }
+                store.removeRows(rows, count);
+            }
+            case OP_SET_GRADE -> store.setGrade(store.getId(buffer.getInt(at)), buffer.getDouble(at + 4));
+            case OP_SET_NAME -> {
+                int row = buffer.getInt(at);
+                byte[] name = new byte[buffer.getInt(at + 4)];
+                buffer.get(at + 8, name);
+                store.setName(store.getId(row), new String(name, StandardCharsets.UTF_8));
+            }
+            case OP_INSERT, OP_INSERT_NUMBERED -> {
+                boolean numbered = op == OP_INSERT_NUMBERED;
+                int count = buffer.getInt(at);
+                int[] rows = new int[count];
+                StudentBatch batch = new StudentBatch(count);
+                int position = at + 4;
+                for (int i = 0; i < count; i++) {
+                    rows[i] = buffer.getInt(position);
+                    long number = StudentStore.NO_STUDENT_NUMBER;
+                    if (numbered) {
+                        number = buffer.getLong(position + 4);
+                        position += 8;
+                    }
+                    int nameLength = buffer.getInt(position + 4);
+                    batch.add(number, buffer, position + 8, nameLength, buffer.getDouble(position + 8 + nameLength));
+                    position += 8 + nameLength + 8;
+                }
+                store.insertRows(rows, count, batch);
+            }
+            case OP_SET_GRADES -> {
+                int count = buffer.getInt(at);
+                int[] rows = new int[count];
+                double[] grades = new double[count];
+                for (int i = 0; i < count; i++) {
+                    rows[i] = buffer.getInt(at + 4 + 12 * i);
+                    grades[i] = buffer.getDouble(at + 8 + 12 * i);
+                }
+                store.setGrades(rows, count, grades);
+            }
+            default -> throw new IllegalStateException("Unknown journal operation " + op);
+        }
+    }
+
+    @Override
+    public void rowsAdded(int fromRow, int toRow) {
+        NamePool names = store.getNames();
+        synchronized (lock) {
+            for (int row = fromRow; row < toRow; row++) {
+                int code = store.getNameCode(row);
+                long number = store.getStudentNumber(row);
+                int start;
+                if (number == StudentStore.NO_STUDENT_NUMBER) {
+                    start = begin(OP_ADD, 4 + names.length(code) + 8);
+                } else {
+                    start = begin(OP_ADD_NUMBERED, 8 + 4 + names.length(code) + 8);
+                    pending.putLong(number);
+                }
+                pending.putInt(names.length(code));
+                names.copyTo(code, pending);
+                pending.putDouble(store.getGrade(row));
+                end(start);
+            }
+        }
+    }
+
+    @Override
+    public void rowsRemoving(int[] rows, int count) {
+        synchronized (lock) {
+            int start = begin(OP_REMOVE, 4 + 4 * count);
+            pending.putInt(count);
+            for (int i = 0; i < count; i++) {
+                pending.putInt(rows[i]);
+            }
+            end(start);
+        }
+    }
+
+    @Override
+    public void rowsInserted(int[] rows, int count) {
+        NamePool names = store.getNames();
+        boolean numbered = store.hasStudentNumbers();
+        int payload = 4;
+        for (int i = 0; i < count; i++) {
+            payload += 4 + (numbered ? 8 : 0) + 4 + names.length(store.getNameCode(rows[i])) + 8;
+        }
+        synchronized (lock) {
+            // One record, so replay inserts the whole set at once
+            int start = begin(numbered ? OP_INSERT_NUMBERED : OP_INSERT, payload);
+            pending.putInt(count);
+            for (int i = 0; i < count; i++) {
+                int code = store.getNameCode(rows[i]);
+                pending.putInt(rows[i]);
+                if (numbered) {
+                    pending.putLong(store.getStudentNumber(rows[i]));
+                }
+                pending.putInt(names.length(code));
+                names.copyTo(code, pending);
+                pending.putDouble(store.getGrade(rows[i]));
+            }
+            end(start);
+        }
+    }
+
+    @Override
+    public void gradeChanged(int row, double oldGrade, double newGrade) {
+        synchronized (lock) {
+            int start = begin(OP_SET_GRADE, 4 + 8);
+            pending.putInt(row);
+            pending.putDouble(newGrade);
+            end(start);
+        }
+    }
+
+    @Override
+    public void gradesChanged(int[] rows, int count, double[] oldGrades, double[] newGrades) {
+        synchronized (lock) {
+            // One record, so a torn write never leaves half a bulk edit
+            int start = begin(OP_SET_GRADES, 4 + 12 * count);
+            pending.putInt(count);
+            for (int i = 0; i < count; i++) {
+                pending.putInt(rows[i]);
+                pending.putDouble(newGrades[i]);
+            }
+            end(start);
+        }
+    }
+
+    @Override
+    public void nameChanged(int row) {
+        NamePool names = store.getNames();
+        int code = store.getNameCode(row);
+        synchronized (lock) {
+            int start = begin(OP_SET_NAME, 4 + 4 + names.length(code));
+            pending.putInt(row);
+            pending.putInt(names.length(code));
+            names.copyTo(code, pending);
+            end(start);
+        }
+    }
+
+    /**
+     * Called once, on the journal's thread, when a write fails; nothing is
+     * journaled after that.
+     */
+    public void setOnFailure(Consumer<IOException> onFailure) { this.onFailure = onFailure; }
+
+    /** Whether a write has failed, so changes are no longer being journaled. */
+    public boolean hasFailed() { return failure != null; }
+
+    /** Number of records appended since this journal was opened. */
+    public long getRecords() {
+        synchronized (lock) {
+            return records;
+        }
+    }
+
+    /** Writes and fsyncs everything appended so far. */
+    public void commit() throws IOException {
+        synchronized (channel) {
+            if (failure != null) {
+                throw new IOException("Roster journal is no longer writable", failure);
+            }
+            synchronized (lock) {
+                ByteBuffer swap = writing;
+                writing = pending;
+                pending = swap;
+                pending.clear();
+            }
+            writing.flip();
+            if (!writing.hasRemaining()) return;
+            try {
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                fail(e);
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.removeListener(this);
+        committer.shutdown();
+        try {
+            committer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            // After a failure there is nothing left to write, just the file to close
+            if (failure == null) {
+                commit();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (IOException e) {
+            // Already reported through onFailure
+        }
+    }
+
+    private void fail(IOException e) {
+        synchronized (lock) {
+            failure = e;
+            pending.clear();
+        }
+        committer.shutdown();
+        onFailure.accept(e);
+    }
+
+    private int begin(byte op, int payloadLength) {
+        if (failure != null) {
+            // Dropped: only the record being appended is kept, and never written
+            pending.clear();
+        }
+        int length = 1 + payloadLength;
+        ensureRemaining(4 + length + 4);
+        pending.putInt(length);
+        int start = pending.position();
+        pending.put(op);
+        return start;
+    }
+
+    private void end(int start) {
+        crc.reset();
+        crc.update(pending.array(), start, pending.position() - start);
+        pending.putInt((int) crc.getValue());
+        records++;
+    }
+
+    private void ensureRemaining(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package gradebook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a {@link StudentStore} on disk as a {@link RosterSnapshot} plus a
+ * {@link RosterJournal} of the changes made since that snapshot.
+ *
+ * Opening loads the snapshot and replays only the journal tail. A
+ * checkpoint writes a new snapshot with the next generation number and
+ * starts an empty journal; a journal left over from an older generation is
+ * ignored, so a crash in the middle of a checkpoint never replays twice.
+ */
+public class RosterPersistence implements Closeable {
+
+    public static final String SNAPSHOT_FILE = "roster.snapshot";
+    public static final String JOURNAL_FILE = "roster.journal";
+
+    private final Path directory;
+    private final StudentStore store;
+    private final long loadNanos;
+    private long generation;
+    private RosterJournal journal;
+    private Consumer<IOException> onJournalFailure = e -> {};
+
+    private RosterPersistence(Path directory, StudentStore store, long generation, long journalLength,
+                              long loadNanos) throws IOException {
+        this.directory = directory;
+        this.store = store;
+        this.generation = generation;
+        this.loadNanos = loadNanos;
+        this.journal = new RosterJournal(directory.resolve(JOURNAL_FILE), store, generation, journalLength);
+    }
+
+    /** Loads the roster saved in {@code directory} into the (empty) store and starts journaling. */
+    public static RosterPersistence open(Path directory, StudentStore store) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        long generation = Files.exists(snapshot) ? RosterSnapshot.load(snapshot, store) : 0;
+        long journalLength = RosterJournal.replay(directory.resolve(JOURNAL_FILE), store, generation);
+        return new RosterPersistence(directory, store, generation, journalLength, System.nanoTime() - start);
+    }
+
+    /** Writes a fresh snapshot and truncates the journal. */
+    public void checkpoint() throws IOException {
+        journal.close();
+        generation++;
+        RosterSnapshot.write(store, generation, directory.resolve(SNAPSHOT_FILE));
+        journal = new RosterJournal(directory.resolve(JOURNAL_FILE), store, generation, -1);
+        journal.setOnFailure(onJournalFailure);
+    }
+
+    /**
+     * Called once, on the journal's thread, when a journal write fails and
+     * changes stop being saved; the next checkpoint starts saving again.
+     */
+    public void setOnJournalFailure(Consumer<IOException> onJournalFailure) {
+        this.onJournalFailure = onJournalFailure;
+        journal.setOnFailure(onJournalFailure);
+    }
+
+    /** Forces all journaled changes to disk now rather than at the next group commit. */
+    public void sync() throws IOException {
+        journal.commit();
+    }
+
+    public long getGeneration() { return generation; }
+
+    /** Time taken by {@link #open} to load the snapshot and replay the journal. */
+    public long getLoadNanos() { return loadNanos; }
+
+    /** Checkpoints (so the next start only maps a snapshot) and stops journaling. */
+    @Override
+    public void close() throws IOException {
+        checkpoint();
+        journal.close();
+    }
+}
@@ -0,0 +1,121 @@
+package gradebook;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary image of a {@link StudentStore}.
+ *
+ * Layout (big-endian): magic, version, generation, row count, a flag byte
+ * telling whether student numbers follow, then the grades as a block of
+ * doubles, the student numbers as a block of longs (if flagged), the end
+ * offset of every name, the UTF-8 name bytes and finally a CRC32 of
+ * everything before it. Loading maps the file and feeds the store in large
+ * batches. Version 1 snapshots, which have no flag and no numbers, still
+ * load.
+ */
+public class RosterSnapshot {
+
+    private static final int MAGIC = 0x53475453; // "SGTS"
+    private static final int VERSION = 2;
+    private static final int V1_HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int HEADER_BYTES = V1_HEADER_BYTES + 1;
+    private static final int LOAD_BATCH_SIZE = 65_536;
+
+    /** Writes the store atomically (temp file + rename) and returns the bytes written. */
+    public static long write(StudentStore store, long generation, Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+            int count = store.size();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+            out.writeInt(count);
+            boolean numbered = store.hasStudentNumbers();
+            out.writeBoolean(numbered);
+            for (int row = 0; row < count; row++) {
+                out.writeDouble(store.getGrade(row));
+            }
+            if (numbered) {
+                for (int row = 0; row < count; row++) {
+                    out.writeLong(store.getStudentNumber(row));
+                }
+            }
+            NamePool names = store.getNames();
+            int end = 0;
+            for (int row = 0; row < count; row++) {
+                end += names.length(store.getNameCode(row));
+                out.writeInt(end);
+            }
+            for (int row = 0; row < count; row++) {
+                names.writeTo(store.getNameCode(row), out);
+            }
+            out.flush();
+            // The checksum itself must not be part of the checksummed stream
+            file.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+            file.getChannel().force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(path);
+    }
+
+    /** Loads a snapshot into an empty store and returns its generation. */
+    public static long load(Path path, StudentStore store) throws IOException {
+        if (!store.isEmpty()) {
+            throw new IllegalStateException("Snapshots can only be loaded into an empty store");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < V1_HEADER_BYTES + 4 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a roster snapshot: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int version = buffer.getInt(4);
+            if (buffer.getInt(0) != MAGIC || version < 1 || version > VERSION) {
+                throw new IOException("Not a roster snapshot (or unsupported version): " + path);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - 4));
+            if ((int) crc.getValue() != buffer.getInt((int) size - 4)) {
+                throw new IOException("Roster snapshot is corrupt (checksum mismatch): " + path);
+            }
+
+            long generation = buffer.getLong(8);
+            int count = buffer.getInt(16);
+            boolean numbered = version > 1 && buffer.get(V1_HEADER_BYTES) != 0;
+            int grades = version > 1 ? HEADER_BYTES : V1_HEADER_BYTES;
+            int numbers = grades + 8 * count;
+            int ends = numbered ? numbers + 8 * count : numbers;
+            int names = ends + 4 * count;
+
+            StudentBatch batch = new StudentBatch(Math.min(count, LOAD_BATCH_SIZE));
+            int start = 0;
+            for (int row = 0; row < count; row++) {
+                int end = buffer.getInt(ends + 4 * row);
+                long number = numbered ? buffer.getLong(numbers + 8 * row) : StudentStore.NO_STUDENT_NUMBER;
+                batch.add(number, buffer, names + start, end - start, buffer.getDouble(grades + 8 * row));
+                start = end;
+                if (batch.size() == LOAD_BATCH_SIZE) {
+                    store.addAll(batch);
+                    batch.clear();
+                }
+            }
+            store.addAll(batch);
+            return generation;
+        }
+    }
+}
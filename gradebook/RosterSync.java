@@ -0,0 +1,170 @@
+package gradebook;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Applies a re-sent roster to a store by student number, touching only the
+ * students that changed.
+ *
+ * Used as the {@link RosterImporter.BatchSink} of an import: each batch is
+ * matched against the store's student numbers. Students not yet in the
+ * store are added together (one rowsAdded event per batch), renamed
+ * students are renamed and changed grades are set with one
+ * {@link StudentStore#setGrades} call per batch; students whose name and
+ * grade are the same are not touched at all, so listeners such as the
+ * journal, the undo history and the table only see the rows that changed.
+ * Rows without a student number cannot be matched and are added.
+ *
+ * {@link #finish} then removes the numbered students the roster no longer
+ * lists, if asked to; students entered without a number are kept. When a
+ * number appears more than once in the roster, its first row counts and
+ * the later ones are skipped as duplicates. Like the store, a sync must
+ * only be used from one thread.
+ */
+public class RosterSync implements RosterImporter.BatchSink {
+
+    public static class Result {
+        private final long added;
+        private final long updated;
+        private final long unchanged;
+        private final long removed;
+        private final long duplicates;
+
+        Result(long added, long updated, long unchanged, long removed, long duplicates) {
+            this.added = added;
+            this.updated = updated;
+            this.unchanged = unchanged;
+            this.removed = removed;
+            this.duplicates = duplicates;
+        }
+
+        public long getAdded() { return added; }
+        public long getUpdated() { return updated; }
+        public long getUnchanged() { return unchanged; }
+        public long getRemoved() { return removed; }
+        public long getDuplicates() { return duplicates; }
+
+        @Override
+        public String toString() {
+            return String.format("%,d added, %,d updated, %,d unchanged, %,d removed, %,d duplicates",
+                    added, updated, unchanged, removed, duplicates);
+        }
+    }
+
+    private final StudentStore store;
+    // Store ids of the students the roster has listed so far
+    private final BitSet seen = new BitSet();
+    // Numbers of the students being added by the current batch
+    private final StudentNumberIndex pending = new StudentNumberIndex();
+    private final StudentBatch adds = new StudentBatch(1024);
+    private int[] changedRows = new int[0];
+    private double[] changedGrades = new double[0];
+    private long[] order = new long[0];
+    private long added;
+    private long updated;
+    private long unchanged;
+    private long duplicates;
+
+    public RosterSync(StudentStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void accept(StudentBatch batch) {
+        // Validated up front so that a bad row leaves the store untouched
+        for (int i = 0; i < batch.size(); i++) {
+            StudentStore.checkGrade(batch.grade(i));
+            if (batch.studentNumber(i) < StudentStore.NO_STUDENT_NUMBER) {
+                throw new IllegalArgumentException("Student number must not be negative: " + batch.studentNumber(i));
+            }
+        }
+        if (!batch.hasStudentNumbers()) {
+            // Nothing to match
+            store.addAll(batch);
+            added += batch.size();
+            return;
+        }
+        adds.clear();
+        pending.clear();
+        if (order.length < batch.size()) {
+            order = new long[batch.size()];
+        }
+        int changed = 0;
+        NamePool names = store.getNames();
+        byte[] nameBytes = batch.nameBytes();
+        for (int i = 0; i < batch.size(); i++) {
+            long number = batch.studentNumber(i);
+            int start = batch.nameStart(i);
+            int length = batch.nameEnd(i) - start;
+            int row = number == StudentStore.NO_STUDENT_NUMBER ? -1 : store.rowOfStudentNumber(number);
+            if (row < 0) {
+                if (number != StudentStore.NO_STUDENT_NUMBER && !pending.putIfAbsent(number, i)) {
+                    duplicates++;
+                    continue;
+                }
+                adds.add(number, nameBytes, start, length, batch.grade(i));
+                continue;
+            }
+            int id = store.getId(row);
+            if (seen.get(id)) {
+                duplicates++;
+                continue;
+            }
+            seen.set(id);
+            // Compared in place: interning every name would cost a hash probe per row
+            int code = store.getNameCode(row);
+            boolean renamed = !Arrays.equals(names.bytes(), names.start(code), names.end(code),
+                    nameBytes, start, start + length);
+            if (renamed) {
+                store.setName(id, batch.name(i));
+            }
+            if (Double.compare(store.getGrade(row), batch.grade(i)) != 0) {
+                // Rows are sorted below, so keep where each one came from
+                order[changed++] = (long) row << 32 | i;
+            } else if (!renamed) {
+                unchanged++;
+                continue;
+            }
+            updated++;
+        }
+
+        if (changed > 0) {
+            if (changedRows.length < changed) {
+                changedRows = new int[changed];
+                changedGrades = new double[changed];
+            }
+            Arrays.sort(order, 0, changed);
+            for (int k = 0; k < changed; k++) {
+                changedRows[k] = (int) (order[k] >>> 32);
+                changedGrades[k] = batch.grade((int) order[k]);
+            }
+            store.setGrades(changedRows, changed, changedGrades);
+        }
+
+        int fromRow = store.size();
+        store.addAll(adds);
+        for (int row = fromRow; row < store.size(); row++) {
+            seen.set(store.getId(row));
+        }
+        added += adds.size();
+    }
+
+    /**
+     * Ends the sync. With {@code removeMissing}, the students that have a
+     * student number the roster did not list are removed, in one step.
+     */
+    public Result finish(boolean removeMissing) {
+        int missing = 0;
+        if (removeMissing && store.hasStudentNumbers()) {
+            int[] rows = new int[store.size()];
+            for (int row = 0; row < store.size(); row++) {
+                if (store.getStudentNumber(row) != StudentStore.NO_STUDENT_NUMBER && !seen.get(store.getId(row))) {
+                    rows[missing++] = row;
+                }
+            }
+            store.removeRows(rows, missing);
+        }
+        return new Result(added, updated, unchanged, missing, duplicates);
+    }
+}
@@ -0,0 +1,93 @@
+package gradebook;
+
+/**
+ * A student record.
+ *
+ * Students that belong to a {@link StudentStore} are lightweight handles:
+ * they only remember the store and the student's id, and every getter reads
+ * the store's columns. A student created with the public constructor is a
+ * detached value that keeps its own name and grade.
+ */
+public class Student {
+
+    private final StudentStore store;
+    private final int id;
+    private String name;
+    private double grade;
+
+    public Student(String name, double grade) {
+        this.store = null;
+        this.id = -1;
+        this.name = name;
+        this.grade = grade;
+    }
+
+    Student(StudentStore store, int id) {
+        this.store = store;
+        this.id = id;
+    }
+
+    /** Letter on the {@link GradingScale#STANDARD standard} scale. */
+    public static String calculateLetterGrade(double grade) {
+        return GradingScale.STANDARD.letterOf(grade).getLabel();
+    }
+
+    /** Store id of this student, or -1 for a detached student. */
+    public int getId() { return id; }
+
+    /** The registrar's student number, or {@link StudentStore#NO_STUDENT_NUMBER}. */
+    public long getStudentNumber() {
+        return store == null ? StudentStore.NO_STUDENT_NUMBER : store.getStudentNumber(row());
+    }
+
+    public String getName() { return store == null ? name : store.getName(row()); }
+    public void setName(String name) {
+        if (store == null) {
+            this.name = name;
+        } else {
+            store.setName(id, name);
+        }
+    }
+
+    public double getGrade() { return store == null ? grade : store.getGrade(row()); }
+    public void setGrade(double grade) {
+        if (store == null) {
+            this.grade = grade;
+        } else {
+            store.setGrade(id, grade);
+        }
+    }
+
+    /** Letter on the store's scale, or on the standard scale for a detached student. */
+    public LetterGrade getLetter() {
+        return store == null ? GradingScale.STANDARD.letterOf(grade) : store.getLetter(row());
+    }
+
+    public String getLetterGrade() { return getLetter().getLabel(); }
+
+    private int row() {
+        int row = store.rowOf(id);
+        if (row < 0) {
+            throw new IllegalStateException("Student " + id + " is no longer in the roster");
+        }
+        return row;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Student)) return false;
+        Student other = (Student) o;
+        return store != null && store == other.store && id == other.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return store == null ? System.identityHashCode(this) : id;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %.2f (%s)", getName(), getGrade(), getLetterGrade());
+    }
+}
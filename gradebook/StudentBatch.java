@@ -0,0 +1,118 @@
+package gradebook;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A block of (name, grade) rows headed for a {@link StudentStore}. Names are
+ * kept as UTF-8 bytes in one buffer so producers such as the file importer
+ * never have to create a String per row; the store interns them straight
+ * from the buffer in {@link StudentStore#addAll(StudentBatch)}.
+ *
+ * Rows may carry a student number; the column is only allocated once a
+ * row has one, and rows without one read {@link StudentStore#NO_STUDENT_NUMBER}.
+ */
+public class StudentBatch {
+
+    private byte[] nameBytes;
+    private int[] nameEnds;
+    private double[] grades;
+    private long[] studentNumbers;
+    private int size;
+
+    public StudentBatch(int capacity) {
+        nameBytes = new byte[Math.max(16, capacity * 16)];
+        nameEnds = new int[Math.max(1, capacity)];
+        grades = new double[Math.max(1, capacity)];
+    }
+
+    public void add(String name, double grade) {
+        add(StudentStore.NO_STUDENT_NUMBER, name, grade);
+    }
+
+    public void add(long studentNumber, String name, double grade) {
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        add(studentNumber, encoded, 0, encoded.length, grade);
+    }
+
+    public void add(byte[] source, int from, int length, double grade) {
+        add(StudentStore.NO_STUDENT_NUMBER, source, from, length, grade);
+    }
+
+    public void add(long studentNumber, byte[] source, int from, int length, double grade) {
+        int start = nameEnd(size - 1);
+        ensureCapacity(size + 1, start + length);
+        System.arraycopy(source, from, nameBytes, start, length);
+        append(studentNumber, start + length, grade);
+    }
+
+    /** Appends a name copied from {@code buffer} starting at {@code position}. */
+    public void add(ByteBuffer buffer, int position, int length, double grade) {
+        add(StudentStore.NO_STUDENT_NUMBER, buffer, position, length, grade);
+    }
+
+    public void add(long studentNumber, ByteBuffer buffer, int position, int length, double grade) {
+        int start = nameEnd(size - 1);
+        ensureCapacity(size + 1, start + length);
+        buffer.get(position, nameBytes, start, length);
+        append(studentNumber, start + length, grade);
+    }
+
+    /** Empties the batch, keeping its buffers for reuse. */
+    public void clear() { size = 0; }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public byte[] nameBytes() { return nameBytes; }
+
+    public int nameStart(int index) { return nameEnd(index - 1); }
+
+    public int nameEnd(int index) { return index < 0 ? 0 : nameEnds[index]; }
+
+    public String name(int index) {
+        int start = nameStart(index);
+        return new String(nameBytes, start, nameEnd(index) - start, StandardCharsets.UTF_8);
+    }
+
+    public double grade(int index) { return grades[index]; }
+
+    public long studentNumber(int index) {
+        return studentNumbers == null ? StudentStore.NO_STUDENT_NUMBER : studentNumbers[index];
+    }
+
+    /** Whether any row carries a student number. */
+    public boolean hasStudentNumbers() { return studentNumbers != null; }
+
+    // The student number column, or null if no row has a number
+    long[] studentNumbers() { return studentNumbers; }
+
+    private void append(long studentNumber, int nameEnd, double grade) {
+        if (studentNumber != StudentStore.NO_STUDENT_NUMBER && studentNumbers == null) {
+            studentNumbers = new long[grades.length];
+            Arrays.fill(studentNumbers, 0, size, StudentStore.NO_STUDENT_NUMBER);
+        }
+        nameEnds[size] = nameEnd;
+        grades[size] = grade;
+        if (studentNumbers != null) {
+            studentNumbers[size] = studentNumber;
+        }
+        size++;
+    }
+
+    private void ensureCapacity(int rows, int bytes) {
+        if (rows > grades.length) {
+            int capacity = Math.max(rows, grades.length * 2);
+            nameEnds = Arrays.copyOf(nameEnds, capacity);
+            grades = Arrays.copyOf(grades, capacity);
+            if (studentNumbers != null) {
+                studentNumbers = Arrays.copyOf(studentNumbers, capacity);
+            }
+        }
+        if (bytes > nameBytes.length) {
+            nameBytes = Arrays.copyOf(nameBytes, Math.max(bytes, nameBytes.length * 2));
+        }
+    }
+}
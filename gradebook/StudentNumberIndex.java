@@ -0,0 +1,101 @@
+package gradebook;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from student number to store id, kept by a
+ * {@link StudentStore} for the students that have a number.
+ *
+ * Each slot is a number and its store id side by side in one primitive
+ * array, so a lookup costs a single cache miss, and slots are probed
+ * linearly from a multiplicative hash so that consecutive numbers (as
+ * registrars hand them out) spread over the table. The table is at most
+ * half full and removal shifts the following entries back rather than
+ * leaving tombstones, so a lookup never probes more than a short run and
+ * a re-sync that removes and adds many students does not degrade it.
+ */
+final class StudentNumberIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Slot i is table[2i] = number and table[2i + 1] = store id + 1 (0 marks an empty slot)
+    private long[] table = new long[2 * INITIAL_CAPACITY];
+    private int size;
+
+    int size() { return size; }
+
+    /** Store id of the student with this number, or -1. */
+    int get(long number) {
+        int mask = table.length / 2 - 1;
+        for (int slot = slot(number, mask); table[2 * slot + 1] != 0; slot = (slot + 1) & mask) {
+            if (table[2 * slot] == number) return (int) table[2 * slot + 1] - 1;
+        }
+        return -1;
+    }
+
+    /** Maps {@code number} to {@code id} unless it is mapped already; returns whether it was added. */
+    boolean putIfAbsent(long number, int id) {
+        int mask = table.length / 2 - 1;
+        int slot = slot(number, mask);
+        while (table[2 * slot + 1] != 0) {
+            if (table[2 * slot] == number) return false;
+            slot = (slot + 1) & mask;
+        }
+        table[2 * slot] = number;
+        table[2 * slot + 1] = id + 1L;
+        if (++size * 4 > table.length) {
+            rehash(table.length);
+        }
+        return true;
+    }
+
+    void remove(long number) {
+        int mask = table.length / 2 - 1;
+        int slot = slot(number, mask);
+        while (table[2 * slot + 1] != 0 && table[2 * slot] != number) {
+            slot = (slot + 1) & mask;
+        }
+        if (table[2 * slot + 1] == 0) return;
+        size--;
+        // Moves back every later entry of the run that could not be found past the new gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; table[2 * next + 1] != 0; next = (next + 1) & mask) {
+            int home = slot(table[2 * next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                table[2 * gap] = table[2 * next];
+                table[2 * gap + 1] = table[2 * next + 1];
+                gap = next;
+            }
+        }
+        table[2 * gap + 1] = 0;
+    }
+
+    void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+    }
+
+    long footprint() {
+        return 8L * table.length;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        table = new long[2 * capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i + 1] == 0) continue;
+            int slot = slot(old[i], mask);
+            while (table[2 * slot + 1] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[2 * slot] = old[i];
+            table[2 * slot + 1] = old[i + 1];
+        }
+    }
+
+    private static int slot(long number, int mask) {
+        long h = number * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,641 @@
+package gradebook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Column-oriented roster. Grades live in a double[], letter grades in a
+ * byte[] of {@link LetterGrade} ordinals on the store's {@link GradingScale}
+ * and names in a shared {@link NamePool}, so a row costs a
+ * few primitive slots instead of a Student object, a String and a boxed
+ * grade held in two lists.
+ *
+ * Rows are kept dense and in insertion order. Every student also gets a
+ * stable id that survives removals of other rows; {@link Student} handles
+ * are keyed by that id. Students may also have a student number, the
+ * registrar's stable identifier, which is unique within the store and is
+ * looked up through an open-addressing {@link StudentNumberIndex}; it lets
+ * a re-sent roster be applied with {@link #upsert} (or a
+ * {@link RosterSync}) instead of reloading everything.
+ *
+ * Running {@link GradeStatistics}, a {@link GradeHistogram} and the count
+ * of students per letter are kept up to date on every mutation, and
+ * {@link Listener}s are told about each change.
+ */
+public class StudentStore {
+
+    /** Callbacks fired after (or, for removals, around) each mutation. */
+    public interface Listener {
+        /** Rows {@code fromRow} (inclusive) to {@code toRow} (exclusive) were appended. */
+        default void rowsAdded(int fromRow, int toRow) {}
+
+        /** The given rows (ascending) are about to be removed; their data is still readable. */
+        default void rowsRemoving(int[] rows, int count) {}
+
+        /** The given rows (ascending, pre-removal positions) have been removed. */
+        default void rowsRemoved(int[] rows, int count) {}
+
+        /** Rows were inserted at the given positions (ascending, post-insert positions). */
+        default void rowsInserted(int[] rows, int count) {}
+
+        default void gradeChanged(int row, double oldGrade, double newGrade) {}
+
+        /**
+         * The given rows (ascending) got new grades in one batch. By default
+         * this is handled as one gradeChanged per row.
+         */
+        default void gradesChanged(int[] rows, int count, double[] oldGrades, double[] newGrades) {
+            for (int i = 0; i < count; i++) {
+                gradeChanged(rows[i], oldGrades[i], newGrades[i]);
+            }
+        }
+
+        /** The row is about to be renamed; its current name is still readable. */
+        default void nameChanging(int row) {}
+
+        default void nameChanged(int row) {}
+
+        /** Every letter may have changed: the store switched to another grading scale. */
+        default void scaleChanged() {}
+    }
+
+    /** Student number of a student who has none. */
+    public static final long NO_STUDENT_NUMBER = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final NamePool names;
+    private final GradeStatistics statistics = new GradeStatistics();
+    private final GradeHistogram histogram = new GradeHistogram();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private int size;
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] nameCodes = new int[INITIAL_CAPACITY];
+    private double[] grades = new double[INITIAL_CAPACITY];
+    // LetterGrade ordinals on the current scale
+    private byte[] letterCodes = new byte[INITIAL_CAPACITY];
+    private GradingScale scale = GradingScale.STANDARD;
+    // Students per LetterGrade ordinal, from letterCodes
+    private final long[] letterCounts = new long[LetterGrade.values().length];
+    // Allocated with the first student number; NO_STUDENT_NUMBER for rows without one
+    private long[] studentNumbers;
+    private final StudentNumberIndex numberIndex = new StudentNumberIndex();
+
+    private int nextId;
+    private int[] rowsById = new int[INITIAL_CAPACITY];
+
+    public StudentStore() {
+        this(new NamePool());
+    }
+
+    /**
+     * A store interning names into a pool it shares with other stores, as
+     * the {@link Course}s of a roster do, so each name is kept once.
+     */
+    public StudentStore(NamePool names) {
+        this.names = Objects.requireNonNull(names, "names");
+    }
+
+    public static void checkGrade(double grade) {
+        if (!(grade >= 0 && grade <= 100)) {
+            throw new IllegalArgumentException("Grade must be between 0 and 100: " + grade);
+        }
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public GradeStatistics getStatistics() { return statistics; }
+
+    public GradeHistogram getHistogram() { return histogram; }
+
+    /**
+     * Number of students per letter of the store's scale, indexed by
+     * {@link LetterGrade} ordinal; counted from each student's letter, so
+     * exact at every cutoff.
+     */
+    public long[] getLetterCounts() { return letterCounts.clone(); }
+
+    /** Statistics and histogram copied together; O(buckets), not O(students). */
+    public GradeDistribution snapshotDistribution() {
+        return new GradeDistribution(statistics, histogram);
+    }
+
+    public NamePool getNames() { return names; }
+
+    public void addListener(Listener listener) { listeners.add(listener); }
+
+    public void removeListener(Listener listener) { listeners.remove(listener); }
+
+    /** Every id handed out so far is below this. */
+    public int getIdLimit() { return nextId; }
+
+    public Student get(int row) {
+        checkRow(row);
+        return new Student(this, ids[row]);
+    }
+
+    public int getId(int row) {
+        checkRow(row);
+        return ids[row];
+    }
+
+    /** Current row of the student with this id, or -1 if it has been removed. */
+    public int rowOf(int id) {
+        return id >= 0 && id < nextId ? rowsById[id] : -1;
+    }
+
+    /** Student number of the row, or {@link #NO_STUDENT_NUMBER}. */
+    public long getStudentNumber(int row) {
+        checkRow(row);
+        return studentNumbers == null ? NO_STUDENT_NUMBER : studentNumbers[row];
+    }
+
+    /** Current row of the student with this number, or -1 if no student has it. */
+    public int rowOfStudentNumber(long studentNumber) {
+        int id = numberIndex.get(studentNumber);
+        return id < 0 ? -1 : rowsById[id];
+    }
+
+    /** Whether any student in the store has a student number. */
+    public boolean hasStudentNumbers() { return numberIndex.size() > 0; }
+
+    public String getName(int row) {
+        checkRow(row);
+        return names.get(nameCodes[row]);
+    }
+
+    public int getNameCode(int row) {
+        checkRow(row);
+        return nameCodes[row];
+    }
+
+    public double getGrade(int row) {
+        checkRow(row);
+        return grades[row];
+    }
+
+    public byte getLetterCode(int row) {
+        checkRow(row);
+        return letterCodes[row];
+    }
+
+    public LetterGrade getLetter(int row) {
+        return LetterGrade.of(getLetterCode(row));
+    }
+
+    public String getLetterGrade(int row) {
+        return getLetter(row).getLabel();
+    }
+
+    public GradingScale getScale() { return scale; }
+
+    /**
+     * Switches to another grading scale and reclassifies every student, in
+     * parallel for large rosters. Grades and the histogram are unaffected.
+     */
+    public void setScale(GradingScale scale) {
+        Objects.requireNonNull(scale, "scale");
+        if (scale == this.scale) return;
+        this.scale = scale;
+        scale.classify(grades, letterCodes, 0, size);
+        Arrays.fill(letterCounts, 0);
+        for (int row = 0; row < size; row++) {
+            letterCounts[letterCodes[row]]++;
+        }
+        for (Listener listener : listeners) {
+            listener.scaleChanged();
+        }
+    }
+
+    /** Copy of the grade column, e.g. for analysis on another thread. */
+    public double[] copyGrades() {
+        return Arrays.copyOf(grades, size);
+    }
+
+    public Student add(String name, double grade) {
+        return add(NO_STUDENT_NUMBER, name, grade);
+    }
+
+    /** Adds a student under a student number no other student in the store has. */
+    public Student add(long studentNumber, String name, double grade) {
+        checkGrade(grade);
+        // Everything that can throw comes before the number is reserved
+        int nameCode = names.intern(name);
+        ensureCapacity(size + 1);
+        if (studentNumber != NO_STUDENT_NUMBER) {
+            reserveNumber(studentNumber, nextId);
+        }
+        int row = append(nameCode, grade, studentNumber);
+        fireRowsAdded(row, row + 1);
+        return new Student(this, ids[row]);
+    }
+
+    /**
+     * Adds a student under {@code studentNumber}, or, if a student already
+     * has that number, renames them and sets their grade in place. Either
+     * way listeners hear about that one row only. Without a student number
+     * this is a plain {@link #add}.
+     */
+    public Student upsert(long studentNumber, String name, double grade) {
+        checkGrade(grade);
+        int id = studentNumber == NO_STUDENT_NUMBER ? -1 : numberIndex.get(studentNumber);
+        if (id < 0) {
+            return add(studentNumber, name, grade);
+        }
+        setName(id, name);
+        setGrade(id, grade);
+        return new Student(this, id);
+    }
+
+    /**
+     * Appends every row of the batch and fires a single rowsAdded event.
+     * The batch is validated up front (grades, and student numbers against
+     * the store and each other), so either all rows are added or none.
+     */
+    public void addAll(StudentBatch batch) {
+        if (batch.isEmpty()) return;
+        for (int i = 0; i < batch.size(); i++) {
+            checkGrade(batch.grade(i));
+        }
+        ensureCapacity(size + batch.size());
+        reserveNumbers(batch.studentNumbers(), batch.size(), null);
+        int fromRow = size;
+        byte[] nameBytes = batch.nameBytes();
+        for (int i = 0; i < batch.size(); i++) {
+            int start = batch.nameStart(i);
+            append(names.intern(nameBytes, start, batch.nameEnd(i) - start), batch.grade(i),
+                    batch.studentNumber(i));
+        }
+        fireRowsAdded(fromRow, size);
+    }
+
+    // Bulk add of names already in the pool, with one rowsAdded event; for courses
+    void addAll(int[] nameCodes, double[] grades, int count) {
+        if (count == 0) return;
+        for (int i = 0; i < count; i++) {
+            checkGrade(grades[i]);
+            names.length(nameCodes[i]);
+        }
+        ensureCapacity(size + count);
+        int fromRow = size;
+        for (int i = 0; i < count; i++) {
+            append(nameCodes[i], grades[i], NO_STUDENT_NUMBER);
+        }
+        fireRowsAdded(fromRow, size);
+    }
+
+    public boolean remove(int id) {
+        int row = rowOf(id);
+        if (row < 0) return false;
+        removeRows(new int[] {row}, 1);
+        return true;
+    }
+
+    /** Removes the given rows, which must be distinct and in ascending order. */
+    public void removeRows(int[] rows, int count) {
+        if (count == 0) return;
+        for (int i = 0; i < count; i++) {
+            checkRow(rows[i]);
+            if (i > 0 && rows[i] <= rows[i - 1]) {
+                throw new IllegalArgumentException("Rows must be distinct and ascending");
+            }
+        }
+        for (Listener listener : listeners) {
+            listener.rowsRemoving(rows, count);
+        }
+
+        // Single compaction pass over every column, moving each run of kept rows once
+        int write = rows[0];
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            statistics.remove(grades[row]);
+            histogram.remove(grades[row]);
+            letterCounts[letterCodes[row]]--;
+            rowsById[ids[row]] = -1;
+            if (studentNumbers != null && studentNumbers[row] != NO_STUDENT_NUMBER) {
+                numberIndex.remove(studentNumbers[row]);
+            }
+            int from = row + 1;
+            int moved = (i + 1 < count ? rows[i + 1] : size) - from;
+            if (moved > 0) {
+                System.arraycopy(ids, from, ids, write, moved);
+                System.arraycopy(nameCodes, from, nameCodes, write, moved);
+                System.arraycopy(grades, from, grades, write, moved);
+                System.arraycopy(letterCodes, from, letterCodes, write, moved);
+                if (studentNumbers != null) {
+                    System.arraycopy(studentNumbers, from, studentNumbers, write, moved);
+                }
+                for (int end = write + moved; write < end; write++) {
+                    rowsById[ids[write]] = write;
+                }
+            }
+        }
+        size = write;
+
+        for (Listener listener : listeners) {
+            listener.rowsRemoved(rows, count);
+        }
+    }
+
+    /**
+     * Puts removed students back under their old ids, at the given rows
+     * (ascending, post-insert positions). Undoing a removal with the rows
+     * and columns it removed restores the roster exactly.
+     */
+    public void restoreRows(int[] rows, int count, int[] ids, int[] nameCodes, double[] grades) {
+        restoreRows(rows, count, ids, nameCodes, grades, null);
+    }
+
+    /** As above, with the students' numbers, or null if none of them had one. */
+    public void restoreRows(int[] rows, int count, int[] ids, int[] nameCodes, double[] grades,
+                            long[] studentNumbers) {
+        if (count == 0) return;
+        checkInsertRows(rows, count);
+        for (int i = 0; i < count; i++) {
+            checkGrade(grades[i]);
+            names.length(nameCodes[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            int id = ids[i];
+            if (id < 0 || id >= nextId || rowsById[id] != -1) {
+                // Undo the marks of the ids checked so far
+                for (int j = 0; j < i; j++) {
+                    rowsById[ids[j]] = -1;
+                }
+                throw new IllegalArgumentException("Id " + id + " is in use or was never assigned");
+            }
+            rowsById[id] = -2; // catches duplicates within ids
+        }
+        try {
+            reserveNumbers(studentNumbers, count, ids);
+        } catch (IllegalArgumentException e) {
+            for (int i = 0; i < count; i++) {
+                rowsById[ids[i]] = -1;
+            }
+            throw e;
+        }
+        insertAt(rows, count, ids, nameCodes, grades, studentNumbers);
+    }
+
+    /**
+     * Inserts new students at the given rows (ascending, post-insert
+     * positions); they get fresh ids. Used to replay a journaled restore.
+     */
+    public void insertRows(int[] rows, int count, StudentBatch batch) {
+        if (count == 0) return;
+        if (batch.size() != count) {
+            throw new IllegalArgumentException("Batch has " + batch.size() + " students for " + count + " rows");
+        }
+        checkInsertRows(rows, count);
+        int[] ids = new int[count];
+        int[] nameCodes = new int[count];
+        double[] newGrades = new double[count];
+        byte[] nameBytes = batch.nameBytes();
+        for (int i = 0; i < count; i++) {
+            checkGrade(batch.grade(i));
+            newGrades[i] = batch.grade(i);
+            int start = batch.nameStart(i);
+            nameCodes[i] = names.intern(nameBytes, start, batch.nameEnd(i) - start);
+        }
+        long[] numbers = batch.studentNumbers();
+        reserveNumbers(numbers, count, null);
+        for (int i = 0; i < count; i++) {
+            ids[i] = nextId++;
+            if (ids[i] == rowsById.length) {
+                rowsById = Arrays.copyOf(rowsById, ids[i] * 2);
+            }
+        }
+        insertAt(rows, count, ids, nameCodes, newGrades, numbers == null ? null : Arrays.copyOf(numbers, count));
+    }
+
+    public void clear() {
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = i;
+        }
+        removeRows(rows, size);
+    }
+
+    public void setGrade(int id, double grade) {
+        checkGrade(grade);
+        int row = checkId(id);
+        double oldGrade = grades[row];
+        if (Double.compare(oldGrade, grade) == 0) return;
+        grades[row] = grade;
+        setLetter(row, scale.codeOf(grade));
+        statistics.replace(oldGrade, grade);
+        histogram.replace(oldGrade, grade);
+        for (Listener listener : listeners) {
+            listener.gradeChanged(row, oldGrade, grade);
+        }
+    }
+
+    /**
+     * Sets the grades of the given rows (distinct, ascending) and fires a
+     * single gradesChanged event for the rows whose grade actually changed.
+     * Every grade is validated up front, so either all rows change or none.
+     */
+    public void setGrades(int[] rows, int count, double[] newGrades) {
+        for (int i = 0; i < count; i++) {
+            checkRow(rows[i]);
+            if (i > 0 && rows[i] <= rows[i - 1]) {
+                throw new IllegalArgumentException("Rows must be distinct and ascending");
+            }
+            checkGrade(newGrades[i]);
+        }
+        int[] changedRows = new int[count];
+        double[] oldValues = new double[count];
+        double[] newValues = new double[count];
+        int changed = 0;
+        for (int i = 0; i < count; i++) {
+            int row = rows[i];
+            double oldGrade = grades[row];
+            if (Double.compare(oldGrade, newGrades[i]) == 0) continue;
+            grades[row] = newGrades[i];
+            setLetter(row, scale.codeOf(newGrades[i]));
+            statistics.replace(oldGrade, newGrades[i]);
+            histogram.replace(oldGrade, newGrades[i]);
+            changedRows[changed] = row;
+            oldValues[changed] = oldGrade;
+            newValues[changed] = newGrades[i];
+            changed++;
+        }
+        if (changed == 0) return;
+        for (Listener listener : listeners) {
+            listener.gradesChanged(changedRows, changed, oldValues, newValues);
+        }
+    }
+
+    public void setName(int id, String name) {
+        int row = checkId(id);
+        int code = names.intern(name);
+        if (code == nameCodes[row]) return;
+        for (Listener listener : listeners) {
+            listener.nameChanging(row);
+        }
+        nameCodes[row] = code;
+        for (Listener listener : listeners) {
+            listener.nameChanged(row);
+        }
+    }
+
+    /** Approximate bytes held by the column arrays and the name pool. */
+    public long footprint() {
+        return 4L * (ids.length + nameCodes.length + rowsById.length)
+                + 8L * grades.length + letterCodes.length + names.footprint()
+                + (studentNumbers == null ? 0 : 8L * studentNumbers.length + numberIndex.footprint());
+    }
+
+    private int append(int nameCode, double grade, long studentNumber) {
+        ensureCapacity(size + 1);
+        int id = nextId++;
+        if (id == rowsById.length) {
+            rowsById = Arrays.copyOf(rowsById, id * 2);
+        }
+        int row = size++;
+        rowsById[id] = row;
+        ids[row] = id;
+        nameCodes[row] = nameCode;
+        grades[row] = grade;
+        letterCodes[row] = scale.codeOf(grade);
+        letterCounts[letterCodes[row]]++;
+        if (studentNumber != NO_STUDENT_NUMBER && studentNumbers == null) {
+            allocateStudentNumbers();
+        }
+        if (studentNumbers != null) {
+            studentNumbers[row] = studentNumber;
+        }
+        statistics.add(grade);
+        histogram.add(grade);
+        return row;
+    }
+
+    // Fills the new rows from the back, moving each run of existing rows up once
+    private void insertAt(int[] rows, int count, int[] newIds, int[] newNameCodes, double[] newGrades,
+                          long[] newNumbers) {
+        ensureCapacity(size + count);
+        if (newNumbers != null && studentNumbers == null) {
+            allocateStudentNumbers();
+        }
+        int end = size;
+        for (int next = count - 1; next >= 0; next--) {
+            int row = rows[next];
+            // Old rows from here to end sit above the new row and move up by next + 1
+            int source = row - next;
+            int moved = end - source;
+            if (moved > 0) {
+                int target = source + next + 1;
+                System.arraycopy(ids, source, ids, target, moved);
+                System.arraycopy(nameCodes, source, nameCodes, target, moved);
+                System.arraycopy(grades, source, grades, target, moved);
+                System.arraycopy(letterCodes, source, letterCodes, target, moved);
+                if (studentNumbers != null) {
+                    System.arraycopy(studentNumbers, source, studentNumbers, target, moved);
+                }
+                for (int write = target; write < target + moved; write++) {
+                    rowsById[ids[write]] = write;
+                }
+            }
+            end = source;
+            ids[row] = newIds[next];
+            nameCodes[row] = newNameCodes[next];
+            grades[row] = newGrades[next];
+            letterCodes[row] = scale.codeOf(newGrades[next]);
+            letterCounts[letterCodes[row]]++;
+            if (studentNumbers != null) {
+                studentNumbers[row] = newNumbers == null ? NO_STUDENT_NUMBER : newNumbers[next];
+            }
+            rowsById[newIds[next]] = row;
+            statistics.add(newGrades[next]);
+            histogram.add(newGrades[next]);
+        }
+        size += count;
+        for (Listener listener : listeners) {
+            listener.rowsInserted(rows, count);
+        }
+    }
+
+    private void checkInsertRows(int[] rows, int count) {
+        for (int i = 0; i < count; i++) {
+            if (rows[i] < 0 || rows[i] >= size + count || (i > 0 && rows[i] <= rows[i - 1])) {
+                throw new IllegalArgumentException("Insert rows must be distinct, ascending and within "
+                        + (size + count));
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, newCapacity);
+        nameCodes = Arrays.copyOf(nameCodes, newCapacity);
+        grades = Arrays.copyOf(grades, newCapacity);
+        letterCodes = Arrays.copyOf(letterCodes, newCapacity);
+        if (studentNumbers != null) {
+            studentNumbers = Arrays.copyOf(studentNumbers, newCapacity);
+        }
+    }
+
+    private void allocateStudentNumbers() {
+        studentNumbers = new long[ids.length];
+        Arrays.fill(studentNumbers, NO_STUDENT_NUMBER);
+    }
+
+    private void reserveNumber(long studentNumber, int id) {
+        if (studentNumber < 0) {
+            throw new IllegalArgumentException("Student number must not be negative: " + studentNumber);
+        }
+        if (!numberIndex.putIfAbsent(studentNumber, id)) {
+            throw new IllegalArgumentException("Student number " + studentNumber + " is already in use");
+        }
+    }
+
+    // Maps each number to the id its row will get (ids[i], or the next ids in order if null), all or none
+    private void reserveNumbers(long[] numbers, int count, int[] ids) {
+        if (numbers == null) return;
+        int i = 0;
+        try {
+            for (; i < count; i++) {
+                if (numbers[i] != NO_STUDENT_NUMBER) {
+                    reserveNumber(numbers[i], ids == null ? nextId + i : ids[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            for (int j = 0; j < i; j++) {
+                if (numbers[j] != NO_STUDENT_NUMBER) numberIndex.remove(numbers[j]);
+            }
+            throw e;
+        }
+    }
+
+    private void setLetter(int row, byte code) {
+        letterCounts[letterCodes[row]]--;
+        letterCodes[row] = code;
+        letterCounts[code]++;
+    }
+
+    private void fireRowsAdded(int fromRow, int toRow) {
+        for (Listener listener : listeners) {
+            listener.rowsAdded(fromRow, toRow);
+        }
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+    }
+
+    private int checkId(int id) {
+        int row = rowOf(id);
+        if (row < 0) {
+            throw new IllegalArgumentException("No student with id " + id);
+        }
+        return row;
+    }
+}
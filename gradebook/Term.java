@@ -0,0 +1,82 @@
+package gradebook;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A term and its courses, with running statistics and a histogram over
+ * the final grades of every course in it.
+ *
+ * The aggregate listens to each course's finals and applies every add,
+ * removal and grade change as it happens, so reading a term's summary is
+ * a snapshot of a few KB rather than a pass over its courses. Final grades
+ * are rounded to hundredths, which keeps the statistics' sorted multiset
+ * at no more than 10,001 distinct grades however many students there are.
+ */
+public class Term {
+
+    private final String name;
+    private final List<Course> courses = new ArrayList<>();
+    private final GradeStatistics statistics = new GradeStatistics();
+    private final GradeHistogram histogram = new GradeHistogram();
+
+    Term(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+
+    public List<Course> getCourses() { return Collections.unmodifiableList(courses); }
+
+    /** Final grades in every course of the term. */
+    public GradeDistribution snapshotDistribution() {
+        return new GradeDistribution(statistics, histogram);
+    }
+
+    @Override
+    public String toString() { return name; }
+
+    void attach(Course course) {
+        courses.add(course);
+        StudentStore finals = course.getFinals();
+        for (int row = 0; row < finals.size(); row++) {
+            add(finals.getGrade(row));
+        }
+        finals.addListener(new StudentStore.Listener() {
+            @Override
+            public void rowsAdded(int fromRow, int toRow) {
+                for (int row = fromRow; row < toRow; row++) {
+                    add(finals.getGrade(row));
+                }
+            }
+
+            @Override
+            public void rowsRemoving(int[] rows, int count) {
+                for (int i = 0; i < count; i++) {
+                    double grade = finals.getGrade(rows[i]);
+                    statistics.remove(grade);
+                    histogram.remove(grade);
+                }
+            }
+
+            @Override
+            public void rowsInserted(int[] rows, int count) {
+                for (int i = 0; i < count; i++) {
+                    add(finals.getGrade(rows[i]));
+                }
+            }
+
+            @Override
+            public void gradeChanged(int row, double oldGrade, double newGrade) {
+                statistics.replace(oldGrade, newGrade);
+                histogram.replace(oldGrade, newGrade);
+            }
+        });
+    }
+
+    private void add(double grade) {
+        statistics.add(grade);
+        histogram.add(grade);
+    }
+}
@@ -0,0 +1,369 @@
+package gradebook;
+
+import java.util.Arrays;
+
+/**
+ * Unlimited undo/redo for a {@link StudentStore}, recorded as a command log
+ * by listening to the store.
+ *
+ * Each command is one entry in a set of primitive columns, so a grade
+ * change or rename costs a fixed 38 bytes of log no matter how large the
+ * roster is, and an added range costs the same until it is undone.
+ * Removals keep the removed rows' positions, ids, name codes and grades
+ * (20 bytes per row, 28 in a store with student numbers, all that is
+ * needed to bring them back); names
+ * themselves are never copied because {@link NamePool} codes stay valid.
+ * A bulk grade edit keeps each changed row with its old and new grade.
+ * Undo puts removed students back under their old ids and rows with
+ * {@link StudentStore#restoreRows}, so later commands still refer to the
+ * right students.
+ *
+ * Commands recorded between {@link #beginGroup()} and {@link #endGroup()}
+ * form one step, e.g. every batch of an import. Like the store, a history
+ * must only be used from one thread.
+ */
+public class UndoHistory implements StudentStore.Listener {
+
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_SET_GRADE = 3;
+    private static final byte OP_SET_NAME = 4;
+    private static final byte OP_INSERT = 5;
+    private static final byte OP_SET_GRADES = 6;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Rows taken out of (or put back into) the store by one command. */
+    private static final class RowSet {
+        final int[] rows;
+        int[] ids;
+        int[] nameCodes;
+        double[] grades;
+        // Null unless the store had student numbers
+        long[] studentNumbers;
+
+        RowSet(int[] rows) {
+            this.rows = rows;
+        }
+
+        void capture(StudentStore store) {
+            ids = new int[rows.length];
+            nameCodes = new int[rows.length];
+            grades = new double[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                ids[i] = store.getId(rows[i]);
+                nameCodes[i] = store.getNameCode(rows[i]);
+                grades[i] = store.getGrade(rows[i]);
+            }
+            if (store.hasStudentNumbers()) {
+                studentNumbers = new long[rows.length];
+                for (int i = 0; i < rows.length; i++) {
+                    studentNumbers[i] = store.getStudentNumber(rows[i]);
+                }
+            }
+        }
+
+        void release() {
+            ids = null;
+            nameCodes = null;
+            grades = null;
+            studentNumbers = null;
+        }
+
+        long footprint() {
+            long bytes = 24 + arrayBytes(rows.length, 4);
+            if (ids != null) {
+                bytes += 2 * arrayBytes(rows.length, 4) + arrayBytes(rows.length, 8);
+            }
+            if (studentNumbers != null) {
+                bytes += arrayBytes(rows.length, 8);
+            }
+            return bytes;
+        }
+
+        private static long arrayBytes(int length, int width) {
+            return (16L + (long) length * width + 7) & ~7L;
+        }
+    }
+
+    /** Rows whose grades one bulk edit changed, with their grades before and after. */
+    private static final class GradeChanges {
+        final int[] rows;
+        final double[] oldGrades;
+        final double[] newGrades;
+
+        GradeChanges(int[] rows, int count, double[] oldGrades, double[] newGrades) {
+            this.rows = Arrays.copyOf(rows, count);
+            this.oldGrades = Arrays.copyOf(oldGrades, count);
+            this.newGrades = Arrays.copyOf(newGrades, count);
+        }
+
+        long footprint() {
+            return 24 + RowSet.arrayBytes(rows.length, 4) + 2 * RowSet.arrayBytes(rows.length, 8);
+        }
+    }
+
+    private final StudentStore store;
+    private Runnable onChange = () -> {};
+
+    // Command log: entry i is ops[i] with its fields in the other columns
+    private byte[] ops = new byte[INITIAL_CAPACITY];
+    private boolean[] joined = new boolean[INITIAL_CAPACITY];
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] firsts = new int[INITIAL_CAPACITY];
+    private int[] seconds = new int[INITIAL_CAPACITY];
+    private double[] olds = new double[INITIAL_CAPACITY];
+    private double[] news = new double[INITIAL_CAPACITY];
+    private RowSet[] rowSets = new RowSet[INITIAL_CAPACITY];
+    private GradeChanges[] gradeChanges = new GradeChanges[INITIAL_CAPACITY];
+
+    private int size;
+    private int applied;
+    private int groupDepth;
+    private boolean groupStarted;
+    private boolean replaying;
+    private int renamedFrom;
+
+    public UndoHistory(StudentStore store) {
+        this.store = store;
+        store.addListener(this);
+    }
+
+    /** Stops recording; the history must not be used afterwards. */
+    public void close() {
+        store.removeListener(this);
+    }
+
+    /** Called after every recorded command, undo and redo, e.g. to update buttons. */
+    public void setOnChange(Runnable onChange) { this.onChange = onChange; }
+
+    public boolean canUndo() { return applied > 0; }
+
+    public boolean canRedo() { return applied < size; }
+
+    /** Commands that can currently be undone. */
+    public int getUndoableCommands() { return applied; }
+
+    /** Starts a step that lasts until the matching {@link #endGroup()}; groups nest. */
+    public void beginGroup() {
+        if (groupDepth++ == 0) {
+            groupStarted = false;
+        }
+    }
+
+    public void endGroup() {
+        if (groupDepth == 0) {
+            throw new IllegalStateException("endGroup without beginGroup");
+        }
+        groupDepth--;
+    }
+
+    /** Reverts the latest step. Returns false if there is nothing to undo. */
+    public boolean undo() {
+        if (applied == 0) return false;
+        replaying = true;
+        try {
+            int entry;
+            do {
+                entry = --applied;
+                revert(entry);
+            } while (joined[entry] && applied > 0);
+        } finally {
+            replaying = false;
+        }
+        onChange.run();
+        return true;
+    }
+
+    /** Re-applies the latest undone step. Returns false if there is nothing to redo. */
+    public boolean redo() {
+        if (applied == size) return false;
+        replaying = true;
+        try {
+            do {
+                reapply(applied++);
+            } while (applied < size && joined[applied]);
+        } finally {
+            replaying = false;
+        }
+        onChange.run();
+        return true;
+    }
+
+    /** Forgets every command. */
+    public void clear() {
+        Arrays.fill(rowSets, 0, size, null);
+        Arrays.fill(gradeChanges, 0, size, null);
+        size = 0;
+        applied = 0;
+        onChange.run();
+    }
+
+    /** Approximate bytes held by the log, including removed rows kept for undo. */
+    public long footprint() {
+        long bytes = (long) ops.length * (1 + 1 + 4 + 4 + 4 + 8 + 8 + 4 + 4);
+        for (int i = 0; i < size; i++) {
+            if (rowSets[i] != null) {
+                bytes += rowSets[i].footprint();
+            }
+            if (gradeChanges[i] != null) {
+                bytes += gradeChanges[i].footprint();
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void rowsAdded(int fromRow, int toRow) {
+        if (replaying) return;
+        int entry = record(OP_ADD);
+        firsts[entry] = fromRow;
+        seconds[entry] = toRow;
+        recorded();
+    }
+
+    @Override
+    public void rowsRemoving(int[] rows, int count) {
+        if (replaying) return;
+        RowSet removed = new RowSet(Arrays.copyOf(rows, count));
+        removed.capture(store);
+        int entry = record(OP_REMOVE);
+        rowSets[entry] = removed;
+        recorded();
+    }
+
+    @Override
+    public void rowsInserted(int[] rows, int count) {
+        if (replaying) return;
+        int entry = record(OP_INSERT);
+        rowSets[entry] = new RowSet(Arrays.copyOf(rows, count));
+        recorded();
+    }
+
+    @Override
+    public void gradeChanged(int row, double oldGrade, double newGrade) {
+        if (replaying) return;
+        int entry = record(OP_SET_GRADE);
+        ids[entry] = store.getId(row);
+        olds[entry] = oldGrade;
+        news[entry] = newGrade;
+        recorded();
+    }
+
+    @Override
+    public void gradesChanged(int[] rows, int count, double[] oldGrades, double[] newGrades) {
+        if (replaying) return;
+        int entry = record(OP_SET_GRADES);
+        gradeChanges[entry] = new GradeChanges(rows, count, oldGrades, newGrades);
+        recorded();
+    }
+
+    @Override
+    public void nameChanging(int row) {
+        renamedFrom = store.getNameCode(row);
+    }
+
+    @Override
+    public void nameChanged(int row) {
+        if (replaying) return;
+        int entry = record(OP_SET_NAME);
+        ids[entry] = store.getId(row);
+        firsts[entry] = renamedFrom;
+        seconds[entry] = store.getNameCode(row);
+        recorded();
+    }
+
+    private void revert(int entry) {
+        switch (ops[entry]) {
+            case OP_ADD -> {
+                int count = seconds[entry] - firsts[entry];
+                int[] rows = new int[count];
+                for (int i = 0; i < count; i++) {
+                    rows[i] = firsts[entry] + i;
+                }
+                RowSet added = new RowSet(rows);
+                added.capture(store);
+                rowSets[entry] = added;
+                store.removeRows(rows, count);
+            }
+            case OP_INSERT -> {
+                RowSet inserted = rowSets[entry];
+                inserted.capture(store);
+                store.removeRows(inserted.rows, inserted.rows.length);
+            }
+            case OP_REMOVE -> restore(rowSets[entry]);
+            case OP_SET_GRADE -> store.setGrade(ids[entry], olds[entry]);
+            case OP_SET_NAME -> store.setName(ids[entry], store.getNames().get(firsts[entry]));
+            case OP_SET_GRADES -> {
+                GradeChanges changes = gradeChanges[entry];
+                store.setGrades(changes.rows, changes.rows.length, changes.oldGrades);
+            }
+            default -> throw new IllegalStateException("Unknown command " + ops[entry]);
+        }
+    }
+
+    private void reapply(int entry) {
+        switch (ops[entry]) {
+            case OP_ADD -> {
+                // The added range only needs its rows again while undone
+                restore(rowSets[entry]);
+                rowSets[entry] = null;
+            }
+            case OP_INSERT -> {
+                restore(rowSets[entry]);
+                rowSets[entry].release();
+            }
+            case OP_REMOVE -> {
+                RowSet removed = rowSets[entry];
+                store.removeRows(removed.rows, removed.rows.length);
+            }
+            case OP_SET_GRADE -> store.setGrade(ids[entry], news[entry]);
+            case OP_SET_NAME -> store.setName(ids[entry], store.getNames().get(seconds[entry]));
+            case OP_SET_GRADES -> {
+                GradeChanges changes = gradeChanges[entry];
+                store.setGrades(changes.rows, changes.rows.length, changes.newGrades);
+            }
+            default -> throw new IllegalStateException("Unknown command " + ops[entry]);
+        }
+    }
+
+    private void restore(RowSet rowSet) {
+        store.restoreRows(rowSet.rows, rowSet.rows.length, rowSet.ids, rowSet.nameCodes, rowSet.grades,
+                rowSet.studentNumbers);
+    }
+
+    /** Appends an entry, discarding anything that could still be redone. */
+    private int record(byte op) {
+        if (applied < size) {
+            Arrays.fill(rowSets, applied, size, null);
+            Arrays.fill(gradeChanges, applied, size, null);
+            size = applied;
+        }
+        if (size == ops.length) {
+            int capacity = size * 2;
+            ops = Arrays.copyOf(ops, capacity);
+            joined = Arrays.copyOf(joined, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            firsts = Arrays.copyOf(firsts, capacity);
+            seconds = Arrays.copyOf(seconds, capacity);
+            olds = Arrays.copyOf(olds, capacity);
+            news = Arrays.copyOf(news, capacity);
+            rowSets = Arrays.copyOf(rowSets, capacity);
+            gradeChanges = Arrays.copyOf(gradeChanges, capacity);
+        }
+        int entry = size++;
+        applied = size;
+        ops[entry] = op;
+        joined[entry] = groupDepth > 0 && groupStarted;
+        if (groupDepth > 0) {
+            groupStarted = true;
+        }
+        rowSets[entry] = null;
+        gradeChanges[entry] = null;
+        return entry;
+    }
+
+    private void recorded() {
+        onChange.run();
+    }
+}
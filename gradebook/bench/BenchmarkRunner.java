@@ -0,0 +1,138 @@
+package gradebook.bench;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Minimal JMH-style harness: warmup and measured iterations per benchmark
+ * and size, with allocation and GC counters per operation (like JMH's gc
+ * profiler) and JSON export so runs can be diffed between versions.
+ */
+public class BenchmarkRunner {
+
+    /** One benchmark case; {@link #setUp} runs untimed before each size. */
+    public interface Benchmark {
+        String name();
+
+        void setUp(int size);
+
+        /** Runs one invocation and returns a value that must not be optimized away. */
+        long invoke();
+
+        /** Operations performed by one invocation, for per-op figures. */
+        default long operationsPerInvocation(int size) { return size; }
+    }
+
+    public static class Result {
+        final String benchmark;
+        final int size;
+        final double[] nanosPerOp;
+        final double allocatedBytesPerOp;
+        final long gcCount;
+        final long gcMillis;
+
+        Result(String benchmark, int size, double[] nanosPerOp, double allocatedBytesPerOp,
+               long gcCount, long gcMillis) {
+            this.benchmark = benchmark;
+            this.size = size;
+            this.nanosPerOp = nanosPerOp;
+            this.allocatedBytesPerOp = allocatedBytesPerOp;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        double mean() {
+            return Arrays.stream(nanosPerOp).average().orElse(0);
+        }
+
+        double error() {
+            double mean = mean();
+            double variance = Arrays.stream(nanosPerOp).map(x -> (x - mean) * (x - mean)).sum()
+                    / Math.max(1, nanosPerOp.length - 1);
+            return Math.sqrt(variance);
+        }
+    }
+
+    private static volatile long sink;
+
+    private final int warmupIterations;
+    private final int measuredIterations;
+    private final List<Result> results = new ArrayList<>();
+
+    public BenchmarkRunner(int warmupIterations, int measuredIterations) {
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+    }
+
+    public void run(Benchmark benchmark, int size) {
+        benchmark.setUp(size);
+        long operations = benchmark.operationsPerInvocation(size);
+        for (int i = 0; i < warmupIterations; i++) {
+            sink += benchmark.invoke();
+        }
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+
+        double[] nanosPerOp = new double[measuredIterations];
+        for (int i = 0; i < measuredIterations; i++) {
+            long start = System.nanoTime();
+            sink += benchmark.invoke();
+            nanosPerOp[i] = (double) (System.nanoTime() - start) / operations;
+        }
+
+        double allocatedPerOp = (double) (threads.getThreadAllocatedBytes(threadId) - allocatedBefore)
+                / ((double) operations * measuredIterations);
+        Result result = new Result(benchmark.name(), size, nanosPerOp, allocatedPerOp,
+                gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+        results.add(result);
+        System.out.printf("%-28s %,11d  %12.2f +- %8.2f ns/op  %10.1f B/op  gc %3d (%d ms)%n",
+                result.benchmark, size, result.mean(), result.error(), allocatedPerOp,
+                result.gcCount, result.gcMillis);
+    }
+
+    public void writeJson(Path path) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path)) {
+            out.write("[\n");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                out.write(String.format(Locale.ROOT,
+                        "  {\"benchmark\": \"%s\", \"params\": {\"size\": %d}, \"mode\": \"avgt\","
+                                + " \"unit\": \"ns/op\", \"score\": %.3f, \"scoreError\": %.3f,"
+                                + " \"rawData\": %s, \"gc.alloc.rate.norm\": %.3f,"
+                                + " \"gc.count\": %d, \"gc.time\": %d}%s%n",
+                        r.benchmark, r.size, r.mean(), r.error(), Arrays.toString(r.nanosPerOp),
+                        r.allocatedBytesPerOp, r.gcCount, r.gcMillis, i + 1 < results.size() ? "," : ""));
+            }
+            out.write("]\n");
+        }
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+}
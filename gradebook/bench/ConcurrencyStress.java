@@ -0,0 +1,198 @@
+package gradebook.bench;
+
+import gradebook.ConcurrentGradebook;
+import gradebook.GradebookMirror;
+import gradebook.StudentStore;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-threaded stress check for {@link ConcurrentGradebook} and
+ * {@link GradebookMirror}. Writer threads add, remove, re-grade and rename
+ * students while a store thread mirrors the gradebook and makes edits of
+ * its own, and a reader checks every snapshot:
+ *
+ * - its size matches the students it visits, and every grade is in 0..100;
+ * - one writer adds "seq N" students in order and never removes them, so
+ *   the N present must always form a prefix 0..m (a torn, per-stripe view
+ *   would show gaps);
+ * - visiting it twice gives the same result while writers keep going.
+ *
+ * Afterwards the mirrored store must hold exactly the gradebook's students.
+ * Exits with status 1 on the first violation.
+ *
+ *   java -cp out gradebook.bench.ConcurrencyStress [writers] [seconds]
+ */
+public class ConcurrencyStress {
+
+    public static void main(String[] args) throws Exception {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        ConcurrentGradebook gradebook = new ConcurrentGradebook();
+        StudentStore store = new StudentStore();
+        ExecutorService storeThread = Executors.newSingleThreadExecutor();
+        GradebookMirror mirror = storeThread.submit(() -> new GradebookMirror(store, gradebook, storeThread)).get();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong operations = new AtomicLong();
+        AtomicLong snapshots = new AtomicLong();
+        AtomicInteger highestId = new AtomicInteger();
+        List<String> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> {
+                Random random = new Random(writer);
+                List<Integer> own = new ArrayList<>();
+                long done = 0;
+                while (running.get()) {
+                    int choice = random.nextInt(100);
+                    if (choice < 25 || own.isEmpty()) {
+                        int id = gradebook.add("w" + writer + " " + done, random.nextInt(1001) / 10.0);
+                        own.add(id);
+                        highestId.accumulateAndGet(id, Math::max);
+                    } else if (choice < 40) {
+                        gradebook.remove(own.remove(random.nextInt(own.size())));
+                    } else if (choice < 95) {
+                        // Anyone's student, including ones that are gone
+                        int id = random.nextInt(highestId.get() + 1);
+                        gradebook.setGrade(id, random.nextInt(1001) / 10.0);
+                    } else {
+                        gradebook.setName(own.get(random.nextInt(own.size())), "w" + writer + " renamed " + done);
+                    }
+                    done++;
+                }
+                operations.addAndGet(done);
+            }, "writer-" + w));
+        }
+
+        threads.add(new Thread(() -> {
+            long done = 0;
+            while (running.get()) {
+                int id = gradebook.add("seq " + done, 50);
+                highestId.accumulateAndGet(id, Math::max);
+                done++;
+            }
+            operations.addAndGet(done);
+        }, "sequence-writer"));
+
+        threads.add(new Thread(() -> {
+            while (running.get()) {
+                ConcurrentGradebook.Snapshot snapshot = gradebook.snapshot();
+                BitSet sequence = new BitSet();
+                long[] first = visit(snapshot, sequence);
+                if (first[0] != snapshot.size()) {
+                    fail(failures, "snapshot size " + snapshot.size() + " but visited " + first[0]);
+                }
+                if (first[1] != 0) {
+                    fail(failures, first[1] + " grades outside 0..100");
+                }
+                if (sequence.nextClearBit(0) != sequence.cardinality()) {
+                    fail(failures, "sequence has a gap at " + sequence.nextClearBit(0)
+                            + " with " + sequence.cardinality() + " present");
+                }
+                long[] second = visit(snapshot, new BitSet());
+                if (first[2] != second[2]) {
+                    fail(failures, "snapshot changed while it was read");
+                }
+                snapshots.incrementAndGet();
+            }
+        }, "reader"));
+
+        // Local edits on the store thread, like a user working in the UI
+        threads.add(new Thread(() -> {
+            Random random = new Random(99);
+            while (running.get()) {
+                storeThread.execute(() -> {
+                    if (store.isEmpty()) return;
+                    int row = random.nextInt(store.size());
+                    switch (random.nextInt(3)) {
+                        case 0 -> store.setGrade(store.getId(row), random.nextInt(1001) / 10.0);
+                        case 1 -> store.add("local " + random.nextInt(1000), random.nextInt(1001) / 10.0);
+                        default -> {
+                            if (!store.getName(row).startsWith("seq ")) store.remove(store.getId(row));
+                        }
+                    }
+                });
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "local-editor"));
+
+        long start = System.nanoTime();
+        threads.forEach(Thread::start);
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        // Let the mirror catch up, then compare both sides
+        storeThread.submit(mirror::drain).get();
+        String mismatch = storeThread.submit(() -> compare(gradebook.snapshot(), store, mirror)).get();
+        if (mismatch != null) {
+            fail(failures, mismatch);
+        }
+        storeThread.shutdown();
+        storeThread.awaitTermination(10, TimeUnit.SECONDS);
+
+        System.out.printf("%d writers, %.1f s: %,d writes (%,.0f/s), %,d snapshots checked, %,d students%n",
+                writers, elapsed, operations.get(), operations.get() / elapsed, snapshots.get(), gradebook.size());
+        if (!failures.isEmpty()) {
+            failures.forEach(failure -> System.out.println("FAIL: " + failure));
+            System.exit(1);
+        }
+        System.out.println("OK: every snapshot was consistent and the mirror matches the gradebook");
+    }
+
+    /** Returns {visited, grades out of range, checksum} and records the seq numbers present. */
+    private static long[] visit(ConcurrentGradebook.Snapshot snapshot, BitSet sequence) {
+        long[] result = new long[3];
+        snapshot.forEach((id, name, grade) -> {
+            result[0]++;
+            if (!(grade >= 0 && grade <= 100)) result[1]++;
+            result[2] = result[2] * 31 + id * 17L + Double.hashCode(grade) + name.hashCode();
+            if (name.startsWith("seq ")) sequence.set(Integer.parseInt(name.substring(4)));
+        });
+        return result;
+    }
+
+    private static String compare(ConcurrentGradebook.Snapshot snapshot, StudentStore store, GradebookMirror mirror) {
+        if (snapshot.size() != store.size()) {
+            return "gradebook has " + snapshot.size() + " students but the store has " + store.size();
+        }
+        String[] mismatch = new String[1];
+        snapshot.forEach((id, name, grade) -> {
+            if (mismatch[0] != null) return;
+            int row = mirror.storeIdOf(id) < 0 ? -1 : store.rowOf(mirror.storeIdOf(id));
+            if (row < 0) {
+                mismatch[0] = "student " + id + " (" + name + ") is missing from the store";
+            } else if (!store.getName(row).equals(name) || store.getGrade(row) != grade) {
+                mismatch[0] = "student " + id + " is " + name + "/" + grade + " but the store has "
+                        + store.getName(row) + "/" + store.getGrade(row);
+            }
+        });
+        return mismatch[0];
+    }
+
+    private static void fail(List<String> failures, String message) {
+        synchronized (failures) {
+            if (failures.size() < 10) failures.add(message);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package gradebook.bench;
+
+import gradebook.ConcurrentGradebook;
+import gradebook.StudentStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write throughput of {@link ConcurrentGradebook} against one lock around a
+ * {@link StudentStore}, for 1..8 writer threads on a mixed workload (90%
+ * grade changes, 5% adds, 5% removals) over a preloaded roster, while a
+ * reader takes a snapshot (or, for the baseline, copies the grades under
+ * the lock) every 10 ms. Reports writes per second and the mean snapshot
+ * time. Scaling past one thread needs as many cores.
+ *
+ *   java -cp out gradebook.bench.ConcurrentGradebookBenchmark [students] [seconds]
+ */
+public class ConcurrentGradebookBenchmark {
+
+    private interface Target {
+        void setGrade(int id, double grade);
+        int add(String name, double grade);
+        void remove(int id);
+        void snapshot();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+
+        System.out.printf("%-16s %7s %14s %14s%n", "", "threads", "writes/s", "snapshot");
+        for (int threads : new int[] {1, 2, 4, 8}) {
+            run("striped", threads, seconds, striped(n), n);
+            run("global lock", threads, seconds, globalLock(n), n);
+        }
+    }
+
+    private static Target striped(int n) {
+        ConcurrentGradebook gradebook = new ConcurrentGradebook();
+        for (int i = 0; i < n; i++) {
+            gradebook.add("Student " + i, (i * 37 % 1001) / 10.0);
+        }
+        return new Target() {
+            public void setGrade(int id, double grade) { gradebook.setGrade(id, grade); }
+            public int add(String name, double grade) { return gradebook.add(name, grade); }
+            public void remove(int id) { gradebook.remove(id); }
+            public void snapshot() { gradebook.snapshot(); }
+        };
+    }
+
+    private static Target globalLock(int n) {
+        StudentStore store = new StudentStore();
+        for (int i = 0; i < n; i++) {
+            store.add("Student " + i, (i * 37 % 1001) / 10.0);
+        }
+        return new Target() {
+            public synchronized void setGrade(int id, double grade) {
+                if (store.rowOf(id) >= 0) store.setGrade(id, grade);
+            }
+            public synchronized int add(String name, double grade) { return store.add(name, grade).getId(); }
+            public synchronized void remove(int id) { store.remove(id); }
+            public synchronized void snapshot() { store.copyGrades(); }
+        };
+    }
+
+    private static void run(String label, int threads, int seconds, Target target, int n) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong writes = new AtomicLong();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            workers.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                long done = 0;
+                while (running.get()) {
+                    int choice = random.nextInt(100);
+                    if (choice < 90) {
+                        target.setGrade(random.nextInt(n), random.nextInt(1001) / 10.0);
+                    } else if (choice < 95) {
+                        target.add("New " + done, 50);
+                    } else {
+                        target.remove(random.nextInt(n));
+                    }
+                    done++;
+                }
+                writes.addAndGet(done);
+            }));
+        }
+        long[] snapshotNanos = new long[2];
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                long start = System.nanoTime();
+                target.snapshot();
+                snapshotNanos[0] += System.nanoTime() - start;
+                snapshotNanos[1]++;
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        workers.forEach(Thread::start);
+        reader.start();
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        reader.join();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-16s %7d %,14.0f %11.1f us%n", label, threads, writes.get() / elapsed,
+                snapshotNanos[1] == 0 ? 0 : snapshotNanos[0] / 1e3 / snapshotNanos[1]);
+    }
+}
@@ -0,0 +1,144 @@
+package gradebook.bench;
+
+import gradebook.Course;
+import gradebook.CourseCatalog;
+import gradebook.GradeDistribution;
+import gradebook.StudentBatch;
+import gradebook.StudentStore;
+import gradebook.Term;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Builds a full-size {@link CourseCatalog} (100K students, each enrolled in
+ * 20 courses over two terms, 30 weighted assessments per course: 60M
+ * scores) and reports heap use and the cost of the operations the UI and
+ * an import depend on: bulk score entry, single score edits with their
+ * incremental course and term aggregates, a weight change, switching the
+ * displayed course, and saving/loading the catalog file. For comparison
+ * it also times recomputing one course's summary from scratch.
+ *
+ *   java -Xmx2g -cp out gradebook.bench.CourseBenchmark [students] [courses] [assessments]
+ */
+public class CourseBenchmark {
+
+    private static final int EDITS = 1_000_000;
+    private static final int SWITCHES = 10_000;
+
+    public static void main(String[] args) throws IOException {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int courseCount = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int assessments = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        StudentStore roster = new StudentStore();
+        StudentBatch batch = new StudentBatch(students);
+        for (int i = 0; i < students; i++) {
+            batch.add("Student " + i, 50);
+        }
+        roster.addAll(batch);
+        CourseCatalog catalog = new CourseCatalog(roster);
+        Term[] terms = {catalog.addTerm("Fall"), catalog.addTerm("Spring")};
+        int[] ids = new int[students];
+        for (int i = 0; i < students; i++) {
+            ids[i] = roster.getId(i);
+        }
+        Course[] courses = new Course[courseCount];
+        for (int c = 0; c < courseCount; c++) {
+            courses[c] = catalog.addCourse("C" + c, terms[c % terms.length]);
+            for (int a = 0; a < assessments; a++) {
+                courses[c].addAssessment("Assessment " + a, 1 + a % 5);
+            }
+            courses[c].enrollAll(ids, students);
+        }
+        report("build (roster, courses, enrollment)", start, 1, "");
+
+        SplittableRandom random = new SplittableRandom(42);
+        double[] scores = new double[students];
+        start = System.nanoTime();
+        for (Course course : courses) {
+            for (int a = 0; a < assessments; a++) {
+                for (int i = 0; i < students; i++) {
+                    scores[i] = random.nextInt(1001) / 10.0;
+                }
+                course.setScores(a, ids, scores, students);
+            }
+        }
+        long total = (long) courseCount * assessments * students;
+        report(String.format("bulk score entry (%,d scores)", total), start, total, "per score");
+
+        System.gc();
+        System.out.printf("%-44s %,10.1f MB heap, %,.1f MB in courses%n", "memory",
+                (usedHeap() - heapBefore) / 1e6, catalog.footprint() / 1e6);
+
+        start = System.nanoTime();
+        for (int i = 0; i < EDITS; i++) {
+            courses[random.nextInt(courseCount)].setScore(ids[random.nextInt(students)],
+                    random.nextInt(assessments), random.nextInt(1001) / 10.0);
+        }
+        report("single score edit (final, course, term)", start, EDITS, "per edit");
+
+        start = System.nanoTime();
+        courses[0].setWeight(0, courses[0].getWeight(0) + 10);
+        report("weight change (one course)", start, 1, "");
+
+        long hash = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < SWITCHES; i++) {
+            Course course = courses[i % courseCount];
+            GradeDistribution distribution = course.snapshotDistribution();
+            hash += Double.doubleToLongBits(distribution.getMedian() + distribution.getPercentile(90));
+            hash += course.getTerm().snapshotDistribution().getCount();
+        }
+        report("course switch (course + term summary)", start, SWITCHES, "per switch");
+
+        start = System.nanoTime();
+        StudentStore finals = courses[0].getFinals();
+        GradeDistribution rescan = new GradeDistribution();
+        for (int row = 0; row < finals.size(); row++) {
+            double sum = 0;
+            int id = finals.getId(row);
+            int student = courses[0].getStudentId(row);
+            for (int a = 0; a < assessments; a++) {
+                double score = courses[0].getScore(student, a);
+                if (!Double.isNaN(score)) sum += score * courses[0].getWeight(a);
+            }
+            rescan.add(sum / courses[0].getTotalWeight());
+            hash += id;
+        }
+        hash += Double.doubleToLongBits(rescan.getMedian());
+        report("recompute one course from scratch", start, 1, "");
+
+        Path file = Files.createTempFile("courses", ".dat");
+        try {
+            start = System.nanoTime();
+            long bytes = catalog.write(file, 1);
+            report(String.format("write catalog (%,.1f MB)", bytes / 1e6), start, 1, "");
+            start = System.nanoTime();
+            new CourseCatalog(roster).read(file, 1);
+            report("read catalog", start, 1, "");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.println("(checksum " + hash + ")");
+    }
+
+    private static void report(String label, long start, long operations, String unit) {
+        double nanos = System.nanoTime() - start;
+        if (operations == 1) {
+            System.out.printf("%-44s %,10.1f ms%n", label, nanos / 1e6);
+        } else {
+            System.out.printf("%-44s %,10.1f ms %,10.0f ns %s%n", label, nanos / 1e6, nanos / operations, unit);
+        }
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,77 @@
+package gradebook.bench;
+
+import gradebook.RosterExporter;
+import gradebook.StudentBatch;
+import gradebook.StudentStore;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Export throughput for every format on a large roster, next to a
+ * straightforward BufferedWriter + string concatenation CSV writer.
+ * Each format is written twice and the second run is reported.
+ *
+ *   java -Xmx3g -cp out gradebook.bench.ExportBenchmark [students] [dir]
+ */
+public class ExportBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Path directory = Path.of(args.length > 1 ? args[1] : "export-bench");
+        Files.createDirectories(directory);
+
+        StudentStore store = new StudentStore();
+        StudentBatch batch = new StudentBatch(50_000);
+        for (int i = 0; i < n; i++) {
+            batch.add("Student " + i, (i * 37 % 1001) / 10.0);
+            if (batch.size() == 50_000) {
+                store.addAll(batch);
+                batch.clear();
+            }
+        }
+        store.addAll(batch);
+
+        RosterExporter exporter = new RosterExporter();
+        for (RosterExporter.Format format : RosterExporter.Format.values()) {
+            Path path = directory.resolve("roster." + format.getExtension());
+            exporter.export(store, path, format, null);
+            long allocated = allocatedBytes();
+            RosterExporter.Result result = exporter.export(store, path, format, null);
+            report(format.toString(), result.getElapsedNanos(), n, result.getBytes(), allocatedBytes() - allocated);
+        }
+
+        Path baseline = directory.resolve("roster-baseline.csv");
+        naiveCsv(store, baseline);
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        naiveCsv(store, baseline);
+        report("BufferedWriter baseline", System.nanoTime() - start, n, Files.size(baseline),
+                allocatedBytes() - allocated);
+    }
+
+    private static void naiveCsv(StudentStore store, Path path) throws IOException {
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            out.write("name,grade\n");
+            for (int row = 0; row < store.size(); row++) {
+                out.write(store.getName(row) + "," + store.getGrade(row) + "\n");
+            }
+        }
+    }
+
+    private static void report(String label, long nanos, int rows, long bytes, long allocated) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-24s %8.0f ms  %,12.0f rows/s  %7.1f MB/s  %,14d bytes  %9.1f B alloc/row%n",
+                label, nanos / 1e6, rows / seconds, bytes / seconds / 1e6, bytes, (double) allocated / rows);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,512 @@
+package gradebook.bench;
+
+import gradebook.GradeAdjustment;
+import gradebook.GradeAnalytics;
+import gradebook.GradeDistribution;
+import gradebook.GradeHistogram;
+import gradebook.GradeIndex;
+import gradebook.GradeInput;
+import gradebook.GradeStatistics;
+import gradebook.GradingScale;
+import gradebook.NameIndex;
+import gradebook.Student;
+import gradebook.StudentStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks for the model and statistics hot paths.
+ *
+ * Usage: java -Xmx4g -cp out gradebook.bench.GradebookBenchmarks
+ *            [--sizes 1000,10000,...] [--warmup 5] [--iterations 10]
+ *            [--only name[,name...]] [--json results.json]
+ */
+public class GradebookBenchmarks {
+
+    private static final int DEFAULT_WARMUP = 5;
+    private static final int DEFAULT_ITERATIONS = 10;
+    private static final int[] DEFAULT_SIZES = {1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+    private static final int CHURN_OPERATIONS = 1_000;
+    // Reads per invocation, so a single O(1) read is not lost in timer resolution
+    private static final int SUMMARY_READS = 10_000;
+    private static final int SNAPSHOTS = 1_000;
+    private static final int SEARCH_ROUNDS = 100;
+    private static final int GRADE_TOP_N = 50;
+    private static final int BULK_ROWS = 30_000;
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = DEFAULT_SIZES;
+        int warmup = DEFAULT_WARMUP;
+        int iterations = DEFAULT_ITERATIONS;
+        List<String> only = List.of();
+        Path json = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sizes" -> sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                case "--only" -> only = List.of(args[++i].split(","));
+                case "--json" -> json = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations);
+        for (BenchmarkRunner.Benchmark benchmark : all()) {
+            if (!only.isEmpty() && !only.contains(benchmark.name())) continue;
+            for (int size : sizes) {
+                runner.run(benchmark, size);
+            }
+        }
+        if (json != null) {
+            runner.writeJson(json);
+            System.out.println("Results written to " + json);
+        }
+    }
+
+    static List<BenchmarkRunner.Benchmark> all() {
+        return List.of(new ConstructAndGrade(), new LetterGrade(), new SummaryFullScan(),
+                new SummaryIncremental(), new Analyze(), new HistogramUpdate(), new SummarySnapshot(),
+                new NameIndexBuild(), new NameSearch(), new AddDeleteChurn(), new SortByGrade(), new FilterBelow60(),
+                new GradeIndexBuild(), new GradeIndexQueries(), new GradeIndexUpdate(), new BulkDeleteRestore(),
+                new BulkCurve(), new ScaleSwitch(), new TypedEntry());
+    }
+
+    static double grade(int i) {
+        return (i * 37 % 1001) / 10.0;
+    }
+
+    static StudentStore roster(int size) {
+        StudentStore store = new StudentStore();
+        for (int i = 0; i < size; i++) {
+            store.add("Student " + i, grade(i));
+        }
+        return store;
+    }
+
+    /** Builds a store of N students from scratch. */
+    static class ConstructAndGrade implements BenchmarkRunner.Benchmark {
+        private String[] names;
+
+        public String name() { return "constructAndGrade"; }
+
+        public void setUp(int size) {
+            names = new String[size];
+            for (int i = 0; i < size; i++) names[i] = "Student " + i;
+        }
+
+        public long invoke() {
+            StudentStore store = new StudentStore();
+            for (int i = 0; i < names.length; i++) {
+                store.add(names[i], grade(i));
+            }
+            return store.size();
+        }
+    }
+
+    /** Classifies N grades into letters. */
+    static class LetterGrade implements BenchmarkRunner.Benchmark {
+        private double[] grades;
+
+        public String name() { return "letterGrade"; }
+
+        public void setUp(int size) {
+            grades = new double[size];
+            for (int i = 0; i < size; i++) grades[i] = grade(i);
+        }
+
+        public long invoke() {
+            long hash = 0;
+            for (double grade : grades) {
+                hash += Student.calculateLetterGrade(grade).charAt(0);
+            }
+            return hash;
+        }
+    }
+
+    /** The summary loop updateSummaryWithAnimation used to run on every edit. */
+    static class SummaryFullScan implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+
+        public String name() { return "summaryFullScan"; }
+
+        public void setUp(int size) { store = roster(size); }
+
+        public long invoke() {
+            double sum = 0;
+            double highest = store.getGrade(0);
+            double lowest = store.getGrade(0);
+            for (int row = 0; row < store.size(); row++) {
+                double grade = store.getGrade(row);
+                sum += grade;
+                if (grade > highest) highest = grade;
+                if (grade < lowest) lowest = grade;
+            }
+            return Double.doubleToLongBits(sum / store.size() + highest + lowest);
+        }
+    }
+
+    /** Reading the incrementally maintained statistics. */
+    static class SummaryIncremental implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+
+        public String name() { return "summaryIncremental"; }
+
+        public void setUp(int size) { store = roster(size); }
+
+        public long invoke() {
+            GradeStatistics statistics = store.getStatistics();
+            long hash = 0;
+            for (int i = 0; i < SUMMARY_READS; i++) {
+                hash += Double.doubleToLongBits(statistics.getAverage() + statistics.getHighest()
+                        + statistics.getLowest()) + statistics.getCount();
+            }
+            return hash;
+        }
+
+        public long operationsPerInvocation(int size) { return SUMMARY_READS; }
+    }
+
+    /** Full distribution (percentiles, std dev, letters) on the fork/join pool. */
+    static class Analyze implements BenchmarkRunner.Benchmark {
+        private double[] grades;
+
+        public String name() { return "analyze"; }
+
+        public void setUp(int size) { grades = roster(size).copyGrades(); }
+
+        public long invoke() {
+            return Double.doubleToLongBits(GradeAnalytics.analyze(grades, 0, grades.length).getMedian());
+        }
+    }
+
+    /** One grade change applied to the distribution sketch. */
+    static class HistogramUpdate implements BenchmarkRunner.Benchmark {
+        private GradeHistogram histogram;
+        private double[] grades;
+
+        public String name() { return "histogramUpdate"; }
+
+        public void setUp(int size) {
+            StudentStore store = roster(size);
+            histogram = store.getHistogram();
+            grades = store.copyGrades();
+        }
+
+        public long invoke() {
+            for (int i = 0; i < SUMMARY_READS; i++) {
+                int row = i % grades.length;
+                double updated = grade(i * 7 + 3);
+                histogram.replace(grades[row], updated);
+                grades[row] = updated;
+            }
+            return histogram.getCount();
+        }
+
+        public long operationsPerInvocation(int size) { return SUMMARY_READS; }
+    }
+
+    /** What the summary panel does per frame: snapshot plus percentiles. */
+    static class SummarySnapshot implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+
+        public String name() { return "summarySnapshot"; }
+
+        public void setUp(int size) { store = roster(size); }
+
+        public long invoke() {
+            long hash = 0;
+            for (int i = 0; i < SNAPSHOTS; i++) {
+                GradeDistribution distribution = store.snapshotDistribution();
+                hash += Double.doubleToLongBits(distribution.getPercentile(10) + distribution.getMedian()
+                        + distribution.getPercentile(90));
+            }
+            return hash;
+        }
+
+        public long operationsPerInvocation(int size) { return SNAPSHOTS; }
+    }
+
+    /** Indexing every name of a roster for search. */
+    static class NameIndexBuild implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+
+        public String name() { return "nameIndexBuild"; }
+
+        public void setUp(int size) { store = roster(size); }
+
+        public long invoke() {
+            NameIndex index = new NameIndex(store);
+            index.close();
+            return index.getEntryCount();
+        }
+    }
+
+    /** Search-box queries: word prefixes, substrings and misses, up to 1,000 results each. */
+    static class NameSearch implements BenchmarkRunner.Benchmark {
+        private static final String[] QUERIES = {"st", "42", "student 4242", "ent 12", "999999", "nobody"};
+
+        private NameIndex index;
+        private final int[] ids = new int[1_000];
+
+        public String name() { return "nameSearch"; }
+
+        public void setUp(int size) { index = new NameIndex(roster(size)); }
+
+        public long invoke() {
+            long found = 0;
+            for (int round = 0; round < SEARCH_ROUNDS; round++) {
+                for (String query : QUERIES) {
+                    found += index.search(query, ids);
+                }
+            }
+            return found;
+        }
+
+        public long operationsPerInvocation(int size) { return (long) SEARCH_ROUNDS * QUERIES.length; }
+    }
+
+    /** Adding one student and deleting a random one, as interactive editing does. */
+    static class AddDeleteChurn implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+        private Random random;
+
+        public String name() { return "addDeleteChurn"; }
+
+        public void setUp(int size) {
+            store = roster(size);
+            random = new Random(42);
+        }
+
+        public long invoke() {
+            for (int i = 0; i < CHURN_OPERATIONS; i++) {
+                store.add("New student", grade(i));
+                store.remove(store.getId(random.nextInt(store.size())));
+            }
+            return store.size();
+        }
+
+        public long operationsPerInvocation(int size) { return CHURN_OPERATIONS; }
+    }
+
+    /** What a click on the grade column header does: sort every row by grade. */
+    static class SortByGrade implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+
+        public String name() { return "sortByGrade"; }
+
+        public void setUp(int size) { store = roster(size); }
+
+        public long invoke() {
+            List<Student> rows = new ArrayList<>(store.size());
+            for (int row = 0; row < store.size(); row++) {
+                rows.add(store.get(row));
+            }
+            rows.sort(Comparator.comparingDouble(Student::getGrade));
+            return rows.get(0).getId();
+        }
+    }
+
+    /** Collecting every student below 60. */
+    static class FilterBelow60 implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+
+        public String name() { return "filterBelow60"; }
+
+        public void setUp(int size) { store = roster(size); }
+
+        public long invoke() {
+            int[] matches = new int[store.size()];
+            int count = 0;
+            for (int row = 0; row < store.size(); row++) {
+                if (store.getGrade(row) < 60) matches[count++] = row;
+            }
+            return count;
+        }
+    }
+
+    /** Building the (grade, id) index from scratch, as on startup or a large import. */
+    static class GradeIndexBuild implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+
+        public String name() { return "gradeIndexBuild"; }
+
+        public void setUp(int size) { store = roster(size); }
+
+        public long invoke() {
+            GradeIndex index = new GradeIndex(store);
+            index.close();
+            return index.size();
+        }
+    }
+
+    /** A band count, a rank-of-student, a select and a top-50, as the filter chips use them. */
+    static class GradeIndexQueries implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+        private GradeIndex index;
+
+        public String name() { return "gradeIndexQueries"; }
+
+        public void setUp(int size) {
+            store = roster(size);
+            index = new GradeIndex(store);
+        }
+
+        public long invoke() {
+            long hash = 0;
+            for (int i = 0; i < SUMMARY_READS; i++) {
+                int row = (int) ((i * 7919L) % store.size());
+                hash += index.countBetween(80, 89.9) + index.rankOf(store.getId(row))
+                        + index.idAt(row) + index.top(GRADE_TOP_N)[0];
+            }
+            return hash;
+        }
+
+        public long operationsPerInvocation(int size) { return SUMMARY_READS; }
+    }
+
+    /** setGrade with the index attached, i.e. one delete and one insert per change. */
+    static class GradeIndexUpdate implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+
+        public String name() { return "gradeIndexUpdate"; }
+
+        public void setUp(int size) {
+            store = roster(size);
+            new GradeIndex(store);
+        }
+
+        public long invoke() {
+            for (int i = 0; i < SUMMARY_READS; i++) {
+                int row = (int) ((i * 7919L) % store.size());
+                store.setGrade(store.getId(row), grade(i * 13 + 5));
+            }
+            return store.size();
+        }
+
+        public long operationsPerInvocation(int size) { return SUMMARY_READS; }
+    }
+
+    /** Deleting a selection of up to 30K students in one batch, then undoing it. */
+    static class BulkDeleteRestore implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+        private int[] rows;
+        private int[] ids;
+        private int[] nameCodes;
+        private double[] grades;
+
+        public String name() { return "bulkDeleteRestore"; }
+
+        public void setUp(int size) {
+            store = roster(size);
+            // Every other row, spread over the roster like a sorted or filtered selection
+            int count = Math.min(BULK_ROWS, size / 2);
+            int step = size / count;
+            rows = new int[count];
+            ids = new int[count];
+            nameCodes = new int[count];
+            grades = new double[count];
+            for (int i = 0; i < count; i++) {
+                rows[i] = i * step;
+                ids[i] = store.getId(rows[i]);
+                nameCodes[i] = store.getNameCode(rows[i]);
+                grades[i] = store.getGrade(rows[i]);
+            }
+        }
+
+        public long invoke() {
+            store.removeRows(rows, rows.length);
+            store.restoreRows(rows, rows.length, ids, nameCodes, grades);
+            return store.size();
+        }
+
+        public long operationsPerInvocation(int size) { return rows.length; }
+    }
+
+    /** Curving up to 30K selected students with the grade index attached. */
+    static class BulkCurve implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+        private int[] rows;
+        private int round;
+
+        public String name() { return "bulkCurve"; }
+
+        public void setUp(int size) {
+            store = roster(size);
+            new GradeIndex(store);
+            int count = Math.min(BULK_ROWS, size);
+            int step = size / count;
+            rows = new int[count];
+            for (int i = 0; i < count; i++) {
+                rows[i] = i * step;
+            }
+        }
+
+        public long invoke() {
+            // Alternate up and down so grades stay spread out
+            GradeAdjustment.CURVE.applyTo(store, rows, rows.length, round++ % 2 == 0 ? 5 : -5);
+            return store.size();
+        }
+
+        public long operationsPerInvocation(int size) { return rows.length; }
+    }
+
+    /** Switching the grading scale, which reletters every student. */
+    static class ScaleSwitch implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+        private int round;
+
+        public String name() { return "scaleSwitch"; }
+
+        public void setUp(int size) { store = roster(size); }
+
+        public long invoke() {
+            store.setScale(round++ % 2 == 0 ? GradingScale.PLUS_MINUS : GradingScale.STANDARD);
+            return store.getLetter(0).ordinal();
+        }
+    }
+
+    /**
+     * The model side of rapid entry: a grade checked on every keystroke as
+     * it is typed, then parsed and added. The student is removed again so
+     * the roster keeps its size.
+     */
+    static class TypedEntry implements BenchmarkRunner.Benchmark {
+        private StudentStore store;
+        private String[][] keystrokes;
+
+        public String name() { return "typedEntry"; }
+
+        public void setUp(int size) {
+            store = roster(size);
+            keystrokes = new String[CHURN_OPERATIONS][];
+            for (int i = 0; i < CHURN_OPERATIONS; i++) {
+                String text = Double.toString(grade(i));
+                keystrokes[i] = new String[text.length()];
+                for (int k = 0; k < text.length(); k++) {
+                    keystrokes[i][k] = text.substring(0, k + 1);
+                }
+            }
+        }
+
+        public long invoke() {
+            long valid = 0;
+            for (String[] typed : keystrokes) {
+                for (String text : typed) {
+                    if (GradeInput.check(text) == GradeInput.Status.VALID) valid++;
+                }
+                Student student = store.add("New student", GradeInput.parse(typed[typed.length - 1]));
+                store.remove(student.getId());
+            }
+            return valid + store.size();
+        }
+
+        public long operationsPerInvocation(int size) { return CHURN_OPERATIONS; }
+    }
+}
@@ -0,0 +1,58 @@
+package gradebook.bench;
+
+import gradebook.GradeDistribution;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Error bounds of the histogram percentiles. For several grade
+ * distributions, compares the P1..P99 reported by {@link GradeDistribution}
+ * with the exact values from a sorted copy and prints the largest error.
+ *
+ * Usage: java -cp out gradebook.bench.HistogramAccuracy [students]
+ */
+public class HistogramAccuracy {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+
+        report("one decimal, uniform", n, () -> random.nextInt(1001) / 10.0);
+        report("continuous, uniform", n, () -> random.nextDouble() * 100);
+        report("continuous, normal(75, 10)", n,
+                () -> Math.max(0, Math.min(100, 75 + 10 * random.nextGaussian())));
+        report("two decimals, clustered", n,
+                () -> Math.max(0, Math.min(100, Math.round((88 + 2 * random.nextGaussian()) * 100) / 100.0)));
+    }
+
+    private static void report(String label, int n, DoubleSupplier source) {
+        double[] grades = new double[n];
+        GradeDistribution distribution = new GradeDistribution();
+        for (int i = 0; i < n; i++) {
+            grades[i] = source.getAsDouble();
+            distribution.add(grades[i]);
+        }
+        Arrays.sort(grades);
+
+        double worst = 0;
+        int worstPercentile = 0;
+        for (int p = 1; p <= 99; p++) {
+            double error = Math.abs(distribution.getPercentile(p) - exactPercentile(grades, p));
+            if (error > worst) {
+                worst = error;
+                worstPercentile = p;
+            }
+        }
+        System.out.printf("%-28s n=%,d  max |error| %.4f (at P%d)%n", label, n, worst, worstPercentile);
+    }
+
+    // Same definition as GradeHistogram: linear between the closest ranks
+    private static double exactPercentile(double[] sorted, double p) {
+        double rank = p / 100.0 * (sorted.length - 1);
+        int lower = (int) Math.floor(rank);
+        int upper = Math.min(sorted.length - 1, lower + 1);
+        return sorted[lower] + (rank - lower) * (sorted[upper] - sorted[lower]);
+    }
+}
@@ -0,0 +1,242 @@
+package gradebook.bench;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import gradebook.GradeAnalytics;
+import gradebook.GradeDistribution;
+import gradebook.MappedRoster;
+import gradebook.Student;
+import gradebook.StudentStore;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.ref.Reference;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Builds a roster of N students and summarizes it a few times, once per
+ * layout: the original one (a Student object per row, held in two
+ * ArrayLists), {@link StudentStore} and {@link MappedRoster}. Reports build
+ * and median summary times, the garbage collector's pauses, the heap in
+ * use afterwards and the resident set size, split into anonymous memory
+ * (heap and other private memory) and file pages (the mapped roster).
+ *
+ * Each layout runs in its own JVM with the same -Xmx, so that one layout's
+ * heap and GC history does not skew the next. A layout that runs out of
+ * heap is reported as such, with the pauses it went through on the way.
+ *
+ *   java -cp out gradebook.bench.MappedRosterBenchmark [students] [heap] [dir]
+ *
+ * The defaults are 50,000,000 students, a 3g heap and the directory
+ * mapped-bench, which needs room for the mapped files (about 2 GB).
+ */
+public class MappedRosterBenchmark {
+
+    private static final String[] LAYOUTS = {"legacy", "store", "mapped"};
+    private static final int SUMMARY_ROUNDS = 5;
+
+    /** Field layout of the Student class before the columnar store. */
+    private static class LegacyStudent {
+        private final String name;
+        private final double grade;
+        private final String letterGrade;
+
+        LegacyStudent(String name, double grade) {
+            this.name = name;
+            this.grade = grade;
+            this.letterGrade = Student.calculateLetterGrade(grade);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--layout")) {
+            runLayout(args[1], Integer.parseInt(args[2]), Path.of(args[3]));
+            return;
+        }
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 50_000_000;
+        String heap = args.length > 1 ? args[1] : "3g";
+        Path directory = Path.of(args.length > 2 ? args[2] : "mapped-bench");
+        System.out.printf("%,d students, -Xmx%s%n", n, heap);
+        System.out.printf("%-8s %10s %12s %6s %11s %10s %11s %11s %11s%n", "layout", "build ms", "summary ms",
+                "GCs", "pauses ms", "max ms", "heap MB", "anon RSS MB", "file RSS MB");
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        for (String layout : LAYOUTS) {
+            Process child = new ProcessBuilder(java, "-Xmx" + heap, "-cp", System.getProperty("java.class.path"),
+                    MappedRosterBenchmark.class.getName(), "--layout", layout, Integer.toString(n),
+                    directory.toString())
+                    .redirectErrorStream(true)
+                    .start();
+            try (BufferedReader out = new BufferedReader(
+                    new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+                out.lines().forEach(System.out::println);
+            }
+            child.waitFor();
+        }
+    }
+
+    private static void runLayout(String layout, int n, Path directory) throws IOException {
+        PauseRecorder pauses = new PauseRecorder();
+        long start = System.nanoTime();
+        long build = 0;
+        long[] summaries = new long[SUMMARY_ROUNDS];
+        int built = 0;
+        GradeDistribution distribution = null;
+        String failure = null;
+        // Kept reachable until the heap and RSS have been read
+        Object roster = null;
+        MappedRoster mapped = null;
+        Path files = null;
+        try {
+            switch (layout) {
+                case "legacy": {
+                    List<LegacyStudent> students = new ArrayList<>();
+                    List<LegacyStudent> studentData = new ArrayList<>();
+                    roster = students;
+                    for (; built < n; built++) {
+                        LegacyStudent student = new LegacyStudent(name(built), grade(built));
+                        students.add(student);
+                        studentData.add(student);
+                    }
+                    build = System.nanoTime() - start;
+                    for (int round = 0; round < SUMMARY_ROUNDS; round++) {
+                        long t = System.nanoTime();
+                        distribution = new GradeDistribution();
+                        for (LegacyStudent student : studentData) {
+                            distribution.add(student.grade);
+                        }
+                        summaries[round] = System.nanoTime() - t;
+                    }
+                    break;
+                }
+                case "store": {
+                    StudentStore store = new StudentStore();
+                    roster = store;
+                    for (; built < n; built++) {
+                        store.add(name(built), grade(built));
+                    }
+                    build = System.nanoTime() - start;
+                    for (int round = 0; round < SUMMARY_ROUNDS; round++) {
+                        long t = System.nanoTime();
+                        distribution = GradeAnalytics.analyze(store);
+                        summaries[round] = System.nanoTime() - t;
+                    }
+                    break;
+                }
+                case "mapped": {
+                    Files.createDirectories(directory);
+                    files = Files.createTempDirectory(directory, "roster");
+                    mapped = MappedRoster.open(files);
+                    for (; built < n; built++) {
+                        mapped.add(name(built), grade(built));
+                    }
+                    mapped.flush();
+                    build = System.nanoTime() - start;
+                    for (int round = 0; round < SUMMARY_ROUNDS; round++) {
+                        long t = System.nanoTime();
+                        distribution = mapped.analyze();
+                        summaries[round] = System.nanoTime() - t;
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown layout: " + layout);
+            }
+        } catch (OutOfMemoryError e) {
+            roster = null;
+            failure = String.format("OutOfMemoryError after %,d students, %.1f s", built,
+                    (System.nanoTime() - start) / 1e9);
+        }
+
+        long[] gc = pauses.totals();
+        long[] rss = residentSet();
+        long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        Arrays.sort(summaries);
+        if (failure != null) {
+            System.out.printf("%-8s %s%n%8s %10s %12s %6d %11d %10d %11d %11d %11d%n", layout, failure, "", "-", "-",
+                    gc[0], gc[1], gc[2], heap >> 20, rss[0] >> 10, rss[1] >> 10);
+        } else {
+            System.out.printf("%-8s %10.0f %12.1f %6d %11d %10d %11d %11d %11d%n", layout, build / 1e6,
+                    summaries[SUMMARY_ROUNDS / 2] / 1e6, gc[0], gc[1], gc[2],
+                    heap >> 20, rss[0] >> 10, rss[1] >> 10);
+            System.out.println("         " + distribution);
+        }
+        Reference.reachabilityFence(roster);
+        if (mapped != null) {
+            mapped.close();
+        }
+        if (files != null) {
+            try (Stream<Path> paths = Files.list(files)) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    Files.delete(path);
+                }
+            }
+            Files.delete(files);
+        }
+    }
+
+    private static String name(int i) {
+        return "Student " + i;
+    }
+
+    private static double grade(int i) {
+        return (i * 37 % 1001) / 10.0;
+    }
+
+    // RssAnon and RssFile in kB, from /proc (zeros where it does not exist)
+    private static long[] residentSet() {
+        long[] rss = new long[2];
+        try (Stream<String> lines = Files.lines(Path.of("/proc/self/status"))) {
+            lines.forEach(line -> {
+                if (line.startsWith("RssAnon:")) rss[0] = kilobytes(line);
+                else if (line.startsWith("RssFile:")) rss[1] = kilobytes(line);
+            });
+        } catch (IOException e) {
+            // Not Linux
+        }
+        return rss;
+    }
+
+    private static long kilobytes(String line) {
+        return Long.parseLong(line.replaceAll("[^0-9]", ""));
+    }
+
+    /** Totals the stop-the-world pauses the collectors report. */
+    private static final class PauseRecorder {
+        // Written by the notification thread
+        private int count;
+        private long totalMillis;
+        private long maxMillis;
+
+        PauseRecorder() {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                    GarbageCollectionNotificationInfo info =
+                            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    // Concurrent cycles run beside the application, they do not pause it
+                    if (info.getGcName().contains("Concurrent")) return;
+                    long millis = info.getGcInfo().getDuration();
+                    synchronized (this) {
+                        count++;
+                        totalMillis += millis;
+                        maxMillis = Math.max(maxMillis, millis);
+                    }
+                }, notification -> notification.getType()
+                        .equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION), null);
+            }
+        }
+
+        synchronized long[] totals() {
+            return new long[] {count, totalMillis, maxMillis};
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package gradebook.bench;
+
+import gradebook.Student;
+import gradebook.StudentStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares heap bytes per student between the original layout (a Student
+ * object per row held in both an ArrayList and an observable list) and
+ * {@link StudentStore}.
+ *
+ * Usage: java -Xmx4g -cp out gradebook.bench.MemoryBenchmark [students]
+ */
+public class MemoryBenchmark {
+
+    /** Field layout of the Student class before the columnar store. */
+    private static class LegacyStudent {
+        private final String name;
+        private final double grade;
+        private final String letterGrade;
+
+        LegacyStudent(String name, double grade) {
+            this.name = name;
+            this.grade = grade;
+            this.letterGrade = Student.calculateLetterGrade(grade);
+        }
+    }
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long before = usedHeap();
+        List<LegacyStudent> students = new ArrayList<>();
+        List<LegacyStudent> studentData = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            LegacyStudent student = new LegacyStudent(name(i), grade(i));
+            students.add(student);
+            studentData.add(student);
+        }
+        long legacy = usedHeap() - before;
+        report("ArrayList<Student> x2", legacy, n, students.size());
+        students = null;
+        studentData = null;
+
+        before = usedHeap();
+        StudentStore store = new StudentStore();
+        for (int i = 0; i < n; i++) {
+            store.add(name(i), grade(i));
+        }
+        long columnar = usedHeap() - before;
+        report("StudentStore", columnar, n, store.size());
+        System.out.printf("StudentStore self-reported footprint: %.1f bytes/student%n",
+                (double) store.footprint() / n);
+    }
+
+    private static String name(int i) {
+        return "Student " + i;
+    }
+
+    private static double grade(int i) {
+        return (i * 37 % 1001) / 10.0;
+    }
+
+    private static void report(String label, long bytes, int n, int keepAlive) {
+        System.out.printf("%-24s %,14d bytes  %8.1f bytes/student  (%d rows)%n",
+                label, bytes, (double) bytes / n, keepAlive);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,93 @@
+package gradebook.bench;
+
+import gradebook.RosterJournal;
+import gradebook.RosterPersistence;
+import gradebook.RosterSnapshot;
+import gradebook.StudentBatch;
+import gradebook.StudentStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Measures snapshot write/load and journal append/replay for a large roster.
+ * Run the "load" phase in a fresh JVM to get a cold start figure:
+ *
+ *   java -Xmx2g -cp out gradebook.bench.PersistenceBenchmark [students] [dir]
+ *   java -Xmx2g -cp out gradebook.bench.PersistenceBenchmark load [dir]
+ */
+public class PersistenceBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("load")) {
+            Path directory = Path.of(args.length > 1 ? args[1] : "roster-bench");
+            long start = System.nanoTime();
+            StudentStore store = new StudentStore();
+            RosterPersistence persistence = RosterPersistence.open(directory, store);
+            report("cold open (snapshot + journal)", start, store.size());
+            persistence.close();
+            return;
+        }
+
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path directory = Path.of(args.length > 1 ? args[1] : "roster-bench");
+        deleteRecursively(directory);
+
+        StudentStore store = new StudentStore();
+        RosterPersistence persistence = RosterPersistence.open(directory, store);
+
+        long start = System.nanoTime();
+        StudentBatch batch = new StudentBatch(50_000);
+        for (int i = 0; i < n; i++) {
+            batch.add("Student " + i, (i * 37 % 1001) / 10.0);
+            if (batch.size() == 50_000) {
+                store.addAll(batch);
+                batch.clear();
+            }
+        }
+        store.addAll(batch);
+        persistence.sync();
+        report("add + journal + fsync", start, n);
+
+        start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            store.setGrade(store.getId(i), (i * 53 % 1001) / 10.0);
+        }
+        persistence.sync();
+        report("setGrade + journal + fsync", start, n);
+
+        long journalBytes = Files.size(directory.resolve(RosterPersistence.JOURNAL_FILE));
+        start = System.nanoTime();
+        StudentStore replayed = new StudentStore();
+        RosterJournal.replay(directory.resolve(RosterPersistence.JOURNAL_FILE), replayed, 0);
+        report(String.format("journal replay (%,d bytes)", journalBytes), start, n * 2);
+
+        start = System.nanoTime();
+        persistence.checkpoint();
+        long snapshotBytes = Files.size(directory.resolve(RosterPersistence.SNAPSHOT_FILE));
+        report(String.format("snapshot write (%,d bytes)", snapshotBytes), start, n);
+        persistence.close();
+
+        start = System.nanoTime();
+        StudentStore loaded = new StudentStore();
+        RosterSnapshot.load(directory.resolve(RosterPersistence.SNAPSHOT_FILE), loaded);
+        report("snapshot load (warm JVM)", start, loaded.size());
+    }
+
+    private static void report(String label, long startNanos, long operations) {
+        double millis = (System.nanoTime() - startNanos) / 1e6;
+        System.out.printf("%-40s %10.1f ms  %,14.0f ops/s%n", label, millis, operations / (millis / 1000));
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) return;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
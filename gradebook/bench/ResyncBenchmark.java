@@ -0,0 +1,141 @@
+package gradebook.bench;
+
+import gradebook.GradeIndex;
+import gradebook.NameIndex;
+import gradebook.RosterImporter;
+import gradebook.RosterPersistence;
+import gradebook.RosterSync;
+import gradebook.StudentStore;
+import gradebook.UndoHistory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Applies a re-sent roster in which 1% of the grades changed, once by
+ * wiping the store and importing the file again and once with a
+ * {@link RosterSync} by student number, and reports the time of each and
+ * how many rows the store's listeners were told about.
+ *
+ * The store has what the app attaches to it: the undo history, the name
+ * and grade indexes and the on-disk journal. Each way is run a few times
+ * (the sync alternating between the two files, so every run changes 1% of
+ * the rows) and the median is reported.
+ *
+ *   java -Xmx2g -cp out gradebook.bench.ResyncBenchmark [students] [dir]
+ */
+public class ResyncBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final int CHANGED_EVERY = 100;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path directory = Path.of(args.length > 1 ? args[1] : "resync-bench");
+        Files.createDirectories(directory);
+        Path original = directory.resolve("roster.csv");
+        Path changed = directory.resolve("roster-changed.csv");
+        writeRoster(original, n, false);
+        writeRoster(changed, n, true);
+
+        Path data = Files.createTempDirectory(directory, "data");
+        StudentStore store = new StudentStore();
+        TouchCounter touched = new TouchCounter();
+        store.addListener(touched);
+        UndoHistory history = new UndoHistory(store);
+        NameIndex names = new NameIndex(store);
+        GradeIndex grades = new GradeIndex(store);
+        RosterImporter importer = new RosterImporter();
+        try (RosterPersistence persistence = RosterPersistence.open(data, store)) {
+            importer.read(original, store::addAll, null);
+            persistence.checkpoint();
+
+            long[] reload = new long[ROUNDS];
+            long reloadTouched = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                touched.rows = 0;
+                long start = System.nanoTime();
+                history.beginGroup();
+                store.clear();
+                importer.read(round % 2 == 0 ? changed : original, store::addAll, null);
+                history.endGroup();
+                reload[round] = System.nanoTime() - start;
+                reloadTouched = touched.rows;
+                persistence.checkpoint();
+            }
+
+            long[] sync = new long[ROUNDS];
+            long syncTouched = 0;
+            RosterSync.Result result = null;
+            for (int round = 0; round < ROUNDS; round++) {
+                touched.rows = 0;
+                long start = System.nanoTime();
+                history.beginGroup();
+                RosterSync sink = new RosterSync(store);
+                importer.read(round % 2 == 0 ? original : changed, sink, null);
+                result = sink.finish(true);
+                history.endGroup();
+                sync[round] = System.nanoTime() - start;
+                syncTouched = touched.rows;
+            }
+
+            System.out.printf("%,d students, %d%% of grades changed%n", n, 100 / CHANGED_EVERY);
+            report("wipe and reload", reload, reloadTouched);
+            report("sync by student number", sync, syncTouched);
+            System.out.println("  last sync: " + result);
+        } finally {
+            names.close();
+            grades.close();
+        }
+    }
+
+    private static void writeRoster(Path path, int n, boolean changed) throws IOException {
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), 1 << 16)) {
+            out.write("id,name,grade\n");
+            for (int i = 0; i < n; i++) {
+                double grade = (i * 37 % 1001) / 10.0;
+                if (changed && i % CHANGED_EVERY == 0) {
+                    grade = grade >= 50 ? grade - 5 : grade + 5;
+                }
+                out.write((2_000_000_000L + i) + ",Student " + i + "," + grade + "\n");
+            }
+        }
+    }
+
+    private static void report(String label, long[] nanos, long touched) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("  %-24s median %8.1f ms  min %8.1f ms  %,10d rows touched%n",
+                label, sorted[sorted.length / 2] / 1e6, sorted[0] / 1e6, touched);
+    }
+
+    // Rows the store's listeners were told about
+    private static final class TouchCounter implements StudentStore.Listener {
+        long rows;
+
+        @Override
+        public void rowsAdded(int fromRow, int toRow) { rows += toRow - fromRow; }
+
+        @Override
+        public void rowsRemoved(int[] removed, int count) { rows += count; }
+
+        @Override
+        public void rowsInserted(int[] inserted, int count) { rows += count; }
+
+        @Override
+        public void gradeChanged(int row, double oldGrade, double newGrade) { rows++; }
+
+        @Override
+        public void gradesChanged(int[] changed, int count, double[] oldGrades, double[] newGrades) {
+            rows += count;
+        }
+
+        @Override
+        public void nameChanged(int row) { rows++; }
+    }
+}
@@ -0,0 +1,252 @@
+package gradebook.bench;
+
+import gradebook.ConcurrentGradebook;
+import gradebook.GradebookServer;
+import gradebook.StudentBatch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for {@link GradebookServer} over localhost. Client threads send
+ * a mix of requests back to back (40% grade updates, 20% adds, 10% deletes,
+ * 20% summaries, 10% 100-row pages) for a fixed time and the harness
+ * reports requests per second and latency percentiles; then one ingest
+ * request of 100K JSON Lines rows measures bulk throughput. Each client
+ * keeps one connection open, like wrk, and uses a minimal socket client so
+ * that the harness leaves the CPU to the server.
+ *
+ * Without a URL it starts a server in-process on a free port, preloaded
+ * with 10K students. Given a URL it loads that server instead, whose
+ * students should have ids 0..9999.
+ *
+ *   java -cp out gradebook.bench.ServerLoadTest [clients] [seconds] [url]
+ */
+public class ServerLoadTest {
+
+    private static final int PRELOADED = 10_000;
+    private static final int INGEST_ROWS = 100_000;
+
+    private static final AtomicLong errors = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        // See GradebookServer; it only matters for the in-process server
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        GradebookServer server = null;
+        String url;
+        if (args.length > 2) {
+            url = args[2].replaceAll("/$", "");
+        } else {
+            ConcurrentGradebook gradebook = new ConcurrentGradebook();
+            StudentBatch batch = new StudentBatch(PRELOADED);
+            for (int i = 0; i < PRELOADED; i++) {
+                batch.add("Student " + i, (i * 37 % 1001) / 10.0);
+            }
+            gradebook.addAll(batch);
+            server = GradebookServer.start(gradebook, 0);
+            url = "http://localhost:" + server.getPort();
+        }
+
+        URI uri = URI.create(url);
+        // Warm-up, so the JIT is not measured
+        run(uri, clients, 2);
+        errors.set(0);
+        long[][] latencies = run(uri, clients, seconds);
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%d clients, %d s: %,d requests, %,.0f requests/s, %d failed%n",
+                clients, seconds, all.length, all.length / (double) seconds, errors.get());
+        System.out.printf("latency p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(all, 50), percentile(all, 90), percentile(all, 99), all[all.length - 1] / 1e6);
+
+        StringBuilder body = new StringBuilder(INGEST_ROWS * 40);
+        for (int i = 0; i < INGEST_ROWS; i++) {
+            body.append("{\"name\":\"Ingested ").append(i).append("\",\"grade\":").append(i % 1001 / 10.0).append("}\n");
+        }
+        try (Connection connection = new Connection(uri)) {
+            long start = System.nanoTime();
+            int status = connection.send("POST", "/ingest", body.toString());
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("ingest of %,d rows (%.1f MB): HTTP %d in %.0f ms, %,.0f rows/s%n",
+                    INGEST_ROWS, body.length() / 1e6, status, elapsed * 1e3, INGEST_ROWS / elapsed);
+        }
+
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /** Runs the mix on every client for the given time and returns each client's latencies in ns. */
+    private static long[][] run(URI uri, int clients, int seconds) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        long[][] latencies = new long[clients][];
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int index = c;
+            threads.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(index);
+                long[] samples = new long[1 << 16];
+                int count = 0;
+                Connection connection = null;
+                while (running.get()) {
+                    long start = System.nanoTime();
+                    try {
+                        if (connection == null) {
+                            connection = new Connection(uri);
+                        }
+                        if (send(connection, random) >= 500) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        // The server dropped the connection; count it and reconnect
+                        errors.incrementAndGet();
+                        connection.close();
+                        connection = null;
+                        continue;
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - start;
+                }
+                if (connection != null) {
+                    connection.close();
+                }
+                latencies[index] = Arrays.copyOf(samples, count);
+            }, "client-" + c));
+        }
+        threads.forEach(Thread::start);
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return latencies;
+    }
+
+    private static int send(Connection connection, SplittableRandom random) throws IOException {
+        int choice = random.nextInt(100);
+        int id = random.nextInt(PRELOADED);
+        if (choice < 40) {
+            return connection.send("PUT", "/students/" + id, "{\"grade\":" + random.nextInt(1001) / 10.0 + "}");
+        } else if (choice < 60) {
+            return connection.send("POST", "/students", "{\"name\":\"Load " + id + "\",\"grade\":75}");
+        } else if (choice < 70) {
+            // Mostly 404s once the preloaded students are gone, which is fine for load
+            return connection.send("DELETE", "/students/" + id, null);
+        } else if (choice < 90) {
+            return connection.send("GET", "/summary", null);
+        } else {
+            return connection.send("GET", "/students?after=" + id + "&limit=100", null);
+        }
+    }
+
+    /**
+     * Minimal HTTP/1.1 keep-alive client over a blocking socket, so the
+     * harness spends as little CPU per request as possible and the server
+     * gets the machine. Reads and discards fixed-length and chunked bodies.
+     */
+    private static final class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final String host;
+        private final StringBuilder line = new StringBuilder();
+
+        Connection(URI uri) throws IOException {
+            socket = new Socket(uri.getHost(), uri.getPort() < 0 ? 80 : uri.getPort());
+            socket.setTcpNoDelay(true);
+            in = new BufferedInputStream(socket.getInputStream(), 64 << 10);
+            out = new BufferedOutputStream(socket.getOutputStream(), 64 << 10);
+            host = uri.getAuthority();
+        }
+
+        /** Sends one request and reads the whole response; returns its status. */
+        int send(String method, String path, String body) throws IOException {
+            byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+            out.write((method + " " + path + " HTTP/1.1\r\nHost: " + host + "\r\nContent-Length: "
+                    + content.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(content);
+            out.flush();
+
+            String statusLine = readLine();
+            if (statusLine.length() < 12) {
+                throw new IOException("Bad status line: " + statusLine);
+            }
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            long length = 0;
+            boolean chunked = false;
+            for (String header; !(header = readLine()).isEmpty(); ) {
+                int colon = header.indexOf(':');
+                String name = header.substring(0, Math.max(colon, 0)).trim();
+                String value = header.substring(colon + 1).trim();
+                if (name.equalsIgnoreCase("Content-Length")) {
+                    length = Long.parseLong(value);
+                } else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+                    chunked = value.equalsIgnoreCase("chunked");
+                }
+            }
+            if (chunked) {
+                for (int size; (size = Integer.parseInt(readLine().trim(), 16)) > 0; ) {
+                    skip(size);
+                    readLine();
+                }
+                readLine();
+            } else {
+                skip(length);
+            }
+            return status;
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+
+        private String readLine() throws IOException {
+            line.setLength(0);
+            for (int b; (b = in.read()) != '\n'; ) {
+                if (b < 0) throw new EOFException("Connection closed");
+                if (b != '\r') line.append((char) b);
+            }
+            return line.toString();
+        }
+
+        private void skip(long count) throws IOException {
+            while (count > 0) {
+                long skipped = in.skip(count);
+                if (skipped <= 0) {
+                    if (in.read() < 0) throw new EOFException("Connection closed");
+                    skipped = 1;
+                }
+                count -= skipped;
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(p / 100 * (sorted.length - 1)))] / 1e6;
+    }
+}
@@ -0,0 +1,111 @@
+package gradebook.bench;
+
+import gradebook.StudentBatch;
+import gradebook.StudentStore;
+import gradebook.UndoHistory;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Heap bytes an {@link UndoHistory} holds per 10,000 recorded operations
+ * of each kind, on a roster of the given size, and how long undoing and
+ * redoing all of them takes.
+ *
+ * Usage: java -Xmx2g -cp out gradebook.bench.UndoBenchmark [students]
+ */
+public class UndoBenchmark {
+
+    private static final int OPERATIONS = 10_000;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        System.out.printf("%-22s %14s %14s %12s %12s%n",
+                "operation", "heap bytes", "self-reported", "undo all", "redo all");
+        run(n, "setGrade", (store, i) -> store.setGrade(store.getId(i * 7 % store.size()), grade(i + 1)));
+        run(n, "setName", (store, i) -> store.setName(store.getId(i * 7 % store.size()), "Renamed " + i));
+        run(n, "add", (store, i) -> store.add(name(n + i), grade(i)));
+        run(n, "remove", (store, i) -> store.remove(store.getId(i * 7 % store.size())));
+        run(n, "bulk remove (1 op)", (store, i) -> {
+            if (i == 0) {
+                int[] rows = new int[OPERATIONS];
+                for (int r = 0; r < OPERATIONS; r++) {
+                    rows[r] = r * (store.size() / OPERATIONS);
+                }
+                store.removeRows(rows, OPERATIONS);
+            }
+        });
+        run(n, "bulk import (1 op)", (store, i) -> {
+            if (i == 0) {
+                StudentBatch batch = new StudentBatch(OPERATIONS);
+                for (int r = 0; r < OPERATIONS; r++) {
+                    batch.add(name(n + r), grade(r));
+                }
+                store.addAll(batch);
+            }
+        });
+        System.out.printf("For comparison, one copy of the roster per step would cost %,d bytes per 10K steps%n",
+                (long) OPERATIONS * n * 20);
+    }
+
+    private static void run(int n, String label, BiConsumer<StudentStore, Integer> operation) {
+        StudentStore store = roster(n);
+        // Pre-intern the new names so the pool's growth is not charged to the history
+        for (int i = 0; i < OPERATIONS; i++) {
+            store.getNames().intern("Renamed " + i);
+            store.getNames().intern(name(n + i));
+        }
+
+        UndoHistory history = new UndoHistory(store);
+        for (int i = 0; i < OPERATIONS; i++) {
+            operation.accept(store, i);
+        }
+        long withHistory = usedHeap() - store.footprint();
+        long footprint = history.footprint();
+
+        long start = System.nanoTime();
+        while (history.undo()) {
+            // undo everything
+        }
+        long undoNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        while (history.redo()) {
+            // redo everything
+        }
+        long redoNanos = System.nanoTime() - start;
+
+        // Measured against the same roster without the log; undo and redo may
+        // resize the store's columns, so its own footprint is taken out of both
+        history.close();
+        history = null;
+        long bytes = withHistory - (usedHeap() - store.footprint());
+        System.out.printf("%-22s %,14d %,14d %9.1f ms %9.1f ms%n",
+                label, bytes, footprint, undoNanos / 1e6, redoNanos / 1e6);
+    }
+
+    private static StudentStore roster(int n) {
+        StudentStore store = new StudentStore();
+        StudentBatch batch = new StudentBatch(n);
+        for (int i = 0; i < n; i++) {
+            batch.add(name(i), grade(i));
+        }
+        store.addAll(batch);
+        return store;
+    }
+
+    private static String name(int i) {
+        return "Student " + i;
+    }
+
+    private static double grade(int i) {
+        return (i * 37 % 1001) / 10.0;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
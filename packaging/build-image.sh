@@ -0,0 +1,102 @@
+#!/bin/sh
+# Builds a self-contained runtime image of the tracker: a jlink'd JDK with
+# only the modules the app uses, the JavaFX modules, the app jar with its
+# stylesheets precompiled to binary CSS, and class data sharing archives
+# so that classes are mapped in at startup instead of loaded and verified.
+#
+# Usage: packaging/build-image.sh <javafx-sdk> <javafx-jmods> [output-dir]
+#
+# <javafx-sdk> is the unpacked JavaFX SDK (its lib/ holds the jars used to
+# compile), <javafx-jmods> the matching jmods download. jlink and javac
+# are taken from JAVA_HOME, or from the PATH. The image goes to
+# build/image unless an output directory is given; start it with
+# <output-dir>/bin/student-grade-tracker.
+set -eu
+
+if [ $# -lt 2 ]; then
+    echo "usage: $0 <javafx-sdk> <javafx-jmods> [output-dir]" >&2
+    exit 2
+fi
+FX_SDK=$1
+FX_JMODS=$2
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+BUILD=$ROOT/build
+OUT=${3:-$BUILD/image}
+
+if [ -n "${JAVA_HOME:-}" ]; then
+    JDK=$JAVA_HOME
+else
+    JDK=$(cd "$(dirname "$(command -v jlink)")/.." && pwd)
+fi
+if [ ! -d "$JDK/jmods" ]; then
+    echo "$JDK has no jmods; set JAVA_HOME to a full JDK" >&2
+    exit 1
+fi
+
+echo "Compiling"
+rm -rf "$BUILD/classes" "$OUT"
+mkdir -p "$BUILD/classes"
+find "$ROOT" -name '*.java' -not -path "$BUILD/*" > "$BUILD/sources.txt"
+"$JDK/bin/javac" -encoding UTF-8 --module-path "$FX_SDK/lib" --add-modules javafx.controls \
+    -d "$BUILD/classes" @"$BUILD/sources.txt"
+
+# JavaFX loads name.bss in place of name.css when it is there, which saves
+# parsing the stylesheet on every start
+echo "Compiling stylesheets"
+for css in "$ROOT"/*.css; do
+    name=$(basename "$css" .css)
+    cp "$css" "$BUILD/classes/"
+    "$JDK/bin/java" --module-path "$FX_SDK/lib" \
+        -m javafx.graphics/com.sun.javafx.css.parser.Css2Bin "$css" "$BUILD/classes/$name.bss"
+done
+
+"$JDK/bin/jar" --create --file "$BUILD/student-grade-tracker.jar" --main-class StudentGradeTracker \
+    -C "$BUILD/classes" .
+
+# The modules jdeps reports for the app, and no more
+echo "Linking runtime image"
+"$JDK/bin/jlink" --module-path "$JDK/jmods:$FX_JMODS" \
+    --add-modules java.base,java.management,jdk.management,jdk.jfr,jdk.httpserver,javafx.controls \
+    --strip-debug --no-header-files --no-man-pages --compress=2 \
+    --output "$OUT"
+
+# The default CDS archive covers the JDK and JavaFX classes loaded by any
+# Java program; jlink's --generate-cds-archive does the same on JDK 18+
+"$OUT/bin/java" -Xshare:dump > /dev/null
+
+mkdir -p "$OUT/app"
+cp "$BUILD/student-grade-tracker.jar" "$OUT/app/"
+
+# The app's own classes go in a dynamic archive written by the first run,
+# or by the training run below, and used by every run after it
+cat > "$OUT/bin/student-grade-tracker" <<'LAUNCHER'
+#!/bin/sh
+HOME_DIR=$(cd "$(dirname "$0")/.." && pwd)
+APP=$HOME_DIR/app
+if [ -f "$APP/student-grade-tracker.jsa" ]; then
+    SHARE="-XX:SharedArchiveFile=$APP/student-grade-tracker.jsa"
+elif [ -w "$APP" ]; then
+    SHARE="-XX:ArchiveClassesAtExit=$APP/student-grade-tracker.jsa"
+else
+    SHARE=
+fi
+exec "$HOME_DIR/bin/java" -Xshare:auto $SHARE ${JAVA_OPTS:-} \
+    -cp "$APP/student-grade-tracker.jar" StudentGradeTracker "$@"
+LAUNCHER
+chmod +x "$OUT/bin/student-grade-tracker"
+
+# Training run: starts the app until it is interactive and exits, which
+# writes the archive. Without a display it fails, and the first real
+# launch writes the archive instead.
+echo "Training class data sharing archive"
+TRAINING_DATA=$(mktemp -d)
+if JAVA_OPTS="-Dgradetracker.startup=exit -Dgradetracker.data=$TRAINING_DATA" \
+        "$OUT/bin/student-grade-tracker"; then
+    echo "Archive written to $OUT/app/student-grade-tracker.jsa"
+else
+    rm -f "$OUT/app/student-grade-tracker.jsa"
+    echo "Training run failed (no display?); the first launch will write the archive" >&2
+fi
+rm -rf "$TRAINING_DATA"
+
+du -sh "$OUT"